@@ -0,0 +1,45 @@
+/*FasesCompilador - Implementação de desempenho.Fases sobre as classes do compilador
+Carregada pelo nome pelo BenchmarkCompilador (ver Fases). O programa é produzido pelo
+GeradorProgramas e analisado uma vez na preparação; cada fase medida parte do resultado da
+anterior, como no compilador.
+ */
+// FasesCompilador.java
+import desempenho.Fases;
+
+public final class FasesCompilador implements Fases {
+    private String codigo;
+    private BufferTokens tokens;
+    private AnalisadorSintatico sintatico;
+
+    @Override
+    public int preparar(long semente, String tamanho) {
+        codigo = GeradorProgramas.gerar(semente, GeradorProgramas.tamanho(tamanho));
+        Diagnostics diagnosticos = new Diagnostics();
+        tokens = AnalisadorLexico.tokenizar(codigo, diagnosticos);
+        sintatico = new AnalisadorSintatico(tokens.cursor(), diagnosticos);
+        sintatico.analisarPrograma();
+        if (diagnosticos.temErros()) {
+            // O gerador deve produzir programas válidos; com erros, a medição não seria representativa.
+            throw new IllegalStateException("Programa gerado com erros:\n" + diagnosticos.renderizar());
+        }
+        return tokens.tamanho();
+    }
+
+    @Override
+    public int lexico() {
+        return AnalisadorLexico.analisar(codigo, new Diagnostics()).size();
+    }
+
+    @Override
+    public int sintatico() {
+        AnalisadorSintatico s = new AnalisadorSintatico(tokens.cursor(), new Diagnostics());
+        s.analisarPrograma();
+        return s.getArvore().tamanho();
+    }
+
+    @Override
+    public int gerador() {
+        return new GeradorCodigo(sintatico.getArvore(), sintatico.getSimbolos(), sintatico.getFuncoes())
+                .gerarCodigo().length();
+    }
+}
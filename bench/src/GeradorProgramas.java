@@ -0,0 +1,288 @@
+/*GeradorProgramas - Gerador de programas MACSLang válidos para medição de desempenho
+Produz, a partir de uma semente, sempre o mesmo programa com aproximadamente o tamanho pedido
+(de 1 KB a centenas de MB). O programa é uma sequência de funções seguidas de comandos globais
+que as chamam, com:
+- laços for/while e if/else aninhados;
+- expressões longas (aritméticas, relacionais e chamadas de funções já declaradas);
+- concatenação de strings em print;
+- comentários de linha e de bloco.
+Os tipos são acompanhados durante a geração, de modo que o programa compila sem erros.
+ */
+// GeradorProgramas.java
+import java.util.*;
+
+public final class GeradorProgramas {
+    private static final String[] TEXTOS = {"valor", "resultado parcial", "total = ", "x", "iteração "};
+    private static final String[] RELACIONAIS = {"<", "<=", ">", ">=", "==", "!="};
+    private static final String[] ARITMETICOS = {"+", "-", "*", "/", "%"};
+
+    private final Random aleatorio;
+    private final StringBuilder sb;
+    // Variáveis visíveis, por tipo, em pilha de escopos (cada escopo guarda quantas adicionou).
+    private final List<String> inteiros = new ArrayList<>();
+    private final List<String> reais = new ArrayList<>();
+    private final Deque<int[]> escopos = new ArrayDeque<>();
+    private int funcoes = 0;
+    private int contador = 0;
+
+    private GeradorProgramas(long semente, int capacidade) {
+        this.aleatorio = new Random(semente);
+        this.sb = new StringBuilder(capacidade);
+    }
+
+    /** Gera um programa com pelo menos tamanho caracteres (passa do alvo em no máximo uma função). */
+    public static String gerar(long semente, int tamanho) {
+        GeradorProgramas g = new GeradorProgramas(semente, tamanho + 4096);
+        while (g.sb.length() < tamanho) {
+            g.funcao();
+            g.comandosGlobais();
+        }
+        return g.sb.toString();
+    }
+
+    // Converte "1K", "10M", "100m", "512" em quantidade de caracteres.
+    public static int tamanho(String texto) {
+        String t = texto.trim().toUpperCase();
+        int multiplicador = 1;
+        if (t.endsWith("K")) multiplicador = 1024;
+        else if (t.endsWith("M")) multiplicador = 1024 * 1024;
+        if (multiplicador > 1) t = t.substring(0, t.length() - 1);
+        return Math.toIntExact((long) Integer.parseInt(t) * multiplicador);
+    }
+
+    private void funcao() {
+        int f = funcoes;
+        if (aleatorio.nextInt(4) == 0) {
+            sb.append("/* função f").append(f).append(": gerada automaticamente\n   para medição */\n");
+        }
+        sb.append("func f").append(f).append("(a: int, b: float): int {\n");
+        abrirEscopo();
+        inteiros.add("a");
+        reais.add("b");
+        int comandos = 2 + aleatorio.nextInt(6);
+        for (int i = 0; i < comandos; i++) comando(1, 3);
+        sb.append("    return ");
+        expressaoInteira(3);
+        sb.append(";\n}\n");
+        fecharEscopo();
+        funcoes++; // só pode ser chamada depois de declarada
+    }
+
+    private void comandosGlobais() {
+        int comandos = 1 + aleatorio.nextInt(4);
+        for (int i = 0; i < comandos; i++) comando(0, 2);
+    }
+
+    // Um comando qualquer; profundidade limita o aninhamento de blocos.
+    private void comando(int nivel, int profundidade) {
+        int escolha = aleatorio.nextInt(profundidade > 0 ? 9 : 5);
+        switch (escolha) {
+            case 0, 1 -> declaracao(nivel);
+            case 2 -> atribuicao(nivel);
+            case 3 -> print(nivel);
+            case 4 -> {
+                indentar(nivel);
+                sb.append("// comentário ").append(contador++).append('\n');
+                atribuicao(nivel);
+            }
+            case 5, 6 -> laco(nivel, profundidade);
+            case 7 -> enquanto(nivel, profundidade);
+            default -> condicional(nivel, profundidade);
+        }
+    }
+
+    private void declaracao(int nivel) {
+        indentar(nivel);
+        String nome = "v" + contador++;
+        switch (aleatorio.nextInt(4)) {
+            case 0 -> {
+                sb.append("var ").append(nome).append(": float = ");
+                expressaoReal(3);
+                reais.add(nome);
+            }
+            case 1 -> {
+                sb.append("var ").append(nome).append(": string = ");
+                concatenacao();
+            }
+            case 2 -> {
+                sb.append("var ").append(nome).append(": bool = ");
+                condicao();
+            }
+            default -> {
+                sb.append("var ").append(nome).append(": int = ");
+                expressaoInteira(3);
+                inteiros.add(nome);
+            }
+        }
+        sb.append(";\n");
+    }
+
+    private void atribuicao(int nivel) {
+        indentar(nivel);
+        if (!reais.isEmpty() && aleatorio.nextBoolean()) {
+            sb.append(escolher(reais)).append(" = ");
+            expressaoReal(4);
+        } else {
+            if (inteiros.isEmpty()) {
+                inteiros.add("v" + contador);
+                sb.append("var v").append(contador++).append(": int");
+            } else {
+                sb.append(escolher(inteiros));
+            }
+            sb.append(" = ");
+            expressaoInteira(4);
+        }
+        sb.append(";\n");
+    }
+
+    private void print(int nivel) {
+        indentar(nivel);
+        sb.append("print(");
+        concatenacao();
+        sb.append(");\n");
+    }
+
+    private void laco(int nivel, int profundidade) {
+        String i = "i" + contador++;
+        indentar(nivel);
+        sb.append("for (var ").append(i).append(": int = 0; ").append(i).append(" < ")
+                .append(1 + aleatorio.nextInt(100)).append("; ").append(i).append(" = ").append(i).append(" + 1) {\n");
+        abrirEscopo();
+        inteiros.add(i);
+        bloco(nivel + 1, profundidade - 1);
+        fecharEscopo();
+        indentar(nivel);
+        sb.append("}\n");
+    }
+
+    private void enquanto(int nivel, int profundidade) {
+        String c = "c" + contador++;
+        indentar(nivel);
+        sb.append("var ").append(c).append(": int = ").append(aleatorio.nextInt(50)).append(";\n");
+        inteiros.add(c);
+        indentar(nivel);
+        sb.append("while (").append(c).append(" > 0) {\n");
+        abrirEscopo();
+        bloco(nivel + 1, profundidade - 1);
+        indentar(nivel + 1);
+        sb.append(c).append(" = ").append(c).append(" - 1;\n");
+        fecharEscopo();
+        indentar(nivel);
+        sb.append("}\n");
+    }
+
+    private void condicional(int nivel, int profundidade) {
+        indentar(nivel);
+        sb.append("if (");
+        condicao();
+        sb.append(") {\n");
+        abrirEscopo();
+        bloco(nivel + 1, profundidade - 1);
+        fecharEscopo();
+        indentar(nivel);
+        sb.append('}');
+        if (aleatorio.nextBoolean()) {
+            sb.append(" else {\n");
+            abrirEscopo();
+            bloco(nivel + 1, profundidade - 1);
+            fecharEscopo();
+            indentar(nivel);
+            sb.append('}');
+        }
+        sb.append('\n');
+    }
+
+    private void bloco(int nivel, int profundidade) {
+        int comandos = 1 + aleatorio.nextInt(3);
+        for (int i = 0; i < comandos; i++) comando(nivel, profundidade);
+    }
+
+    // Expressão do tipo int; profundidade limita o tamanho da árvore.
+    private void expressaoInteira(int profundidade) {
+        int termos = profundidade > 0 ? 1 + aleatorio.nextInt(4) : 1;
+        for (int t = 0; t < termos; t++) {
+            if (t > 0) sb.append(' ').append(ARITMETICOS[aleatorio.nextInt(ARITMETICOS.length)]).append(' ');
+            int escolha = aleatorio.nextInt(profundidade > 0 ? 6 : 3);
+            if (escolha == 0 || (escolha == 1 && inteiros.isEmpty())) {
+                sb.append(aleatorio.nextInt(1000));
+            } else if (escolha == 1 || escolha == 2) {
+                sb.append(inteiros.isEmpty() ? "1" : escolher(inteiros));
+            } else if (escolha == 3 && funcoes > 0) {
+                sb.append('f').append(aleatorio.nextInt(funcoes)).append('(');
+                expressaoInteira(profundidade - 2);
+                sb.append(", ");
+                expressaoReal(profundidade - 2);
+                sb.append(')');
+            } else if (escolha == 4) {
+                sb.append('-');
+                sb.append(inteiros.isEmpty() ? "2" : escolher(inteiros));
+            } else {
+                sb.append('(');
+                expressaoInteira(profundidade - 1);
+                sb.append(')');
+            }
+        }
+    }
+
+    // Expressão do tipo float (pode misturar int, que é promovido).
+    private void expressaoReal(int profundidade) {
+        int termos = profundidade > 0 ? 1 + aleatorio.nextInt(3) : 1;
+        for (int t = 0; t < termos; t++) {
+            if (t > 0) sb.append(' ').append(ARITMETICOS[aleatorio.nextInt(4)]).append(' ');
+            int escolha = aleatorio.nextInt(profundidade > 0 ? 4 : 2);
+            if (escolha == 0 || reais.isEmpty()) {
+                sb.append(aleatorio.nextInt(100)).append('.').append(aleatorio.nextInt(100));
+            } else if (escolha == 1) {
+                sb.append(escolher(reais));
+            } else if (escolha == 2) {
+                expressaoInteira(profundidade - 1);
+            } else {
+                sb.append('(');
+                expressaoReal(profundidade - 1);
+                sb.append(')');
+            }
+        }
+    }
+
+    private void condicao() {
+        expressaoInteira(2);
+        sb.append(' ').append(RELACIONAIS[aleatorio.nextInt(RELACIONAIS.length)]).append(' ');
+        expressaoInteira(2);
+    }
+
+    private void concatenacao() {
+        sb.append('"').append(TEXTOS[aleatorio.nextInt(TEXTOS.length)]).append('"');
+        int partes = 1 + aleatorio.nextInt(4);
+        for (int i = 0; i < partes; i++) {
+            sb.append(" + ");
+            if (aleatorio.nextBoolean()) {
+                sb.append('"').append(TEXTOS[aleatorio.nextInt(TEXTOS.length)]).append('"');
+            } else if (aleatorio.nextBoolean() || reais.isEmpty()) {
+                // Entre parênteses: "a" + 1 - 2 seria (string - int).
+                sb.append('(');
+                expressaoInteira(1);
+                sb.append(')');
+            } else {
+                sb.append(escolher(reais));
+            }
+        }
+    }
+
+    private String escolher(List<String> nomes) {
+        return nomes.get(aleatorio.nextInt(nomes.size()));
+    }
+
+    private void abrirEscopo() {
+        escopos.push(new int[]{inteiros.size(), reais.size()});
+    }
+
+    private void fecharEscopo() {
+        int[] marca = escopos.pop();
+        inteiros.subList(marca[0], inteiros.size()).clear();
+        reais.subList(marca[1], reais.size()).clear();
+    }
+
+    private void indentar(int nivel) {
+        for (int i = 0; i < nivel; i++) sb.append("    ");
+    }
+}
@@ -0,0 +1,75 @@
+/*BenchmarkCompilador - Medição de desempenho das fases do compilador (JMH)
+Para cada tamanho (parâmetro tamanho), gera um programa com GeradorProgramas e mede
+separadamente:
+- lexico:     AnalisadorLexico.analisar(codigo)
+- sintatico:  AnalisadorSintatico.analisarPrograma() sobre os tokens já gerados
+- gerador:    GeradorCodigo.gerarCodigo() sobre a AST e as tabelas da análise
+O modo é vazão (operações/s); o contador auxiliar tokens soma os tokens do programa a cada
+operação, e o JMH o exibe como tokens/s. A alocação vem do perfilador de GC do JMH (-prof gc:
+gc.alloc.rate e gc.alloc.rate.norm, em bytes por operação). Com -rf csv, o resultado serve para
+traçar a curva de escala e como referência para ComparacaoResultados.
+
+Uso (em bench/): mvn -B package
+  java -jar target/benchmarks.jar -prof gc -rf csv -rff atual.csv
+  java -jar target/benchmarks.jar -p tamanho=10M,100M -jvmArgs -Xmx8g
+  java -cp target/benchmarks.jar desempenho.ComparacaoResultados base.csv atual.csv --tolerancia 10
+ */
+// BenchmarkCompilador.java
+package desempenho;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkCompilador {
+    /** Tamanho do programa gerado (ver GeradorProgramas.tamanho: 1K, 10M...). */
+    @Param({"1K", "10K", "100K", "1M"})
+    public String tamanho;
+
+    @Param("42")
+    public long semente;
+
+    private Fases fases;
+    private int tokens;
+
+    /** Tokens processados na iteração; com o modo de vazão, exibidos como tokens/s. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            tokens = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() throws ReflectiveOperationException {
+        fases = (Fases) Class.forName("FasesCompilador").getDeclaredConstructor().newInstance();
+        tokens = fases.preparar(semente, tamanho);
+    }
+
+    @Benchmark
+    public int lexico(Tokens contador) {
+        contador.tokens += tokens;
+        return fases.lexico();
+    }
+
+    @Benchmark
+    public int sintatico(Tokens contador) {
+        contador.tokens += tokens;
+        return fases.sintatico();
+    }
+
+    @Benchmark
+    public int gerador(Tokens contador) {
+        contador.tokens += tokens;
+        return fases.gerador();
+    }
+}
@@ -0,0 +1,73 @@
+/*ComparacaoResultados - Comparação de dois resultados do BenchmarkCompilador
+Lê dois CSVs do JMH (-rf csv), o de referência e o atual, e compara os tokens/s (contador
+auxiliar tokens) de cada fase e conjunto de parâmetros presente nos dois. O código de saída é 1
+se alguma fase ficar mais lenta que a tolerância (padrão: 10%).
+
+Uso: java -cp target/benchmarks.jar desempenho.ComparacaoResultados base.csv atual.csv [--tolerancia %]
+ */
+// ComparacaoResultados.java
+package desempenho;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+public final class ComparacaoResultados {
+    private static final String CONTADOR = ":tokens";
+
+    public static void main(String[] args) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        double tolerancia = 10;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--tolerancia")) tolerancia = Double.parseDouble(args[++i]);
+            else arquivos.add(Paths.get(args[i]));
+        }
+        if (arquivos.size() != 2) {
+            System.err.println("Uso: java desempenho.ComparacaoResultados base.csv atual.csv [--tolerancia %]");
+            System.exit(2);
+        }
+        Map<String, Double> referencia = tokensPorSegundo(arquivos.get(0));
+        boolean ok = true;
+        for (Map.Entry<String, Double> e : tokensPorSegundo(arquivos.get(1)).entrySet()) {
+            Double antes = referencia.get(e.getKey());
+            if (antes == null) continue;
+            double variacao = (e.getValue() / antes - 1) * 100;
+            boolean regrediu = variacao < -tolerancia;
+            ok &= !regrediu;
+            System.out.printf("%-40s %+8.1f%%%s%n", e.getKey(), variacao, regrediu ? "  REGRESSÃO" : "");
+        }
+        if (!ok) System.exit(1);
+    }
+
+    // tokens/s por fase e parâmetros (ex.: "lexico semente=42 tamanho=1M"), na ordem do arquivo.
+    private static Map<String, Double> tokensPorSegundo(Path arquivo) throws IOException {
+        Map<String, Double> valores = new LinkedHashMap<>();
+        List<String> linhas = Files.readAllLines(arquivo);
+        if (linhas.isEmpty()) return valores;
+        List<String> cabecalho = colunas(linhas.get(0));
+        int pontuacao = cabecalho.indexOf("Score");
+        for (String linha : linhas.subList(1, linhas.size())) {
+            List<String> c = colunas(linha);
+            String nome = c.get(0);
+            if (!nome.endsWith(CONTADOR)) continue;
+            StringBuilder chave = new StringBuilder(nome.substring(nome.lastIndexOf('.', nome.length() - CONTADOR.length()) + 1,
+                    nome.length() - CONTADOR.length()));
+            for (int i = 0; i < cabecalho.size(); i++) {
+                if (cabecalho.get(i).startsWith("Param: ")) {
+                    chave.append(' ').append(cabecalho.get(i).substring(7)).append('=').append(c.get(i));
+                }
+            }
+            valores.put(chave.toString(), Double.parseDouble(c.get(pontuacao)));
+        }
+        return valores;
+    }
+
+    // Colunas de uma linha do CSV do JMH (valores de texto entre aspas, sem vírgulas dentro).
+    private static List<String> colunas(String linha) {
+        List<String> colunas = new ArrayList<>();
+        for (String c : linha.split(",", -1)) {
+            colunas.add(c.length() >= 2 && c.startsWith("\"") && c.endsWith("\"") ? c.substring(1, c.length() - 1) : c);
+        }
+        return colunas;
+    }
+}
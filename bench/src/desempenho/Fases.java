@@ -0,0 +1,21 @@
+/*Fases - Fases do compilador vistas pelo BenchmarkCompilador
+As classes do compilador estão no pacote padrão, que não pode ser usado a partir de um pacote
+com nome, e o JMH não aceita medições no pacote padrão. A implementação (FasesCompilador) fica no
+pacote padrão e o BenchmarkCompilador só usa esta interface.
+ */
+// Fases.java
+package desempenho;
+
+public interface Fases {
+    /** Gera o programa e o analisa uma vez (a AST é a entrada do gerador); retorna a quantidade de tokens. */
+    int preparar(long semente, String tamanho);
+
+    /** AnalisadorLexico.analisar sobre o programa; retorna a quantidade de tokens. */
+    int lexico();
+
+    /** AnalisadorSintatico.analisarPrograma sobre os tokens já gerados; retorna o tamanho da AST. */
+    int sintatico();
+
+    /** GeradorCodigo.gerarCodigo sobre a AST e as tabelas da análise; retorna o tamanho do assembly. */
+    int gerador();
+}
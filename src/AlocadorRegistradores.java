@@ -0,0 +1,367 @@
+/*AlocadorRegistradores - Alocação de registradores por varredura linear (linear scan)
+Recebe o código de um procedimento com registradores virtuais e devolve o mesmo código só com
+registradores físicos:
+1. Divide o código em blocos básicos (rótulos e saltos) e calcula a vivacidade dos virtuais que
+   aparecem em mais de um bloco (análise de fluxo de dados com BitSet). Os demais vivem só entre
+   a primeira e a última aparição.
+2. Cada virtual recebe um intervalo [início, fim] em posições do código (leituras da instrução i
+   na posição 2i e escritas em 2i+1, para que um temporário lido numa instrução possa ceder o
+   registrador ao que ela escreve).
+3. Percorre os intervalos em ordem de início, liberando os que terminaram e atribuindo um
+   registrador livre da classe (uso geral ou xmm). Um registrador alterado por uma instrução
+   dentro do intervalo (call, cdq/idiv) não serve. Um virtual criado por um mov de outro cujo
+   intervalo termina ali prefere o registrador dele (o mov some). Sem registrador, vai para a
+   memória (spill) o intervalo que termina mais tarde: o atual ou um dos ativos.
+4. Reescreve o código: virtuais em memória viram [ebp - n], e as combinações que o x86 não aceita
+   (dois operandos de memória, destino de imul/movzx/SSE em memória...) passam por eax ou xmm7,
+   que nunca guardam temporários (ver Registrador).
+ */
+// AlocadorRegistradores.java
+import java.util.*;
+
+public final class AlocadorRegistradores {
+    // Ordem de preferência: primeiro os que não precisam ser salvos no prólogo.
+    private static final Registrador[] INTEIROS = {
+            Registrador.ECX, Registrador.EDX, Registrador.EBX, Registrador.ESI, Registrador.EDI
+    };
+    private static final Registrador[] REAIS = {
+            Registrador.XMM0, Registrador.XMM1, Registrador.XMM2, Registrador.XMM3,
+            Registrador.XMM4, Registrador.XMM5, Registrador.XMM6
+    };
+    private static final Operando EAX = Operando.registrador(Registrador.EAX);
+    private static final Operando XMM7 = Operando.registrador(Registrador.XMM7);
+
+    /** Código alocado de um procedimento. */
+    public static final class Resultado {
+        public final List<Instrucao> codigo;
+        // Bytes da pilha usados pelas variáveis locais e pelos virtuais em memória.
+        public final int quadro;
+        // Registradores preservados (ebx, esi, edi) usados, que o prólogo precisa salvar.
+        public final List<Registrador> preservados;
+        public final int virtuaisEmMemoria;
+
+        Resultado(List<Instrucao> codigo, int quadro, List<Registrador> preservados, int virtuaisEmMemoria) {
+            this.codigo = codigo;
+            this.quadro = quadro;
+            this.preservados = preservados;
+            this.virtuaisEmMemoria = virtuaisEmMemoria;
+        }
+    }
+
+    private AlocadorRegistradores() {
+    }
+
+    /**
+     * Aloca os virtuais 0 .. quantidadeVirtuais-1 do código. quadroInicial é o espaço da pilha
+     * já ocupado pelas variáveis locais ([ebp - 4] até [ebp - quadroInicial]).
+     */
+    public static Resultado alocar(List<Instrucao> codigo, int quantidadeVirtuais, int quadroInicial) {
+        int n = codigo.size();
+        int[] inicio = new int[quantidadeVirtuais];
+        int[] fim = new int[quantidadeVirtuais];
+        Arrays.fill(inicio, Integer.MAX_VALUE);
+        Arrays.fill(fim, -1);
+        Operando.Classe[] classes = new Operando.Classe[quantidadeVirtuais];
+
+        // Blocos básicos: bloco[i] = número do bloco da instrução i.
+        int[] bloco = new int[n];
+        int[] inicioBloco = new int[n + 1];
+        Map<Integer, Integer> blocoDoRotulo = new HashMap<>();
+        int blocos = 0;
+        for (int i = 0; i < n; i++) {
+            Instrucao ins = codigo.get(i);
+            if (i == 0 || ins.op == Instrucao.Op.ROTULO || codigo.get(i - 1).encerraBloco()) {
+                inicioBloco[blocos++] = i;
+            }
+            bloco[i] = blocos - 1;
+            if (ins.op == Instrucao.Op.ROTULO) blocoDoRotulo.put(ins.destino.valor, blocos - 1);
+        }
+        inicioBloco[blocos] = n;
+
+        // Primeira passada: aparições de cada virtual; os que aparecem em mais de um bloco, ou são
+        // lidos antes de escritos no bloco, precisam da análise de vivacidade.
+        int[] blocoVirtual = new int[quantidadeVirtuais];
+        Arrays.fill(blocoVirtual, -1);
+        boolean[] global = new boolean[quantidadeVirtuais];
+        for (int i = 0; i < n; i++) {
+            Instrucao ins = codigo.get(i);
+            for (int k = 0; k < 2; k++) {
+                Operando o = k == 0 ? ins.destino : ins.origem;
+                if (o == null || !o.ehVirtual()) continue;
+                int v = o.valor;
+                classes[v] = o.classe;
+                if (blocoVirtual[v] < 0) {
+                    blocoVirtual[v] = bloco[i];
+                    if (ins.le(k)) global[v] = true;
+                } else if (blocoVirtual[v] != bloco[i]) {
+                    global[v] = true;
+                }
+                if (ins.le(k)) {
+                    inicio[v] = Math.min(inicio[v], 2 * i);
+                    fim[v] = Math.max(fim[v], 2 * i);
+                }
+                if (ins.escreve(k)) {
+                    inicio[v] = Math.min(inicio[v], 2 * i + 1);
+                    fim[v] = Math.max(fim[v], 2 * i + 1);
+                }
+            }
+        }
+        estenderGlobais(codigo, bloco, inicioBloco, blocos, blocoDoRotulo, global, inicio, fim);
+
+        // Posições (2i + 1) em que cada registrador físico é alterado implicitamente.
+        Map<Registrador, List<Integer>> alteracoes = new EnumMap<>(Registrador.class);
+        for (int i = 0; i < n; i++) {
+            for (Registrador r : codigo.get(i).alterados()) {
+                alteracoes.computeIfAbsent(r, x -> new ArrayList<>()).add(2 * i + 1);
+            }
+        }
+
+        // Dicas: um virtual que começa num mov de outro que termina ali prefere o registrador dele
+        // (o mov vira mov r, r e é retirado na reescrita).
+        int[] dica = new int[quantidadeVirtuais];
+        Arrays.fill(dica, -1);
+        for (int i = 0; i < n; i++) {
+            Instrucao ins = codigo.get(i);
+            if ((ins.op == Instrucao.Op.MOV || ins.op == Instrucao.Op.MOVSS) && ins.destino.ehVirtual()
+                    && ins.origem.ehVirtual() && ins.destino.classe == ins.origem.classe
+                    && inicio[ins.destino.valor] == 2 * i + 1 && fim[ins.origem.valor] == 2 * i) {
+                dica[ins.destino.valor] = ins.origem.valor;
+            }
+        }
+
+        // Varredura linear.
+        Integer[] ordem = new Integer[quantidadeVirtuais];
+        int intervalos = 0;
+        for (int v = 0; v < quantidadeVirtuais; v++) {
+            if (fim[v] >= 0) ordem[intervalos++] = v;
+        }
+        Arrays.sort(ordem, 0, intervalos, Comparator.comparingInt(v -> inicio[v]));
+        Registrador[] registrador = new Registrador[quantidadeVirtuais];
+        int[] memoria = new int[quantidadeVirtuais];
+        int emMemoria = 0;
+        // Ativos ordenados pelo fim do intervalo.
+        TreeSet<Integer> ativos = new TreeSet<>((a, b) -> fim[a] != fim[b] ? Integer.compare(fim[a], fim[b]) : Integer.compare(a, b));
+        EnumSet<Registrador> ocupados = EnumSet.noneOf(Registrador.class);
+        EnumSet<Registrador> usados = EnumSet.noneOf(Registrador.class);
+        for (int k = 0; k < intervalos; k++) {
+            int v = ordem[k];
+            while (!ativos.isEmpty() && fim[ativos.first()] < inicio[v]) {
+                ocupados.remove(registrador[ativos.pollFirst()]);
+            }
+            Registrador[] candidatos = classes[v] == Operando.Classe.REAL ? REAIS : INTEIROS;
+            Registrador escolhido = null;
+            Registrador sugerido = dica[v] >= 0 ? registrador[dica[v]] : null;
+            if (sugerido != null && !ocupados.contains(sugerido) && !alteradoEm(alteracoes.get(sugerido), inicio[v], fim[v])) {
+                escolhido = sugerido;
+            }
+            for (int i = 0; escolhido == null && i < candidatos.length; i++) {
+                Registrador r = candidatos[i];
+                if (!ocupados.contains(r) && !alteradoEm(alteracoes.get(r), inicio[v], fim[v])) escolhido = r;
+            }
+            if (escolhido == null) {
+                // O ativo que termina mais tarde, cujo registrador serve para v.
+                Integer vitima = null;
+                for (Iterator<Integer> it = ativos.descendingIterator(); it.hasNext(); ) {
+                    int a = it.next();
+                    if (classes[a] == classes[v] && !alteradoEm(alteracoes.get(registrador[a]), inicio[v], fim[v])) {
+                        vitima = a;
+                        break;
+                    }
+                }
+                if (vitima != null && fim[vitima] > fim[v]) {
+                    escolhido = registrador[vitima];
+                    ativos.remove(vitima);
+                    registrador[vitima] = null;
+                    memoria[vitima] = ++emMemoria;
+                } else {
+                    memoria[v] = ++emMemoria;
+                    continue;
+                }
+            }
+            registrador[v] = escolhido;
+            ocupados.add(escolhido);
+            usados.add(escolhido);
+            ativos.add(v);
+        }
+
+        List<Instrucao> saida = new ArrayList<>(n + n / 8);
+        for (Instrucao ins : codigo) {
+            Operando d = substituir(ins.destino, registrador, memoria, quadroInicial);
+            Operando o = substituir(ins.origem, registrador, memoria, quadroInicial);
+            // Cópia entre virtuais que ficaram no mesmo registrador.
+            if ((ins.op == Instrucao.Op.MOV || ins.op == Instrucao.Op.MOVSS) && d.ehRegistrador() && d.equals(o)) continue;
+            legalizar(d == ins.destino && o == ins.origem ? ins : ins.com(d, o), saida);
+        }
+        List<Registrador> preservados = new ArrayList<>(3);
+        for (Registrador r : INTEIROS) {
+            if (r.preservado && usados.contains(r)) preservados.add(r);
+        }
+        return new Resultado(saida, quadroInicial + 4 * emMemoria, preservados, emMemoria);
+    }
+
+    // Vivacidade dos virtuais globais por blocos; estende os intervalos até as bordas dos blocos
+    // em que eles estão vivos na entrada ou na saída.
+    private static void estenderGlobais(List<Instrucao> codigo, int[] bloco, int[] inicioBloco, int blocos,
+                                        Map<Integer, Integer> blocoDoRotulo, boolean[] global,
+                                        int[] inicio, int[] fim) {
+        int[] indice = new int[global.length];
+        int globais = 0;
+        for (int v = 0; v < global.length; v++) indice[v] = global[v] ? globais++ : -1;
+        if (globais == 0) return;
+        int[] virtualDoIndice = new int[globais];
+        for (int v = 0; v < global.length; v++) {
+            if (indice[v] >= 0) virtualDoIndice[indice[v]] = v;
+        }
+
+        BitSet[] usa = new BitSet[blocos], define = new BitSet[blocos];
+        BitSet[] entrada = new BitSet[blocos], saida = new BitSet[blocos];
+        int[][] sucessores = new int[blocos][];
+        for (int b = 0; b < blocos; b++) {
+            usa[b] = new BitSet();
+            define[b] = new BitSet();
+            entrada[b] = new BitSet();
+            saida[b] = new BitSet();
+            for (int i = inicioBloco[b]; i < inicioBloco[b + 1]; i++) {
+                Instrucao ins = codigo.get(i);
+                // Leituras antes da escrita (na mesma instrução, a leitura vem primeiro).
+                for (int k = 0; k < 2; k++) {
+                    Operando o = k == 0 ? ins.destino : ins.origem;
+                    if (o != null && o.ehVirtual() && indice[o.valor] >= 0 && ins.le(k) && !define[b].get(indice[o.valor])) {
+                        usa[b].set(indice[o.valor]);
+                    }
+                }
+                for (int k = 0; k < 2; k++) {
+                    Operando o = k == 0 ? ins.destino : ins.origem;
+                    if (o != null && o.ehVirtual() && indice[o.valor] >= 0 && ins.escreve(k)) {
+                        define[b].set(indice[o.valor]);
+                    }
+                }
+            }
+            Instrucao ultima = codigo.get(inicioBloco[b + 1] - 1);
+            int alvo = ultima.op == Instrucao.Op.JMP || ultima.op == Instrucao.Op.JCC
+                    ? blocoDoRotulo.getOrDefault(ultima.destino.valor, -1) : -1;
+            boolean segue = ultima.op != Instrucao.Op.JMP && ultima.op != Instrucao.Op.RET && b + 1 < blocos;
+            if (alvo >= 0 && segue) sucessores[b] = new int[]{alvo, b + 1};
+            else if (alvo >= 0) sucessores[b] = new int[]{alvo};
+            else if (segue) sucessores[b] = new int[]{b + 1};
+            else sucessores[b] = new int[0];
+        }
+        boolean mudou = true;
+        BitSet novo = new BitSet();
+        while (mudou) {
+            mudou = false;
+            for (int b = blocos - 1; b >= 0; b--) {
+                for (int s : sucessores[b]) saida[b].or(entrada[s]);
+                novo.clear();
+                novo.or(saida[b]);
+                novo.andNot(define[b]);
+                novo.or(usa[b]);
+                if (!novo.equals(entrada[b])) {
+                    entrada[b].clear();
+                    entrada[b].or(novo);
+                    mudou = true;
+                }
+            }
+        }
+        for (int b = 0; b < blocos; b++) {
+            int primeira = 2 * inicioBloco[b], ultima = 2 * (inicioBloco[b + 1] - 1) + 1;
+            for (int g = entrada[b].nextSetBit(0); g >= 0; g = entrada[b].nextSetBit(g + 1)) {
+                int v = virtualDoIndice[g];
+                inicio[v] = Math.min(inicio[v], primeira);
+                fim[v] = Math.max(fim[v], primeira);
+            }
+            for (int g = saida[b].nextSetBit(0); g >= 0; g = saida[b].nextSetBit(g + 1)) {
+                int v = virtualDoIndice[g];
+                fim[v] = Math.max(fim[v], ultima);
+            }
+        }
+    }
+
+    // Se o registrador é alterado numa posição p com inicio < p <= fim (o valor precisaria sobreviver a ela).
+    private static boolean alteradoEm(List<Integer> posicoes, int inicio, int fim) {
+        if (posicoes == null) return false;
+        int i = Collections.binarySearch(posicoes, inicio + 1);
+        if (i < 0) i = -i - 1;
+        return i < posicoes.size() && posicoes.get(i) <= fim;
+    }
+
+    private static Operando substituir(Operando o, Registrador[] registrador, int[] memoria, int quadroInicial) {
+        if (o == null || !o.ehVirtual()) return o;
+        Registrador r = registrador[o.valor];
+        if (r != null) return Operando.registrador(r);
+        return Operando.memoria(Registrador.EBP, -(quadroInicial + 4 * memoria[o.valor]));
+    }
+
+    // Acrescenta a instrução à saída, reescrita se a combinação de operandos não existir no x86.
+    private static void legalizar(Instrucao ins, List<Instrucao> saida) {
+        Operando d = ins.destino, o = ins.origem;
+        boolean dMem = d != null && d.ehMemoria(), oMem = o != null && o.ehMemoria();
+        switch (ins.op) {
+            case MOV: case ADD: case SUB: case AND: case OR: case XOR: case CMP: case TEST:
+                if (dMem && oMem) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOV, EAX, o));
+                    saida.add(ins.com(d, EAX));
+                    return;
+                }
+                break;
+            case IMUL:
+                if (dMem) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOV, EAX, d));
+                    saida.add(ins.com(EAX, o));
+                    saida.add(Instrucao.de(Instrucao.Op.MOV, d, EAX));
+                    return;
+                }
+                break;
+            case MOVZX: case LEA: case CVTTSS2SI:
+                if (dMem) {
+                    saida.add(ins.com(EAX, o));
+                    saida.add(Instrucao.de(Instrucao.Op.MOV, d, EAX));
+                    return;
+                }
+                break;
+            case ADDSS: case SUBSS: case MULSS: case DIVSS:
+                if (dMem) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, XMM7, d));
+                    saida.add(ins.com(XMM7, o));
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, d, XMM7));
+                    return;
+                }
+                break;
+            case UCOMISS:
+                if (dMem) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, XMM7, d));
+                    saida.add(ins.com(XMM7, o));
+                    return;
+                }
+                break;
+            case CVTSI2SS: case CVTSS2SD:
+                if (dMem) {
+                    saida.add(ins.com(XMM7, o));
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, d, XMM7));
+                    return;
+                }
+                break;
+            case MOVSS:
+                if (dMem && oMem) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, XMM7, o));
+                    saida.add(ins.com(d, XMM7));
+                    return;
+                }
+                break;
+            case MOVD:
+                // movd só existe entre um xmm e um registrador de uso geral ou memória.
+                if (!d.ehReal() && !o.ehReal()) {
+                    legalizar(Instrucao.de(Instrucao.Op.MOV, d, o), saida);
+                    return;
+                }
+                if (d.ehReal() && o.ehReal()) {
+                    saida.add(Instrucao.de(Instrucao.Op.MOVSS, d, o));
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        saida.add(ins);
+    }
+}
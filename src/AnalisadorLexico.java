@@ -18,15 +18,38 @@ public class AnalisadorLexico {
     public static class Token {
         public final TokenType type;
         public final String    value;
+        // Posição no código-fonte (1-based); -1 quando desconhecida.
+        public final int       linha;
+        public final int       coluna;
         public Token(TokenType type, String value) {
+            this(type, value, -1, -1);
+        }
+        public Token(TokenType type, String value, int linha, int coluna) {
             this.type = type;
             this.value = value;
+            this.linha = linha;
+            this.coluna = coluna;
         }
         public String toString() {
-            return String.format("Token(%s, \"%s\")", type, value);
+            return "Token(" + type + ", \"" + value + "\")";
+        }
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Token)) return false;
+            Token outro = (Token) o;
+            return type == outro.type && value.equals(outro.value);
+        }
+        @Override
+        public int hashCode() {
+            return type.hashCode() * 31 + value.hashCode();
         }
     }
 
+    // Seleciona o analisador usado por analisar(): "dfa" (padrão) ou "regex".
+    // Ex.: java -Dmacslang.lexer=regex Main
+    private static final boolean USAR_REGEX =
+            "regex".equalsIgnoreCase(System.getProperty("macslang.lexer", "dfa"));
+
     private static final String TOKEN_REGEX =
             "(?<VAR>\\bvar\\b)"
                     + "|(?<PRINT>\\bprint\\b)"
@@ -42,6 +65,8 @@ public class AnalisadorLexico {
                     + "|(?<NUMBER>\\b\\d+(\\.\\d+)?\\b)"
                     + "|(?<STRING>\"(.*?)\")"
                     + "|(?<IDENTIFIER>\\b[a-zA-Z_][a-zA-Z0-9_]*\\b)"
+                    // comentários antes de '/', senão "//" vira duas divisões:
+                    + "|(?<COMMENT>//[^\\n]*|/\\*[\\s\\S]*?\\*/)"
                     // operadores compostos primeiro:
                     + "|(?<EQUAL>==)"
                     + "|(?<NOTEQUAL>!=)"
@@ -52,7 +77,7 @@ public class AnalisadorLexico {
                     + "|(?<MINUS>-)"
                     + "|(?<MULTIPLY>\\*)"
                     + "|(?<DIVIDE>/)"
-                    + "|(?<MODULO>% )"
+                    + "|(?<MODULO>%)"
                     + "|(?<LESSTHAN><)"
                     + "|(?<GREATERTHAN>>)"
                     + "|(?<COLON>:)"
@@ -62,56 +87,130 @@ public class AnalisadorLexico {
                     + "|(?<RPAREN>\\))"
                     + "|(?<LBRACE>\\{)"
                     + "|(?<RBRACE>\\})"
-                    + "|(?<COMMENT>//[^\\n]*|/\\*[\\s\\S]*?\\*/)"
             ;
 
+    // Compilado uma única vez para todas as chamadas.
+    private static final Pattern TOKEN_PATTERN = Pattern.compile(TOKEN_REGEX);
+
+    // Analisa o código com o scanner selecionado (por padrão, o autômato de AnalisadorLexicoDFA).
+    // Sem um Diagnostics, os erros léxicos são exibidos em System.err ao final.
     public static List<Token> analisar(String codigo) {
+        Diagnostics diagnosticos = new Diagnostics();
+        List<Token> tokens = analisar(codigo, diagnosticos);
+        exibirErros(diagnosticos);
+        return tokens;
+    }
+
+    public static List<Token> analisar(String codigo, Diagnostics diagnosticos) {
+        return USAR_REGEX ? analisarRegex(codigo, diagnosticos) : AnalisadorLexicoDFA.analisar(codigo, diagnosticos);
+    }
+
+    // Como analisar(), mas guarda os tokens no buffer compacto com as posições no código-fonte.
+    public static BufferTokens tokenizar(String codigo) {
+        Diagnostics diagnosticos = new Diagnostics();
+        BufferTokens buffer = tokenizar(codigo, diagnosticos);
+        exibirErros(diagnosticos);
+        return buffer;
+    }
+
+    // Variante sobre um vetor de caracteres já carregado (e possivelmente reutilizado entre compilações).
+    public static BufferTokens tokenizar(char[] fonte, int tamanho, Diagnostics diagnosticos) {
+        return tokenizar(fonte, tamanho, new TabelaNomes(), diagnosticos);
+    }
+
+    // Variante que interna os identificadores numa tabela compartilhada (compilação incremental).
+    public static BufferTokens tokenizar(char[] fonte, int tamanho, TabelaNomes nomes, Diagnostics diagnosticos) {
+        if (!USAR_REGEX) return AnalisadorLexicoDFA.tokenizar(fonte, tamanho, nomes, diagnosticos);
+        return tokenizarRegex(new String(fonte, 0, tamanho), nomes, diagnosticos);
+    }
+
+    public static BufferTokens tokenizar(String codigo, Diagnostics diagnosticos) {
+        if (!USAR_REGEX) return AnalisadorLexicoDFA.tokenizar(codigo, diagnosticos);
+        return tokenizarRegex(codigo, new TabelaNomes(), diagnosticos);
+    }
+
+    private static BufferTokens tokenizarRegex(String codigo, TabelaNomes nomes, Diagnostics diagnosticos) {
+        char[] fonte = codigo.toCharArray();
+        BufferTokens buffer = new BufferTokens(fonte, fonte.length, nomes);
+        Matcher m = TOKEN_PATTERN.matcher(codigo);
+        while (!diagnosticos.limiteAtingido() && m.find()) {
+            TokenType tipo = tipoDoCasamento(m);
+            if (tipo == null) continue;
+            int tamanho = m.end() - m.start();
+            int id = tipo == TokenType.IDENTIFIER ? nomes.intern(fonte, m.start(), tamanho) : -1;
+            buffer.adicionar(tipo, m.start(), tamanho, id);
+            if (tipo == TokenType.UNKNOWN) {
+                int i = buffer.tamanho() - 1;
+                diagnosticos.reportar(Diagnostics.Codigo.TOKEN_DESCONHECIDO, m.start(),
+                        buffer.linha(i), buffer.coluna(i), tamanho, m.group());
+            }
+        }
+        return buffer;
+    }
+
+    // Analisador original por expressão regular, mantido para conferência com o DFA.
+    public static List<Token> analisarRegex(String codigo) {
+        return analisarRegex(codigo, new Diagnostics());
+    }
+
+    public static List<Token> analisarRegex(String codigo, Diagnostics diagnosticos) {
         List<Token> tokens = new ArrayList<>();
-        Pattern p = Pattern.compile(TOKEN_REGEX);
-        Matcher m = p.matcher(codigo);
-
-        while (m.find()) {
-            if (m.group("VAR")        != null) tokens.add(new Token(TokenType.VAR, m.group()));
-            else if (m.group("PRINT")  != null) tokens.add(new Token(TokenType.PRINT, m.group()));
-            else if (m.group("INPUT")  != null) tokens.add(new Token(TokenType.INPUT, m.group()));
-            else if (m.group("IF")     != null) tokens.add(new Token(TokenType.IF, m.group()));
-            else if (m.group("ELSE")   != null) tokens.add(new Token(TokenType.ELSE, m.group()));
-            else if (m.group("WHILE")  != null) tokens.add(new Token(TokenType.WHILE, m.group()));
-            else if (m.group("FOR")    != null) tokens.add(new Token(TokenType.FOR, m.group()));
-            else if (m.group("FUNC")   != null) tokens.add(new Token(TokenType.FUNC, m.group()));
-            else if (m.group("RETURN") != null) tokens.add(new Token(TokenType.RETURN, m.group()));
-            else if (m.group("TYPE")   != null) tokens.add(new Token(TokenType.TYPE, m.group()));
-            else if (m.group("NUMBER") != null) tokens.add(new Token(TokenType.NUMBER, m.group()));
-            else if (m.group("STRING") != null) tokens.add(new Token(TokenType.STRING, m.group()));
-            else if (m.group("BOOL")   != null) tokens.add(new Token(TokenType.BOOL, m.group()));
-            else if (m.group("IDENTIFIER") != null) tokens.add(new Token(TokenType.IDENTIFIER, m.group()));
-            else if (m.group("EQUAL")      != null) tokens.add(new Token(TokenType.EQUAL, m.group()));
-            else if (m.group("NOTEQUAL")   != null) tokens.add(new Token(TokenType.NOTEQUAL, m.group()));
-            else if (m.group("LESSEQUAL")  != null) tokens.add(new Token(TokenType.LESSEQUAL, m.group()));
-            else if (m.group("GREATEREQUAL")!=null) tokens.add(new Token(TokenType.GREATEREQUAL, m.group()));
-            else if (m.group("ASSIGN")     != null) tokens.add(new Token(TokenType.ASSIGN, m.group()));
-            else if (m.group("PLUS")       != null) tokens.add(new Token(TokenType.PLUS, m.group()));
-            else if (m.group("MINUS")      != null) tokens.add(new Token(TokenType.MINUS, m.group()));
-            else if (m.group("MULTIPLY")   != null) tokens.add(new Token(TokenType.MULTIPLY, m.group()));
-            else if (m.group("DIVIDE")     != null) tokens.add(new Token(TokenType.DIVIDE, m.group()));
-            else if (m.group("MODULO")     != null) tokens.add(new Token(TokenType.MODULO, m.group()));
-            else if (m.group("LESSTHAN")   != null) tokens.add(new Token(TokenType.LESSTHAN, m.group()));
-            else if (m.group("GREATERTHAN")!= null) tokens.add(new Token(TokenType.GREATERTHAN, m.group()));
-            else if (m.group("COLON")      != null) tokens.add(new Token(TokenType.COLON, m.group()));
-            else if (m.group("SEMICOLON")  != null) tokens.add(new Token(TokenType.SEMICOLON, m.group()));
-            else if (m.group("COMMA")      != null) tokens.add(new Token(TokenType.COMMA, m.group()));
-            else if (m.group("LPAREN")     != null) tokens.add(new Token(TokenType.LPAREN, m.group()));
-            else if (m.group("RPAREN")     != null) tokens.add(new Token(TokenType.RPAREN, m.group()));
-            else if (m.group("LBRACE")     != null) tokens.add(new Token(TokenType.LBRACE, m.group()));
-            else if (m.group("RBRACE")     != null) tokens.add(new Token(TokenType.RBRACE, m.group()));
-            else if (m.group("COMMENT")    != null) {/* opcional: skip ou armazenar */}
-            else {
-                System.err.printf("Erro Léxico: token desconhecido \"%s\" na posição %d%n",
-                        m.group(), m.start());
-                tokens.add(new Token(TokenType.UNKNOWN, m.group()));
+        Matcher m = TOKEN_PATTERN.matcher(codigo);
+
+        while (!diagnosticos.limiteAtingido() && m.find()) {
+            TokenType tipo = tipoDoCasamento(m);
+            if (tipo == null) continue;
+            tokens.add(new Token(tipo, m.group()));
+            if (tipo == TokenType.UNKNOWN) {
+                diagnosticos.reportar(Diagnostics.Codigo.TOKEN_DESCONHECIDO, m.start(), -1, -1,
+                        m.end() - m.start(), m.group());
             }
         }
         return tokens;
     }
+
+    // Exibe em System.err os erros coletados, para quem chama a API sem Diagnostics.
+    static void exibirErros(Diagnostics diagnosticos) {
+        if (diagnosticos.quantidade() > 0) System.err.println(diagnosticos.renderizar());
+    }
+
+    // Identifica o grupo que casou; retorna null para comentários (descartados) e UNKNOWN se nenhum casou.
+    private static TokenType tipoDoCasamento(Matcher m) {
+        if (m.group("VAR")        != null) return TokenType.VAR;
+        else if (m.group("PRINT")  != null) return TokenType.PRINT;
+        else if (m.group("INPUT")  != null) return TokenType.INPUT;
+        else if (m.group("IF")     != null) return TokenType.IF;
+        else if (m.group("ELSE")   != null) return TokenType.ELSE;
+        else if (m.group("WHILE")  != null) return TokenType.WHILE;
+        else if (m.group("FOR")    != null) return TokenType.FOR;
+        else if (m.group("FUNC")   != null) return TokenType.FUNC;
+        else if (m.group("RETURN") != null) return TokenType.RETURN;
+        else if (m.group("TYPE")   != null) return TokenType.TYPE;
+        else if (m.group("NUMBER") != null) return TokenType.NUMBER;
+        else if (m.group("STRING") != null) return TokenType.STRING;
+        else if (m.group("BOOL")   != null) return TokenType.BOOL;
+        else if (m.group("IDENTIFIER") != null) return TokenType.IDENTIFIER;
+        else if (m.group("EQUAL")      != null) return TokenType.EQUAL;
+        else if (m.group("NOTEQUAL")   != null) return TokenType.NOTEQUAL;
+        else if (m.group("LESSEQUAL")  != null) return TokenType.LESSEQUAL;
+        else if (m.group("GREATEREQUAL")!=null) return TokenType.GREATEREQUAL;
+        else if (m.group("ASSIGN")     != null) return TokenType.ASSIGN;
+        else if (m.group("PLUS")       != null) return TokenType.PLUS;
+        else if (m.group("MINUS")      != null) return TokenType.MINUS;
+        else if (m.group("MULTIPLY")   != null) return TokenType.MULTIPLY;
+        else if (m.group("DIVIDE")     != null) return TokenType.DIVIDE;
+        else if (m.group("MODULO")     != null) return TokenType.MODULO;
+        else if (m.group("LESSTHAN")   != null) return TokenType.LESSTHAN;
+        else if (m.group("GREATERTHAN")!= null) return TokenType.GREATERTHAN;
+        else if (m.group("COLON")      != null) return TokenType.COLON;
+        else if (m.group("SEMICOLON")  != null) return TokenType.SEMICOLON;
+        else if (m.group("COMMA")      != null) return TokenType.COMMA;
+        else if (m.group("LPAREN")     != null) return TokenType.LPAREN;
+        else if (m.group("RPAREN")     != null) return TokenType.RPAREN;
+        else if (m.group("LBRACE")     != null) return TokenType.LBRACE;
+        else if (m.group("RBRACE")     != null) return TokenType.RBRACE;
+        else if (m.group("COMMENT")    != null) return null;
+        return TokenType.UNKNOWN;
+    }
 }
 
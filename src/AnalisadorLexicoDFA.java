@@ -0,0 +1,376 @@
+/*Analisador Lexico DFA - Scanner dirigido por tabela
+Percorre o código-fonte uma única vez, caractere a caractere, consultando uma tabela de
+transições (estado x classe de caractere). As palavras reservadas não fazem parte do autômato:
+depois que um identificador é lido, ele é procurado em uma tabela de hash perfeito.
+Produz os mesmos TokenType do analisador por expressão regular (AnalisadorLexico).
+ */
+// AnalisadorLexicoDFA.java
+import java.util.*;
+
+public final class AnalisadorLexicoDFA {
+    // Classes de caracteres (colunas da tabela de transições).
+    private static final int C_OUTRO = 0, C_LETRA = 1, C_DIGITO = 2, C_PONTO = 3, C_ASPAS = 4,
+            C_BARRA = 5, C_ASTERISCO = 6, C_IGUAL = 7, C_EXCLAMACAO = 8, C_MENOR = 9, C_MAIOR = 10,
+            C_MAIS = 11, C_MENOS = 12, C_PORCENTO = 13, C_DOIS_PONTOS = 14, C_PONTO_VIRGULA = 15,
+            C_VIRGULA = 16, C_ABRE_PAR = 17, C_FECHA_PAR = 18, C_ABRE_CHAVE = 19, C_FECHA_CHAVE = 20,
+            C_ESPACO = 21, C_NOVA_LINHA = 22;
+    private static final int NUM_CLASSES = 23;
+
+    // Estados do autômato. MORTO indica que não há transição.
+    private static final int MORTO = -1, INICIO = 0, IDENT = 1, INTEIRO = 2, INTEIRO_PONTO = 3,
+            REAL = 4, STRING = 5, STRING_FIM = 6, BARRA = 7, COMENT_LINHA = 8, COMENT_BLOCO = 9,
+            COMENT_BLOCO_AST = 10, COMENT_BLOCO_FIM = 11, IGUAL = 12, IGUAL_IGUAL = 13,
+            EXCLAMACAO = 14, DIFERENTE = 15, MENOR = 16, MENOR_IGUAL = 17, MAIOR = 18,
+            MAIOR_IGUAL = 19, ESPACO = 20, SIMPLES = 21;
+    // Operadores de um caractere ocupam um estado cada, a partir de SIMPLES.
+    private static final int[] CLASSES_SIMPLES = {
+            C_MAIS, C_MENOS, C_ASTERISCO, C_PORCENTO, C_DOIS_PONTOS, C_PONTO_VIRGULA,
+            C_VIRGULA, C_ABRE_PAR, C_FECHA_PAR, C_ABRE_CHAVE, C_FECHA_CHAVE
+    };
+    private static final AnalisadorLexico.TokenType[] TIPOS_SIMPLES = {
+            AnalisadorLexico.TokenType.PLUS, AnalisadorLexico.TokenType.MINUS,
+            AnalisadorLexico.TokenType.MULTIPLY, AnalisadorLexico.TokenType.MODULO,
+            AnalisadorLexico.TokenType.COLON, AnalisadorLexico.TokenType.SEMICOLON,
+            AnalisadorLexico.TokenType.COMMA, AnalisadorLexico.TokenType.LPAREN,
+            AnalisadorLexico.TokenType.RPAREN, AnalisadorLexico.TokenType.LBRACE,
+            AnalisadorLexico.TokenType.RBRACE
+    };
+    private static final int NUM_ESTADOS = SIMPLES + CLASSES_SIMPLES.length;
+
+    // Valor em ACEITACAO para estados cujo lexema é descartado (espaços e comentários).
+    private static final byte DESCARTAR = -2;
+    private static final byte NAO_ACEITA = -1;
+
+    private static final byte[] CLASSE = new byte[128];
+    private static final int[] TRANSICOES = new int[NUM_ESTADOS * NUM_CLASSES];
+    private static final byte[] ACEITACAO = new byte[NUM_ESTADOS];
+    private static final AnalisadorLexico.TokenType[] TIPOS = AnalisadorLexico.TokenType.values();
+
+    // Lexemas fixos reaproveitados para não alocar uma String por operador.
+    private static final String[] LEXEMAS_FIXOS = new String[TIPOS.length];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CLASSE[c] = C_LETRA;
+        for (char c = 'A'; c <= 'Z'; c++) CLASSE[c] = C_LETRA;
+        CLASSE['_'] = C_LETRA;
+        for (char c = '0'; c <= '9'; c++) CLASSE[c] = C_DIGITO;
+        CLASSE['.'] = C_PONTO;
+        CLASSE['"'] = C_ASPAS;
+        CLASSE['/'] = C_BARRA;
+        CLASSE['*'] = C_ASTERISCO;
+        CLASSE['='] = C_IGUAL;
+        CLASSE['!'] = C_EXCLAMACAO;
+        CLASSE['<'] = C_MENOR;
+        CLASSE['>'] = C_MAIOR;
+        CLASSE['+'] = C_MAIS;
+        CLASSE['-'] = C_MENOS;
+        CLASSE['%'] = C_PORCENTO;
+        CLASSE[':'] = C_DOIS_PONTOS;
+        CLASSE[';'] = C_PONTO_VIRGULA;
+        CLASSE[','] = C_VIRGULA;
+        CLASSE['('] = C_ABRE_PAR;
+        CLASSE[')'] = C_FECHA_PAR;
+        CLASSE['{'] = C_ABRE_CHAVE;
+        CLASSE['}'] = C_FECHA_CHAVE;
+        CLASSE[' '] = C_ESPACO;
+        CLASSE['\t'] = C_ESPACO;
+        CLASSE['\r'] = C_ESPACO;
+        CLASSE['\f'] = C_ESPACO;
+        CLASSE['\n'] = C_NOVA_LINHA;
+
+        Arrays.fill(TRANSICOES, MORTO);
+        Arrays.fill(ACEITACAO, NAO_ACEITA);
+
+        // Identificadores e números
+        transicao(INICIO, C_LETRA, IDENT);
+        transicao(IDENT, C_LETRA, IDENT);
+        transicao(IDENT, C_DIGITO, IDENT);
+        transicao(INICIO, C_DIGITO, INTEIRO);
+        transicao(INTEIRO, C_DIGITO, INTEIRO);
+        transicao(INTEIRO, C_PONTO, INTEIRO_PONTO);
+        transicao(INTEIRO_PONTO, C_DIGITO, REAL);
+        transicao(REAL, C_DIGITO, REAL);
+        aceita(IDENT, AnalisadorLexico.TokenType.IDENTIFIER);
+        aceita(INTEIRO, AnalisadorLexico.TokenType.NUMBER);
+        aceita(REAL, AnalisadorLexico.TokenType.NUMBER);
+
+        // Strings: qualquer caractere até a próxima aspa, sem atravessar linhas.
+        transicao(INICIO, C_ASPAS, STRING);
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            if (c != C_ASPAS && c != C_NOVA_LINHA) transicao(STRING, c, STRING);
+        }
+        transicao(STRING, C_ASPAS, STRING_FIM);
+        aceita(STRING_FIM, AnalisadorLexico.TokenType.STRING);
+
+        // '/' pode ser divisão, comentário de linha ou comentário de bloco.
+        transicao(INICIO, C_BARRA, BARRA);
+        aceita(BARRA, AnalisadorLexico.TokenType.DIVIDE);
+        transicao(BARRA, C_BARRA, COMENT_LINHA);
+        transicao(BARRA, C_ASTERISCO, COMENT_BLOCO);
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            if (c != C_NOVA_LINHA) transicao(COMENT_LINHA, c, COMENT_LINHA);
+            transicao(COMENT_BLOCO, c, COMENT_BLOCO);
+            transicao(COMENT_BLOCO_AST, c, COMENT_BLOCO);
+        }
+        transicao(COMENT_BLOCO, C_ASTERISCO, COMENT_BLOCO_AST);
+        transicao(COMENT_BLOCO_AST, C_ASTERISCO, COMENT_BLOCO_AST);
+        transicao(COMENT_BLOCO_AST, C_BARRA, COMENT_BLOCO_FIM);
+        ACEITACAO[COMENT_LINHA] = DESCARTAR;
+        ACEITACAO[COMENT_BLOCO_FIM] = DESCARTAR;
+
+        // Operadores relacionais e atribuição
+        transicao(INICIO, C_IGUAL, IGUAL);
+        transicao(IGUAL, C_IGUAL, IGUAL_IGUAL);
+        transicao(INICIO, C_EXCLAMACAO, EXCLAMACAO);
+        transicao(EXCLAMACAO, C_IGUAL, DIFERENTE);
+        transicao(INICIO, C_MENOR, MENOR);
+        transicao(MENOR, C_IGUAL, MENOR_IGUAL);
+        transicao(INICIO, C_MAIOR, MAIOR);
+        transicao(MAIOR, C_IGUAL, MAIOR_IGUAL);
+        aceita(IGUAL, AnalisadorLexico.TokenType.ASSIGN);
+        aceita(IGUAL_IGUAL, AnalisadorLexico.TokenType.EQUAL);
+        aceita(DIFERENTE, AnalisadorLexico.TokenType.NOTEQUAL);
+        aceita(MENOR, AnalisadorLexico.TokenType.LESSTHAN);
+        aceita(MENOR_IGUAL, AnalisadorLexico.TokenType.LESSEQUAL);
+        aceita(MAIOR, AnalisadorLexico.TokenType.GREATERTHAN);
+        aceita(MAIOR_IGUAL, AnalisadorLexico.TokenType.GREATEREQUAL);
+
+        // Espaços em branco
+        transicao(INICIO, C_ESPACO, ESPACO);
+        transicao(INICIO, C_NOVA_LINHA, ESPACO);
+        transicao(ESPACO, C_ESPACO, ESPACO);
+        transicao(ESPACO, C_NOVA_LINHA, ESPACO);
+        ACEITACAO[ESPACO] = DESCARTAR;
+
+        // Operadores e delimitadores de um caractere
+        for (int i = 0; i < CLASSES_SIMPLES.length; i++) {
+            transicao(INICIO, CLASSES_SIMPLES[i], SIMPLES + i);
+            aceita(SIMPLES + i, TIPOS_SIMPLES[i]);
+        }
+
+        String[][] fixos = {
+                {"EQUAL", "=="}, {"NOTEQUAL", "!="}, {"LESSEQUAL", "<="}, {"GREATEREQUAL", ">="},
+                {"ASSIGN", "="}, {"PLUS", "+"}, {"MINUS", "-"}, {"MULTIPLY", "*"}, {"DIVIDE", "/"},
+                {"MODULO", "%"}, {"LESSTHAN", "<"}, {"GREATERTHAN", ">"}, {"COLON", ":"},
+                {"SEMICOLON", ";"}, {"COMMA", ","}, {"LPAREN", "("}, {"RPAREN", ")"},
+                {"LBRACE", "{"}, {"RBRACE", "}"},
+                {"VAR", "var"}, {"PRINT", "print"}, {"INPUT", "input"}, {"IF", "if"}, {"ELSE", "else"},
+                {"WHILE", "while"}, {"FOR", "for"}, {"FUNC", "func"}, {"RETURN", "return"}
+        };
+        for (String[] f : fixos) {
+            LEXEMAS_FIXOS[AnalisadorLexico.TokenType.valueOf(f[0]).ordinal()] = f[1];
+        }
+    }
+
+    private static void transicao(int de, int classe, int para) {
+        TRANSICOES[de * NUM_CLASSES + classe] = para;
+    }
+
+    private static void aceita(int estado, AnalisadorLexico.TokenType tipo) {
+        ACEITACAO[estado] = (byte) tipo.ordinal();
+    }
+
+    // Tabela de palavras reservadas com hash perfeito:
+    // h = (primeiro * 3 + último + tamanho) & 31 não tem colisões para este conjunto.
+    private static final String[] PALAVRAS = new String[32];
+    private static final AnalisadorLexico.TokenType[] TIPOS_PALAVRAS = new AnalisadorLexico.TokenType[32];
+
+    static {
+        Object[][] reservadas = {
+                {"var", AnalisadorLexico.TokenType.VAR}, {"print", AnalisadorLexico.TokenType.PRINT},
+                {"input", AnalisadorLexico.TokenType.INPUT}, {"if", AnalisadorLexico.TokenType.IF},
+                {"else", AnalisadorLexico.TokenType.ELSE}, {"while", AnalisadorLexico.TokenType.WHILE},
+                {"for", AnalisadorLexico.TokenType.FOR}, {"func", AnalisadorLexico.TokenType.FUNC},
+                {"return", AnalisadorLexico.TokenType.RETURN},
+                {"int", AnalisadorLexico.TokenType.TYPE}, {"float", AnalisadorLexico.TokenType.TYPE},
+                {"char", AnalisadorLexico.TokenType.TYPE}, {"bool", AnalisadorLexico.TokenType.TYPE},
+                {"string", AnalisadorLexico.TokenType.TYPE},
+                {"true", AnalisadorLexico.TokenType.BOOL}, {"false", AnalisadorLexico.TokenType.BOOL}
+        };
+        for (Object[] r : reservadas) {
+            String palavra = (String) r[0];
+            int h = hashPalavra(palavra.toCharArray(), 0, palavra.length());
+            if (PALAVRAS[h] != null) {
+                throw new IllegalStateException("Colisão no hash de palavras reservadas: " + palavra);
+            }
+            PALAVRAS[h] = palavra;
+            TIPOS_PALAVRAS[h] = (AnalisadorLexico.TokenType) r[1];
+        }
+    }
+
+    private static int hashPalavra(char[] fonte, int inicio, int tamanho) {
+        return (fonte[inicio] * 3 + fonte[inicio + tamanho - 1] + tamanho) & 31;
+    }
+
+    // Retorna o índice da palavra reservada em PALAVRAS ou -1 se o trecho for um identificador comum.
+    private static int buscarPalavra(char[] fonte, int inicio, int tamanho) {
+        int h = hashPalavra(fonte, inicio, tamanho);
+        String palavra = PALAVRAS[h];
+        if (palavra == null || palavra.length() != tamanho) return -1;
+        for (int i = 0; i < tamanho; i++) {
+            if (palavra.charAt(i) != fonte[inicio + i]) return -1;
+        }
+        return h;
+    }
+
+    private final char[] fonte;
+    private final int fim;
+    private int pos = 0;
+    // Identificadores são internados assim que reconhecidos.
+    private final TabelaNomes nomes;
+    // Destino dos erros léxicos.
+    private final Diagnostics diagnosticos;
+
+    public AnalisadorLexicoDFA(char[] fonte, int fim) {
+        this(fonte, fim, new TabelaNomes(), new Diagnostics());
+    }
+
+    public AnalisadorLexicoDFA(char[] fonte, int fim, TabelaNomes nomes) {
+        this(fonte, fim, nomes, new Diagnostics());
+    }
+
+    public AnalisadorLexicoDFA(char[] fonte, int fim, TabelaNomes nomes, Diagnostics diagnosticos) {
+        this.fonte = fonte;
+        this.fim = fim;
+        this.nomes = nomes;
+        this.diagnosticos = diagnosticos;
+    }
+
+    public TabelaNomes nomes() {
+        return nomes;
+    }
+
+    public Diagnostics diagnosticos() {
+        return diagnosticos;
+    }
+
+    /** Analisa todo o código-fonte e retorna a lista de tokens. */
+    public static List<AnalisadorLexico.Token> analisar(String codigo) {
+        Diagnostics diagnosticos = new Diagnostics();
+        List<AnalisadorLexico.Token> tokens = analisar(codigo, diagnosticos);
+        AnalisadorLexico.exibirErros(diagnosticos);
+        return tokens;
+    }
+
+    public static List<AnalisadorLexico.Token> analisar(String codigo, Diagnostics diagnosticos) {
+        AnalisadorLexicoDFA scanner = new AnalisadorLexicoDFA(codigo.toCharArray(), codigo.length(),
+                new TabelaNomes(), diagnosticos);
+        List<AnalisadorLexico.Token> tokens = new ArrayList<>(codigo.length() / 4 + 16);
+        AnalisadorLexico.Token t;
+        while (!diagnosticos.limiteAtingido() && (t = scanner.proximoToken()) != null) {
+            tokens.add(t);
+        }
+        return tokens;
+    }
+
+    /** Analisa todo o código-fonte guardando apenas tipo e posição de cada token (sem objetos Token). */
+    public static BufferTokens tokenizar(String codigo) {
+        Diagnostics diagnosticos = new Diagnostics();
+        BufferTokens buffer = tokenizar(codigo, diagnosticos);
+        AnalisadorLexico.exibirErros(diagnosticos);
+        return buffer;
+    }
+
+    public static BufferTokens tokenizar(String codigo, Diagnostics diagnosticos) {
+        char[] fonte = codigo.toCharArray();
+        return tokenizar(fonte, fonte.length, diagnosticos);
+    }
+
+    /** Como tokenizar(String, Diagnostics), lendo fonte[0 .. tamanho); o buffer de tokens guarda referência ao vetor. */
+    public static BufferTokens tokenizar(char[] fonte, int tamanho, Diagnostics diagnosticos) {
+        return tokenizar(fonte, tamanho, new TabelaNomes(), diagnosticos);
+    }
+
+    /** Como tokenizar(char[], int, Diagnostics), internando os identificadores numa tabela já existente. */
+    public static BufferTokens tokenizar(char[] fonte, int tamanho, TabelaNomes nomes, Diagnostics diagnosticos) {
+        AnalisadorLexicoDFA scanner = new AnalisadorLexicoDFA(fonte, tamanho, nomes, diagnosticos);
+        BufferTokens buffer = new BufferTokens(fonte, tamanho, scanner.nomes);
+        AnalisadorLexico.TokenType tipo;
+        while (!diagnosticos.limiteAtingido() && (tipo = scanner.avancar()) != null) {
+            buffer.adicionar(tipo, scanner.inicioUltimo, scanner.tamanhoUltimo, scanner.idUltimo);
+        }
+        return buffer;
+    }
+
+    /** Lexema compartilhado de tokens cujo texto é sempre o mesmo (operadores e comandos), ou null. */
+    static String lexemaFixo(AnalisadorLexico.TokenType tipo) {
+        return LEXEMAS_FIXOS[tipo.ordinal()];
+    }
+
+    /** Retorna o próximo token do código-fonte, ou null ao atingir o fim. */
+    public AnalisadorLexico.Token proximoToken() {
+        AnalisadorLexico.TokenType tipo = avancar();
+        if (tipo == null) return null;
+        String lexema;
+        if (palavraUltima >= 0) lexema = PALAVRAS[palavraUltima];
+        else if (idUltimo >= 0) lexema = nomes.nome(idUltimo);
+        else if ((lexema = LEXEMAS_FIXOS[tipo.ordinal()]) == null)
+            lexema = new String(fonte, inicioUltimo, tamanhoUltimo);
+        return new AnalisadorLexico.Token(tipo, lexema, linhaUltimo, colunaUltimo);
+    }
+
+    // Dados do último token reconhecido por avancar().
+    private int inicioUltimo, tamanhoUltimo, linhaUltimo, colunaUltimo;
+    private int palavraUltima;
+    private int idUltimo;
+    // Linha atual e posição em que ela começa.
+    private int linha = 1;
+    private int inicioLinha = 0;
+
+    // Reconhece o próximo token e retorna seu tipo, ou null ao atingir o fim.
+    // O lexema fica em fonte[inicioUltimo .. inicioUltimo + tamanhoUltimo).
+    private AnalisadorLexico.TokenType avancar() {
+        while (pos < fim) {
+            int inicio = pos;
+            int estado = INICIO;
+            int ultimoAceito = NAO_ACEITA;
+            int tamanhoAceito = 0;
+            // Avança enquanto houver transição, guardando o último estado de aceitação (maior casamento).
+            while (pos < fim) {
+                char c = fonte[pos];
+                int classe = c < 128 ? CLASSE[c] : C_OUTRO;
+                estado = TRANSICOES[estado * NUM_CLASSES + classe];
+                if (estado == MORTO) break;
+                pos++;
+                if (ACEITACAO[estado] != NAO_ACEITA) {
+                    ultimoAceito = ACEITACAO[estado];
+                    tamanhoAceito = pos - inicio;
+                }
+            }
+            inicioUltimo = inicio;
+            linhaUltimo = linha;
+            colunaUltimo = inicio - inicioLinha + 1;
+            palavraUltima = -1;
+            idUltimo = -1;
+            if (ultimoAceito == NAO_ACEITA) {
+                // Nenhum token reconhecido: reporta o caractere e segue a partir do próximo.
+                pos = inicio + 1;
+                tamanhoUltimo = 1;
+                diagnosticos.reportar(Diagnostics.Codigo.TOKEN_DESCONHECIDO, inicio,
+                        linhaUltimo, colunaUltimo, 1, String.valueOf(fonte[inicio]));
+                return AnalisadorLexico.TokenType.UNKNOWN;
+            }
+            pos = inicio + tamanhoAceito;
+            if (ultimoAceito == DESCARTAR) {
+                // Só espaços e comentários de bloco podem conter quebras de linha.
+                for (int i = inicio; i < pos; i++) {
+                    if (fonte[i] == '\n') {
+                        linha++;
+                        inicioLinha = i + 1;
+                    }
+                }
+                continue;
+            }
+
+            tamanhoUltimo = tamanhoAceito;
+            AnalisadorLexico.TokenType tipo = TIPOS[ultimoAceito];
+            if (tipo == AnalisadorLexico.TokenType.IDENTIFIER) {
+                palavraUltima = buscarPalavra(fonte, inicio, tamanhoAceito);
+                if (palavraUltima >= 0) return TIPOS_PALAVRAS[palavraUltima];
+                idUltimo = nomes.intern(fonte, inicio, tamanhoAceito);
+            }
+            return tipo;
+        }
+        return null;
+    }
+}
@@ -2,229 +2,442 @@
 O Analisador Sintático precisa:
 - Receber os tokens gerados pelo Analisador Léxico.
 - Percorrer esses tokens para verificar se a estrutura segue a gramática.
-- Lançar erros sintáticos, se houver problemas de sequência ou formatação.
+- Registrar erros sintáticos e semânticos no Diagnostics recebido, se houver problemas.
+- Construir a árvore sintática (ArvoreSintatica) usada pelas fases seguintes.
  */
 import java.util.*;
+import java.util.function.IntFunction;
 
 public class AnalisadorSintatico {
-    // Lista de tokens gerados pelo analisador léxico.
-    private final List<AnalisadorLexico.Token> tokens;
-    // Índice que aponta para o token atual.
-    private int indiceTokenAtual = 0;
+    // Fonte dos tokens gerados pelo analisador léxico (cursor do BufferTokens ou lista).
+    private final TokenStream tokens;
 
-    // Tabelas de símbolos para variáveis e funções (nome -> tipo).
-    private Map<String, String> symbolTable = new HashMap<>();
-    private Map<String, String> symbolTableFunctions = new HashMap<>();
+    // Tabelas de símbolos para variáveis (com escopos) e funções, indexadas pelo id do nome.
+    private final TabelaSimbolos simbolos;
+    private final TabelaSimbolos funcoes;
 
-    // GETS utilizados pelo gerador de código
+    // Tipos dos parâmetros das funções declaradas antes desta análise (null = não há).
+    private final IntFunction<Tipo[]> assinaturasExternas;
+    // Assinaturas externas consultadas nas chamadas (símbolo -> parâmetros; null se desconhecida).
+    private final Map<Integer, Tipo[]> assinaturasExternasUsadas = new LinkedHashMap<>();
+
+    // GETS utilizados pelo gerador de código (nome -> tipo)
     public Map<String, String> getSymbolTable() {
-        return symbolTable;
+        return simbolos.comoMapa();
     }
 
     public Map<String, String> getFunctionTable() {
-        return symbolTableFunctions;
+        return funcoes.comoMapa();
+    }
+
+    public TabelaSimbolos getSimbolos() {
+        return simbolos;
     }
 
+    public TabelaSimbolos getFuncoes() {
+        return funcoes;
+    }
+
+    // Árvore sintática construída durante a análise.
+    private final ArvoreSintatica arvore = new ArvoreSintatica();
+
+    public ArvoreSintatica getArvore() {
+        return arvore;
+    }
+
+    // Modo pânico: ligado no primeiro erro sintático, desligado ao chegar a um ponto de sincronização.
+    private boolean recuperando = false;
+
     // Tipo de retorno da função atual
-    private String currentFunctionReturnType = null;
+    private Tipo currentFunctionReturnType = null;
+
+    // Erros encontrados durante a análise.
+    private final Diagnostics diagnosticos;
+
+    public Diagnostics getDiagnostics() {
+        return diagnosticos;
+    }
 
     public AnalisadorSintatico(List<AnalisadorLexico.Token> tokens) {
+        this(TokenStream.deLista(tokens), new Diagnostics());
+    }
+
+    public AnalisadorSintatico(TokenStream tokens) {
+        this(tokens, new Diagnostics());
+    }
+
+    public AnalisadorSintatico(TokenStream tokens, Diagnostics diagnosticos) {
+        this(tokens, diagnosticos, new TabelaSimbolos(tokens.nomes()), new TabelaSimbolos(tokens.nomes()), null);
+    }
+
+    // Analisa os tokens num ambiente já existente: as tabelas recebem os símbolos declarados antes
+    // (usado pela compilação incremental, que analisa o programa em unidades separadas).
+    // assinaturasExternas dá os tipos dos parâmetros das funções declaradas antes (pelo símbolo).
+    AnalisadorSintatico(TokenStream tokens, Diagnostics diagnosticos, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                        IntFunction<Tipo[]> assinaturasExternas) {
         this.tokens = tokens;
+        this.diagnosticos = diagnosticos;
+        this.simbolos = simbolos;
+        this.funcoes = funcoes;
+        this.assinaturasExternas = assinaturasExternas;
+    }
+
+    /** Assinaturas de funções declaradas antes desta análise consultadas nas chamadas. */
+    public Map<Integer, Tipo[]> assinaturasExternasUsadas() {
+        return assinaturasExternasUsadas;
     }
 
     // Verifica se o token atual é o esperado (sem consumi-lo).
     private boolean match(AnalisadorLexico.TokenType esperado) {
-        return indiceTokenAtual < tokens.size() &&
-                tokens.get(indiceTokenAtual).type == esperado;
+        return tokens.tipo(0) == esperado;
     }
 
     // Consome o token e avança o índice se coincidir.
     private boolean consumir(AnalisadorLexico.TokenType esperado) {
         if (match(esperado)) {
-            indiceTokenAtual++;
+            tokens.avancar();
             return true;
         }
         return false;
     }
 
-    // Exibe mensagem de erro sintático com detalhes.
-    private boolean erroSintatico(String msg) {
-        System.err.println("Erro sintático encontrado na posição " + indiceTokenAtual + ": " + msg +
-                " – Token atual: " + (indiceTokenAtual < tokens.size() ? tokens.get(indiceTokenAtual) : "EOF"));
-        return false;
+    // Indica se todos os tokens já foram consumidos.
+    private boolean fimDosTokens() {
+        return tokens.tipo(0) == null;
+    }
+
+    // Lexema do token atual (null no fim da entrada).
+    private String valorAtual() {
+        return tokens.lexema(0);
     }
 
-    // Exibe mensagem de erro semântico com detalhes.
-    private boolean erroSemantico(String msg) {
-        System.err.println("Erro semântico encontrado na posição " + indiceTokenAtual + ": " + msg +
-                " – Token atual: " + (indiceTokenAtual < tokens.size() ? tokens.get(indiceTokenAtual) : "EOF"));
+    // Registra o erro no token atual; a mensagem só é montada quando os diagnósticos forem exibidos.
+    // Em modo pânico os erros sintáticos são consequência do primeiro e não são registrados; o mesmo
+    // vale para um token desconhecido, que já foi reportado pelo analisador léxico.
+    private boolean erro(Diagnostics.Codigo codigo, String... args) {
+        if (codigo.fase == Diagnostics.Fase.SINTATICA) {
+            boolean repetido = recuperando || match(AnalisadorLexico.TokenType.UNKNOWN);
+            recuperando = true;
+            if (repetido) return false;
+        }
+        String lexema = tokens.lexema(0);
+        int d = diagnosticos.reportar(codigo, tokens.posicao(), tokens.linha(), tokens.coluna(),
+                lexema != null ? lexema.length() : 0, args);
+        diagnosticos.anexarToken(d, tokens.tipo(0), lexema);
         return false;
     }
 
     /// Inicia a análise processando todos os comandos.
     public void analisarPrograma() {
-        while (indiceTokenAtual < tokens.size()) {
-            analisarComando();
+        int programa = arvore.novoNo(ArvoreSintatica.TipoNo.PROGRAMA, tokens.posicao(), 0);
+        while (!fimDosTokens() && !diagnosticos.limiteAtingido()) {
+            analisarComando(programa);
         }
     }
 
-    // Seleciona e processa o comando apropriado conforme o token atual.
-    private void analisarComando() {
+    // Cria um nó começando no token atual e o pendura em pai.
+    private int novoNo(ArvoreSintatica.TipoNo tipo, int pai, int valor) {
+        int no = arvore.novoNo(tipo, tokens.posicao(), valor);
+        arvore.adicionarFilho(pai, no);
+        return no;
+    }
+
+    // Seleciona e processa o comando apropriado conforme o token atual; o nó do comando vai para pai.
+    // Se o comando falhar, descarta tokens até o próximo ponto de sincronização.
+    private void analisarComando(int pai) {
+        boolean ok;
         if (match(AnalisadorLexico.TokenType.VAR)) {
-            analisarDeclaracaoVariavel();
+            ok = analisarDeclaracaoVariavel(pai);
         } else if (match(AnalisadorLexico.TokenType.FUNC)) {
-            analisarFuncao();
+            ok = analisarFuncao(pai);
         } else if (match(AnalisadorLexico.TokenType.RETURN)) {
-            analisarReturn();
+            ok = analisarReturn(pai);
         } else if (match(AnalisadorLexico.TokenType.IDENTIFIER)) {
             // Se o próximo token for '=' trata como atribuição; caso contrário, processa a expressão (ex.: chamada de função).
             if (peekNextTokenType() == AnalisadorLexico.TokenType.ASSIGN) {
-                analisarAtribuicao();
+                ok = analisarAtribuicao(pai);
             } else {
-                analisarExpressao();
+                int comando = novoNo(ArvoreSintatica.TipoNo.EXPRESSAO, pai, 0);
+                int expr = analisarExpressao();
+                if (expr >= 0) arvore.adicionarFilho(comando, expr);
+                ok = expr >= 0;
                 consumir(AnalisadorLexico.TokenType.SEMICOLON);
             }
         } else if (match(AnalisadorLexico.TokenType.IF)) {
-            analisarControleFluxo();
+            ok = analisarControleFluxo(pai);
         } else if (match(AnalisadorLexico.TokenType.WHILE) ||
                 match(AnalisadorLexico.TokenType.FOR)) {
-            analisarLaco();
+            ok = analisarLaco(pai);
         } else if (match(AnalisadorLexico.TokenType.PRINT) ||
                 match(AnalisadorLexico.TokenType.INPUT)) {
-            analisarEntradaSaida();
+            ok = analisarEntradaSaida(pai);
         } else {
-            erroSintatico("Comando inesperado.");
-            indiceTokenAtual++;
+            ok = erro(Diagnostics.Codigo.COMANDO_INESPERADO);
+            // Garante progresso mesmo quando o token inesperado é um ponto de sincronização (ex.: '}' solto).
+            tokens.avancar();
         }
+        if (!ok) sincronizar(pai);
+    }
+
+    // Conjuntos de sincronização, indexados pelo ordinal do TokenType.
+    // Início de comando: onde a análise pode recomeçar depois de um erro.
+    private static final boolean[] INICIO_COMANDO = conjunto(
+            AnalisadorLexico.TokenType.VAR, AnalisadorLexico.TokenType.FUNC, AnalisadorLexico.TokenType.RETURN,
+            AnalisadorLexico.TokenType.IF, AnalisadorLexico.TokenType.WHILE, AnalisadorLexico.TokenType.FOR,
+            AnalisadorLexico.TokenType.PRINT, AnalisadorLexico.TokenType.INPUT);
+    // Tokens que encerram a busca pelo '{' do corpo em cabeçalhos de if/while/func.
+    private static final boolean[] FIM_CABECALHO = conjunto(
+            AnalisadorLexico.TokenType.VAR, AnalisadorLexico.TokenType.FUNC, AnalisadorLexico.TokenType.RETURN,
+            AnalisadorLexico.TokenType.IF, AnalisadorLexico.TokenType.WHILE, AnalisadorLexico.TokenType.FOR,
+            AnalisadorLexico.TokenType.PRINT, AnalisadorLexico.TokenType.INPUT,
+            AnalisadorLexico.TokenType.SEMICOLON, AnalisadorLexico.TokenType.RBRACE);
+    // No cabeçalho do 'for', ';' e 'var' fazem parte da própria produção.
+    private static final boolean[] FIM_CABECALHO_FOR = conjunto(
+            AnalisadorLexico.TokenType.FUNC, AnalisadorLexico.TokenType.RETURN,
+            AnalisadorLexico.TokenType.IF, AnalisadorLexico.TokenType.WHILE, AnalisadorLexico.TokenType.FOR,
+            AnalisadorLexico.TokenType.PRINT, AnalisadorLexico.TokenType.INPUT,
+            AnalisadorLexico.TokenType.RBRACE);
+
+    private static boolean[] conjunto(AnalisadorLexico.TokenType... tipos) {
+        boolean[] c = new boolean[AnalisadorLexico.TokenType.values().length];
+        for (AnalisadorLexico.TokenType t : tipos) c[t.ordinal()] = true;
+        return c;
+    }
+
+    // Modo pânico no nível de comando: descarta tokens até depois de um ';', antes de um '}' ou
+    // antes do início de outro comando. Um '{' encontrado no caminho é analisado como bloco,
+    // para manter o aninhamento das chaves e não perder os erros de dentro dele.
+    private void sincronizar(int pai) {
+        AnalisadorLexico.TokenType t;
+        while ((t = tokens.tipo(0)) != null) {
+            if (t == AnalisadorLexico.TokenType.SEMICOLON) {
+                tokens.avancar();
+                break;
+            }
+            if (t == AnalisadorLexico.TokenType.RBRACE || INICIO_COMANDO[t.ordinal()]) break;
+            if (t == AnalisadorLexico.TokenType.LBRACE) {
+                recuperando = false;
+                processarBlocoCodigo("bloco", pai);
+                return;
+            }
+            tokens.avancar();
+        }
+        // No fim da entrada o modo pânico continua, evitando um erro por bloco não fechado.
+        if (t != null) recuperando = false;
+    }
+
+    // Recuperação dentro de um cabeçalho (if, while, for, func): descarta tokens até o '{' do corpo,
+    // que então é analisado normalmente. Retorna false se antes aparecer um token de parada.
+    private boolean pularAteCorpo(boolean[] parada) {
+        AnalisadorLexico.TokenType t;
+        while ((t = tokens.tipo(0)) != null) {
+            if (t == AnalisadorLexico.TokenType.LBRACE) {
+                recuperando = false;
+                return true;
+            }
+            if (parada[t.ordinal()]) return false;
+            tokens.avancar();
+        }
+        return false;
     }
 
     // Retorna o tipo do próximo token sem avançar.
     private AnalisadorLexico.TokenType peekNextTokenType() {
-        if (indiceTokenAtual + 1 < tokens.size()) {
-            return tokens.get(indiceTokenAtual + 1).type;
+        return tokens.tipo(1);
+    }
+
+
+    // Precedência (binding power) dos operadores binários, indexada pelo ordinal do TokenType.
+    // 0 = não é operador binário. Níveis da gramática: relExpr < addExpr < mulExpr.
+    private static final byte[] PRECEDENCIA = new byte[AnalisadorLexico.TokenType.values().length];
+    static {
+        for (AnalisadorLexico.TokenType op : new AnalisadorLexico.TokenType[]{
+                AnalisadorLexico.TokenType.EQUAL, AnalisadorLexico.TokenType.NOTEQUAL,
+                AnalisadorLexico.TokenType.LESSTHAN, AnalisadorLexico.TokenType.GREATERTHAN,
+                AnalisadorLexico.TokenType.LESSEQUAL, AnalisadorLexico.TokenType.GREATEREQUAL}) {
+            PRECEDENCIA[op.ordinal()] = 1;
         }
-        return null;
-    }
-
-
-    // Análise de expressões (retornam o tipo da expressão)
-    private String analisarExpressao() {
-        String leftType = analisarTermo();
-        if (leftType == null) return null;
-
-        while (match(AnalisadorLexico.TokenType.PLUS)    ||
-                match(AnalisadorLexico.TokenType.MINUS)   ||
-                match(AnalisadorLexico.TokenType.MULTIPLY)||
-                match(AnalisadorLexico.TokenType.DIVIDE)  ||
-                match(AnalisadorLexico.TokenType.MODULO)  ||
-                match(AnalisadorLexico.TokenType.EQUAL)   ||
-                match(AnalisadorLexico.TokenType.NOTEQUAL)||
-                match(AnalisadorLexico.TokenType.LESSTHAN)||
-                match(AnalisadorLexico.TokenType.GREATERTHAN)||
-                match(AnalisadorLexico.TokenType.LESSEQUAL) ||
-                match(AnalisadorLexico.TokenType.GREATEREQUAL)) {
-
-            AnalisadorLexico.TokenType op = tokens.get(indiceTokenAtual).type;
-            consumir(op);
-            String rightType = analisarTermo();
-            if (rightType == null) return null;
-
-            // Se o operador é '+'
-            if (op == AnalisadorLexico.TokenType.PLUS) {
-                // Permite concatenação se qualquer operando for string.
-                if (leftType.equals("string") || rightType.equals("string")) {
-                    leftType = "string";
-                } else if ((leftType.equals("int") || leftType.equals("float")) &&
-                        (rightType.equals("int") || rightType.equals("float"))) {
-                    leftType = (leftType.equals("float") || rightType.equals("float")) ? "float" : "int";
-                } else {
-                    erroSemantico("Operador '+' aplicado a tipos incompatíveis: " + leftType + " e " + rightType);
-                    return null;
-                }
-            }
-            // Para os demais operadores aritméticos
-            else if (op == AnalisadorLexico.TokenType.MINUS ||
-                    op == AnalisadorLexico.TokenType.MULTIPLY ||
-                    op == AnalisadorLexico.TokenType.DIVIDE  ||
-                    op == AnalisadorLexico.TokenType.MODULO) {
-
-                if ((leftType.equals("int") || leftType.equals("float")) &&
-                        (rightType.equals("int") || rightType.equals("float"))) {
-                    leftType = (leftType.equals("float") || rightType.equals("float")) ? "float" : "int";
-                } else {
-                    erroSemantico("Operador aritmético aplicado a tipos incompatíveis: " + leftType + " e " + rightType);
-                    return null;
-                }
+        PRECEDENCIA[AnalisadorLexico.TokenType.PLUS.ordinal()] = 2;
+        PRECEDENCIA[AnalisadorLexico.TokenType.MINUS.ordinal()] = 2;
+        PRECEDENCIA[AnalisadorLexico.TokenType.MULTIPLY.ordinal()] = 3;
+        PRECEDENCIA[AnalisadorLexico.TokenType.DIVIDE.ordinal()] = 3;
+        PRECEDENCIA[AnalisadorLexico.TokenType.MODULO.ordinal()] = 3;
+    }
+
+    // Análise de expressões: retornam o nó da expressão (com o tipo resolvido), ou -1 em caso de erro.
+    private int analisarExpressao() {
+        return analisarExpressao(1);
+    }
+
+    // Precedence climbing: consome operadores com precedência >= precedenciaMinima.
+    // Todos os operadores são associativos à esquerda, então o lado direito exige precedência maior.
+    private int analisarExpressao(int precedenciaMinima) {
+        int esquerda = analisarUnario();
+        if (esquerda < 0) return -1;
+
+        while (true) {
+            AnalisadorLexico.TokenType op = tokens.tipo(0);
+            int precedencia = op != null ? PRECEDENCIA[op.ordinal()] : 0;
+            if (precedencia < precedenciaMinima) break;
+            int binario = arvore.novoNo(ArvoreSintatica.TipoNo.BINARIO, tokens.posicao(), op.ordinal());
+            tokens.avancar();
+            int direita = analisarExpressao(precedencia + 1);
+            if (direita < 0) return -1;
+
+            Tipo leftType = arvore.tipo(esquerda);
+            Tipo rightType = arvore.tipo(direita);
+            Tipo resultado = Tipo.resultado(op, leftType, rightType);
+            if (resultado == null) {
+                erro(Diagnostics.Codigo.OPERADOR_INCOMPATIVEL, descricaoOperador(op), leftType.nome, rightType.nome);
+                return -1;
             }
-            // Para operadores relacionais, o resultado deve ser bool
-            else {
-                if (leftType.equals(rightType)) {
-                    leftType = "bool";
-                } else {
-                    erroSemantico("Operador relacional aplicado a tipos incompatíveis: " + leftType + " e " + rightType);
-                    return null;
-                }
+            arvore.adicionarFilho(binario, esquerda);
+            arvore.adicionarFilho(binario, direita);
+            arvore.definirTipo(binario, resultado);
+            esquerda = binario;
+        }
+        return esquerda;
+    }
+
+    // <unary> ::= [ "+" | "-" ] <primary>
+    private int analisarUnario() {
+        if (!match(AnalisadorLexico.TokenType.PLUS) && !match(AnalisadorLexico.TokenType.MINUS)) {
+            return analisarTermo();
+        }
+        AnalisadorLexico.TokenType op = tokens.tipo(0);
+        int unario = arvore.novoNo(ArvoreSintatica.TipoNo.UNARIO, tokens.posicao(), op.ordinal());
+        tokens.avancar();
+        int operando = analisarTermo();
+        if (operando < 0) return -1;
+        Tipo resultado = Tipo.resultadoUnario(op, arvore.tipo(operando));
+        if (resultado == null) {
+            erro(Diagnostics.Codigo.UNARIO_INCOMPATIVEL, op == AnalisadorLexico.TokenType.MINUS ? "-" : "+",
+                    arvore.tipo(operando).nome);
+            return -1;
+        }
+        arvore.adicionarFilho(unario, operando);
+        arvore.definirTipo(unario, resultado);
+        return unario;
+    }
+
+    // Nome do operador usado nas mensagens de erro de tipos.
+    private static String descricaoOperador(AnalisadorLexico.TokenType op) {
+        switch (op) {
+            case PLUS: return "Operador '+'";
+            case MINUS: case MULTIPLY: case DIVIDE: case MODULO: return "Operador aritmético";
+            default: return "Operador relacional";
+        }
+    }
+
+    // Cria um nó de expressão já com o tipo resolvido.
+    private int novoNoExpressao(ArvoreSintatica.TipoNo tipo, int indiceToken, int valor, Tipo t) {
+        int no = arvore.novoNo(tipo, indiceToken, valor);
+        arvore.definirTipo(no, t);
+        return no;
+    }
+
+    // Confere os argumentos da chamada com os parâmetros da função: mesma quantidade e cada
+    // argumento compatível com o tipo do parâmetro (a mesma regra da atribuição).
+    private void verificarArgumentos(int chamada, int funcao, String nome) {
+        Tipo[] parametros = parametros(funcao);
+        if (parametros == null) return;
+        int n = 0;
+        for (int a = arvore.primeiroFilho(chamada); a >= 0; a = arvore.proximoIrmao(a), n++) {
+            if (n < parametros.length && !Tipo.compativel(parametros[n], arvore.tipo(a))) {
+                erro(Diagnostics.Codigo.ARGUMENTO_INCOMPATIVEL, String.valueOf(n + 1), nome,
+                        parametros[n].nome, arvore.tipo(a).nome);
             }
         }
-        return leftType;
+        if (n != parametros.length) {
+            erro(Diagnostics.Codigo.QUANTIDADE_ARGUMENTOS, nome, String.valueOf(parametros.length), String.valueOf(n));
+        }
     }
 
-    private String analisarTermo() {
+    // Tipos dos parâmetros da função; null se ela foi declarada antes desta análise e a assinatura
+    // não é conhecida.
+    private Tipo[] parametros(int funcao) {
+        if (funcao >= funcoes.inicioUnidade()) return ConstrutorIR.parametros(arvore, funcoes.declaracao(funcao));
+        Tipo[] tipos = assinaturasExternas != null ? assinaturasExternas.apply(funcao) : null;
+        assinaturasExternasUsadas.put(funcao, tipos);
+        return tipos;
+    }
+
+    private int analisarTermo() {
+        int inicio = tokens.posicao();
         if (match(AnalisadorLexico.TokenType.IDENTIFIER)) {
-            String nome = tokens.get(indiceTokenAtual).value;
+            String nome = valorAtual();
+            int id = tokens.idNome(0);
             consumir(AnalisadorLexico.TokenType.IDENTIFIER);
             // Se for chamada de função
             if (match(AnalisadorLexico.TokenType.LPAREN)) {
+                int chamada = arvore.novoNo(ArvoreSintatica.TipoNo.CHAMADA, inicio, -1);
                 consumir(AnalisadorLexico.TokenType.LPAREN);
                 if (!match(AnalisadorLexico.TokenType.RPAREN)) {
-                    String paramType = analisarExpressao();
-                    if (paramType == null) return null;
+                    int argumento = analisarExpressao();
+                    if (argumento < 0) return -1;
+                    arvore.adicionarFilho(chamada, argumento);
                     while (match(AnalisadorLexico.TokenType.COMMA)) {
                         consumir(AnalisadorLexico.TokenType.COMMA);
-                        String t = analisarExpressao();
-                        if (t == null) return null;
+                        argumento = analisarExpressao();
+                        if (argumento < 0) return -1;
+                        arvore.adicionarFilho(chamada, argumento);
                     }
                 }
                 if (!consumir(AnalisadorLexico.TokenType.RPAREN)) {
-                    erroSintatico("Esperado ')' para fechar chamada de função.");
-                    return null;
+                    erro(Diagnostics.Codigo.FECHA_CHAMADA);
+                    return -1;
                 }
-                String funcType = symbolTableFunctions.get(nome);
-                if (funcType == null) {
-                    erroSemantico("Função '" + nome + "' não declarada.");
-                    return "unknown";
+                int funcao = funcoes.buscar(id);
+                if (funcao < 0) {
+                    erro(Diagnostics.Codigo.FUNCAO_NAO_DECLARADA, nome);
+                    return chamada;
                 }
-                return funcType;
+                arvore.definirValor(chamada, funcao);
+                arvore.definirTipo(chamada, funcoes.tipo(funcao));
+                verificarArgumentos(chamada, funcao, nome);
+                return chamada;
             } else {
-                String varType = symbolTable.get(nome);
-                if (varType == null) {
-                    erroSemantico("Variável '" + nome + "' não declarada.");
-                    return "unknown";
+                int simbolo = simbolos.buscar(id);
+                if (simbolo < 0) {
+                    erro(Diagnostics.Codigo.VARIAVEL_NAO_DECLARADA, nome);
+                    return novoNoExpressao(ArvoreSintatica.TipoNo.VARIAVEL, inicio, -1, Tipo.UNKNOWN);
                 }
-                return varType;
+                return novoNoExpressao(ArvoreSintatica.TipoNo.VARIAVEL, inicio, simbolo, simbolos.tipo(simbolo));
             }
         } else if (match(AnalisadorLexico.TokenType.NUMBER)) {
-            String num = tokens.get(indiceTokenAtual).value;
+            String num = valorAtual();
             consumir(AnalisadorLexico.TokenType.NUMBER);
-            return (num.contains(".")) ? "float" : "int";
+            if (num.indexOf('.') >= 0) {
+                return novoNoExpressao(ArvoreSintatica.TipoNo.REAL, inicio, arvore.adicionarLiteral(num), Tipo.FLOAT);
+            }
+            int valor = 0;
+            try {
+                valor = Integer.parseInt(num);
+            } catch (NumberFormatException e) {
+                erro(Diagnostics.Codigo.INTEIRO_FORA_INTERVALO, num);
+            }
+            return novoNoExpressao(ArvoreSintatica.TipoNo.INTEIRO, inicio, valor, Tipo.INT);
         } else if (match(AnalisadorLexico.TokenType.STRING)) {
+            String texto = valorAtual();
             consumir(AnalisadorLexico.TokenType.STRING);
-            return "string";
+            int literal = arvore.adicionarLiteral(texto.substring(1, texto.length() - 1));
+            return novoNoExpressao(ArvoreSintatica.TipoNo.TEXTO, inicio, literal, Tipo.STRING);
         } else if (match(AnalisadorLexico.TokenType.BOOL)) {
+            boolean verdadeiro = "true".equals(valorAtual());
             consumir(AnalisadorLexico.TokenType.BOOL);
-            return "bool";
+            return novoNoExpressao(ArvoreSintatica.TipoNo.LOGICO, inicio, verdadeiro ? 1 : 0, Tipo.BOOL);
         } else if (match(AnalisadorLexico.TokenType.LPAREN)) {
             consumir(AnalisadorLexico.TokenType.LPAREN);
-            String exprType = analisarExpressao();
-            if (exprType == null) return null;
+            int expr = analisarExpressao();
+            if (expr < 0) return -1;
             if (!consumir(AnalisadorLexico.TokenType.RPAREN)) {
-                erroSintatico("Esperado ')' para fechar expressão.");
-                return null;
+                erro(Diagnostics.Codigo.FECHA_EXPRESSAO);
+                return -1;
             }
-            return exprType;
+            return expr;
         }
-        erroSintatico("Termo inesperado.");
-        return null;
+        erro(Diagnostics.Codigo.TERMO_INESPERADO);
+        return -1;
     }
 
 
@@ -232,269 +445,368 @@ public class AnalisadorSintatico {
 
 
     // Atribuição fora de um laço (consome o ponto‑vírgula final).
-    private boolean analisarAtribuicao() {
-        String varName = tokens.get(indiceTokenAtual).value;
+    private boolean analisarAtribuicao(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.ATRIBUICAO, pai, -1);
+        String varName = valorAtual();
+        int id = tokens.idNome(0);
         if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-            return erroSintatico("Esperado identificador para atribuição.");
+            return erro(Diagnostics.Codigo.IDENTIFICADOR_ATRIBUICAO);
         if (!consumir(AnalisadorLexico.TokenType.ASSIGN))
-            return erroSintatico("Esperado '=' na atribuição.");
-        String exprType = analisarExpressao();
-        if (exprType == null)
-            return false;
-        String varType = symbolTable.get(varName);
+            return erro(Diagnostics.Codigo.IGUAL_ATRIBUICAO);
+        int expr = analisarExpressao();
+        if (expr < 0) return false;
+        arvore.adicionarFilho(no, expr);
+        Tipo exprType = arvore.tipo(expr);
+        int simbolo = simbolos.buscar(id);
+        arvore.definirValor(no, simbolo);
+        Tipo varType = simbolo >= 0 ? simbolos.tipo(simbolo) : null;
         if (varType == null) {
-            erroSemantico("Variável '" + varName + "' não declarada antes da atribuição.");
+            erro(Diagnostics.Codigo.VARIAVEL_NAO_DECLARADA_ATRIBUICAO, varName);
         } else if (!tipoCompatível(varType, exprType)) {
-            erroSemantico("Incompatibilidade de tipos na atribuição de '" + varName +
-                    "'. Declarado: " + varType + ", atribuído: " + exprType);
+            erro(Diagnostics.Codigo.ATRIBUICAO_INCOMPATIVEL, varName, varType.nome, exprType.nome);
         }
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' no fim da atribuição.");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_ATRIBUICAO);
         return true;
     }
 
     // Declaração de variável fora de for (consome o ';' final).
-    private boolean analisarDeclaracaoVariavel() {
+    private boolean analisarDeclaracaoVariavel(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.DECLARACAO, pai, -1);
         consumir(AnalisadorLexico.TokenType.VAR);
-        String varName = tokens.get(indiceTokenAtual).value;
+        String varName = valorAtual();
+        int id = tokens.idNome(0);
         if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-            return erroSintatico("Esperado o nome da variável na declaração.");
+            return erro(Diagnostics.Codigo.NOME_VARIAVEL);
         if (!consumir(AnalisadorLexico.TokenType.COLON))
-            return erroSintatico("Esperado ':' na declaração da variável.");
-        String varType = tokens.get(indiceTokenAtual).value;
+            return erro(Diagnostics.Codigo.DOIS_PONTOS_DECLARACAO);
+        Tipo varType = Tipo.deNome(valorAtual());
         if (!consumir(AnalisadorLexico.TokenType.TYPE))
-            return erroSintatico("Tipo inválido na declaração da variável.");
-        if (symbolTable.containsKey(varName)) {
-            erroSemantico("Variável '" + varName + "' já declarada.");
-        } else {
-            symbolTable.put(varName, varType);
+            return erro(Diagnostics.Codigo.TIPO_DECLARACAO);
+        arvore.definirTipo(no, varType);
+        if (!declararVariavel(id, varType, no)) {
+            erro(Diagnostics.Codigo.VARIAVEL_JA_DECLARADA, varName);
         }
         if (match(AnalisadorLexico.TokenType.ASSIGN)) {
             consumir(AnalisadorLexico.TokenType.ASSIGN);
-            String exprType = analisarExpressao();
-            if (exprType == null) return false;
+            int expr = analisarExpressao();
+            if (expr < 0) return false;
+            arvore.adicionarFilho(no, expr);
+            Tipo exprType = arvore.tipo(expr);
             if (!tipoCompatível(varType, exprType)) {
-                erroSemantico("Incompatibilidade de tipos na declaração de '" + varName +
-                        "'. Declarado: " + varType + ", atribuído: " + exprType);
+                erro(Diagnostics.Codigo.DECLARACAO_INCOMPATIVEL, varName, varType.nome, exprType.nome);
             }
         }
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' no fim da declaração de variável.");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_DECLARACAO);
         return true;
     }
 
     //Versões para uso no 'for' (não consomem o ';' final).
 
-    private boolean analisarDeclaracaoVariavelFor() {
+    private boolean analisarDeclaracaoVariavelFor(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.DECLARACAO, pai, -1);
         consumir(AnalisadorLexico.TokenType.VAR);
-        String varName = tokens.get(indiceTokenAtual).value;
+        String varName = valorAtual();
+        int id = tokens.idNome(0);
         if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-            return erroSintatico("Esperado o nome da variável na declaração.");
+            return erro(Diagnostics.Codigo.NOME_VARIAVEL);
         if (!consumir(AnalisadorLexico.TokenType.COLON))
-            return erroSintatico("Esperado ':' na declaração da variável.");
-        String varType = tokens.get(indiceTokenAtual).value;
+            return erro(Diagnostics.Codigo.DOIS_PONTOS_DECLARACAO);
+        Tipo varType = Tipo.deNome(valorAtual());
         if (!consumir(AnalisadorLexico.TokenType.TYPE))
-            return erroSintatico("Tipo inválido na declaração da variável.");
-        if (symbolTable.containsKey(varName))
-            erroSemantico("Variável '" + varName + "' já declarada.");
-        else
-            symbolTable.put(varName, varType);
+            return erro(Diagnostics.Codigo.TIPO_DECLARACAO);
+        arvore.definirTipo(no, varType);
+        if (!declararVariavel(id, varType, no))
+            erro(Diagnostics.Codigo.VARIAVEL_JA_DECLARADA, varName);
         if (match(AnalisadorLexico.TokenType.ASSIGN)) {
             consumir(AnalisadorLexico.TokenType.ASSIGN);
-            String exprType = analisarExpressao();
-            if (exprType == null) return false;
+            int expr = analisarExpressao();
+            if (expr < 0) return false;
+            arvore.adicionarFilho(no, expr);
+            Tipo exprType = arvore.tipo(expr);
             if (!tipoCompatível(varType, exprType))
-                erroSemantico("Incompatibilidade de tipos na declaração de '" + varName +
-                        "'. Declarado: " + varType + ", atribuído: " + exprType);
+                erro(Diagnostics.Codigo.DECLARACAO_INCOMPATIVEL, varName, varType.nome, exprType.nome);
         }
         // Não consome ';' para encaixar na sintaxe do 'for'
         return true;
     }
 
-    private boolean analisarAtribuicaoFor() {
-        String varName = tokens.get(indiceTokenAtual).value;
+    private boolean analisarAtribuicaoFor(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.ATRIBUICAO, pai, -1);
+        String varName = valorAtual();
+        int id = tokens.idNome(0);
         if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-            return erroSintatico("Esperado identificador para atribuição.");
+            return erro(Diagnostics.Codigo.IDENTIFICADOR_ATRIBUICAO);
         if (!consumir(AnalisadorLexico.TokenType.ASSIGN))
-            return erroSintatico("Esperado '=' na atribuição.");
-        String exprType = analisarExpressao();
-        if (exprType == null) return false;
-        String varType = symbolTable.get(varName);
+            return erro(Diagnostics.Codigo.IGUAL_ATRIBUICAO);
+        int expr = analisarExpressao();
+        if (expr < 0) return false;
+        arvore.adicionarFilho(no, expr);
+        Tipo exprType = arvore.tipo(expr);
+        int simbolo = simbolos.buscar(id);
+        arvore.definirValor(no, simbolo);
+        Tipo varType = simbolo >= 0 ? simbolos.tipo(simbolo) : null;
         if (varType == null)
-            erroSemantico("Variável '" + varName + "' não declarada.");
+            erro(Diagnostics.Codigo.VARIAVEL_NAO_DECLARADA, varName);
         else if (!tipoCompatível(varType, exprType))
-            erroSemantico("Incompatibilidade de tipos na atribuição de '" + varName +
-                    "'. Declarado: " + varType + ", atribuído: " + exprType);
+            erro(Diagnostics.Codigo.ATRIBUICAO_INCOMPATIVEL, varName, varType.nome, exprType.nome);
         // Não consome ';' aqui
         return true;
     }
 
+    // Declara a variável no escopo atual e liga o símbolo ao nó da declaração.
+    private boolean declararVariavel(int id, Tipo tipo, int no) {
+        int simbolo = simbolos.declarar(id, tipo);
+        if (simbolo < 0) return false;
+        arvore.definirValor(no, simbolo);
+        simbolos.definirDeclaracao(simbolo, no);
+        return true;
+    }
+
     /// Entrada e saída.
-    private boolean analisarEntradaSaida() {
+    private boolean analisarEntradaSaida(int pai) {
         AnalisadorLexico.TokenType cmd = match(AnalisadorLexico.TokenType.PRINT)
                 ? AnalisadorLexico.TokenType.PRINT
                 : AnalisadorLexico.TokenType.INPUT;
+        int no = novoNo(cmd == AnalisadorLexico.TokenType.PRINT
+                ? ArvoreSintatica.TipoNo.ESCREVA : ArvoreSintatica.TipoNo.LEIA, pai, -1);
         consumir(cmd);
         if (!consumir(AnalisadorLexico.TokenType.LPAREN))
-            return erroSintatico("Esperado '(' após " + cmd + ".");
+            return erro(Diagnostics.Codigo.ABRE_PARENTESE_APOS, cmd.name());
         if (cmd == AnalisadorLexico.TokenType.PRINT) {
-            String exprType = analisarExpressao();
-            if (exprType == null) return false;
+            int expr = analisarExpressao();
+            if (expr < 0) return false;
+            arvore.adicionarFilho(no, expr);
         } else {
-            String varName = tokens.get(indiceTokenAtual).value;
+            String varName = valorAtual();
+            int id = tokens.idNome(0);
             if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-                return erroSintatico("Esperado identificador em input.");
-            if (!symbolTable.containsKey(varName))
-                erroSemantico("Variável '" + varName + "' não declarada para input.");
+                return erro(Diagnostics.Codigo.IDENTIFICADOR_INPUT);
+            int simbolo = simbolos.buscar(id);
+            arvore.definirValor(no, simbolo);
+            if (simbolo < 0)
+                erro(Diagnostics.Codigo.VARIAVEL_NAO_DECLARADA_INPUT, varName);
         }
         if (!consumir(AnalisadorLexico.TokenType.RPAREN))
-            return erroSintatico("Esperado ')' para fechar " + cmd + ".");
+            return erro(Diagnostics.Codigo.FECHA_PARENTESE, cmd.name());
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' após " + cmd + ".");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_APOS, cmd.name());
         return true;
     }
 
     /// Controle condicional 'if' [ 'else' ].
-    private boolean analisarControleFluxo() {
+    private boolean analisarControleFluxo(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.SE, pai, 0);
         consumir(AnalisadorLexico.TokenType.IF);
-        if (!consumir(AnalisadorLexico.TokenType.LPAREN))
-            return erroSintatico("Esperado '(' após 'if'.");
-        String condType = analisarExpressao();
-        if (condType == null) return false;
-        if (!condType.equals("bool"))
-            erroSemantico("Condição do 'if' deve ser do tipo bool, mas obteve: " + condType);
-        if (!consumir(AnalisadorLexico.TokenType.RPAREN))
-            return erroSintatico("Esperado ')' após a condição do 'if'.");
-        processarBlocoCodigo("if");
+        if (!processarCondicao("if", no) && !pularAteCorpo(FIM_CABECALHO)) return false;
+        if (!processarBlocoCodigo("if", no)) return false;
         if (match(AnalisadorLexico.TokenType.ELSE)) {
             consumir(AnalisadorLexico.TokenType.ELSE);
-            processarBlocoCodigo("else");
+            return processarBlocoCodigo("else", no);
         }
         return true;
     }
 
+    // "(" <condição bool> ")" de if e while; a condição vira filho de no.
+    private boolean processarCondicao(String comando, int no) {
+        if (!consumir(AnalisadorLexico.TokenType.LPAREN))
+            return erro(Diagnostics.Codigo.ABRE_PARENTESE_APOS, "'" + comando + "'");
+        int expr = analisarExpressao();
+        if (expr < 0) return false;
+        arvore.adicionarFilho(no, expr);
+        Tipo condType = arvore.tipo(expr);
+        if (!Tipo.compativel(Tipo.BOOL, condType))
+            erro(Diagnostics.Codigo.CONDICAO_NAO_BOOL, comando, condType.nome);
+        if (!consumir(AnalisadorLexico.TokenType.RPAREN))
+            return erro(Diagnostics.Codigo.FECHA_CONDICAO, "'" + comando + "'");
+        return true;
+    }
+
     // Seleciona o laço: 'while' ou 'for'
-    private boolean analisarLaco() {
+    private boolean analisarLaco(int pai) {
         if (match(AnalisadorLexico.TokenType.WHILE))
-            return processarLacoWhile();
+            return processarLacoWhile(pai);
         else
-            return processarLacoFor();
+            return processarLacoFor(pai);
     }
 
     // Laço 'while'
-    private boolean processarLacoWhile() {
+    private boolean processarLacoWhile(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.ENQUANTO, pai, 0);
         consumir(AnalisadorLexico.TokenType.WHILE);
-        if (!consumir(AnalisadorLexico.TokenType.LPAREN))
-            return erroSintatico("Esperado '(' após 'while'.");
-        String condType = analisarExpressao();
-        if (condType == null) return false;
-        if (!condType.equals("bool"))
-            erroSemantico("Condição do 'while' deve ser do tipo bool, mas obteve: " + condType);
-        if (!consumir(AnalisadorLexico.TokenType.RPAREN))
-            return erroSintatico("Esperado ')' após a condição do 'while'.");
-        return processarBlocoCodigo("while");
+        if (!processarCondicao("while", no) && !pularAteCorpo(FIM_CABECALHO)) return false;
+        return processarBlocoCodigo("while", no);
+    }
+
+    // Laço 'for': a variável declarada na inicialização só existe dentro do laço.
+    private boolean processarLacoFor(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.PARA, pai, 0);
+        simbolos.abrirEscopo();
+        boolean ok = processarCabecalhoECorpoFor(no);
+        simbolos.fecharEscopo();
+        return ok;
     }
 
-    // Laço 'for' atualizado: utiliza métodos For para não consumir ';' a mais
-    private boolean processarLacoFor() {
+    private boolean processarCabecalhoECorpoFor(int no) {
         consumir(AnalisadorLexico.TokenType.FOR);
+        if (!processarCabecalhoFor(no) && !pularAteCorpo(FIM_CABECALHO_FOR)) return false;
+        return processarBlocoCodigo("for", no);
+    }
+
+    // Utiliza métodos For para não consumir ';' a mais
+    private boolean processarCabecalhoFor(int no) {
         if (!consumir(AnalisadorLexico.TokenType.LPAREN))
-            return erroSintatico("Esperado '(' após 'for'.");
+            return erro(Diagnostics.Codigo.ABRE_PARENTESE_APOS, "'for'");
         // Inicialização — pode ser declaração ou atribuição sem o ';' final
-        if (match(AnalisadorLexico.TokenType.VAR))
-            analisarDeclaracaoVariavelFor();
-        else
-            analisarAtribuicaoFor();
+        boolean ok = match(AnalisadorLexico.TokenType.VAR)
+                ? analisarDeclaracaoVariavelFor(no)
+                : analisarAtribuicaoFor(no);
+        if (!ok) return false;
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' após a inicialização no 'for'.");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_INICIALIZACAO_FOR);
         // Condição deve ser booleana
-        String condType = analisarExpressao();
-        if (condType == null) return false;
-        if (!condType.equals("bool"))
-            erroSemantico("Condição do 'for' deve ser do tipo bool, mas obteve: " + condType);
+        int expr = analisarExpressao();
+        if (expr < 0) return false;
+        arvore.adicionarFilho(no, expr);
+        Tipo condType = arvore.tipo(expr);
+        if (!Tipo.compativel(Tipo.BOOL, condType))
+            erro(Diagnostics.Codigo.CONDICAO_NAO_BOOL, "for", condType.nome);
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' após a condição no 'for'.");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_CONDICAO_FOR);
         // Atualização — atribuição sem consumir ';' final
-        analisarAtribuicaoFor();
+        if (!analisarAtribuicaoFor(no)) return false;
         if (!consumir(AnalisadorLexico.TokenType.RPAREN))
-            return erroSintatico("Esperado ')' após a atualização no 'for'.");
-        return processarBlocoCodigo("for");
+            return erro(Diagnostics.Codigo.FECHA_ATUALIZACAO_FOR);
+        return true;
     }
 
-    // Processa um bloco delimitado por '{' e '}'
-    private boolean processarBlocoCodigo(String contexto) {
+    // Processa um bloco delimitado por '{' e '}'; o nó BLOCO vai para pai.
+    private boolean processarBlocoCodigo(String contexto, int pai) {
+        int bloco = novoNo(ArvoreSintatica.TipoNo.BLOCO, pai, 0);
         if (!consumir(AnalisadorLexico.TokenType.LBRACE))
-            return erroSintatico("Esperado '{' para iniciar bloco de " + contexto + ".");
-        while (!match(AnalisadorLexico.TokenType.RBRACE) && indiceTokenAtual < tokens.size()) {
-            analisarComando();
+            return erro(Diagnostics.Codigo.ABRE_BLOCO, contexto);
+        simbolos.abrirEscopo();
+        while (!match(AnalisadorLexico.TokenType.RBRACE) && !fimDosTokens() && !diagnosticos.limiteAtingido()) {
+            analisarComando(bloco);
         }
+        simbolos.fecharEscopo();
         if (!consumir(AnalisadorLexico.TokenType.RBRACE))
-            return erroSintatico("Esperado '}' para fechar bloco de " + contexto + ".");
+            return erro(Diagnostics.Codigo.FECHA_BLOCO, contexto);
         return true;
     }
 
     /// Declaração de função
-    private boolean analisarFuncao() {
+    private boolean analisarFuncao(int pai) {
+        // Evento JFR com o custo da análise de cada função (só é gravado durante uma gravação).
+        PerfilCompilacao.EventoFuncao evento = new PerfilCompilacao.EventoFuncao();
+        evento.begin();
+        int primeiroToken = tokens.posicao();
+        int no = novoNo(ArvoreSintatica.TipoNo.FUNCAO, pai, -1);
         consumir(AnalisadorLexico.TokenType.FUNC);
-        String funcName = tokens.get(indiceTokenAtual).value;
+        String funcName = valorAtual();
+        int id = tokens.idNome(0);
         if (!consumir(AnalisadorLexico.TokenType.IDENTIFIER))
-            return erroSintatico("Esperado nome da função após 'func'.");
-        processarParametrosFuncao();
-        if (!consumir(AnalisadorLexico.TokenType.COLON))
-            return erroSintatico("Esperado ':' após os parâmetros da função.");
-        String returnType = tokens.get(indiceTokenAtual).value;
-        if (!consumir(AnalisadorLexico.TokenType.TYPE))
-            return erroSintatico("Esperado tipo de retorno da função.");
-        if (symbolTableFunctions.containsKey(funcName)) {
-            erroSemantico("Função '" + funcName + "' já declarada.");
-        } else {
-            symbolTableFunctions.put(funcName, returnType);
+            return erro(Diagnostics.Codigo.NOME_FUNCAO);
+        // Parâmetros e variáveis locais ficam num escopo próprio da função.
+        simbolos.abrirEscopo();
+        boolean ok = processarAssinaturaECorpo(funcName, id, no);
+        simbolos.fecharEscopo();
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.funcao = funcName;
+            evento.tokens = tokens.posicao() - primeiroToken;
+            evento.nos = arvore.tamanho() - no;
+            evento.commit();
+        }
+        return ok;
+    }
+
+    private boolean processarAssinaturaECorpo(String funcName, int id, int no) {
+        Tipo returnType = processarAssinatura(funcName, id, no);
+        if (returnType == null) {
+            if (!pularAteCorpo(FIM_CABECALHO)) return false;
+            // Sem tipo de retorno conhecido, os 'return' do corpo não são verificados.
+            returnType = Tipo.UNKNOWN;
         }
-        String anteriorFunctionReturnType = currentFunctionReturnType;
+        Tipo anteriorFunctionReturnType = currentFunctionReturnType;
         currentFunctionReturnType = returnType;
-        processarBlocoCodigo("função");
+        boolean ok = processarBlocoCodigo("função", no);
         currentFunctionReturnType = anteriorFunctionReturnType;
-        return true;
+        return ok;
+    }
+
+    // Parâmetros e tipo de retorno; declara a função e retorna seu tipo de retorno (null em caso de erro).
+    private Tipo processarAssinatura(String funcName, int id, int no) {
+        if (!processarParametrosFuncao(no)) return null;
+        if (!consumir(AnalisadorLexico.TokenType.COLON)) {
+            erro(Diagnostics.Codigo.DOIS_PONTOS_FUNCAO);
+            return null;
+        }
+        Tipo returnType = Tipo.deNome(valorAtual());
+        if (!consumir(AnalisadorLexico.TokenType.TYPE)) {
+            erro(Diagnostics.Codigo.TIPO_RETORNO);
+            return null;
+        }
+        arvore.definirTipo(no, returnType);
+        int funcao = funcoes.declarar(id, returnType);
+        if (funcao < 0) {
+            erro(Diagnostics.Codigo.FUNCAO_JA_DECLARADA, funcName);
+        } else {
+            arvore.definirValor(no, funcao);
+            funcoes.definirDeclaracao(funcao, no);
+        }
+        return returnType;
     }
 
     // Processa os parâmetros de função
-    private boolean processarParametrosFuncao() {
+    private boolean processarParametrosFuncao(int funcao) {
         if (!consumir(AnalisadorLexico.TokenType.LPAREN))
-            return erroSintatico("Esperado '(' para iniciar os parâmetros da função.");
+            return erro(Diagnostics.Codigo.ABRE_PARAMETROS);
         while (match(AnalisadorLexico.TokenType.IDENTIFIER)) {
-            String paramName = tokens.get(indiceTokenAtual).value;
+            int no = novoNo(ArvoreSintatica.TipoNo.PARAMETRO, funcao, -1);
+            String paramName = valorAtual();
+            int id = tokens.idNome(0);
             consumir(AnalisadorLexico.TokenType.IDENTIFIER);
-            if (!consumir(AnalisadorLexico.TokenType.COLON))
-                return erroSintatico("Esperado ':' após o parâmetro.");
-            String paramType = tokens.get(indiceTokenAtual).value;
+            if (!consumir(AnalisadorLexico.TokenType.COLON)) {
+                erro(Diagnostics.Codigo.DOIS_PONTOS_PARAMETRO);
+                // Se o tipo vem logo em seguida, considera o ':' omitido e segue com o parâmetro.
+                if (!match(AnalisadorLexico.TokenType.TYPE)) return false;
+                recuperando = false;
+            }
+            Tipo paramType = Tipo.deNome(valorAtual());
             if (!consumir(AnalisadorLexico.TokenType.TYPE))
-                return erroSintatico("Esperado tipo do parâmetro.");
-            symbolTable.put(paramName, paramType);
+                return erro(Diagnostics.Codigo.TIPO_PARAMETRO);
+            arvore.definirTipo(no, paramType);
+            if (!declararVariavel(id, paramType, no))
+                erro(Diagnostics.Codigo.PARAMETRO_JA_DECLARADO, paramName);
             if (match(AnalisadorLexico.TokenType.COMMA))
                 consumir(AnalisadorLexico.TokenType.COMMA);
             else break;
         }
         if (!consumir(AnalisadorLexico.TokenType.RPAREN))
-            return erroSintatico("Esperado ')' para finalizar os parâmetros da função.");
+            return erro(Diagnostics.Codigo.FECHA_PARAMETROS);
         return true;
     }
 
     // Processa o comando 'return'
-    private boolean analisarReturn() {
+    private boolean analisarReturn(int pai) {
+        int no = novoNo(ArvoreSintatica.TipoNo.RETORNO, pai, 0);
         consumir(AnalisadorLexico.TokenType.RETURN);
-        String exprType = analisarExpressao();
-        if (exprType == null) return false;
+        int expr = analisarExpressao();
+        if (expr < 0) return false;
+        arvore.adicionarFilho(no, expr);
+        Tipo exprType = arvore.tipo(expr);
         if (currentFunctionReturnType != null && !tipoCompatível(currentFunctionReturnType, exprType)) {
-            erroSemantico("Retorno incompatível. Função espera: " + currentFunctionReturnType +
-                    ", mas obteve: " + exprType);
+            erro(Diagnostics.Codigo.RETORNO_INCOMPATIVEL, currentFunctionReturnType.nome, exprType.nome);
         }
         if (!consumir(AnalisadorLexico.TokenType.SEMICOLON))
-            return erroSintatico("Esperado ';' após o comando 'return'.");
+            return erro(Diagnostics.Codigo.PONTO_VIRGULA_APOS, "o comando 'return'");
         return true;
     }
 
-    // Verifica se os tipos são compatíveis (igualdade exata aqui)
-    private boolean tipoCompatível(String tipoEsperado, String tipoObtido) {
-        return tipoEsperado.equals(tipoObtido);
+    // Verifica se os tipos são compatíveis (consulta a tabela de Tipo, com promoção int -> float)
+    private boolean tipoCompatível(Tipo tipoEsperado, Tipo tipoObtido) {
+        return Tipo.compativel(tipoEsperado, tipoObtido);
     }
-}
\ No newline at end of file
+}
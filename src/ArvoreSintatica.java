@@ -0,0 +1,185 @@
+/*ArvoreSintatica - Árvore sintática abstrata (AST) em vetores
+Os nós não são objetos: cada nó é um índice nos vetores paralelos abaixo (tipo do nó,
+primeiro filho, próximo irmão, token de origem, tipo resolvido e um valor inteiro).
+Os filhos de um nó formam uma lista encadeada por proximoIrmao.
+
+Significado de "valor" e dos filhos por tipo de nó:
+- PROGRAMA, BLOCO: filhos são os comandos.
+- FUNCAO: valor = símbolo da função (tabela de funções); filhos: PARAMETRO..., BLOCO.
+- PARAMETRO, VARIAVEL, LEIA: valor = símbolo da variável (tabela de variáveis).
+- DECLARACAO: valor = símbolo; filho opcional: expressão inicial.
+- ATRIBUICAO: valor = símbolo; filho: expressão.
+- SE: condição, bloco, [bloco do else].  ENQUANTO: condição, bloco.
+- PARA: inicialização (DECLARACAO ou ATRIBUICAO), condição, atualização (ATRIBUICAO), bloco.
+- ESCREVA, RETORNO, EXPRESSAO: filho: expressão.
+- BINARIO, UNARIO: valor = ordinal do TokenType do operador; filhos: operandos.
+- CHAMADA: valor = símbolo da função; filhos: argumentos.
+- INTEIRO: valor = o próprio número.  LOGICO: valor = 0 ou 1.
+- REAL, TEXTO: valor = índice em literais (texto do número / conteúdo da string sem aspas).
+Símbolos não resolvidos (erros semânticos) ficam com valor -1.
+ */
+// ArvoreSintatica.java
+import java.util.*;
+import java.util.function.IntFunction;
+
+public final class ArvoreSintatica {
+    public enum TipoNo {
+        PROGRAMA, FUNCAO, PARAMETRO, BLOCO, DECLARACAO, ATRIBUICAO, SE, ENQUANTO, PARA,
+        ESCREVA, LEIA, RETORNO, EXPRESSAO, BINARIO, UNARIO, VARIAVEL, CHAMADA,
+        INTEIRO, REAL, TEXTO, LOGICO
+    }
+
+    private static final TipoNo[] TIPOS_NO = TipoNo.values();
+    private static final Tipo[] TIPOS = Tipo.values();
+
+    private byte[] tipoNo = new byte[256];
+    private int[] primeiroFilho = new int[256];
+    private int[] ultimoFilho = new int[256];
+    private int[] proximoIrmao = new int[256];
+    private int[] token = new int[256];
+    private byte[] tipo = new byte[256];
+    private int[] valor = new int[256];
+    private int quantidade = 0;
+
+    private final List<String> literais = new ArrayList<>();
+
+    /** Cria um nó sem filhos e retorna seu índice. */
+    public int novoNo(TipoNo t, int indiceToken, int v) {
+        if (quantidade == tipoNo.length) crescer();
+        int no = quantidade++;
+        tipoNo[no] = (byte) t.ordinal();
+        primeiroFilho[no] = -1;
+        ultimoFilho[no] = -1;
+        proximoIrmao[no] = -1;
+        token[no] = indiceToken;
+        tipo[no] = (byte) Tipo.UNKNOWN.ordinal();
+        valor[no] = v;
+        return no;
+    }
+
+    /** Acrescenta filho ao fim da lista de filhos de pai. */
+    public void adicionarFilho(int pai, int filho) {
+        if (ultimoFilho[pai] < 0) primeiroFilho[pai] = filho;
+        else proximoIrmao[ultimoFilho[pai]] = filho;
+        ultimoFilho[pai] = filho;
+    }
+
+    private void crescer() {
+        int nova = quantidade * 2;
+        tipoNo = Arrays.copyOf(tipoNo, nova);
+        primeiroFilho = Arrays.copyOf(primeiroFilho, nova);
+        ultimoFilho = Arrays.copyOf(ultimoFilho, nova);
+        proximoIrmao = Arrays.copyOf(proximoIrmao, nova);
+        token = Arrays.copyOf(token, nova);
+        tipo = Arrays.copyOf(tipo, nova);
+        valor = Arrays.copyOf(valor, nova);
+    }
+
+    public int adicionarLiteral(String texto) {
+        literais.add(texto);
+        return literais.size() - 1;
+    }
+
+    public String literal(int indice) {
+        return literais.get(indice);
+    }
+
+    public int quantidadeLiterais() {
+        return literais.size();
+    }
+
+    /** Quantidade de nós; o nó 0 é a raiz (PROGRAMA) quando a árvore não está vazia. */
+    public int tamanho() {
+        return quantidade;
+    }
+
+    public TipoNo tipoNo(int no) {
+        return TIPOS_NO[tipoNo[no]];
+    }
+
+    public int primeiroFilho(int no) {
+        return primeiroFilho[no];
+    }
+
+    public int proximoIrmao(int no) {
+        return proximoIrmao[no];
+    }
+
+    /** i-ésimo filho do nó (-1 se não existir). */
+    public int filho(int no, int i) {
+        int f = primeiroFilho[no];
+        while (f >= 0 && i-- > 0) f = proximoIrmao[f];
+        return f;
+    }
+
+    public int quantidadeFilhos(int no) {
+        int n = 0;
+        for (int f = primeiroFilho[no]; f >= 0; f = proximoIrmao[f]) n++;
+        return n;
+    }
+
+    /** Índice do token (na ordem de leitura) em que o nó começa. */
+    public int token(int no) {
+        return token[no];
+    }
+
+    public Tipo tipo(int no) {
+        return TIPOS[tipo[no]];
+    }
+
+    public void definirTipo(int no, Tipo t) {
+        tipo[no] = (byte) t.ordinal();
+    }
+
+    public int valor(int no) {
+        return valor[no];
+    }
+
+    public void definirValor(int no, int v) {
+        valor[no] = v;
+    }
+
+    /** Representação textual indentada da árvore, para depuração. */
+    public String imprimir(TabelaSimbolos simbolos, TabelaSimbolos funcoes) {
+        return imprimir(simbolos::nomeTexto, funcoes::nomeTexto);
+    }
+
+    /** Como imprimir(simbolos, funcoes), com os nomes dos símbolos vindos de outra fonte (ex.: um despejo). */
+    public String imprimir(IntFunction<String> simbolos, IntFunction<String> funcoes) {
+        StringBuilder sb = new StringBuilder();
+        if (quantidade > 0) imprimir(0, 0, simbolos, funcoes, sb);
+        return sb.toString();
+    }
+
+    private void imprimir(int no, int nivel, IntFunction<String> simbolos, IntFunction<String> funcoes,
+                          StringBuilder sb) {
+        for (int i = 0; i < nivel; i++) sb.append("  ");
+        TipoNo t = tipoNo(no);
+        sb.append(t);
+        int v = valor[no];
+        switch (t) {
+            case FUNCAO: case CHAMADA:
+                if (v >= 0) sb.append(' ').append(funcoes.apply(v));
+                break;
+            case PARAMETRO: case VARIAVEL: case LEIA: case DECLARACAO: case ATRIBUICAO:
+                if (v >= 0) sb.append(' ').append(simbolos.apply(v)).append('#').append(v);
+                break;
+            case BINARIO: case UNARIO:
+                sb.append(' ').append(AnalisadorLexico.TokenType.values()[v]);
+                break;
+            case INTEIRO: case LOGICO:
+                sb.append(' ').append(v);
+                break;
+            case REAL: case TEXTO:
+                sb.append(' ').append(literais.get(v));
+                break;
+            default:
+                break;
+        }
+        if (tipo[no] != Tipo.UNKNOWN.ordinal()) sb.append(" : ").append(tipo(no));
+        sb.append('\n');
+        for (int f = primeiroFilho[no]; f >= 0; f = proximoIrmao[f]) {
+            imprimir(f, nivel + 1, simbolos, funcoes, sb);
+        }
+    }
+}
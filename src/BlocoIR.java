@@ -0,0 +1,51 @@
+/*BlocoIR - Bloco básico do código intermediário
+Sequência de instruções que começa com os PHIs e termina com exatamente um terminador (ver
+InstrucaoIR). Os sucessores vêm dos alvos do terminador; os predecessores são mantidos na ordem
+que os argumentos dos PHIs seguem (um predecessor aparece uma vez por aresta).
+ */
+// BlocoIR.java
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class BlocoIR {
+    // Posição do bloco em FuncaoIR.blocos (ver FuncaoIR.renumerar).
+    public int numero;
+    public final List<InstrucaoIR> instrucoes = new ArrayList<>();
+    public final List<BlocoIR> predecessores = new ArrayList<>();
+
+    BlocoIR(int numero) {
+        this.numero = numero;
+    }
+
+    /** A última instrução, se for um terminador; null enquanto o bloco está sendo construído. */
+    public InstrucaoIR terminador() {
+        if (instrucoes.isEmpty()) return null;
+        InstrucaoIR ultima = instrucoes.get(instrucoes.size() - 1);
+        return ultima.op.terminador() ? ultima : null;
+    }
+
+    public List<BlocoIR> sucessores() {
+        InstrucaoIR t = terminador();
+        if (t == null || t.alvos == null) return Collections.emptyList();
+        List<BlocoIR> lista = new ArrayList<>(t.alvos.length);
+        Collections.addAll(lista, t.alvos);
+        return lista;
+    }
+
+    /** Quantidade de PHIs no início do bloco. */
+    public int quantidadePhis() {
+        int n = 0;
+        while (n < instrucoes.size() && instrucoes.get(n).op == InstrucaoIR.Op.PHI) n++;
+        return n;
+    }
+
+    public String rotulo() {
+        return "b" + numero;
+    }
+
+    @Override
+    public String toString() {
+        return rotulo();
+    }
+}
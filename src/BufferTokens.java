@@ -0,0 +1,194 @@
+/*BufferTokens - Armazenamento compacto dos tokens
+Em vez de um objeto Token (com uma cópia do lexema) por token, guarda vetores paralelos
+com o tipo, o início e o tamanho de cada token no código-fonte original, além do id do
+nome (TabelaNomes) para identificadores.
+O lexema só é criado quando alguém o pede, e linha/coluna são calculadas a partir de um
+índice com o início de cada linha, construído apenas na primeira consulta.
+ */
+// BufferTokens.java
+import java.util.*;
+
+public final class BufferTokens {
+    private static final AnalisadorLexico.TokenType[] TIPOS = AnalisadorLexico.TokenType.values();
+
+    private final char[] fonte;
+    private final int tamanhoFonte;
+    private final TabelaNomes nomes;
+    private byte[] tipo;
+    private int[] inicio;
+    private int[] comprimento;
+    // Id do nome para IDENTIFIER; -1 para os demais tokens.
+    private int[] idNome;
+    private int quantidade = 0;
+    // Posição de início de cada linha; calculada sob demanda.
+    private int[] iniciosLinha;
+
+    public BufferTokens(char[] fonte, int tamanhoFonte, TabelaNomes nomes) {
+        this.fonte = fonte;
+        this.tamanhoFonte = tamanhoFonte;
+        this.nomes = nomes;
+        int capacidade = Math.max(16, tamanhoFonte / 4);
+        this.tipo = new byte[capacidade];
+        this.inicio = new int[capacidade];
+        this.comprimento = new int[capacidade];
+        this.idNome = new int[capacidade];
+    }
+
+    void adicionar(AnalisadorLexico.TokenType t, int inicioToken, int comprimentoToken, int id) {
+        if (quantidade == tipo.length) {
+            int nova = quantidade + (quantidade >> 1) + 1;
+            tipo = Arrays.copyOf(tipo, nova);
+            inicio = Arrays.copyOf(inicio, nova);
+            comprimento = Arrays.copyOf(comprimento, nova);
+            idNome = Arrays.copyOf(idNome, nova);
+        }
+        tipo[quantidade] = (byte) t.ordinal();
+        inicio[quantidade] = inicioToken;
+        comprimento[quantidade] = comprimentoToken;
+        idNome[quantidade] = id;
+        quantidade++;
+    }
+
+    public int tamanho() {
+        return quantidade;
+    }
+
+    public AnalisadorLexico.TokenType tipo(int i) {
+        return TIPOS[tipo[i]];
+    }
+
+    public int inicio(int i) {
+        return inicio[i];
+    }
+
+    public int comprimento(int i) {
+        return comprimento[i];
+    }
+
+    /** Id do nome do token i (somente IDENTIFIER; -1 nos demais). */
+    public int idNome(int i) {
+        return idNome[i];
+    }
+
+    public TabelaNomes nomes() {
+        return nomes;
+    }
+
+    public char[] fonte() {
+        return fonte;
+    }
+
+    /** Texto do token i (operadores, comandos e identificadores reaproveitam uma String já existente). */
+    public String lexema(int i) {
+        if (idNome[i] >= 0) return nomes.nome(idNome[i]);
+        String fixo = AnalisadorLexicoDFA.lexemaFixo(TIPOS[tipo[i]]);
+        return fixo != null ? fixo : new String(fonte, inicio[i], comprimento[i]);
+    }
+
+    /** Compara o lexema do token i com um texto sem criar a String. */
+    public boolean lexemaIgual(int i, String texto) {
+        if (comprimento[i] != texto.length()) return false;
+        int base = inicio[i];
+        for (int j = 0; j < texto.length(); j++) {
+            if (fonte[base + j] != texto.charAt(j)) return false;
+        }
+        return true;
+    }
+
+    public int linha(int i) {
+        return linhaDaPosicao(inicio[i]);
+    }
+
+    public int coluna(int i) {
+        int linha = linhaDaPosicao(inicio[i]);
+        return inicio[i] - iniciosLinha[linha - 1] + 1;
+    }
+
+    // Busca binária no índice de inícios de linha.
+    private int linhaDaPosicao(int posicao) {
+        if (iniciosLinha == null) indexarLinhas();
+        int lo = 0, hi = iniciosLinha.length - 1;
+        while (lo < hi) {
+            int meio = (lo + hi + 1) >>> 1;
+            if (iniciosLinha[meio] <= posicao) lo = meio;
+            else hi = meio - 1;
+        }
+        return lo + 1;
+    }
+
+    private void indexarLinhas() {
+        int[] inicios = new int[64];
+        int n = 1;
+        for (int i = 0; i < tamanhoFonte; i++) {
+            if (fonte[i] == '\n') {
+                if (n == inicios.length) inicios = Arrays.copyOf(inicios, n * 2);
+                inicios[n++] = i + 1;
+            }
+        }
+        iniciosLinha = Arrays.copyOf(inicios, n);
+    }
+
+    /** Materializa o token i como objeto (usado para exibição e mensagens de erro). */
+    public AnalisadorLexico.Token token(int i) {
+        return new AnalisadorLexico.Token(tipo(i), lexema(i), linha(i), coluna(i));
+    }
+
+    public List<AnalisadorLexico.Token> paraLista() {
+        List<AnalisadorLexico.Token> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) lista.add(token(i));
+        return lista;
+    }
+
+    /** Cursor para o analisador sintático; tipos e posições são lidos direto dos vetores. */
+    public TokenStream cursor() {
+        return new TokenStream() {
+            private int atual = 0;
+
+            public AnalisadorLexico.Token peek(int k) {
+                return atual + k < quantidade ? token(atual + k) : null;
+            }
+
+            public AnalisadorLexico.Token next() {
+                return atual < quantidade ? token(atual++) : null;
+            }
+
+            public int posicao() {
+                return atual;
+            }
+
+            @Override
+            public void avancar() {
+                if (atual < quantidade) atual++;
+            }
+
+            public TabelaNomes nomes() {
+                return nomes;
+            }
+
+            @Override
+            public int idNome(int k) {
+                return atual + k < quantidade ? idNome[atual + k] : -1;
+            }
+
+            @Override
+            public AnalisadorLexico.TokenType tipo(int k) {
+                return atual + k < quantidade ? TIPOS[tipo[atual + k]] : null;
+            }
+
+            @Override
+            public String lexema(int k) {
+                return atual + k < quantidade ? BufferTokens.this.lexema(atual + k) : null;
+            }
+
+            @Override
+            public int linha() {
+                return atual < quantidade ? BufferTokens.this.linha(atual) : -1;
+            }
+
+            @Override
+            public int coluna() {
+                return atual < quantidade ? BufferTokens.this.coluna(atual) : -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,369 @@
+/*CacheCompilacao - Cache persistente de compilações em disco
+Cada programa compilado com sucesso é guardado num arquivo do diretório do cache, cujo nome é o
+SHA-256 do código-fonte junto com a versão do compilador (Compilador.VERSAO) e os valores das
+propriedades que mudam o assembly gerado (OPCOES): o mesmo código compilado pela mesma versão,
+com as mesmas opções, sempre cai no mesmo arquivo.
+O arquivo guarda os tokens, a tabela de nomes, as tabelas de símbolos e o assembly num formato
+binário de tamanho fixo por registro, lido diretamente do arquivo mapeado em memória (sem
+conversão); num acerto, o assembly é copiado do mapeamento para a saída sem passar por nenhuma
+fase do compilador.
+O tamanho total é mantido abaixo do limite configurado descartando os arquivos usados há mais
+tempo (a data de modificação é atualizada a cada acerto).
+
+Formato (inteiros big-endian de 4 bytes):
+  cabeçalho: MAGICO, FORMATO, tokens, nomes, variáveis, funções,
+             início dos tokens, dos nomes, dos símbolos e do assembly, tamanho do assembly
+  tokens:    início[tokens], comprimento[tokens], idNome[tokens], tipo[tokens] (1 byte cada)
+  nomes:     fim[nomes] (posição final de cada nome no bloco), bloco UTF-8 dos nomes
+  símbolos:  variáveis {nome, tipo, nível}, funções {nome, tipo}
+  assembly:  bytes UTF-8
+ */
+// CacheCompilacao.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public final class CacheCompilacao {
+    /** Tamanho máximo padrão do diretório do cache. */
+    public static final long TAMANHO_PADRAO = 256L * 1024 * 1024;
+
+    private static final String EXTENSAO = ".mcc";
+    private static final int MAGICO = 0x4D435343; // "MCSC"
+    private static final int FORMATO = 1;
+    private static final int TAMANHO_CABECALHO = 11 * 4;
+    private static final AnalisadorLexico.TokenType[] TIPOS_TOKEN = AnalisadorLexico.TokenType.values();
+    private static final Tipo[] TIPOS = Tipo.values();
+    // Propriedades do sistema que mudam o assembly gerado.
+    private static final String[] OPCOES = {"macslang.memoizar", "macslang.janela"};
+
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+    // Estimativa do tamanho ocupado; recalculada a cada limpeza.
+    private final AtomicLong ocupado = new AtomicLong();
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong ausencias = new AtomicLong();
+
+    public CacheCompilacao(Path diretorio, long tamanhoMaximo) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximo = tamanhoMaximo;
+        Files.createDirectories(diretorio);
+        ocupado.set(tamanhoOcupado());
+    }
+
+    /** Chave do código-fonte (em bytes, como está no arquivo) para a versão e as opções atuais do compilador. */
+    public String chave(byte[] fonte) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo Java tem SHA-256
+        }
+        sha.update(Compilador.VERSAO.getBytes(StandardCharsets.UTF_8));
+        sha.update((byte) 0);
+        for (String opcao : OPCOES) {
+            sha.update((opcao + "=" + System.getProperty(opcao, "")).getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+        }
+        sha.update(fonte);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /** Artefato guardado com essa chave, ou null se não houver (ou se o arquivo estiver corrompido). */
+    public Artefato buscar(String chave) {
+        Path arquivo = diretorio.resolve(chave + EXTENSAO);
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            ausencias.incrementAndGet();
+            return null;
+        }
+        Artefato artefato = Artefato.abrir(mapa);
+        if (artefato == null) {
+            // Gravação interrompida ou formato antigo: descarta o arquivo.
+            excluir(arquivo);
+            ausencias.incrementAndGet();
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(arquivo, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Sem a data atualizada o arquivo só sai do cache mais cedo.
+        }
+        acertos.incrementAndGet();
+        return artefato;
+    }
+
+    /** Guarda o resultado de uma compilação bem-sucedida (feita pelo caminho completo de Compilador). */
+    public void guardar(String chave, Compilador.Resultado resultado) throws IOException {
+        if (!resultado.sucesso() || resultado.assembly == null || resultado.tokens == null
+                || resultado.sintatico == null) return;
+        byte[] assembly = resultado.assembly.getBytes(StandardCharsets.UTF_8);
+        guardar(chave, resultado, assembly.length, canal -> {
+            ByteBuffer b = ByteBuffer.wrap(assembly);
+            while (b.hasRemaining()) canal.write(b);
+        });
+    }
+
+    /**
+     * Como guardar(chave, resultado), para um resultado de Compilador.analisar() cujo assembly foi
+     * escrito direto no arquivo indicado; o assembly é copiado do arquivo, sem passar pela memória.
+     */
+    public void guardar(String chave, Compilador.Resultado resultado, Path assembly) throws IOException {
+        if (!resultado.sucesso() || resultado.tokens == null || resultado.sintatico == null) return;
+        try (FileChannel origem = FileChannel.open(assembly, StandardOpenOption.READ)) {
+            long tamanho = origem.size();
+            if (tamanho > Integer.MAX_VALUE) return;
+            guardar(chave, resultado, (int) tamanho, canal -> {
+                for (long copiado = 0; copiado < tamanho; ) {
+                    copiado += origem.transferTo(copiado, tamanho - copiado, canal);
+                }
+            });
+        }
+    }
+
+    private interface Escrita {
+        void escrever(FileChannel canal) throws IOException;
+    }
+
+    private void guardar(String chave, Compilador.Resultado resultado, int tamanhoAssembly, Escrita assembly)
+            throws IOException {
+        ByteBuffer dados = serializar(resultado, tamanhoAssembly);
+        Path arquivo = diretorio.resolve(chave + EXTENSAO);
+        // Grava num temporário e renomeia, para que outro processo nunca veja o arquivo pela metade.
+        Path temporario = Files.createTempFile(diretorio, chave, ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                while (dados.hasRemaining()) canal.write(dados);
+                assembly.escrever(canal);
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+        if (ocupado.addAndGet(dados.capacity() + (long) tamanhoAssembly) > tamanhoMaximo) limpar();
+    }
+
+    public long acertos() {
+        return acertos.get();
+    }
+
+    public long ausencias() {
+        return ausencias.get();
+    }
+
+    // Remove os arquivos usados há mais tempo até o cache caber no limite.
+    private synchronized void limpar() throws IOException {
+        List<Path> arquivos;
+        try (Stream<Path> s = Files.list(diretorio)) {
+            arquivos = s.filter(p -> p.getFileName().toString().endsWith(EXTENSAO)).toList();
+        }
+        long[] datas = new long[arquivos.size()];
+        long[] tamanhos = new long[arquivos.size()];
+        Integer[] ordem = new Integer[arquivos.size()];
+        long total = 0;
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+            try {
+                datas[i] = Files.getLastModifiedTime(arquivos.get(i)).toMillis();
+                tamanhos[i] = Files.size(arquivos.get(i));
+            } catch (NoSuchFileException e) {
+                // Excluído por outro processo.
+            }
+            total += tamanhos[i];
+        }
+        Arrays.sort(ordem, Comparator.comparingLong(i -> datas[i]));
+        for (int k = 0; k < ordem.length && total > tamanhoMaximo; k++) {
+            excluir(arquivos.get(ordem[k]));
+            total -= tamanhos[ordem[k]];
+        }
+        ocupado.set(total);
+    }
+
+    private long tamanhoOcupado() throws IOException {
+        try (Stream<Path> s = Files.list(diretorio)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(EXTENSAO)).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+
+    private static void excluir(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            // Fica para a próxima limpeza.
+        }
+    }
+
+    // Tudo menos o assembly, que é gravado em seguida pelo chamador.
+    private static ByteBuffer serializar(Compilador.Resultado resultado, int tamanhoAssembly) {
+        BufferTokens tokens = resultado.tokens;
+        TabelaNomes nomes = tokens.nomes();
+        TabelaSimbolos variaveis = resultado.sintatico.getSimbolos();
+        TabelaSimbolos funcoes = resultado.sintatico.getFuncoes();
+        int n = tokens.tamanho();
+        int m = nomes.tamanho();
+        byte[][] textoNomes = new byte[m][];
+        int tamanhoNomes = 0;
+        for (int i = 0; i < m; i++) {
+            textoNomes[i] = nomes.nome(i).getBytes(StandardCharsets.UTF_8);
+            tamanhoNomes += textoNomes[i].length;
+        }
+
+        int inicioTokens = TAMANHO_CABECALHO;
+        int inicioNomes = alinhar(inicioTokens + n * 13);
+        int inicioSimbolos = alinhar(inicioNomes + m * 4 + tamanhoNomes);
+        int inicioAssembly = inicioSimbolos + variaveis.quantidade() * 12 + funcoes.quantidade() * 8;
+        ByteBuffer b = ByteBuffer.allocate(inicioAssembly);
+        b.putInt(MAGICO).putInt(FORMATO).putInt(n).putInt(m)
+                .putInt(variaveis.quantidade()).putInt(funcoes.quantidade())
+                .putInt(inicioTokens).putInt(inicioNomes).putInt(inicioSimbolos).putInt(inicioAssembly)
+                .putInt(tamanhoAssembly);
+        for (int i = 0; i < n; i++) b.putInt(tokens.inicio(i));
+        for (int i = 0; i < n; i++) b.putInt(tokens.comprimento(i));
+        for (int i = 0; i < n; i++) b.putInt(tokens.idNome(i));
+        for (int i = 0; i < n; i++) b.put((byte) tokens.tipo(i).ordinal());
+        b.position(inicioNomes);
+        int fim = 0;
+        for (int i = 0; i < m; i++) b.putInt(fim += textoNomes[i].length);
+        for (int i = 0; i < m; i++) b.put(textoNomes[i]);
+        b.position(inicioSimbolos);
+        for (int s = 0; s < variaveis.quantidade(); s++) {
+            b.putInt(variaveis.nome(s)).putInt(variaveis.tipo(s).ordinal()).putInt(variaveis.nivel(s));
+        }
+        for (int s = 0; s < funcoes.quantidade(); s++) {
+            b.putInt(funcoes.nome(s)).putInt(funcoes.tipo(s).ordinal());
+        }
+        return b.flip();
+    }
+
+    private static int alinhar(int posicao) {
+        return (posicao + 3) & ~3;
+    }
+
+    /** Compilação guardada, lida diretamente do arquivo mapeado. */
+    public static final class Artefato {
+        private final ByteBuffer mapa;
+        private final int tokens, nomes, variaveis, funcoes;
+        private final int inicioTokens, inicioNomes, inicioSimbolos, inicioAssembly, tamanhoAssembly;
+
+        private Artefato(ByteBuffer mapa) {
+            this.mapa = mapa;
+            tokens = mapa.getInt(8);
+            nomes = mapa.getInt(12);
+            variaveis = mapa.getInt(16);
+            funcoes = mapa.getInt(20);
+            inicioTokens = mapa.getInt(24);
+            inicioNomes = mapa.getInt(28);
+            inicioSimbolos = mapa.getInt(32);
+            inicioAssembly = mapa.getInt(36);
+            tamanhoAssembly = mapa.getInt(40);
+        }
+
+        // Confere o cabeçalho; null se o arquivo não estiver completo ou for de outro formato.
+        static Artefato abrir(ByteBuffer mapa) {
+            if (mapa.capacity() < TAMANHO_CABECALHO || mapa.getInt(0) != MAGICO || mapa.getInt(4) != FORMATO) {
+                return null;
+            }
+            Artefato a = new Artefato(mapa);
+            boolean completo = a.tokens >= 0 && a.nomes >= 0 && a.variaveis >= 0 && a.funcoes >= 0
+                    && a.inicioTokens == TAMANHO_CABECALHO
+                    && a.inicioNomes >= a.inicioTokens + (long) a.tokens * 13
+                    && a.inicioSimbolos >= a.inicioNomes + (long) a.nomes * 4
+                    && a.inicioAssembly == a.inicioSimbolos + (long) a.variaveis * 12 + (long) a.funcoes * 8
+                    && (long) a.inicioAssembly + a.tamanhoAssembly == mapa.capacity();
+            return completo ? a : null;
+        }
+
+        public int quantidadeTokens() {
+            return tokens;
+        }
+
+        public int inicioToken(int i) {
+            return mapa.getInt(inicioTokens + 4 * i);
+        }
+
+        public int comprimentoToken(int i) {
+            return mapa.getInt(inicioTokens + 4 * (tokens + i));
+        }
+
+        public int idNomeToken(int i) {
+            return mapa.getInt(inicioTokens + 4 * (2 * tokens + i));
+        }
+
+        public AnalisadorLexico.TokenType tipoToken(int i) {
+            return TIPOS_TOKEN[mapa.get(inicioTokens + 12 * tokens + i)];
+        }
+
+        public int quantidadeNomes() {
+            return nomes;
+        }
+
+        public String nome(int id) {
+            int inicio = id == 0 ? 0 : mapa.getInt(inicioNomes + 4 * (id - 1));
+            int fim = mapa.getInt(inicioNomes + 4 * id);
+            byte[] texto = new byte[fim - inicio];
+            mapa.get(inicioNomes + 4 * nomes + inicio, texto);
+            return new String(texto, StandardCharsets.UTF_8);
+        }
+
+        public int quantidadeVariaveis() {
+            return variaveis;
+        }
+
+        public int nomeVariavel(int s) {
+            return mapa.getInt(inicioSimbolos + 12 * s);
+        }
+
+        public Tipo tipoVariavel(int s) {
+            return TIPOS[mapa.getInt(inicioSimbolos + 12 * s + 4)];
+        }
+
+        public int nivelVariavel(int s) {
+            return mapa.getInt(inicioSimbolos + 12 * s + 8);
+        }
+
+        public int quantidadeFuncoes() {
+            return funcoes;
+        }
+
+        public int nomeFuncao(int s) {
+            return mapa.getInt(inicioSimbolos + 12 * variaveis + 8 * s);
+        }
+
+        public Tipo tipoFuncao(int s) {
+            return TIPOS[mapa.getInt(inicioSimbolos + 12 * variaveis + 8 * s + 4)];
+        }
+
+        public int tamanhoAssembly() {
+            return tamanhoAssembly;
+        }
+
+        /** Escreve o assembly no canal diretamente a partir do mapeamento. */
+        public void copiarAssembly(WritableByteChannel destino) throws IOException {
+            ByteBuffer assembly = mapa.slice(inicioAssembly, tamanhoAssembly);
+            while (assembly.hasRemaining()) destino.write(assembly);
+        }
+
+        public String assembly() {
+            byte[] texto = new byte[tamanhoAssembly];
+            mapa.get(inicioAssembly, texto);
+            return new String(texto, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*ClienteCompilador - Cliente leve do ServidorCompilador
+Envia os caminhos dos arquivos ao servidor pelo socket Unix e exibe o resultado: o assembly
+vai para a saída padrão (ou para o .asm ao lado da entrada, com -s) e os diagnósticos para a
+saída de erros. Com -s, uma entrada cujo .asm seria um dos arquivos de entrada é recusada. Não carrega nenhuma fase do compilador, então inicia rapidamente.
+
+Uso: java ClienteCompilador [--socket caminho] [-s] <arquivo>...
+     java ClienteCompilador [--socket caminho] --encerrar
+ */
+// ClienteCompilador.java
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public final class ClienteCompilador {
+    public static void main(String[] args) {
+        Path socket = ServidorCompilador.socketPadrao();
+        boolean salvar = false;
+        boolean encerrar = false;
+        List<Path> arquivos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--socket") && i + 1 < args.length) socket = Paths.get(args[++i]);
+            else if (args[i].equals("-s")) salvar = true;
+            else if (args[i].equals("--encerrar")) encerrar = true;
+            else arquivos.add(Paths.get(args[i]).toAbsolutePath());
+        }
+        if (arquivos.isEmpty() && !encerrar) {
+            System.err.println("Uso: java ClienteCompilador [--socket caminho] [-s] <arquivo>... | --encerrar");
+            System.exit(2);
+        }
+
+        boolean falhou = false;
+        Set<Path> entradas = CompiladorLote.normalizar(arquivos);
+        try (SocketChannel canal = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            InputStream entrada = new BufferedInputStream(Channels.newInputStream(canal));
+            OutputStream saida = new BufferedOutputStream(Channels.newOutputStream(canal));
+            for (Path arquivo : arquivos) {
+                if (salvar && entradas.contains(CompiladorLote.arquivoSaida(arquivo).normalize())) {
+                    // Como no lote: um arquivo de entrada nunca é sobrescrito nem excluído.
+                    falhou = true;
+                    System.err.println(arquivo + ":");
+                    System.err.println("A saída " + CompiladorLote.arquivoSaida(arquivo)
+                            + " é um arquivo de entrada; o arquivo não foi compilado.");
+                    continue;
+                }
+                enviar(saida, "COMPILAR " + arquivo);
+                String[] cabecalho = lerCabecalho(entrada);
+                byte[] conteudo = entrada.readNBytes(Integer.parseInt(cabecalho[1]));
+                if (cabecalho[0].equals("OK")) {
+                    if (salvar) {
+                        Files.write(CompiladorLote.arquivoSaida(arquivo), conteudo);
+                    } else {
+                        System.out.write(conteudo);
+                        System.out.flush();
+                    }
+                } else {
+                    falhou = true;
+                    // Como no lote: o .asm de uma compilação anterior não fica.
+                    if (salvar) Files.deleteIfExists(CompiladorLote.arquivoSaida(arquivo));
+                    System.err.println(arquivo + ":");
+                    System.err.println(new String(conteudo, StandardCharsets.UTF_8));
+                }
+            }
+            if (encerrar) {
+                enviar(saida, "ENCERRAR");
+                lerCabecalho(entrada);
+            }
+        } catch (IOException e) {
+            System.err.println("Não foi possível falar com o servidor em " + socket + ": " + e.getMessage());
+            System.exit(2);
+        }
+        System.exit(falhou ? 1 : 0);
+    }
+
+    private static void enviar(OutputStream saida, String pedido) throws IOException {
+        saida.write((pedido + "\n").getBytes(StandardCharsets.UTF_8));
+        saida.flush();
+    }
+
+    // Retorna {status, tamanho} da linha de resposta.
+    private static String[] lerCabecalho(InputStream entrada) throws IOException {
+        String linha = ServidorCompilador.lerLinha(entrada);
+        if (linha == null) throw new EOFException("o servidor fechou a conexão");
+        String[] partes = linha.split(" ", 2);
+        if (partes.length != 2) throw new IOException("resposta inválida: " + linha);
+        return partes;
+    }
+}
@@ -0,0 +1,157 @@
+/*Compilador - Pipeline completo para um programa MACSLang
+Executa em sequência a análise léxica, a análise sintática/semântica e a geração de código.
+Cada chamada de compilar() cria as próprias instâncias de todas as fases e o próprio
+Diagnostics, sem estado compartilhado nem uso de System.err, de modo que vários programas
+podem ser compilados ao mesmo tempo em threads diferentes (o PerfilCompilacao, se houver, é o
+único objeto que pode ser compartilhado entre eles).
+ */
+// Compilador.java
+
+public final class Compilador {
+    /** Versão do compilador; deve mudar sempre que o código gerado mudar (invalida o CacheCompilacao). */
+    public static final String VERSAO = "2.11";
+
+    // Resultado da compilação de um programa.
+    public static final class Resultado {
+        public final Diagnostics diagnosticos;
+        // Tokens e analisador do programa inteiro; null quando o resultado veio de CompiladorIncremental.
+        public final BufferTokens tokens;
+        public final AnalisadorSintatico sintatico;
+        public final int quantidadeTokens;
+        // Código assembly gerado; null quando houve erros na análise ou quando o resultado veio de
+        // analisar() (o código é escrito direto no destino por gerar()).
+        public final String assembly;
+
+        Resultado(Diagnostics diagnosticos, BufferTokens tokens, AnalisadorSintatico sintatico, String assembly) {
+            this(diagnosticos, tokens, sintatico, tokens.tamanho(), assembly);
+        }
+
+        Resultado(Diagnostics diagnosticos, BufferTokens tokens, AnalisadorSintatico sintatico,
+                  int quantidadeTokens, String assembly) {
+            this.diagnosticos = diagnosticos;
+            this.tokens = tokens;
+            this.sintatico = sintatico;
+            this.quantidadeTokens = quantidadeTokens;
+            this.assembly = assembly;
+        }
+
+        /** true se nenhuma fase de análise encontrou erros (o código pode ser gerado). */
+        public boolean sucesso() {
+            return !diagnosticos.temErros();
+        }
+    }
+
+    private final int maximoErros;
+    // Medição de cada fase (null = sem perfil; os eventos JFR são gerados de qualquer forma).
+    private final PerfilCompilacao perfil;
+
+    public Compilador() {
+        this(Diagnostics.MAXIMO_PADRAO);
+    }
+
+    public Compilador(int maximoErros) {
+        this(maximoErros, null);
+    }
+
+    public Compilador(int maximoErros, PerfilCompilacao perfil) {
+        this.maximoErros = maximoErros;
+        this.perfil = perfil;
+    }
+
+    /** Compila o código-fonte; o código só é gerado se nenhuma fase de análise encontrar erros. */
+    public Resultado compilar(String codigo) {
+        return gerarTexto(analisar(codigo));
+    }
+
+    /** Só as fases de análise; o assembly pode ser escrito depois, direto num destino, com gerar(). */
+    public Resultado analisar(String codigo) {
+        Diagnostics diagnosticos = new Diagnostics(maximoErros);
+        PerfilCompilacao.Medicao lexica = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.LEXICA);
+        BufferTokens tokens = AnalisadorLexico.tokenizar(codigo, diagnosticos);
+        lexica.encerrar(tokens.tamanho());
+        return analisar(tokens, diagnosticos);
+    }
+
+    /**
+     * Compila fonte[0 .. tamanho). O vetor pode ser um buffer reaproveitado entre compilações,
+     * desde que não seja alterado enquanto o Resultado (que o referencia) estiver em uso.
+     */
+    public Resultado compilar(char[] fonte, int tamanho) {
+        return gerarTexto(analisar(fonte, tamanho));
+    }
+
+    /** Como analisar(String), para fonte[0 .. tamanho). */
+    public Resultado analisar(char[] fonte, int tamanho) {
+        Diagnostics diagnosticos = new Diagnostics(maximoErros);
+        PerfilCompilacao.Medicao lexica = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.LEXICA);
+        BufferTokens tokens = AnalisadorLexico.tokenizar(fonte, tamanho, diagnosticos);
+        lexica.encerrar(tokens.tamanho());
+        return analisar(tokens, diagnosticos);
+    }
+
+    private Resultado analisar(BufferTokens tokens, Diagnostics diagnosticos) {
+        PerfilCompilacao.Medicao sintatica = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.SINTATICA);
+        AnalisadorSintatico sintatico = new AnalisadorSintatico(tokens.cursor(), diagnosticos);
+        sintatico.analisarPrograma();
+        sintatica.encerrar(sintatico.getArvore().tamanho());
+        if (perfil != null) {
+            perfil.contar(PerfilCompilacao.Contador.TOKENS, tokens.tamanho());
+            perfil.contar(PerfilCompilacao.Contador.NOS, sintatico.getArvore().tamanho());
+            perfil.contar(PerfilCompilacao.Contador.SIMBOLOS,
+                    sintatico.getSimbolos().quantidade() + sintatico.getFuncoes().quantidade());
+        }
+        return new Resultado(diagnosticos, tokens, sintatico, null);
+    }
+
+    private Resultado gerarTexto(Resultado analise) {
+        if (!analise.sucesso()) return analise;
+        StringBuilder assembly = new StringBuilder();
+        try (EmissorAssembly emissor = EmissorAssembly.para(assembly)) {
+            gerar(analise, emissor);
+        }
+        return new Resultado(analise.diagnosticos, analise.tokens, analise.sintatico, assembly.toString());
+    }
+
+    /** Gerador de código de um programa analisado sem erros (resultado de analisar()). */
+    public GeradorCodigo gerador(Resultado analise) {
+        if (!analise.sucesso()) throw new IllegalArgumentException("O programa tem erros; o código não pode ser gerado.");
+        AnalisadorSintatico sintatico = analise.sintatico;
+        return new GeradorCodigo(sintatico.getArvore(), sintatico.getSimbolos(), sintatico.getFuncoes());
+    }
+
+    /**
+     * Código intermediário (depois dos passos de otimização) do gerador, que pode ser passado a
+     * gerar(gerador, ir, emissor) sem repetir os passos. Entra no perfil como geração de código.
+     */
+    public ProgramaIR intermediario(GeradorCodigo gerador) {
+        PerfilCompilacao.Medicao geracao = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.GERACAO);
+        ProgramaIR ir = gerador.intermediario();
+        geracao.encerrar(0);
+        return ir;
+    }
+
+    /**
+     * Escreve no emissor o assembly de um programa analisado sem erros (resultado de analisar()).
+     * O emissor não é fechado. Retorna a otimização de janela usada, com as reescritas feitas.
+     */
+    public OtimizacaoJanela gerar(Resultado analise, EmissorAssembly emissor) {
+        GeradorCodigo gerador = gerador(analise);
+        gerar(gerador, null, emissor);
+        return gerador.otimizacaoJanela();
+    }
+
+    /**
+     * Escreve no emissor o assembly do código intermediário ir, obtido de intermediario(gerador);
+     * com ir null, o código intermediário é construído aqui. O emissor não é fechado.
+     */
+    public void gerar(GeradorCodigo gerador, ProgramaIR ir, EmissorAssembly emissor) {
+        PerfilCompilacao.Medicao geracao = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.GERACAO);
+        long antes = emissor.caracteres();
+        int instrucoes = emissor.instrucoes();
+        gerador.emitir(ir != null ? ir : gerador.intermediario(), emissor);
+        geracao.encerrar(emissor.caracteres() - antes);
+        if (perfil != null) {
+            perfil.contar(PerfilCompilacao.Contador.INSTRUCOES, emissor.instrucoes() - instrucoes);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*CompiladorIncremental - Recompilação por função
+Divide o programa em unidades de nível superior: cada 'func' (da palavra func até a chave que
+fecha o corpo) e cada trecho de comandos globais entre duas funções. Para cada unidade guarda os
+tokens, as declarações feitas (assinaturas de funções e variáveis globais), as dependências (nomes
+globais que ela consultou e o tipo que tinham), os diagnósticos da análise semântica e o código
+gerado (os fragmentos do GeradorCodigo, montados em ordem no fim).
+Na compilação seguinte, uma unidade só é analisada de novo se o seu texto mudou ou se algum nome
+de que ela depende mudou de tipo (ou passou a existir/deixou de existir); o código e os
+diagnósticos das chamadas também dependem dos tipos dos parâmetros das funções chamadas, que são
+conferidos da mesma forma, e o código das funções de outras unidades cujo corpo os passos
+consultaram (uma unidade guarda as cópias das suas, ver ProgramaIR.copias, e a dependência é a
+mesma cópia). As demais são apenas reaplicadas ao ambiente global. O resultado é idêntico ao de Compilador: se alguma unidade tiver
+erro léxico ou sintático (que podem depender do contexto fora dela), o programa inteiro é compilado
+de novo pelo caminho normal.
+Uma instância guarda o estado de um arquivo; as chamadas de compilar() são sincronizadas.
+ */
+// CompiladorIncremental.java
+import java.util.*;
+
+public final class CompiladorIncremental {
+    private static final int SEGMENTO = 0, FUNCAO = 1;
+
+    // Caracteres que formam identificadores, palavras-chave e números (só ASCII, como no léxico).
+    private static final boolean[] PALAVRA = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) PALAVRA[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) PALAVRA[c] = true;
+        for (char c = '0'; c <= '9'; c++) PALAVRA[c] = true;
+        PALAVRA['_'] = true;
+    }
+
+    private final int maximoErros;
+    // Os ids dos nomes guardados nas unidades continuam válidos entre compilações.
+    private final TabelaNomes nomes = new TabelaNomes();
+    // Unidades da última compilação, pelo hash do texto (unidades de mesmo texto ficam na mesma lista).
+    private Map<Long, List<Unidade>> cache = new HashMap<>();
+
+    // Estatísticas da última compilação.
+    private int reanalisadas = 0;
+    private int reaproveitadas = 0;
+    private boolean completa = false;
+
+    public CompiladorIncremental() {
+        this(Diagnostics.MAXIMO_PADRAO);
+    }
+
+    public CompiladorIncremental(int maximoErros) {
+        this.maximoErros = maximoErros;
+    }
+
+    public synchronized Compilador.Resultado compilar(String codigo) {
+        char[] fonte = codigo.toCharArray();
+        return compilar(fonte, fonte.length);
+    }
+
+    /** Compila fonte[0 .. tamanho), reaproveitando as unidades que não mudaram desde a chamada anterior. */
+    public synchronized Compilador.Resultado compilar(char[] fonte, int tamanho) {
+        reanalisadas = 0;
+        reaproveitadas = 0;
+        completa = false;
+        int[] limites = dividir(fonte, tamanho);
+        int n = limites.length / 4;
+
+        TabelaSimbolos simbolos = new TabelaSimbolos(nomes);
+        TabelaSimbolos funcoes = new TabelaSimbolos(nomes);
+        // Tipos dos parâmetros de cada função já declarada, pelo id do nome.
+        Map<Integer, Tipo[]> assinaturas = new HashMap<>();
+        // Cópias das funções declaradas, pelo rótulo (ver ProgramaIR.copias).
+        Map<String, FuncaoIR> copias = new HashMap<>();
+        Map<Long, List<Unidade>> usadas = new HashMap<>(n * 2);
+        Unidade[] unidades = new Unidade[n];
+        boolean recompilar = false;
+        for (int u = 0; u < n; u++) {
+            int inicio = limites[4 * u];
+            int fim = u + 1 < n ? limites[4 * (u + 1)] : tamanho;
+            long hash = hash(fonte, inicio, fim);
+            Unidade unidade = procurar(hash, fonte, inicio, fim, simbolos, funcoes, assinaturas, copias);
+            if (unidade != null) {
+                unidade.reaplicar(simbolos, funcoes);
+                reaproveitadas++;
+            } else {
+                unidade = analisar(fonte, inicio, fim, simbolos, funcoes, assinaturas, copias);
+                reanalisadas++;
+            }
+            for (int i = 0; i < unidade.funcoes.length; i++) {
+                assinaturas.putIfAbsent(unidade.funcoes[i], unidade.parametrosFuncoes[i]);
+            }
+            unidade.copias.forEach(copias::putIfAbsent);
+            usadas.computeIfAbsent(hash, h -> new ArrayList<>(1)).add(unidade);
+            unidades[u] = unidade;
+            if (!unidade.isolavel(u == n - 1)) {
+                recompilar = true;
+                break;
+            }
+        }
+        cache = usadas;
+        if (recompilar) return compilarCompleto(fonte, tamanho);
+
+        // Junta os diagnósticos, convertendo as posições de cada unidade para o programa inteiro.
+        Diagnostics diagnosticos = new Diagnostics(maximoErros);
+        long deslocamento = 0;
+        for (int u = 0; u < n; u++) {
+            Diagnostics d = unidades[u].diagnosticos;
+            for (int i = 0; i < d.quantidade(); i++) {
+                diagnosticos.copiar(d, i, deslocamento, limites[4 * u + 1], limites[4 * u + 2]);
+            }
+            deslocamento += unidades[u].tokens.tamanho();
+        }
+        // Com o limite atingido, a análise completa teria parado no meio; o resultado seria outro.
+        if (diagnosticos.limiteAtingido()) return compilarCompleto(fonte, tamanho);
+
+        String assembly = null;
+        if (!diagnosticos.temErros()) {
+            StringBuilder asm = new StringBuilder();
+            try (EmissorAssembly emissor = EmissorAssembly.para(asm)) {
+                // Cada unidade mantém as suas funções de nível superior; as que nenhuma unidade
+                // chama saem aqui, como na compilação completa.
+                List<GeradorCodigo.Fragmento> fragmentos = new ArrayList<>();
+                for (Unidade unidade : unidades) fragmentos.addAll(unidade.fragmentos);
+                GeradorCodigo.Montagem montagem = new GeradorCodigo.Montagem(emissor);
+                for (GeradorCodigo.Fragmento fragmento : GeradorCodigo.alcancaveis(fragmentos)) montagem.adicionar(fragmento);
+                montagem.concluir();
+            }
+            assembly = asm.toString();
+        }
+        return new Compilador.Resultado(diagnosticos, null, null, (int) deslocamento, assembly);
+    }
+
+    /** Unidades analisadas de novo na última compilação. */
+    public synchronized int reanalisadas() {
+        return reanalisadas;
+    }
+
+    /** Unidades reaproveitadas do cache na última compilação. */
+    public synchronized int reaproveitadas() {
+        return reaproveitadas;
+    }
+
+    /** Indica se a última compilação precisou analisar o programa inteiro de uma vez. */
+    public synchronized boolean completa() {
+        return completa;
+    }
+
+    private Compilador.Resultado compilarCompleto(char[] fonte, int tamanho) {
+        completa = true;
+        return new Compilador(maximoErros).compilar(fonte, tamanho);
+    }
+
+    // Unidade do cache com o mesmo texto e cujas dependências têm o mesmo tipo no ambiente atual.
+    private Unidade procurar(long hash, char[] fonte, int inicio, int fim,
+                             TabelaSimbolos simbolos, TabelaSimbolos funcoes, Map<Integer, Tipo[]> assinaturas,
+                             Map<String, FuncaoIR> copias) {
+        List<Unidade> candidatas = cache.get(hash);
+        if (candidatas == null) return null;
+        for (Unidade unidade : candidatas) {
+            char[] texto = unidade.tokens.fonte();
+            if (Arrays.equals(texto, 0, texto.length, fonte, inicio, fim)
+                    && valida(simbolos, unidade.dependenciasVariaveis, unidade.tiposDependenciasVariaveis)
+                    && valida(funcoes, unidade.dependenciasFuncoes, unidade.tiposDependenciasFuncoes)
+                    && validaAssinaturas(assinaturas, unidade)
+                    && validaCopias(copias, unidade)) {
+                return unidade;
+            }
+        }
+        return null;
+    }
+
+    private static boolean valida(TabelaSimbolos tabela, int[] dependencias, Tipo[] tipos) {
+        for (int i = 0; i < dependencias.length; i++) {
+            int s = tabela.buscar(dependencias[i]);
+            if ((s < 0 ? null : tabela.tipo(s)) != tipos[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean validaAssinaturas(Map<Integer, Tipo[]> assinaturas, Unidade unidade) {
+        for (int i = 0; i < unidade.chamadas.length; i++) {
+            if (!Arrays.equals(assinaturas.get(unidade.chamadas[i]), unidade.parametrosChamadas[i])) return false;
+        }
+        return true;
+    }
+
+    private static boolean validaCopias(Map<String, FuncaoIR> copias, Unidade unidade) {
+        for (Map.Entry<String, FuncaoIR> e : unidade.consultadas.entrySet()) {
+            if (copias.get(e.getKey()) != e.getValue()) return false;
+        }
+        return true;
+    }
+
+    // Analisa a unidade isoladamente (posições relativas ao início dela), no ambiente atual.
+    private Unidade analisar(char[] fonte, int inicio, int fim, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                             Map<Integer, Tipo[]> assinaturas, Map<String, FuncaoIR> copias) {
+        char[] texto = Arrays.copyOfRange(fonte, inicio, fim);
+        Diagnostics diagnosticos = new Diagnostics(maximoErros);
+        BufferTokens tokens = AnalisadorLexico.tokenizar(texto, texto.length, nomes, diagnosticos);
+        simbolos.iniciarUnidade();
+        funcoes.iniciarUnidade();
+        try {
+            AnalisadorSintatico sintatico = new AnalisadorSintatico(tokens.cursor(), diagnosticos, simbolos, funcoes,
+                    f -> assinaturas.get(funcoes.nome(f)));
+            sintatico.analisarPrograma();
+            return new Unidade(tokens, diagnosticos, sintatico.getArvore(), simbolos, funcoes, assinaturas,
+                    sintatico.assinaturasExternasUsadas(), copias);
+        } finally {
+            simbolos.encerrarUnidade();
+            funcoes.encerrarUnidade();
+        }
+    }
+
+    /**
+     * Divide o código em unidades. Retorna, para cada unidade, {início, linha, coluna, tipo}.
+     * Ignora o conteúdo de strings e comentários, seguindo as mesmas regras do analisador léxico.
+     */
+    static int[] dividir(char[] fonte, int tamanho) {
+        int[] limites = new int[64];
+        int n = 0;
+        limites[n++] = 0;
+        limites[n++] = 1;
+        limites[n++] = 1;
+        limites[n++] = SEGMENTO;
+        boolean emFuncao = false;
+        boolean comentarioSemFim = false;
+        int profundidade = 0, linha = 1, inicioLinha = 0;
+        int i = 0;
+        while (i < tamanho) {
+            char c = fonte[i];
+            int proxima = i + 1;
+            if (c == '\n') {
+                linha++;
+                inicioLinha = proxima;
+            } else if (c == '"') {
+                int j = proxima;
+                while (j < tamanho && fonte[j] != '"' && fonte[j] != '\n') j++;
+                // Sem as aspas de fechamento na mesma linha, a aspa é um token desconhecido.
+                if (j < tamanho && fonte[j] == '"') proxima = j + 1;
+            } else if (c == '/' && proxima < tamanho && fonte[proxima] == '/') {
+                while (proxima < tamanho && fonte[proxima] != '\n') proxima++;
+            } else if (c == '/' && proxima < tamanho && fonte[proxima] == '*' && !comentarioSemFim) {
+                int j = i + 2;
+                while (j + 1 < tamanho && !(fonte[j] == '*' && fonte[j + 1] == '/')) j++;
+                if (j + 1 < tamanho) {
+                    for (int k = i + 2; k < j; k++) {
+                        if (fonte[k] == '\n') {
+                            linha++;
+                            inicioLinha = k + 1;
+                        }
+                    }
+                    proxima = j + 2;
+                } else {
+                    // Comentário sem fim: '/' e '*' viram operadores, e o mesmo vale para os seguintes.
+                    comentarioSemFim = true;
+                }
+            } else if (c < 128 && PALAVRA[c]) {
+                while (proxima < tamanho && fonte[proxima] < 128 && PALAVRA[fonte[proxima]]) proxima++;
+                if (profundidade == 0 && proxima - i == 4 && fonte[i] == 'f' && fonte[i + 1] == 'u'
+                        && fonte[i + 2] == 'n' && fonte[i + 3] == 'c') {
+                    if (n + 4 > limites.length) limites = Arrays.copyOf(limites, limites.length * 2);
+                    limites[n++] = i;
+                    limites[n++] = linha;
+                    limites[n++] = i - inicioLinha + 1;
+                    limites[n++] = FUNCAO;
+                    emFuncao = true;
+                }
+            } else if (c == '{') {
+                profundidade++;
+            } else if (c == '}' && profundidade > 0) {
+                profundidade--;
+                if (profundidade == 0 && emFuncao) {
+                    // O trecho seguinte começa logo após a chave que fecha a função.
+                    if (n + 4 > limites.length) limites = Arrays.copyOf(limites, limites.length * 2);
+                    limites[n++] = proxima;
+                    limites[n++] = linha;
+                    limites[n++] = proxima - inicioLinha + 1;
+                    limites[n++] = SEGMENTO;
+                    emFuncao = false;
+                }
+            }
+            i = proxima;
+        }
+        return Arrays.copyOf(limites, n);
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres da unidade.
+    private static long hash(char[] fonte, int inicio, int fim) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = inicio; i < fim; i++) {
+            h ^= fonte[i];
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Resultado guardado da análise de uma unidade.
+    private static final class Unidade {
+        final BufferTokens tokens;
+        final Diagnostics diagnosticos;
+        // Nomes globais consultados e o tipo que tinham (null = não declarado).
+        final int[] dependenciasVariaveis;
+        final Tipo[] tiposDependenciasVariaveis;
+        final int[] dependenciasFuncoes;
+        final Tipo[] tiposDependenciasFuncoes;
+        // Declarações feitas pela unidade, em ordem (todas as variáveis, inclusive as locais).
+        final int[] variaveis;
+        final Tipo[] tiposVariaveis;
+        final int[] niveisVariaveis;
+        final int[] funcoes;
+        final Tipo[] tiposFuncoes;
+        final Tipo[][] parametrosFuncoes;
+        // Funções de outras unidades chamadas e os tipos dos parâmetros usados na análise das
+        // chamadas e na geração.
+        final int[] chamadas;
+        final Tipo[][] parametrosChamadas;
+        // Cópias das funções declaradas e as de outras unidades consultadas (null: não havia).
+        final Map<String, FuncaoIR> copias;
+        final Map<String, FuncaoIR> consultadas;
+        // Código gerado (null se a unidade tem erros: o programa não gera código).
+        final List<GeradorCodigo.Fragmento> fragmentos;
+
+        Unidade(BufferTokens tokens, Diagnostics diagnosticos, ArvoreSintatica arvore,
+                TabelaSimbolos simbolos, TabelaSimbolos tabelaFuncoes, Map<Integer, Tipo[]> assinaturas,
+                Map<Integer, Tipo[]> assinaturasAnalise, Map<String, FuncaoIR> externas) {
+            this.tokens = tokens;
+            this.diagnosticos = diagnosticos;
+            dependenciasVariaveis = new int[simbolos.quantidadeDependencias()];
+            tiposDependenciasVariaveis = new Tipo[dependenciasVariaveis.length];
+            for (int i = 0; i < dependenciasVariaveis.length; i++) {
+                dependenciasVariaveis[i] = simbolos.nomeDependencia(i);
+                tiposDependenciasVariaveis[i] = simbolos.tipoDependencia(i);
+            }
+            dependenciasFuncoes = new int[tabelaFuncoes.quantidadeDependencias()];
+            tiposDependenciasFuncoes = new Tipo[dependenciasFuncoes.length];
+            for (int i = 0; i < dependenciasFuncoes.length; i++) {
+                dependenciasFuncoes[i] = tabelaFuncoes.nomeDependencia(i);
+                tiposDependenciasFuncoes[i] = tabelaFuncoes.tipoDependencia(i);
+            }
+            int primeira = simbolos.inicioUnidade();
+            variaveis = new int[simbolos.quantidade() - primeira];
+            tiposVariaveis = new Tipo[variaveis.length];
+            niveisVariaveis = new int[variaveis.length];
+            for (int i = 0; i < variaveis.length; i++) {
+                variaveis[i] = simbolos.nome(primeira + i);
+                tiposVariaveis[i] = simbolos.tipo(primeira + i);
+                niveisVariaveis[i] = simbolos.nivel(primeira + i);
+            }
+            primeira = tabelaFuncoes.inicioUnidade();
+            funcoes = new int[tabelaFuncoes.quantidade() - primeira];
+            tiposFuncoes = new Tipo[funcoes.length];
+            parametrosFuncoes = new Tipo[funcoes.length][];
+            for (int i = 0; i < funcoes.length; i++) {
+                funcoes[i] = tabelaFuncoes.nome(primeira + i);
+                tiposFuncoes[i] = tabelaFuncoes.tipo(primeira + i);
+                parametrosFuncoes[i] = ConstrutorIR.parametros(arvore, tabelaFuncoes.declaracao(primeira + i));
+            }
+            Map<Integer, Tipo[]> usadas = new LinkedHashMap<>(assinaturasAnalise);
+            if (diagnosticos.temErros()) {
+                fragmentos = null;
+                copias = Collections.emptyMap();
+                consultadas = Collections.emptyMap();
+            } else {
+                GeradorCodigo gerador = new GeradorCodigo(arvore, simbolos, tabelaFuncoes,
+                        f -> assinaturas.get(tabelaFuncoes.nome(f)), externas::get);
+                fragmentos = gerador.fragmentos();
+                copias = gerador.copiasFuncoes();
+                consultadas = gerador.funcoesExternasConsultadas();
+                usadas.putAll(gerador.assinaturasExternasUsadas());
+            }
+            chamadas = new int[usadas.size()];
+            parametrosChamadas = new Tipo[usadas.size()][];
+            int k = 0;
+            for (Map.Entry<Integer, Tipo[]> e : usadas.entrySet()) {
+                chamadas[k] = tabelaFuncoes.nome(e.getKey());
+                parametrosChamadas[k++] = e.getValue();
+            }
+        }
+
+        // Refaz no ambiente global as declarações de nível global, como se a unidade fosse analisada.
+        void reaplicar(TabelaSimbolos simbolos, TabelaSimbolos tabelaFuncoes) {
+            for (int i = 0; i < variaveis.length; i++) {
+                if (niveisVariaveis[i] == 0) simbolos.declarar(variaveis[i], tiposVariaveis[i]);
+            }
+            for (int i = 0; i < funcoes.length; i++) {
+                tabelaFuncoes.declarar(funcoes[i], tiposFuncoes[i]);
+            }
+        }
+
+        // Os diagnósticos só valem para o programa inteiro se não houver erro léxico ou sintático
+        // e nenhum erro ocorrer no fim da unidade (onde o token seguinte seria o da próxima unidade).
+        boolean isolavel(boolean ultima) {
+            if (diagnosticos.erros(Diagnostics.Fase.LEXICA) > 0 || diagnosticos.erros(Diagnostics.Fase.SINTATICA) > 0) {
+                return false;
+            }
+            if (diagnosticos.limiteAtingido()) return false;
+            for (int d = 0; d < diagnosticos.quantidade(); d++) {
+                if (!ultima && diagnosticos.noFimDaEntrada(d)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*CompiladorLote - Compilação não interativa de vários arquivos
+Recebe arquivos, diretórios (percorridos recursivamente atrás de arquivos .mcs) e padrões glob
+(ex.: "exemplos/**.mcs"), compila cada arquivo em paralelo num ForkJoinPool (work stealing) e
+grava o assembly ao lado da entrada, trocando a extensão por .asm. A compilação só usa CPU (a
+leitura e a escrita dos arquivos são curtas), então threads virtuais não trariam ganho: o pool
+de -j threads mantém os processadores ocupados, e o roubo de tarefas equilibra arquivos de
+tamanhos diferentes. Um arquivo que não compila
+não fica com o .asm de uma compilação anterior (nem com um gravado pela metade): ele é excluído.
+Os globs só selecionam arquivos .mcs, e uma entrada cuja saída cairia sobre um arquivo de entrada
+(ex.: "prog.asm", ou "a.mcs" junto com "a.asm") é recusada sem ser compilada: o lote nunca grava
+nem exclui um arquivo que recebeu como entrada.
+Os erros de cada arquivo são exibidos na ordem das entradas, seguidos de um resumo com a
+vazão (arquivos/s e tokens/s).
+Com --cache, os arquivos já compilados antes (mesmo conteúdo, mesma versão do compilador) não
+passam por nenhuma fase: o assembly é copiado do CacheCompilacao direto para o .asm.
+Com --profile, o tempo e a memória de cada fase, somados em todos os arquivos, são exibidos no fim.
+-q omite o resumo (só os erros são exibidos) e --debug exibe também uma linha por arquivo.
+--dump-tokens e --dump-ast gravam os tokens (.tok) e a AST (.ast) de cada arquivo no formato do
+DespejoBinario; nesse caso o cache não é consultado, pois os arquivos precisam ser analisados.
+
+Uso: java Main [-j N] [--max-erros N] [--cache diretório [--cache-max MB]] [--profile] [-q | --debug]
+               [--dump-tokens] [--dump-ast] <arquivo | diretório | glob>...
+ */
+// CompiladorLote.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+public final class CompiladorLote {
+    // Extensão dos arquivos MACSLang procurados nos diretórios.
+    static final String EXTENSAO = ".mcs";
+
+    private final int paralelismo;
+    private final int maximoErros;
+    private final PrintStream saida;
+    // Cache de compilações anteriores (null = desligado).
+    private final CacheCompilacao cache;
+    // Medição das fases (null = desligada).
+    private final PerfilCompilacao perfil;
+    private Verbosidade verbosidade = Verbosidade.NORMAL;
+    private boolean despejarTokens, despejarArvore;
+
+    // Resultado de cada arquivo, indexado pela posição na lista de entrada.
+    private Path[] arquivos;
+    private int[] tokens;
+    private boolean[] sucesso;
+    private String[] erros;
+
+    public CompiladorLote(int paralelismo, int maximoErros, PrintStream saida) {
+        this(paralelismo, maximoErros, saida, null, null);
+    }
+
+    public CompiladorLote(int paralelismo, int maximoErros, PrintStream saida, CacheCompilacao cache,
+                          PerfilCompilacao perfil) {
+        this.paralelismo = paralelismo;
+        this.maximoErros = maximoErros;
+        this.saida = saida;
+        this.cache = cache;
+        this.perfil = perfil;
+    }
+
+    public CompiladorLote verbosidade(Verbosidade verbosidade) {
+        this.verbosidade = verbosidade;
+        return this;
+    }
+
+    /** Grava também os tokens e/ou a AST de cada arquivo (ver DespejoBinario). */
+    public CompiladorLote despejar(boolean tokens, boolean arvore) {
+        this.despejarTokens = tokens;
+        this.despejarArvore = arvore;
+        return this;
+    }
+
+    /** Interpreta os argumentos da linha de comando e compila os arquivos; retorna o código de saída. */
+    public static int executar(String[] args) {
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        int maximoErros = Diagnostics.MAXIMO_PADRAO;
+        String diretorioCache = null;
+        long tamanhoCache = CacheCompilacao.TAMANHO_PADRAO;
+        boolean medir = false, despejarTokens = false, despejarArvore = false;
+        Verbosidade verbosidade = Verbosidade.NORMAL;
+        List<String> entradas = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-j")) {
+                    paralelismo = Integer.parseInt(valorOpcao(args, ++i, "-j"));
+                } else if (args[i].equals("--max-erros")) {
+                    maximoErros = Integer.parseInt(valorOpcao(args, ++i, "--max-erros"));
+                } else if (args[i].equals("--cache")) {
+                    diretorioCache = valorOpcao(args, ++i, "--cache");
+                } else if (args[i].equals("--cache-max")) {
+                    tamanhoCache = Long.parseLong(valorOpcao(args, ++i, "--cache-max")) * 1024 * 1024;
+                } else if (args[i].equals("--profile")) {
+                    medir = true;
+                } else if (args[i].equals("--dump-tokens")) {
+                    despejarTokens = true;
+                } else if (args[i].equals("--dump-ast")) {
+                    despejarArvore = true;
+                } else if (Verbosidade.daOpcao(args[i]) != null) {
+                    verbosidade = Verbosidade.daOpcao(args[i]);
+                } else {
+                    entradas.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        if (entradas.isEmpty() || paralelismo < 1 || maximoErros < 1 || tamanhoCache < 0) {
+            System.err.println("Uso: java Main [-j N] [--max-erros N] [--cache diretório [--cache-max MB]] [--profile] [-q | --debug]"
+                    + " [--dump-tokens] [--dump-ast] <arquivo | diretório | glob>...");
+            return 2;
+        }
+
+        List<Path> arquivos;
+        try {
+            arquivos = expandir(entradas);
+        } catch (IOException e) {
+            System.err.println("Erro ao listar os arquivos de entrada: " + e.getMessage());
+            return 2;
+        }
+        if (arquivos.isEmpty()) {
+            System.err.println("Nenhum arquivo " + EXTENSAO + " encontrado.");
+            return 2;
+        }
+        CacheCompilacao cache = null;
+        if (diretorioCache != null) {
+            try {
+                cache = new CacheCompilacao(Paths.get(diretorioCache), tamanhoCache);
+            } catch (IOException e) {
+                System.err.println("Erro ao abrir o cache " + diretorioCache + ": " + e.getMessage());
+                return 2;
+            }
+        }
+        PerfilCompilacao perfil = medir ? new PerfilCompilacao() : null;
+        // Erros de milhares de arquivos passam por um buffer em vez de uma escrita por linha.
+        PrintStream saida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        try {
+            return new CompiladorLote(paralelismo, maximoErros, saida, cache, perfil)
+                    .verbosidade(verbosidade)
+                    .despejar(despejarTokens, despejarArvore)
+                    .compilar(arquivos) ? 0 : 1;
+        } finally {
+            saida.flush();
+        }
+    }
+
+    private static String valorOpcao(String[] args, int i, String opcao) {
+        if (i >= args.length) throw new IllegalArgumentException("Faltou o valor da opção " + opcao + ".");
+        return args[i];
+    }
+
+    /** Expande arquivos, diretórios e padrões glob numa lista ordenada e sem repetições. */
+    public static List<Path> expandir(List<String> entradas) throws IOException {
+        Set<Path> arquivos = new LinkedHashSet<>();
+        for (String entrada : entradas) {
+            if (ehGlob(entrada)) {
+                arquivos.addAll(buscarGlob(entrada));
+                continue;
+            }
+            Path caminho = Paths.get(entrada);
+            if (Files.isDirectory(caminho)) {
+                try (Stream<Path> s = Files.walk(caminho)) {
+                    s.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(EXTENSAO))
+                            .sorted()
+                            .forEach(arquivos::add);
+                }
+            } else {
+                // Arquivos informados diretamente são compilados qualquer que seja a extensão.
+                arquivos.add(caminho);
+            }
+        }
+        return new ArrayList<>(arquivos);
+    }
+
+    private static boolean ehGlob(String entrada) {
+        for (int i = 0; i < entrada.length(); i++) {
+            char c = entrada.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return true;
+        }
+        return false;
+    }
+
+    // Percorre a partir do maior prefixo sem curingas e filtra pelo padrão completo.
+    private static List<Path> buscarGlob(String padrao) throws IOException {
+        Path base = Paths.get("");
+        Path caminho = Paths.get(padrao);
+        for (Path parte : caminho) {
+            if (ehGlob(parte.toString())) break;
+            base = base.resolve(parte);
+        }
+        if (caminho.isAbsolute()) base = caminho.getRoot().resolve(base);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + padrao);
+        if (!Files.isDirectory(base)) return Collections.emptyList();
+        try (Stream<Path> s = Files.walk(base)) {
+            return s.filter(p -> Files.isRegularFile(p) && matcher.matches(p)
+                            && p.getFileName().toString().endsWith(EXTENSAO))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Compila todos os arquivos em paralelo e exibe erros e resumo; retorna true se todos compilaram. */
+    public boolean compilar(List<Path> entrada) {
+        int n = entrada.size();
+        arquivos = entrada.toArray(new Path[0]);
+        tokens = new int[n];
+        sucesso = new boolean[n];
+        erros = new String[n];
+        Set<Path> normalizadas = normalizar(entrada);
+        for (int i = 0; i < n; i++) {
+            for (Path destino : saidas(arquivos[i])) {
+                if (normalizadas.contains(destino.toAbsolutePath().normalize())) {
+                    erros[i] = "A saída " + destino + " é um arquivo de entrada; o arquivo não foi compilado.";
+                    break;
+                }
+            }
+        }
+
+        long inicio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            pool.invoke(new Tarefa(0, n));
+        } finally {
+            pool.shutdown();
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        int falhas = 0;
+        long totalTokens = 0;
+        boolean depuracao = verbosidade.peloMenos(Verbosidade.DEPURACAO);
+        for (int i = 0; i < n; i++) {
+            totalTokens += tokens[i];
+            if (depuracao) saida.printf("%s: %d tokens, %s%n", arquivos[i], tokens[i], sucesso[i] ? "ok" : "com erros");
+            if (sucesso[i]) continue;
+            falhas++;
+            saida.println(arquivos[i] + ":");
+            saida.println(erros[i]);
+        }
+        double segundos = nanos / 1e9;
+        if (verbosidade.peloMenos(Verbosidade.NORMAL)) resumir(n, falhas, totalTokens, segundos);
+        if (perfil != null) perfil.exibir(saida);
+        return falhas == 0;
+    }
+
+    private void resumir(int n, int falhas, long totalTokens, double segundos) {
+        saida.printf("%d arquivo(s) compilado(s), %d com erros, %d tokens em %.3f s (%d threads): %.1f arquivos/s, %.0f tokens/s%n",
+                n - falhas, falhas, totalTokens, segundos, paralelismo, n / segundos, totalTokens / segundos);
+        if (cache != null) {
+            saida.printf("Cache: %d acerto(s), %d ausente(s)%n", cache.acertos(), cache.ausencias());
+        }
+    }
+
+    // Compila um arquivo e grava o .asm ao lado dele. Cada chamada usa um Compilador próprio.
+    private void compilarArquivo(int i) {
+        if (erros[i] != null) return; // recusado em compilar(): a saída é uma das entradas
+        PerfilCompilacao.EventoArquivo evento = new PerfilCompilacao.EventoArquivo();
+        evento.begin();
+        compilarArquivo(arquivos[i], i);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.arquivo = arquivos[i].toString();
+            evento.tokens = tokens[i];
+            evento.sucesso = sucesso[i];
+            evento.commit();
+        }
+    }
+
+    private void compilarArquivo(Path arquivo, int i) {
+        try {
+            byte[] bytes = Files.readAllBytes(arquivo);
+            String chave = cache != null ? cache.chave(bytes) : null;
+            // Com despejo, o arquivo precisa ser analisado mesmo que esteja no cache.
+            if (chave != null && !despejarTokens && !despejarArvore) {
+                CacheCompilacao.Artefato artefato = cache.buscar(chave);
+                if (artefato != null) {
+                    PerfilCompilacao.Medicao escrita = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.SAIDA);
+                    try (FileChannel destino = FileChannel.open(arquivoSaida(arquivo), StandardOpenOption.WRITE,
+                            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        artefato.copiarAssembly(destino);
+                    }
+                    escrita.encerrar(artefato.tamanhoAssembly());
+                    if (perfil != null) perfil.contar(PerfilCompilacao.Contador.BYTES, artefato.tamanhoAssembly());
+                    tokens[i] = artefato.quantidadeTokens();
+                    sucesso[i] = true;
+                    return;
+                }
+            }
+            // Decodifica como Files.readString: UTF-8 inválido é erro de E/S.
+            String codigo = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+            Compilador compilador = new Compilador(maximoErros, perfil);
+            Compilador.Resultado resultado = compilador.analisar(codigo);
+            tokens[i] = resultado.quantidadeTokens;
+            if (resultado.sucesso()) {
+                // O assembly vai direto para o .asm (a escrita entra no tempo da geração de código).
+                Path saidaAsm = arquivoSaida(arquivo);
+                try (FileChannel destino = FileChannel.open(saidaAsm, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    try (EmissorAssembly emissor = EmissorAssembly.para(destino)) {
+                        compilador.gerar(resultado, emissor);
+                    }
+                    if (perfil != null) perfil.contar(PerfilCompilacao.Contador.BYTES, destino.position());
+                }
+                sucesso[i] = true;
+                if (cache != null) guardarNoCache(chave, resultado, saidaAsm);
+            } else {
+                erros[i] = resultado.diagnosticos.renderizar();
+            }
+            if (despejarTokens) {
+                DespejoBinario.gravarTokens(resultado.tokens, arquivoComExtensao(arquivo, DespejoBinario.EXTENSAO_TOKENS));
+            }
+            if (despejarArvore) {
+                AnalisadorSintatico sintatico = resultado.sintatico;
+                DespejoBinario.gravarArvore(sintatico.getArvore(), sintatico.getSimbolos(), sintatico.getFuncoes(),
+                        arquivoComExtensao(arquivo, DespejoBinario.EXTENSAO_ARVORE));
+            }
+        } catch (IOException e) {
+            erros[i] = "Erro de E/S: " + e.getMessage();
+        } catch (UncheckedIOException e) {
+            erros[i] = "Erro de E/S: " + e.getCause().getMessage();
+        } catch (RuntimeException e) {
+            // Uma falha interna num arquivo não interrompe o restante do lote.
+            erros[i] = "Erro interno do compilador: " + e;
+        }
+        if (!sucesso[i]) excluirSaida(arquivo);
+    }
+
+    // Um arquivo com erros não fica com o .asm de uma compilação anterior (ou gravado pela metade).
+    private static void excluirSaida(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivoSaida(arquivo));
+        } catch (IOException e) {
+            // O erro do arquivo já foi registrado; o .asm antigo fica.
+        }
+    }
+
+    // Uma falha ao gravar no cache não afeta o resultado da compilação.
+    private void guardarNoCache(String chave, Compilador.Resultado resultado, Path assembly) {
+        try {
+            cache.guardar(chave, resultado, assembly);
+        } catch (IOException e) {
+            // O arquivo será compilado de novo na próxima vez.
+        }
+    }
+
+    // Arquivos gravados (ou excluídos) para a entrada, conforme as opções de despejo.
+    private List<Path> saidas(Path arquivo) {
+        List<Path> saidas = new ArrayList<>(3);
+        saidas.add(arquivoSaida(arquivo));
+        if (despejarTokens) saidas.add(arquivoComExtensao(arquivo, DespejoBinario.EXTENSAO_TOKENS));
+        if (despejarArvore) saidas.add(arquivoComExtensao(arquivo, DespejoBinario.EXTENSAO_ARVORE));
+        return saidas;
+    }
+
+    /** Caminhos absolutos e normalizados, para comparar uma saída com as entradas. */
+    static Set<Path> normalizar(Collection<Path> arquivos) {
+        Set<Path> normalizados = new HashSet<>();
+        for (Path arquivo : arquivos) normalizados.add(arquivo.toAbsolutePath().normalize());
+        return normalizados;
+    }
+
+    /** Caminho do .asm gerado para o arquivo: mesmo diretório, extensão trocada. */
+    static Path arquivoSaida(Path arquivo) {
+        return arquivoComExtensao(arquivo, ".asm");
+    }
+
+    /** Arquivo no mesmo diretório, com a extensão trocada. */
+    static Path arquivoComExtensao(Path arquivo, String extensao) {
+        String nome = arquivo.getFileName().toString();
+        int ponto = nome.lastIndexOf('.');
+        return arquivo.resolveSibling((ponto > 0 ? nome.substring(0, ponto) : nome) + extensao);
+    }
+
+    // Divide o intervalo de arquivos ao meio até sobrar um só; os pedaços são roubados pelas threads ociosas.
+    @SuppressWarnings("serial") // nunca é serializada
+    private final class Tarefa extends RecursiveAction {
+        private final int inicio, fim;
+
+        Tarefa(int inicio, int fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= 1) {
+                if (fim > inicio) compilarArquivo(inicio);
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new Tarefa(inicio, meio), new Tarefa(meio, fim));
+        }
+    }
+}
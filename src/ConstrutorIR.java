@@ -0,0 +1,566 @@
+/*ConstrutorIR - Tradução da AST para o código intermediário em SSA
+O programa é dividido nos mesmos procedimentos que o GeradorCodigo emite: cada função (também as
+declaradas dentro de blocos) e cada trecho de comandos globais entre funções.
+
+Variáveis:
+- as variáveis globais (nível 0 do escopo principal), as usadas por uma função interna e as de
+  outras unidades são estáticas: cada leitura é um CARREGAR e cada escrita um GUARDAR;
+- as demais (parâmetros, locais das funções e variáveis dos blocos do escopo principal) não
+  existem no código intermediário: cada atribuição define um novo temporário, e os PHIs juntam
+  os valores que chegam por caminhos diferentes.
+A forma SSA é construída durante a tradução (Braun et al., "Simple and Efficient Construction of
+Static Single Assignment Form"): o valor atual de cada variável é procurado no bloco e, se não
+estiver lá, nos predecessores. Um bloco é "selado" quando todos os seus predecessores são
+conhecidos; antes disso (cabeçalhos de laços) a leitura cria um PHI incompleto, completado ao
+selar. No fim, os PHIs triviais (todos os argumentos iguais) são trocados pelo próprio valor.
+
+Os laços ficam com o teste no fim (a ordem dos blocos é a ordem de emissão):
+    salto cabeçalho;  corpo: ...; salto cabeçalho;  cabeçalho: desvio c, corpo, saída;  saída:
+ */
+// ConstrutorIR.java
+import java.util.*;
+import java.util.function.IntFunction;
+
+public final class ConstrutorIR {
+    private static final AnalisadorLexico.TokenType[] OPERADORES = AnalisadorLexico.TokenType.values();
+
+    private final ArvoreSintatica arvore;
+    private final TabelaSimbolos simbolos;
+    private final TabelaSimbolos funcoes;
+    // Tipos dos parâmetros de funções declaradas fora desta árvore (compilação incremental).
+    private final IntFunction<Tipo[]> assinaturasExternas;
+    private final Map<Integer, Tipo[]> assinaturas = new HashMap<>();
+    private final Map<Integer, Tipo[]> externasUsadas = new LinkedHashMap<>();
+    // Nó FUNCAO que declara cada variável (-1 = escopo principal) e se ela é usada fora dele.
+    private final int[] dono;
+    private final boolean[] capturada;
+
+    public ConstrutorIR(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes) {
+        this(arvore, simbolos, funcoes, null);
+    }
+
+    /**
+     * assinaturasExternas dá os tipos dos parâmetros de uma função (pelo símbolo) que não foi
+     * declarada nesta árvore; necessário quando a árvore é só uma unidade do programa.
+     */
+    public ConstrutorIR(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                        IntFunction<Tipo[]> assinaturasExternas) {
+        this.arvore = arvore;
+        this.simbolos = simbolos;
+        this.funcoes = funcoes;
+        this.assinaturasExternas = assinaturasExternas;
+        dono = new int[simbolos.quantidade()];
+        capturada = new boolean[simbolos.quantidade()];
+        Arrays.fill(dono, -1);
+        if (arvore.tamanho() > 0) analisarEscopos(0, -1);
+    }
+
+    /** Código intermediário de todos os procedimentos da árvore. */
+    public ProgramaIR construir() {
+        ProgramaIR programa = new ProgramaIR();
+        programa.completo = assinaturasExternas == null;
+        if (arvore.tamanho() == 0) return programa;
+        int f = arvore.primeiroFilho(0);
+        while (f >= 0) {
+            if (arvore.tipoNo(f) == ArvoreSintatica.TipoNo.FUNCAO) {
+                FuncaoIR funcao = new Construcao(f).funcao();
+                funcao.nivelSuperior = true;
+                programa.funcoes.add(funcao);
+                internas(f, programa);
+                f = arvore.proximoIrmao(f);
+            } else {
+                int primeiro = f;
+                while (f >= 0 && arvore.tipoNo(f) != ArvoreSintatica.TipoNo.FUNCAO) f = arvore.proximoIrmao(f);
+                FuncaoIR trecho = new Construcao(-1).trecho(primeiro, f);
+                trecho.nivelSuperior = true;
+                programa.funcoes.add(trecho);
+                for (int c = primeiro; c != f; c = arvore.proximoIrmao(c)) internas(c, programa);
+            }
+        }
+        return programa;
+    }
+
+    /** Tipos dos parâmetros da função (símbolo da tabela de funções). */
+    public Tipo[] assinatura(int funcao) {
+        Tipo[] tipos = assinaturas.get(funcao);
+        if (tipos == null && assinaturasExternas != null) {
+            tipos = assinaturasExternas.apply(funcao);
+            if (tipos != null) externasUsadas.put(funcao, tipos);
+        }
+        return tipos;
+    }
+
+    /** Assinaturas de funções de fora da árvore consultadas na construção (símbolo -> parâmetros). */
+    public Map<Integer, Tipo[]> assinaturasExternasUsadas() {
+        return externasUsadas;
+    }
+
+    /** Tipos dos parâmetros da função declarada no nó FUNCAO. */
+    public static Tipo[] parametros(ArvoreSintatica arvore, int noFuncao) {
+        int n = 0;
+        for (int f = arvore.primeiroFilho(noFuncao); f >= 0; f = arvore.proximoIrmao(f)) {
+            if (arvore.tipoNo(f) == ArvoreSintatica.TipoNo.PARAMETRO) n++;
+        }
+        Tipo[] tipos = new Tipo[n];
+        int i = 0;
+        for (int f = arvore.primeiroFilho(noFuncao); f >= 0; f = arvore.proximoIrmao(f)) {
+            if (arvore.tipoNo(f) == ArvoreSintatica.TipoNo.PARAMETRO) tipos[i++] = arvore.tipo(f);
+        }
+        return tipos;
+    }
+
+    // Dono de cada variável, variáveis usadas fora da função que as declara e assinaturas das funções.
+    private void analisarEscopos(int no, int funcao) {
+        int s = arvore.valor(no);
+        switch (arvore.tipoNo(no)) {
+            case FUNCAO:
+                if (s >= 0) assinaturas.put(s, parametros(arvore, no));
+                funcao = no;
+                break;
+            case PARAMETRO: case DECLARACAO:
+                if (s >= 0 && s < dono.length) dono[s] = funcao;
+                break;
+            case VARIAVEL: case ATRIBUICAO: case LEIA:
+                if (s >= 0 && s < dono.length && dono[s] != funcao) capturada[s] = true;
+                break;
+            default:
+                break;
+        }
+        for (int f = arvore.primeiroFilho(no); f >= 0; f = arvore.proximoIrmao(f)) analisarEscopos(f, funcao);
+    }
+
+    // Funções declaradas dentro dos comandos do nó (sem entrar nas próprias funções internas,
+    // que cuidam das suas).
+    private void internas(int no, ProgramaIR programa) {
+        for (int f = arvore.primeiroFilho(no); f >= 0; f = arvore.proximoIrmao(f)) {
+            switch (arvore.tipoNo(f)) {
+                case FUNCAO:
+                    programa.funcoes.add(new Construcao(f).funcao());
+                    internas(f, programa);
+                    break;
+                case BLOCO: case SE: case ENQUANTO: case PARA:
+                    internas(f, programa);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private String rotuloFuncao(int funcao) {
+        return "f_" + funcoes.nomeTexto(funcao);
+    }
+
+    // A variável fica em .bss: global, usada por uma função interna ou declarada em outra unidade.
+    private boolean estatica(int s) {
+        return s >= dono.length || capturada[s] || (dono[s] < 0 && simbolos.nivel(s) == 0);
+    }
+
+    // Rótulo .bss de uma variável estática.
+    private String rotuloEstatico(int s) {
+        String nome = simbolos.nomeTexto(s);
+        int nivel = simbolos.nivel(s);
+        if (s < dono.length && dono[s] >= 0) {
+            return rotuloFuncao(arvore.valor(dono[s])) + "." + nome + "_" + nivel;
+        }
+        return nivel == 0 ? "v_" + nome : "v_" + nome + "_" + nivel;
+    }
+
+    // Construção de um procedimento.
+    private final class Construcao {
+        private final int noFuncao;
+        private final FuncaoIR ir;
+        // Bloco em que as instruções estão sendo acrescentadas; null depois de um terminador
+        // (o código seguinte, inalcançável, ganha um bloco novo sem predecessores).
+        private BlocoIR atual;
+        // Valor atual de cada variável em cada bloco.
+        private final Map<BlocoIR, Map<Integer, ValorIR>> definicoes = new HashMap<>();
+        // PHIs criados em blocos ainda não selados, por variável.
+        private final Map<BlocoIR, Map<Integer, InstrucaoIR>> incompletos = new HashMap<>();
+        private final Set<BlocoIR> selados = new HashSet<>();
+
+        Construcao(int noFuncao) {
+            this.noFuncao = noFuncao;
+            if (noFuncao >= 0) {
+                int s = arvore.valor(noFuncao);
+                ir = new FuncaoIR(rotuloFuncao(s), s, arvore.tipo(noFuncao), parametros(arvore, noFuncao));
+            } else {
+                ir = new FuncaoIR(null, -1, null, new Tipo[0]);
+            }
+            BlocoIR entrada = ir.novoBloco();
+            ir.posicionar(entrada);
+            selar(entrada);
+            atual = entrada;
+        }
+
+        FuncaoIR funcao() {
+            int k = 0;
+            for (int f = arvore.primeiroFilho(noFuncao); f >= 0; f = arvore.proximoIrmao(f)) {
+                if (arvore.tipoNo(f) == ArvoreSintatica.TipoNo.PARAMETRO) {
+                    int s = arvore.valor(f);
+                    InstrucaoIR parametro = InstrucaoIR.de(InstrucaoIR.Op.PARAMETRO, ir.novoTemporario(simbolos.tipo(s)));
+                    parametro.indice = k++;
+                    emitir(parametro);
+                    if (estatica(s)) {
+                        // A função interna lê o parâmetro da cópia estática.
+                        ir.estaticas.add(rotuloEstatico(s));
+                        guardar(s, parametro.destino);
+                    } else {
+                        escrever(s, atual, parametro.destino);
+                    }
+                } else {
+                    comandos(f);
+                }
+            }
+            // Sem 'return', a função retorna o valor inicial do tipo.
+            if (atual != null) terminar(InstrucaoIR.de(InstrucaoIR.Op.RETORNO, null, ValorIR.zero(ir.retorno)));
+            return concluir();
+        }
+
+        // Comandos de primeiro até (sem incluir) ultimo, irmãos na árvore.
+        FuncaoIR trecho(int primeiro, int ultimo) {
+            for (int c = primeiro; c != ultimo; c = arvore.proximoIrmao(c)) comando(c);
+            if (atual != null) terminar(InstrucaoIR.de(InstrucaoIR.Op.RETORNO, null));
+            return concluir();
+        }
+
+        private FuncaoIR concluir() {
+            removerPhisTriviais();
+            ir.renumerar();
+            return ir;
+        }
+
+        /// Comandos
+
+        private void comandos(int bloco) {
+            for (int c = arvore.primeiroFilho(bloco); c >= 0; c = arvore.proximoIrmao(c)) comando(c);
+        }
+
+        private void comando(int no) {
+            int s = arvore.valor(no);
+            switch (arvore.tipoNo(no)) {
+                case DECLARACAO: {
+                    Tipo tipo = simbolos.tipo(s);
+                    int expressao = arvore.primeiroFilho(no);
+                    ValorIR v = expressao >= 0 ? converter(valor(expressao), tipo) : ValorIR.zero(tipo);
+                    if (estatica(s)) ir.estaticas.add(rotuloEstatico(s));
+                    gravar(s, v);
+                    break;
+                }
+                case ATRIBUICAO:
+                    gravar(s, converter(valor(arvore.primeiroFilho(no)), simbolos.tipo(s)));
+                    break;
+                case SE:
+                    se(arvore.filho(no, 0), arvore.filho(no, 1), arvore.filho(no, 2));
+                    break;
+                case ENQUANTO:
+                    laco(arvore.filho(no, 0), -1, arvore.filho(no, 1));
+                    break;
+                case PARA:
+                    comando(arvore.filho(no, 0));
+                    laco(arvore.filho(no, 1), arvore.filho(no, 2), arvore.filho(no, 3));
+                    break;
+                case ESCREVA: {
+                    List<ValorIR> partes = new ArrayList<>();
+                    partes(arvore.primeiroFilho(no), partes);
+                    emitir(InstrucaoIR.de(InstrucaoIR.Op.ESCREVA, null, partes));
+                    break;
+                }
+                case LEIA: {
+                    Tipo tipo = simbolos.tipo(s);
+                    ValorIR lido = ir.novoTemporario(tipo);
+                    // char e string não dependem do valor anterior (%c grava só um byte de um zero;
+                    // a string é sempre um buffer novo).
+                    if (tipo == Tipo.CHAR || tipo == Tipo.STRING) emitir(InstrucaoIR.de(InstrucaoIR.Op.LEIA, lido));
+                    else emitir(InstrucaoIR.de(InstrucaoIR.Op.LEIA, lido, variavel(s)));
+                    gravar(s, lido);
+                    break;
+                }
+                case RETORNO: {
+                    int expressao = arvore.primeiroFilho(no);
+                    ValorIR v = valor(expressao);
+                    if (noFuncao < 0) {
+                        // 'return' fora de função encerra o programa; o valor (se inteiro) é o código de saída.
+                        Tipo tipo = v.tipo;
+                        boolean inteiro = tipo == Tipo.INT || tipo == Tipo.BOOL || tipo == Tipo.CHAR;
+                        terminar(InstrucaoIR.de(InstrucaoIR.Op.ENCERRAR, null,
+                                inteiro ? v : ValorIR.constante(0, Tipo.INT)));
+                    } else {
+                        terminar(InstrucaoIR.de(InstrucaoIR.Op.RETORNO, null, converter(v, ir.retorno)));
+                    }
+                    break;
+                }
+                case EXPRESSAO:
+                    valor(arvore.primeiroFilho(no));
+                    break;
+                case BLOCO:
+                    comandos(no);
+                    break;
+                default:
+                    // FUNCAO: construída num procedimento próprio.
+                    break;
+            }
+        }
+
+        private void se(int condicao, int entao, int senao) {
+            ValorIR c = valor(condicao);
+            BlocoIR blocoEntao = ir.novoBloco(), blocoSenao = senao >= 0 ? ir.novoBloco() : null;
+            BlocoIR fim = ir.novoBloco();
+            terminar(InstrucaoIR.desvio(c, blocoEntao, blocoSenao != null ? blocoSenao : fim));
+            iniciar(blocoEntao);
+            comandos(entao);
+            if (atual != null) terminar(InstrucaoIR.salto(fim));
+            if (blocoSenao != null) {
+                iniciar(blocoSenao);
+                comandos(senao);
+                if (atual != null) terminar(InstrucaoIR.salto(fim));
+            }
+            // Se os dois caminhos terminam em return, o que vem depois é inalcançável.
+            if (!fim.predecessores.isEmpty()) iniciar(fim);
+        }
+
+        // while e for (atualizacao >= 0): o cabeçalho é construído antes do corpo, mas emitido depois.
+        private void laco(int condicao, int atualizacao, int corpo) {
+            BlocoIR cabecalho = ir.novoBloco(), blocoCorpo = ir.novoBloco(), saida = ir.novoBloco();
+            terminar(InstrucaoIR.salto(cabecalho));
+            // O cabeçalho só é selado depois do corpo, quando o salto de volta já existe.
+            atual = cabecalho;
+            ValorIR c = valor(condicao);
+            terminar(InstrucaoIR.desvio(c, blocoCorpo, saida));
+            iniciar(blocoCorpo);
+            comandos(corpo);
+            if (atualizacao >= 0) comando(atualizacao);
+            if (atual != null) terminar(InstrucaoIR.salto(cabecalho));
+            ir.posicionar(cabecalho);
+            selar(cabecalho);
+            iniciar(saida);
+        }
+
+        /// Expressões
+
+        private ValorIR valor(int no) {
+            switch (arvore.tipoNo(no)) {
+                case INTEIRO:
+                    return ValorIR.constante(arvore.valor(no), Tipo.INT);
+                case LOGICO:
+                    return ValorIR.constante(arvore.valor(no), Tipo.BOOL);
+                case REAL:
+                    return ValorIR.real(Float.parseFloat(arvore.literal(arvore.valor(no))));
+                case TEXTO:
+                    return ValorIR.texto(arvore.literal(arvore.valor(no)));
+                case VARIAVEL:
+                    return variavel(arvore.valor(no));
+                case CHAMADA:
+                    return chamar(no);
+                case UNARIO: {
+                    ValorIR v = valor(arvore.primeiroFilho(no));
+                    if (OPERADORES[arvore.valor(no)] != AnalisadorLexico.TokenType.MINUS) return v;
+                    return definir(InstrucaoIR.Op.NEGACAO, arvore.tipo(no), v);
+                }
+                default:
+                    return binario(no);
+            }
+        }
+
+        private ValorIR binario(int no) {
+            Tipo tipo = arvore.tipo(no);
+            if (tipo == Tipo.STRING) {
+                List<ValorIR> partes = new ArrayList<>();
+                partes(no, partes);
+                return definir(InstrucaoIR.Op.CONCATENACAO, tipo, partes.toArray(new ValorIR[0]));
+            }
+            AnalisadorLexico.TokenType op = OPERADORES[arvore.valor(no)];
+            int esquerda = arvore.filho(no, 0), direita = arvore.filho(no, 1);
+            Tipo comum = Tipo.operandos(op, arvore.tipo(esquerda), arvore.tipo(direita));
+            ValorIR a = converter(valor(esquerda), comum);
+            ValorIR b = converter(valor(direita), comum);
+            if (tipo == Tipo.BOOL) {
+                InstrucaoIR comparacao = InstrucaoIR.comparacao(op, ir.novoTemporario(Tipo.BOOL), a, b);
+                emitir(comparacao);
+                return comparacao.destino;
+            }
+            switch (op) {
+                case PLUS: return definir(InstrucaoIR.Op.SOMA, tipo, a, b);
+                case MINUS: return definir(InstrucaoIR.Op.SUBTRACAO, tipo, a, b);
+                case MULTIPLY: return definir(InstrucaoIR.Op.MULTIPLICACAO, tipo, a, b);
+                case DIVIDE: return definir(InstrucaoIR.Op.DIVISAO, tipo, a, b);
+                default: return definir(InstrucaoIR.Op.RESTO, tipo, a, b);
+            }
+        }
+
+        // Partes de uma concatenação ("a" + x + "b" -> "a", x, "b"); outras expressões são uma parte só.
+        private void partes(int no, List<ValorIR> partes) {
+            if (arvore.tipoNo(no) == ArvoreSintatica.TipoNo.BINARIO && arvore.tipo(no) == Tipo.STRING) {
+                partes(arvore.filho(no, 0), partes);
+                partes(arvore.filho(no, 1), partes);
+            } else {
+                partes.add(valor(no));
+            }
+        }
+
+        private ValorIR chamar(int no) {
+            int funcao = arvore.valor(no);
+            Tipo[] parametros = assinatura(funcao);
+            List<ValorIR> argumentos = new ArrayList<>();
+            int i = 0;
+            for (int a = arvore.primeiroFilho(no); a >= 0; a = arvore.proximoIrmao(a), i++) {
+                ValorIR v = valor(a);
+                argumentos.add(parametros != null && i < parametros.length ? converter(v, parametros[i]) : v);
+            }
+            InstrucaoIR chamada = InstrucaoIR.de(InstrucaoIR.Op.CHAMADA, ir.novoTemporario(funcoes.tipo(funcao)), argumentos);
+            chamada.funcao = funcao;
+            chamada.simbolo = rotuloFuncao(funcao);
+            emitir(chamada);
+            return chamada.destino;
+        }
+
+        // Converte int para float quando o destino é float; os demais valores não mudam.
+        private ValorIR converter(ValorIR v, Tipo para) {
+            if (para != Tipo.FLOAT || v.tipo == Tipo.FLOAT) return v;
+            if (v.ehConstante()) return ValorIR.real(v.inteiro);
+            return definir(InstrucaoIR.Op.CONVERSAO, Tipo.FLOAT, v);
+        }
+
+        /// Variáveis
+
+        private ValorIR variavel(int s) {
+            if (estatica(s)) {
+                InstrucaoIR carga = InstrucaoIR.de(InstrucaoIR.Op.CARREGAR, ir.novoTemporario(simbolos.tipo(s)));
+                carga.simbolo = rotuloEstatico(s);
+                emitir(carga);
+                return carga.destino;
+            }
+            garantirBloco();
+            return ler(s, atual);
+        }
+
+        private void gravar(int s, ValorIR v) {
+            if (estatica(s)) {
+                guardar(s, v);
+            } else {
+                garantirBloco();
+                escrever(s, atual, v);
+            }
+        }
+
+        private void guardar(int s, ValorIR v) {
+            InstrucaoIR guarda = InstrucaoIR.de(InstrucaoIR.Op.GUARDAR, null, v);
+            guarda.simbolo = rotuloEstatico(s);
+            emitir(guarda);
+        }
+
+        private void escrever(int s, BlocoIR bloco, ValorIR v) {
+            definicoes.computeIfAbsent(bloco, b -> new HashMap<>()).put(s, v);
+        }
+
+        private ValorIR ler(int s, BlocoIR bloco) {
+            Map<Integer, ValorIR> locais = definicoes.get(bloco);
+            ValorIR v = locais != null ? locais.get(s) : null;
+            return v != null ? v : lerRecursivo(s, bloco);
+        }
+
+        private ValorIR lerRecursivo(int s, BlocoIR bloco) {
+            Tipo tipo = simbolos.tipo(s);
+            ValorIR v;
+            if (!selados.contains(bloco)) {
+                InstrucaoIR phi = novoPhi(bloco, tipo);
+                incompletos.computeIfAbsent(bloco, b -> new HashMap<>()).put(s, phi);
+                v = phi.destino;
+            } else if (bloco.predecessores.size() == 1) {
+                v = ler(s, bloco.predecessores.get(0));
+            } else if (bloco.predecessores.isEmpty()) {
+                // Código inalcançável: a variável não tem valor.
+                v = ValorIR.zero(tipo);
+            } else {
+                InstrucaoIR phi = novoPhi(bloco, tipo);
+                // Registrado antes de ler os predecessores, para os ciclos pararem no próprio PHI.
+                escrever(s, bloco, phi.destino);
+                completar(s, phi, bloco);
+                v = phi.destino;
+            }
+            escrever(s, bloco, v);
+            return v;
+        }
+
+        private InstrucaoIR novoPhi(BlocoIR bloco, Tipo tipo) {
+            InstrucaoIR phi = InstrucaoIR.de(InstrucaoIR.Op.PHI, ir.novoTemporario(tipo));
+            bloco.instrucoes.add(bloco.quantidadePhis(), phi);
+            return phi;
+        }
+
+        private void completar(int s, InstrucaoIR phi, BlocoIR bloco) {
+            for (BlocoIR p : bloco.predecessores) phi.argumentos.add(ler(s, p));
+        }
+
+        private void selar(BlocoIR bloco) {
+            Map<Integer, InstrucaoIR> pendentes;
+            while ((pendentes = incompletos.remove(bloco)) != null) {
+                for (Map.Entry<Integer, InstrucaoIR> e : pendentes.entrySet()) completar(e.getKey(), e.getValue(), bloco);
+            }
+            selados.add(bloco);
+        }
+
+        // Troca cada PHI cujos argumentos são um único valor (além do próprio PHI) por esse valor,
+        // até não restar nenhum.
+        private void removerPhisTriviais() {
+            Map<Integer, ValorIR> trocas = new HashMap<>();
+            do {
+                trocas.clear();
+                for (BlocoIR b : ir.blocos) {
+                    for (Iterator<InstrucaoIR> it = b.instrucoes.iterator(); it.hasNext(); ) {
+                        InstrucaoIR phi = it.next();
+                        if (phi.op != InstrucaoIR.Op.PHI) break;
+                        ValorIR unico = null;
+                        boolean trivial = true;
+                        for (ValorIR a : phi.argumentos) {
+                            if (a.equals(phi.destino) || a.equals(unico)) continue;
+                            if (unico != null) {
+                                trivial = false;
+                                break;
+                            }
+                            unico = a;
+                        }
+                        if (trivial) {
+                            trocas.put(phi.destino.temporario, unico != null ? unico : ValorIR.zero(phi.destino.tipo));
+                            it.remove();
+                        }
+                    }
+                }
+                ir.substituir(trocas);
+            } while (!trocas.isEmpty());
+        }
+
+        /// Blocos e instruções
+
+        private ValorIR definir(InstrucaoIR.Op op, Tipo tipo, ValorIR... argumentos) {
+            InstrucaoIR ins = InstrucaoIR.de(op, ir.novoTemporario(tipo), argumentos);
+            emitir(ins);
+            return ins.destino;
+        }
+
+        private void emitir(InstrucaoIR ins) {
+            garantirBloco();
+            atual.instrucoes.add(ins);
+        }
+
+        // Acrescenta o terminador ao bloco atual e liga o bloco aos alvos.
+        private void terminar(InstrucaoIR terminador) {
+            emitir(terminador);
+            if (terminador.alvos != null) {
+                for (BlocoIR alvo : terminador.alvos) alvo.predecessores.add(atual);
+            }
+            atual = null;
+        }
+
+        // Passa a construir o bloco, cujos predecessores já são todos conhecidos.
+        private void iniciar(BlocoIR bloco) {
+            ir.posicionar(bloco);
+            selar(bloco);
+            atual = bloco;
+        }
+
+        private void garantirBloco() {
+            if (atual == null) iniciar(ir.novoBloco());
+        }
+    }
+}
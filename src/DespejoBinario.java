@@ -0,0 +1,206 @@
+/*DespejoBinario - Gravação dos tokens e da AST num formato binário compacto
+Usado por --dump-tokens e --dump-ast no lugar de imprimir cada token/nó como texto; o conteúdo
+é exibido depois pelo VisualizadorDespejo. Os arquivos são independentes do código-fonte.
+
+Formato (inteiros sem sinal em varint de 7 bits; textos = tamanho + bytes UTF-8):
+- cabeçalho: MAGICO (4 bytes), FORMATO (1 byte), TOKENS ou ARVORE (1 byte).
+- tokens: quantidade de nomes, nomes (TabelaNomes, na ordem dos ids); quantidade de tokens e,
+  para cada um: tipo (1 byte), avanço de linha, coluna (relativa à do token anterior se estiver
+  na mesma linha) e, conforme o tipo, o id do nome (IDENTIFIER), o texto (literais) ou nada
+  (operadores e palavras reservadas, cujo lexema é fixo).
+- árvore: literais, nomes das variáveis e nomes das funções (por símbolo); quantidade de nós e
+  os nós em pré-ordem: tipo do nó (1 byte), tipo resolvido (1 byte), valor (zigzag), índice do
+  token e quantidade de filhos.
+ */
+// DespejoBinario.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public final class DespejoBinario {
+    static final int MAGICO = 0x4D434450; // "MCDP"
+    static final byte FORMATO = 1;
+    static final byte TOKENS = 'T';
+    static final byte ARVORE = 'A';
+    // Extensões dos arquivos gravados ao lado do programa.
+    static final String EXTENSAO_TOKENS = ".tok";
+    static final String EXTENSAO_ARVORE = ".ast";
+
+    private DespejoBinario() {
+    }
+
+    /** Grava os tokens do buffer no arquivo. */
+    public static void gravarTokens(BufferTokens tokens, Path arquivo) throws IOException {
+        try (Escrita out = new Escrita(arquivo, TOKENS)) {
+            TabelaNomes nomes = tokens.nomes();
+            out.varint(nomes.tamanho());
+            for (int id = 0; id < nomes.tamanho(); id++) out.texto(nomes.nome(id));
+            int n = tokens.tamanho();
+            out.varint(n);
+            // Linha e coluna calculadas avançando pelo código-fonte, sem a busca de BufferTokens.linha().
+            char[] fonte = tokens.fonte();
+            int posicao = 0, linha = 1, inicioLinha = 0;
+            int linhaAnterior = 1, colunaAnterior = 1;
+            for (int i = 0; i < n; i++) {
+                AnalisadorLexico.TokenType tipo = tokens.tipo(i);
+                int inicio = tokens.inicio(i);
+                for (; posicao < inicio; posicao++) {
+                    if (fonte[posicao] == '\n') {
+                        linha++;
+                        inicioLinha = posicao + 1;
+                    }
+                }
+                int coluna = inicio - inicioLinha + 1;
+                out.escreverByte(tipo.ordinal());
+                out.varint(linha - linhaAnterior);
+                out.varint(linha == linhaAnterior ? coluna - colunaAnterior : coluna);
+                if (tokens.idNome(i) >= 0) out.varint(tokens.idNome(i));
+                else if (AnalisadorLexicoDFA.lexemaFixo(tipo) == null) out.texto(tokens.lexema(i));
+                linhaAnterior = linha;
+                colunaAnterior = coluna;
+            }
+        }
+    }
+
+    /** Grava a AST com os nomes dos símbolos e os literais a que os nós se referem. */
+    public static void gravarArvore(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                                    Path arquivo) throws IOException {
+        try (Escrita out = new Escrita(arquivo, ARVORE)) {
+            out.varint(arvore.quantidadeLiterais());
+            for (int i = 0; i < arvore.quantidadeLiterais(); i++) out.texto(arvore.literal(i));
+            out.varint(simbolos.quantidade());
+            for (int s = 0; s < simbolos.quantidade(); s++) out.texto(simbolos.nomeTexto(s));
+            out.varint(funcoes.quantidade());
+            for (int s = 0; s < funcoes.quantidade(); s++) out.texto(funcoes.nomeTexto(s));
+            out.varint(arvore.tamanho());
+            // Pré-ordem com pilha explícita: programas grandes têm listas de comandos longas.
+            int[] pilha = new int[64];
+            int topo = 0;
+            if (arvore.tamanho() > 0) pilha[topo++] = 0;
+            while (topo > 0) {
+                int no = pilha[--topo];
+                out.escreverByte(arvore.tipoNo(no).ordinal());
+                out.escreverByte(arvore.tipo(no).ordinal());
+                int valor = arvore.valor(no);
+                out.varint((valor << 1) ^ (valor >> 31));
+                out.varint(arvore.token(no));
+                int filhos = arvore.quantidadeFilhos(no);
+                out.varint(filhos);
+                if (topo + filhos > pilha.length) pilha = Arrays.copyOf(pilha, Math.max(pilha.length * 2, topo + filhos));
+                // Empilhados do último para o primeiro, para saírem na ordem.
+                int f = arvore.primeiroFilho(no);
+                for (int k = topo + filhos - 1; k >= topo; k--) {
+                    pilha[k] = f;
+                    f = arvore.proximoIrmao(f);
+                }
+                topo += filhos;
+            }
+        }
+    }
+
+    // Escrita com buffer próprio: evita uma chamada sincronizada de stream por byte.
+    private static final class Escrita implements Closeable {
+        private final OutputStream destino;
+        private final byte[] buffer = new byte[1 << 16];
+        private int usado = 0;
+
+        Escrita(Path arquivo, byte conteudo) throws IOException {
+            destino = Files.newOutputStream(arquivo);
+            escreverByte(MAGICO >>> 24);
+            escreverByte(MAGICO >>> 16);
+            escreverByte(MAGICO >>> 8);
+            escreverByte(MAGICO);
+            escreverByte(FORMATO);
+            escreverByte(conteudo);
+        }
+
+        void escreverByte(int b) throws IOException {
+            if (usado == buffer.length) descarregar();
+            buffer[usado++] = (byte) b;
+        }
+
+        void varint(int valor) throws IOException {
+            if (usado + 5 > buffer.length) descarregar();
+            while ((valor & ~0x7F) != 0) {
+                buffer[usado++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            buffer[usado++] = (byte) valor;
+        }
+
+        void texto(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            if (usado + bytes.length > buffer.length) descarregar();
+            if (bytes.length > buffer.length) {
+                destino.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, usado, bytes.length);
+                usado += bytes.length;
+            }
+        }
+
+        private void descarregar() throws IOException {
+            destino.write(buffer, 0, usado);
+            usado = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                descarregar();
+            } finally {
+                destino.close();
+            }
+        }
+    }
+
+    /** Leitura sequencial de um arquivo de despejo. */
+    static final class Leitor {
+        private final ByteBuffer dados;
+        final byte conteudo;
+
+        Leitor(Path arquivo) throws IOException {
+            dados = ByteBuffer.wrap(Files.readAllBytes(arquivo));
+            if (dados.remaining() < 6 || dados.getInt() != MAGICO) {
+                throw new IOException(arquivo + " não é um arquivo de despejo do compilador.");
+            }
+            byte formato = dados.get();
+            if (formato != FORMATO) throw new IOException(arquivo + ": formato " + formato + " não suportado.");
+            conteudo = dados.get();
+        }
+
+        int byteSemSinal() {
+            return dados.get() & 0xFF;
+        }
+
+        int varint() {
+            int valor = 0;
+            for (int deslocamento = 0; ; deslocamento += 7) {
+                int b = dados.get();
+                valor |= (b & 0x7F) << deslocamento;
+                if (b >= 0) return valor;
+            }
+        }
+
+        int zigzag() {
+            int v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String texto() {
+            int tamanho = varint();
+            String s = new String(dados.array(), dados.position(), tamanho, StandardCharsets.UTF_8);
+            dados.position(dados.position() + tamanho);
+            return s;
+        }
+
+        String[] textos() {
+            String[] t = new String[varint()];
+            for (int i = 0; i < t.length; i++) t[i] = texto();
+            return t;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*Diagnostics - Coletor de erros e avisos das fases de análise
+Cada diagnóstico é guardado em vetores paralelos (código, severidade, fase, posição, linha,
+coluna, comprimento e o token atual), sem montar texto durante a análise. As mensagens só são
+formatadas em renderizar(), ao final da compilação, a partir do modelo de cada Codigo.
+Depois de maximoErros erros, os diagnósticos seguintes são apenas contados (suprimidos) e
+limiteAtingido() passa a indicar que a análise pode ser interrompida.
+ */
+// Diagnostics.java
+import java.util.*;
+
+public final class Diagnostics {
+    public enum Severidade { ERRO, AVISO }
+
+    public enum Fase {
+        LEXICA("léxico", "léxicos"), SINTATICA("sintático", "sintáticos"), SEMANTICA("semântico", "semânticos");
+
+        public final String adjetivo;
+        public final String plural;
+
+        Fase(String adjetivo, String plural) {
+            this.adjetivo = adjetivo;
+            this.plural = plural;
+        }
+    }
+
+    // Códigos de diagnóstico, com a fase e o modelo da mensagem (argumentos em %s).
+    public enum Codigo {
+        // Léxicos
+        TOKEN_DESCONHECIDO(Fase.LEXICA, "Token desconhecido \"%s\"."),
+        // Sintáticos
+        COMANDO_INESPERADO(Fase.SINTATICA, "Comando inesperado."),
+        TERMO_INESPERADO(Fase.SINTATICA, "Termo inesperado."),
+        FECHA_CHAMADA(Fase.SINTATICA, "Esperado ')' para fechar chamada de função."),
+        FECHA_EXPRESSAO(Fase.SINTATICA, "Esperado ')' para fechar expressão."),
+        IDENTIFICADOR_ATRIBUICAO(Fase.SINTATICA, "Esperado identificador para atribuição."),
+        IGUAL_ATRIBUICAO(Fase.SINTATICA, "Esperado '=' na atribuição."),
+        PONTO_VIRGULA_ATRIBUICAO(Fase.SINTATICA, "Esperado ';' no fim da atribuição."),
+        NOME_VARIAVEL(Fase.SINTATICA, "Esperado o nome da variável na declaração."),
+        DOIS_PONTOS_DECLARACAO(Fase.SINTATICA, "Esperado ':' na declaração da variável."),
+        TIPO_DECLARACAO(Fase.SINTATICA, "Tipo inválido na declaração da variável."),
+        PONTO_VIRGULA_DECLARACAO(Fase.SINTATICA, "Esperado ';' no fim da declaração de variável."),
+        ABRE_PARENTESE_APOS(Fase.SINTATICA, "Esperado '(' após %s."),
+        IDENTIFICADOR_INPUT(Fase.SINTATICA, "Esperado identificador em input."),
+        FECHA_PARENTESE(Fase.SINTATICA, "Esperado ')' para fechar %s."),
+        PONTO_VIRGULA_APOS(Fase.SINTATICA, "Esperado ';' após %s."),
+        FECHA_CONDICAO(Fase.SINTATICA, "Esperado ')' após a condição do %s."),
+        PONTO_VIRGULA_INICIALIZACAO_FOR(Fase.SINTATICA, "Esperado ';' após a inicialização no 'for'."),
+        PONTO_VIRGULA_CONDICAO_FOR(Fase.SINTATICA, "Esperado ';' após a condição no 'for'."),
+        FECHA_ATUALIZACAO_FOR(Fase.SINTATICA, "Esperado ')' após a atualização no 'for'."),
+        ABRE_BLOCO(Fase.SINTATICA, "Esperado '{' para iniciar bloco de %s."),
+        FECHA_BLOCO(Fase.SINTATICA, "Esperado '}' para fechar bloco de %s."),
+        NOME_FUNCAO(Fase.SINTATICA, "Esperado nome da função após 'func'."),
+        DOIS_PONTOS_FUNCAO(Fase.SINTATICA, "Esperado ':' após os parâmetros da função."),
+        TIPO_RETORNO(Fase.SINTATICA, "Esperado tipo de retorno da função."),
+        ABRE_PARAMETROS(Fase.SINTATICA, "Esperado '(' para iniciar os parâmetros da função."),
+        DOIS_PONTOS_PARAMETRO(Fase.SINTATICA, "Esperado ':' após o parâmetro."),
+        TIPO_PARAMETRO(Fase.SINTATICA, "Esperado tipo do parâmetro."),
+        FECHA_PARAMETROS(Fase.SINTATICA, "Esperado ')' para finalizar os parâmetros da função."),
+        // Semânticos
+        OPERADOR_INCOMPATIVEL(Fase.SEMANTICA, "%s aplicado a tipos incompatíveis: %s e %s"),
+        UNARIO_INCOMPATIVEL(Fase.SEMANTICA, "Operador unário '%s' aplicado a tipo incompatível: %s"),
+        FUNCAO_NAO_DECLARADA(Fase.SEMANTICA, "Função '%s' não declarada."),
+        QUANTIDADE_ARGUMENTOS(Fase.SEMANTICA, "Função '%s' espera %s argumento(s), mas recebeu %s."),
+        ARGUMENTO_INCOMPATIVEL(Fase.SEMANTICA, "Incompatibilidade de tipos no argumento %s de '%s'. Parâmetro: %s, argumento: %s"),
+        VARIAVEL_NAO_DECLARADA(Fase.SEMANTICA, "Variável '%s' não declarada."),
+        VARIAVEL_NAO_DECLARADA_ATRIBUICAO(Fase.SEMANTICA, "Variável '%s' não declarada antes da atribuição."),
+        VARIAVEL_NAO_DECLARADA_INPUT(Fase.SEMANTICA, "Variável '%s' não declarada para input."),
+        INTEIRO_FORA_INTERVALO(Fase.SEMANTICA, "Número inteiro fora do intervalo: %s"),
+        ATRIBUICAO_INCOMPATIVEL(Fase.SEMANTICA, "Incompatibilidade de tipos na atribuição de '%s'. Declarado: %s, atribuído: %s"),
+        DECLARACAO_INCOMPATIVEL(Fase.SEMANTICA, "Incompatibilidade de tipos na declaração de '%s'. Declarado: %s, atribuído: %s"),
+        VARIAVEL_JA_DECLARADA(Fase.SEMANTICA, "Variável '%s' já declarada."),
+        PARAMETRO_JA_DECLARADO(Fase.SEMANTICA, "Parâmetro '%s' já declarado."),
+        FUNCAO_JA_DECLARADA(Fase.SEMANTICA, "Função '%s' já declarada."),
+        CONDICAO_NAO_BOOL(Fase.SEMANTICA, "Condição do '%s' deve ser do tipo bool, mas obteve: %s"),
+        RETORNO_INCOMPATIVEL(Fase.SEMANTICA, "Retorno incompatível. Função espera: %s, mas obteve: %s");
+
+        public final Fase fase;
+        public final Severidade severidade;
+        public final String modelo;
+
+        Codigo(Fase fase, String modelo) {
+            this(fase, Severidade.ERRO, modelo);
+        }
+
+        Codigo(Fase fase, Severidade severidade, String modelo) {
+            this.fase = fase;
+            this.severidade = severidade;
+            this.modelo = modelo;
+        }
+    }
+
+    /** Limite de erros usado quando nenhum é informado. */
+    public static final int MAXIMO_PADRAO = 100;
+
+    // Valores especiais de tipoToken: sem token associado e fim da entrada.
+    private static final byte SEM_TOKEN = -2;
+    private static final byte FIM_DA_ENTRADA = -1;
+
+    private static final Codigo[] CODIGOS = Codigo.values();
+    private static final Fase[] FASES = Fase.values();
+    private static final Severidade[] SEVERIDADES = Severidade.values();
+    private static final AnalisadorLexico.TokenType[] TIPOS_TOKEN = AnalisadorLexico.TokenType.values();
+
+    private final int maximoErros;
+
+    private short[] codigo = new short[16];
+    private byte[] severidade = new byte[16];
+    private byte[] fase = new byte[16];
+    // Índice do token (fases sintática e semântica) ou do caractere (fase léxica).
+    private long[] posicao = new long[16];
+    private int[] linha = new int[16];
+    private int[] coluna = new int[16];
+    private int[] comprimento = new int[16];
+    private byte[] tipoToken = new byte[16];
+    private String[] lexemaToken = new String[16];
+    private String[][] argumentos = new String[16][];
+    private int quantidade = 0;
+
+    private final int[] errosPorFase = new int[FASES.length];
+    private int erros = 0;
+    private int suprimidos = 0;
+
+    public Diagnostics() {
+        this(MAXIMO_PADRAO);
+    }
+
+    public Diagnostics(int maximoErros) {
+        if (maximoErros < 1) throw new IllegalArgumentException("Limite de erros deve ser positivo: " + maximoErros);
+        this.maximoErros = maximoErros;
+    }
+
+    /**
+     * Registra um diagnóstico e retorna seu índice, ou -1 se o limite de erros já foi atingido.
+     * Linha e coluna são 1-based; -1 quando desconhecidas.
+     */
+    public int reportar(Codigo c, long pos, int lin, int col, int comp, String... args) {
+        if (erros >= maximoErros) {
+            suprimidos++;
+            return -1;
+        }
+        if (quantidade == codigo.length) crescer();
+        int d = quantidade++;
+        codigo[d] = (short) c.ordinal();
+        severidade[d] = (byte) c.severidade.ordinal();
+        fase[d] = (byte) c.fase.ordinal();
+        posicao[d] = pos;
+        linha[d] = lin;
+        coluna[d] = col;
+        comprimento[d] = comp;
+        tipoToken[d] = SEM_TOKEN;
+        lexemaToken[d] = null;
+        argumentos[d] = args;
+        if (c.severidade == Severidade.ERRO) {
+            erros++;
+            errosPorFase[c.fase.ordinal()]++;
+        }
+        return d;
+    }
+
+    /**
+     * Copia o diagnóstico d de outro coletor, produzido ao analisar um trecho do programa
+     * isoladamente: a posição é deslocada e a linha/coluna convertidas para o programa inteiro,
+     * sabendo que o trecho começa na linha e coluna indicadas. Retorna o novo índice (ou -1).
+     */
+    public int copiar(Diagnostics origem, int d, long deslocamento, int linhaInicial, int colunaInicial) {
+        int lin = origem.linha[d], col = origem.coluna[d];
+        if (lin >= 0) {
+            if (lin == 1) col += colunaInicial - 1;
+            lin += linhaInicial - 1;
+        }
+        int novo = reportar(origem.codigo(d), origem.posicao[d] + deslocamento, lin, col,
+                origem.comprimento[d], origem.argumentos[d]);
+        if (novo >= 0) {
+            tipoToken[novo] = origem.tipoToken[d];
+            lexemaToken[novo] = origem.lexemaToken[d];
+        }
+        return novo;
+    }
+
+    /** Indica se o diagnóstico d ocorreu no fim da entrada (token atual: EOF). */
+    public boolean noFimDaEntrada(int d) {
+        return tipoToken[d] == FIM_DA_ENTRADA;
+    }
+
+    /** Associa ao diagnóstico d o token em que ele ocorreu (tipo null = fim da entrada). */
+    public void anexarToken(int d, AnalisadorLexico.TokenType tipo, String lexema) {
+        if (d < 0) return;
+        tipoToken[d] = tipo == null ? FIM_DA_ENTRADA : (byte) tipo.ordinal();
+        lexemaToken[d] = lexema;
+    }
+
+    private void crescer() {
+        int nova = quantidade * 2;
+        codigo = Arrays.copyOf(codigo, nova);
+        severidade = Arrays.copyOf(severidade, nova);
+        fase = Arrays.copyOf(fase, nova);
+        posicao = Arrays.copyOf(posicao, nova);
+        linha = Arrays.copyOf(linha, nova);
+        coluna = Arrays.copyOf(coluna, nova);
+        comprimento = Arrays.copyOf(comprimento, nova);
+        tipoToken = Arrays.copyOf(tipoToken, nova);
+        lexemaToken = Arrays.copyOf(lexemaToken, nova);
+        argumentos = Arrays.copyOf(argumentos, nova);
+    }
+
+    /** Indica que o limite de erros foi atingido e a análise pode parar. */
+    public boolean limiteAtingido() {
+        return erros >= maximoErros;
+    }
+
+    public int maximoErros() {
+        return maximoErros;
+    }
+
+    /** Quantidade de diagnósticos guardados (não inclui os suprimidos). */
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public int erros() {
+        return erros;
+    }
+
+    public int erros(Fase f) {
+        return errosPorFase[f.ordinal()];
+    }
+
+    public boolean temErros() {
+        return erros > 0;
+    }
+
+    /** Diagnósticos descartados depois de atingido o limite. */
+    public int suprimidos() {
+        return suprimidos;
+    }
+
+    public Codigo codigo(int d) {
+        return CODIGOS[codigo[d]];
+    }
+
+    public Severidade severidade(int d) {
+        return SEVERIDADES[severidade[d]];
+    }
+
+    public Fase fase(int d) {
+        return FASES[fase[d]];
+    }
+
+    public long posicao(int d) {
+        return posicao[d];
+    }
+
+    public int linha(int d) {
+        return linha[d];
+    }
+
+    public int coluna(int d) {
+        return coluna[d];
+    }
+
+    public int comprimento(int d) {
+        return comprimento[d];
+    }
+
+    /** Mensagem do diagnóstico d, formatada a partir do modelo do código. */
+    public String mensagem(int d) {
+        Codigo c = CODIGOS[codigo[d]];
+        String[] args = argumentos[d];
+        return args.length == 0 ? c.modelo : String.format(c.modelo, (Object[]) args);
+    }
+
+    /** Acrescenta a sb a linha de texto do diagnóstico d. */
+    public void renderizar(int d, StringBuilder sb) {
+        sb.append(severidade[d] == Severidade.ERRO.ordinal() ? "Erro " : "Aviso ")
+                .append(FASES[fase[d]].adjetivo)
+                .append(" encontrado na posição ").append(posicao[d]);
+        if (linha[d] >= 0) {
+            sb.append(" (linha ").append(linha[d]).append(", coluna ").append(coluna[d]).append(')');
+        }
+        sb.append(": ").append(mensagem(d));
+        if (tipoToken[d] == FIM_DA_ENTRADA) {
+            sb.append(" – Token atual: EOF");
+        } else if (tipoToken[d] != SEM_TOKEN) {
+            sb.append(" – Token atual: Token(").append(TIPOS_TOKEN[tipoToken[d]])
+                    .append(", \"").append(lexemaToken[d]).append("\")");
+        }
+    }
+
+    /** Texto de todos os diagnósticos, um por linha, na ordem em que foram reportados. */
+    public String renderizar() {
+        StringBuilder sb = new StringBuilder();
+        for (int d = 0; d < quantidade; d++) {
+            if (d > 0) sb.append('\n');
+            renderizar(d, sb);
+        }
+        if (limiteAtingido()) {
+            sb.append("\nLimite de ").append(maximoErros).append(" erros atingido; a análise foi interrompida.");
+        }
+        return sb.toString();
+    }
+}
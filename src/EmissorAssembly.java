@@ -0,0 +1,212 @@
+/*EmissorAssembly - Escrita do assembly gerado, linha a linha, direto no destino
+O GeradorCodigo não monta mais o programa inteiro numa String: cada linha passa por um buffer
+de caracteres de tamanho fixo que é descarregado no destino quando enche (um Writer, um canal
+como o FileChannel do .asm ou, para quem precisa do texto, um StringBuilder). Assim a memória
+usada na geração não depende do tamanho do assembly.
+Para canais, os caracteres são codificados em UTF-8 num ByteBuffer direto reaproveitado por
+thread, sem cópia intermediária em byte[].
+O emissor também conta as instruções emitidas (linhas indentadas que não são só comentário),
+usadas no PerfilCompilacao.
+Erros de E/S do destino são relançados como UncheckedIOException.
+ */
+// EmissorAssembly.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+public abstract class EmissorAssembly implements Closeable {
+    private static final int TAMANHO_BUFFER = 8192;
+    private static final String INDENTACAO = "    ";
+
+    private final char[] buffer = new char[TAMANHO_BUFFER];
+    private int usado = 0;
+    private long caracteres = 0;
+    private int instrucoes = 0;
+
+    /** Emissor que escreve no Writer (não fecha o Writer). */
+    public static EmissorAssembly para(Writer destino) {
+        return new EmissorAssembly() {
+            @Override
+            protected void escrever(char[] c, int n) throws IOException {
+                destino.write(c, 0, n);
+            }
+
+            @Override
+            protected void concluir() throws IOException {
+                destino.flush();
+            }
+        };
+    }
+
+    /** Emissor que escreve em UTF-8 no canal (não fecha o canal). */
+    public static EmissorAssembly para(WritableByteChannel destino) {
+        return new EmissorCanal(destino);
+    }
+
+    /** Emissor que acumula o texto no StringBuilder. */
+    public static EmissorAssembly para(StringBuilder destino) {
+        return new EmissorAssembly() {
+            @Override
+            protected void escrever(char[] c, int n) {
+                destino.append(c, 0, n);
+            }
+        };
+    }
+
+    /** Grava c[0 .. n) no destino. */
+    protected abstract void escrever(char[] c, int n) throws IOException;
+
+    /** Chamado depois da última escrita, em close(). */
+    protected void concluir() throws IOException {
+    }
+
+    /** "section .nome" */
+    public EmissorAssembly secao(String nome) {
+        return acrescentar("section .").acrescentar(nome).fimDeLinha();
+    }
+
+    /** "nome:" */
+    public EmissorAssembly rotulo(String nome) {
+        return acrescentar(nome).acrescentar(":").fimDeLinha();
+    }
+
+    /** Instrução indentada, ex.: instrucao("mov eax, 0"). */
+    public EmissorAssembly instrucao(String texto) {
+        instrucoes++;
+        return acrescentar(INDENTACAO).acrescentar(texto).fimDeLinha();
+    }
+
+    /** Comentário indentado: "    ; texto". */
+    public EmissorAssembly comentario(String texto) {
+        return acrescentar(INDENTACAO).acrescentar("; ").acrescentar(texto).fimDeLinha();
+    }
+
+    /** Linha sem indentação (diretivas, definições de .data e .bss). */
+    public EmissorAssembly linha(String texto) {
+        return acrescentar(texto).fimDeLinha();
+    }
+
+    public EmissorAssembly linhaEmBranco() {
+        return fimDeLinha();
+    }
+
+    /** Acrescenta código já gerado (ex.: uma função guardada pela compilação incremental). */
+    public EmissorAssembly incorporar(String codigo) {
+        instrucoes += contarInstrucoes(codigo);
+        return acrescentar(codigo);
+    }
+
+    /** Acrescenta texto sem quebra de linha; combinado com fimDeLinha() para montar uma linha em partes. */
+    public EmissorAssembly acrescentar(String texto) {
+        int n = texto.length();
+        for (int i = 0; i < n; ) {
+            if (usado == buffer.length) descarregar(false);
+            int parte = Math.min(n - i, buffer.length - usado);
+            texto.getChars(i, i + parte, buffer, usado);
+            usado += parte;
+            i += parte;
+        }
+        caracteres += n;
+        return this;
+    }
+
+    public EmissorAssembly fimDeLinha() {
+        if (usado == buffer.length) descarregar(false);
+        buffer[usado++] = '\n';
+        caracteres++;
+        return this;
+    }
+
+    /** Instruções emitidas até agora. */
+    public int instrucoes() {
+        return instrucoes;
+    }
+
+    /** Caracteres emitidos até agora. */
+    public long caracteres() {
+        return caracteres;
+    }
+
+    /** Descarrega o que resta no buffer; o destino não é fechado. */
+    @Override
+    public void close() {
+        descarregar(true);
+        try {
+            concluir();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Um par surrogate nunca é dividido entre duas descargas (exceto no fim).
+    private void descarregar(boolean fim) {
+        int n = usado;
+        if (!fim && n > 0 && Character.isHighSurrogate(buffer[n - 1])) n--;
+        try {
+            if (n > 0) escrever(buffer, n);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (n < usado) buffer[0] = buffer[n];
+        usado -= n;
+    }
+
+    // Linhas indentadas que não são só comentário.
+    private static int contarInstrucoes(String asm) {
+        int instrucoes = 0;
+        int i = 0, n = asm.length();
+        while (i < n) {
+            int fim = asm.indexOf('\n', i);
+            if (fim < 0) fim = n;
+            if (asm.charAt(i) == ' ' || asm.charAt(i) == '\t') {
+                int j = i;
+                while (j < fim && (asm.charAt(j) == ' ' || asm.charAt(j) == '\t')) j++;
+                if (j < fim && asm.charAt(j) != ';') instrucoes++;
+            }
+            i = fim + 1;
+        }
+        return instrucoes;
+    }
+
+    private static final class EmissorCanal extends EmissorAssembly {
+        // Buffer direto e codificador reaproveitados por todas as compilações da thread.
+        private static final ThreadLocal<ByteBuffer> DIRETO =
+                ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(TAMANHO_BUFFER * 3));
+        private static final ThreadLocal<CharsetEncoder> CODIFICADOR =
+                ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+        private final WritableByteChannel destino;
+
+        EmissorCanal(WritableByteChannel destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        protected void escrever(char[] c, int n) throws IOException {
+            ByteBuffer bytes = DIRETO.get();
+            CharsetEncoder codificador = CODIFICADOR.get().reset();
+            CharBuffer entrada = CharBuffer.wrap(c, 0, n);
+            bytes.clear();
+            CoderResult r;
+            do {
+                r = codificador.encode(entrada, bytes, true);
+                if (r.isError()) r.throwException();
+                gravar(bytes);
+            } while (r.isOverflow());
+            do {
+                r = codificador.flush(bytes);
+                gravar(bytes);
+            } while (r.isOverflow());
+        }
+
+        private void gravar(ByteBuffer bytes) throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) destino.write(bytes);
+            bytes.clear();
+        }
+    }
+}
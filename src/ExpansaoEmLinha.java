@@ -0,0 +1,169 @@
+/*ExpansaoEmLinha - Expansão das chamadas a funções pequenas
+Uma chamada a uma função pequena e não recursiva (segundo o GrafoChamadas) é trocada pelo corpo
+dela: os blocos da cópia da função (ProgramaIR.copias) entram no lugar da chamada, com
+temporários novos e os parâmetros trocados pelos argumentos; cada RETORNO vira um salto para o
+resto do bloco da chamada, onde um PHI (ou uma cópia, se há um só retorno) recebe o resultado.
+O tamanho de uma função é o número de instruções da cópia (sem os PARAMETRO), contando no lugar
+de cada chamada a uma função expansível o tamanho dela; só são expandidas as de até
+MAXIMO_INSTRUCOES. Assim uma função que só chama funções pequenas também pode ser expandida, e
+as chamadas que vêm com o corpo são expandidas em seguida. Funções com variáveis estáticas
+próprias (locais usadas por funções internas) ficam, porque as variáveis saem com a função.
+Para cada função chamada, a decisão vai para ProgramaIR.expansoes. As chamadas a funções puras
+com argumentos constantes já foram avaliadas (FuncoesPuras roda antes deste passo); a propagação
+de constantes que roda depois aproveita os argumentos constantes das chamadas expandidas.
+ */
+// ExpansaoEmLinha.java
+import java.util.*;
+
+public final class ExpansaoEmLinha implements PassoIR {
+    private static final int MAXIMO_INSTRUCOES = 16;
+
+    @Override
+    public String nome() {
+        return "expansão em linha";
+    }
+
+    @Override
+    public boolean executar(ProgramaIR programa) {
+        GrafoChamadas grafo = new GrafoChamadas(programa);
+        Map<String, Integer> tamanhos = tamanhos(grafo);
+        // Chamadas expandidas de cada função chamada, na ordem em que aparecem.
+        Map<String, Integer> expandidas = new LinkedHashMap<>();
+        boolean mudou = false;
+        for (FuncaoIR f : programa.funcoes) mudou |= expandir(f, grafo, tamanhos, expandidas);
+        for (Map.Entry<String, Integer> e : expandidas.entrySet()) {
+            programa.expansoes.add(decisao(e.getKey(), e.getValue(), grafo, tamanhos));
+        }
+        return mudou;
+    }
+
+    // Tamanho de cada função que pode ser expandida (não recursiva, sem estáticas próprias).
+    private static Map<String, Integer> tamanhos(GrafoChamadas grafo) {
+        Map<String, Integer> tamanhos = new HashMap<>();
+        for (String nome : grafo.ordem()) {
+            FuncaoIR f = grafo.funcao(nome);
+            if (grafo.recursiva(nome) || !f.estaticas.isEmpty()) continue;
+            int n = 0;
+            for (BlocoIR b : f.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op == InstrucaoIR.Op.PARAMETRO) continue;
+                    n += ins.op == InstrucaoIR.Op.CHAMADA && expansivel(ins.simbolo, tamanhos) ? tamanhos.get(ins.simbolo) : 1;
+                }
+            }
+            tamanhos.put(nome, n);
+        }
+        return tamanhos;
+    }
+
+    private static boolean expansivel(String nome, Map<String, Integer> tamanhos) {
+        Integer n = tamanhos.get(nome);
+        return n != null && n <= MAXIMO_INSTRUCOES;
+    }
+
+    private static String decisao(String nome, int expandidas, GrafoChamadas grafo, Map<String, Integer> tamanhos) {
+        if (expandidas > 0) {
+            return nome + ": expandida em " + expandidas + (expandidas == 1 ? " chamada" : " chamadas")
+                    + " (" + tamanhos.get(nome) + " instruções)";
+        }
+        FuncaoIR f = grafo.funcao(nome);
+        if (f == null) return nome + ": mantida (corpo desconhecido)";
+        if (grafo.recursiva(nome)) return nome + ": mantida (recursiva)";
+        if (!f.estaticas.isEmpty()) return nome + ": mantida (variáveis estáticas próprias)";
+        return nome + ": mantida (" + tamanhos.get(nome) + " instruções; limite " + MAXIMO_INSTRUCOES + ")";
+    }
+
+    private static boolean expandir(FuncaoIR f, GrafoChamadas grafo, Map<String, Integer> tamanhos,
+                                    Map<String, Integer> expandidas) {
+        boolean mudou = false;
+        // Os blocos da função expandida entram logo depois do bloco da chamada, seguidos do resto
+        // dele: as chamadas que eles têm também são vistas.
+        for (int i = 0; i < f.blocos.size(); i++) {
+            BlocoIR b = f.blocos.get(i);
+            for (int j = 0; j < b.instrucoes.size(); j++) {
+                InstrucaoIR ins = b.instrucoes.get(j);
+                if (ins.op != InstrucaoIR.Op.CHAMADA) continue;
+                boolean expandir = expansivel(ins.simbolo, tamanhos);
+                expandidas.merge(ins.simbolo, expandir ? 1 : 0, Integer::sum);
+                if (!expandir) continue;
+                expandirChamada(f, i, j, grafo.funcao(ins.simbolo));
+                mudou = true;
+                break;
+            }
+        }
+        if (mudou) f.renumerar();
+        return mudou;
+    }
+
+    // Troca a chamada b.instrucoes[j] (b = f.blocos[i]) pelo corpo de g.
+    private static void expandirChamada(FuncaoIR f, int i, int j, FuncaoIR g) {
+        BlocoIR b = f.blocos.get(i);
+        InstrucaoIR chamada = b.instrucoes.get(j);
+        // A análise semântica rejeita chamadas com outro número de argumentos.
+        if (chamada.argumentos.size() != g.parametros.length) {
+            throw new IllegalStateException("Chamada a '" + g.nome + "' com " + chamada.argumentos.size()
+                    + " argumento(s) para " + g.parametros.length + " parâmetro(s).");
+        }
+        BlocoIR resto = f.novoBloco();
+        List<InstrucaoIR> depois = b.instrucoes.subList(j + 1, b.instrucoes.size());
+        resto.instrucoes.addAll(depois);
+        depois.clear();
+        b.instrucoes.remove(j);
+        for (BlocoIR s : resto.sucessores()) Collections.replaceAll(s.predecessores, b, resto);
+
+        // Valor de cada temporário de g: o argumento, para um parâmetro, ou um temporário novo.
+        Map<Integer, ValorIR> valores = new HashMap<>();
+        Map<BlocoIR, BlocoIR> novos = new IdentityHashMap<>();
+        for (BlocoIR gb : g.blocos) {
+            novos.put(gb, f.novoBloco());
+            for (InstrucaoIR ins : gb.instrucoes) {
+                if (ins.destino == null) continue;
+                valores.put(ins.destino.temporario, ins.op == InstrucaoIR.Op.PARAMETRO
+                        ? chamada.argumento(ins.indice) : f.novoTemporario(ins.destino.tipo));
+            }
+        }
+        List<BlocoIR> retornos = new ArrayList<>();
+        List<ValorIR> resultados = new ArrayList<>();
+        List<BlocoIR> corpo = new ArrayList<>();
+        for (BlocoIR gb : g.blocos) {
+            BlocoIR nb = novos.get(gb);
+            corpo.add(nb);
+            for (BlocoIR p : gb.predecessores) nb.predecessores.add(novos.get(p));
+            for (InstrucaoIR ins : gb.instrucoes) {
+                List<ValorIR> argumentos = new ArrayList<>(ins.argumentos.size());
+                for (ValorIR v : ins.argumentos) argumentos.add(v.ehTemporario() ? valores.get(v.temporario) : v);
+                switch (ins.op) {
+                    case PARAMETRO:
+                        break;
+                    case SALTO:
+                        nb.instrucoes.add(InstrucaoIR.salto(novos.get(ins.alvos[0])));
+                        break;
+                    case DESVIO:
+                        nb.instrucoes.add(InstrucaoIR.desvio(argumentos.get(0), novos.get(ins.alvos[0]), novos.get(ins.alvos[1])));
+                        break;
+                    case RETORNO:
+                        nb.instrucoes.add(InstrucaoIR.salto(resto));
+                        retornos.add(nb);
+                        resultados.add(argumentos.get(0));
+                        break;
+                    default:
+                        nb.instrucoes.add(ins.copia(ins.destino != null ? valores.get(ins.destino.temporario) : null, argumentos));
+                        break;
+                }
+            }
+        }
+        BlocoIR entrada = novos.get(g.entrada());
+        b.instrucoes.add(InstrucaoIR.salto(entrada));
+        entrada.predecessores.add(b);
+        resto.predecessores.addAll(retornos);
+        if (retornos.isEmpty()) {
+            // g nunca retorna: o resto é inalcançável.
+            f.substituir(Map.of(chamada.destino.temporario, ValorIR.zero(chamada.destino.tipo)));
+        } else if (retornos.size() == 1) {
+            resto.instrucoes.add(0, InstrucaoIR.de(InstrucaoIR.Op.COPIA, chamada.destino, resultados.get(0)));
+        } else {
+            resto.instrucoes.add(0, InstrucaoIR.de(InstrucaoIR.Op.PHI, chamada.destino, resultados));
+        }
+        corpo.add(resto);
+        f.blocos.addAll(i + 1, corpo);
+    }
+}
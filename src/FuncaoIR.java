@@ -0,0 +1,231 @@
+/*FuncaoIR - Código intermediário de um procedimento (função ou trecho de comandos globais)
+Os blocos estão na ordem em que o código é emitido; o primeiro é a entrada, sem predecessores.
+Temporários são numerados de 0 a quantidadeTemporarios()-1 na função.
+Também ficam aqui as análises de fluxo de controle usadas pelo verificador e pelos passos:
+ordem reversa de pós-ordem e dominadores imediatos (algoritmo iterativo de Cooper, Harvey e
+Kennedy), calculadas sob demanda a partir dos blocos atuais.
+ */
+// FuncaoIR.java
+import java.util.*;
+
+public final class FuncaoIR {
+    // Rótulo da função (f_<nome>); null para um trecho de comandos globais.
+    public final String nome;
+    // Símbolo na tabela de funções; -1 para um trecho.
+    public final int simbolo;
+    // Tipo de retorno; null para um trecho.
+    public final Tipo retorno;
+    public final Tipo[] parametros;
+    public final List<BlocoIR> blocos = new ArrayList<>();
+    // Rótulos de .bss das variáveis estáticas declaradas pelo procedimento.
+    public final Set<String> estaticas = new LinkedHashSet<>();
+    // Trecho ou função de nível superior (não declarada dentro de outro procedimento).
+    public boolean nivelSuperior;
+    private int temporarios = 0;
+
+    public FuncaoIR(String nome, int simbolo, Tipo retorno, Tipo[] parametros) {
+        this.nome = nome;
+        this.simbolo = simbolo;
+        this.retorno = retorno;
+        this.parametros = parametros;
+    }
+
+    public boolean ehTrecho() {
+        return simbolo < 0;
+    }
+
+    public ValorIR novoTemporario(Tipo tipo) {
+        return ValorIR.temporario(temporarios++, tipo);
+    }
+
+    public int quantidadeTemporarios() {
+        return temporarios;
+    }
+
+    /** Cria um bloco ainda fora da lista (ver posicionar). */
+    public BlocoIR novoBloco() {
+        return new BlocoIR(-1);
+    }
+
+    /** Acrescenta o bloco ao fim da ordem de emissão. */
+    public void posicionar(BlocoIR bloco) {
+        bloco.numero = blocos.size();
+        blocos.add(bloco);
+    }
+
+    public BlocoIR entrada() {
+        return blocos.get(0);
+    }
+
+    /** Atualiza os números dos blocos depois de mudanças na lista. */
+    public void renumerar() {
+        for (int i = 0; i < blocos.size(); i++) blocos.get(i).numero = i;
+    }
+
+    /** Blocos alcançáveis a partir da entrada, em ordem reversa de pós-ordem. */
+    public List<BlocoIR> ordemReversa() {
+        List<BlocoIR> ordem = new ArrayList<>(blocos.size());
+        boolean[] visitado = new boolean[blocos.size()];
+        // Busca em profundidade sem recursão: pilha de (bloco, próximo sucessor).
+        Deque<BlocoIR> pilha = new ArrayDeque<>();
+        Deque<Integer> proximo = new ArrayDeque<>();
+        pilha.push(entrada());
+        proximo.push(0);
+        visitado[entrada().numero] = true;
+        while (!pilha.isEmpty()) {
+            BlocoIR b = pilha.peek();
+            int i = proximo.pop();
+            List<BlocoIR> sucessores = b.sucessores();
+            if (i < sucessores.size()) {
+                proximo.push(i + 1);
+                BlocoIR s = sucessores.get(i);
+                if (!visitado[s.numero]) {
+                    visitado[s.numero] = true;
+                    pilha.push(s);
+                    proximo.push(0);
+                }
+            } else {
+                pilha.pop();
+                ordem.add(b);
+            }
+        }
+        Collections.reverse(ordem);
+        return ordem;
+    }
+
+    /**
+     * Dominador imediato de cada bloco, indexado pelo número do bloco (a entrada domina a si
+     * mesma; blocos inalcançáveis ficam com null).
+     */
+    public BlocoIR[] dominadores() {
+        List<BlocoIR> ordem = ordemReversa();
+        int[] posicao = new int[blocos.size()];
+        for (int i = 0; i < ordem.size(); i++) posicao[ordem.get(i).numero] = i;
+        BlocoIR[] idom = new BlocoIR[blocos.size()];
+        idom[entrada().numero] = entrada();
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (int i = 1; i < ordem.size(); i++) {
+                BlocoIR b = ordem.get(i);
+                BlocoIR novo = null;
+                for (BlocoIR p : b.predecessores) {
+                    if (idom[p.numero] == null) continue;
+                    novo = novo == null ? p : intersecao(p, novo, idom, posicao);
+                }
+                if (novo != idom[b.numero]) {
+                    idom[b.numero] = novo;
+                    mudou = true;
+                }
+            }
+        }
+        return idom;
+    }
+
+    private static BlocoIR intersecao(BlocoIR a, BlocoIR b, BlocoIR[] idom, int[] posicao) {
+        while (a != b) {
+            while (posicao[a.numero] > posicao[b.numero]) a = idom[a.numero];
+            while (posicao[b.numero] > posicao[a.numero]) b = idom[b.numero];
+        }
+        return a;
+    }
+
+    /** Se a domina b, segundo idom (resultado de dominadores()). */
+    public static boolean domina(BlocoIR a, BlocoIR b, BlocoIR[] idom) {
+        for (BlocoIR x = b; x != null; x = idom[x.numero]) {
+            if (x == a) return true;
+            if (idom[x.numero] == x) return false;
+        }
+        return false;
+    }
+
+    /**
+     * Troca, em todos os argumentos, cada temporário do mapa pelo valor associado (seguindo
+     * cadeias: se %1 -> %2 e %2 -> 5, %1 vira 5).
+     */
+    public void substituir(Map<Integer, ValorIR> trocas) {
+        if (trocas.isEmpty()) return;
+        for (BlocoIR b : blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                for (int i = 0; i < ins.argumentos.size(); i++) {
+                    ValorIR v = ins.argumentos.get(i);
+                    ValorIR novo = v;
+                    int passos = 0;
+                    while (novo.ehTemporario() && trocas.containsKey(novo.temporario) && passos++ <= trocas.size()) {
+                        novo = trocas.get(novo.temporario);
+                    }
+                    if (novo != v) ins.argumentos.set(i, novo);
+                }
+            }
+        }
+    }
+
+    /** Cópia independente do procedimento (blocos e instruções novos, mesmos temporários). */
+    public FuncaoIR copiar() {
+        FuncaoIR c = new FuncaoIR(nome, simbolo, retorno, parametros);
+        c.estaticas.addAll(estaticas);
+        c.nivelSuperior = nivelSuperior;
+        c.temporarios = temporarios;
+        Map<BlocoIR, BlocoIR> novos = new IdentityHashMap<>();
+        for (BlocoIR b : blocos) {
+            BlocoIR n = new BlocoIR(b.numero);
+            novos.put(b, n);
+            c.blocos.add(n);
+        }
+        for (BlocoIR b : blocos) {
+            BlocoIR n = novos.get(b);
+            for (BlocoIR p : b.predecessores) n.predecessores.add(novos.get(p));
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.op == InstrucaoIR.Op.SALTO) {
+                    n.instrucoes.add(InstrucaoIR.salto(novos.get(ins.alvos[0])));
+                } else if (ins.op == InstrucaoIR.Op.DESVIO) {
+                    n.instrucoes.add(InstrucaoIR.desvio(ins.argumento(0), novos.get(ins.alvos[0]), novos.get(ins.alvos[1])));
+                } else {
+                    n.instrucoes.add(ins.copia(ins.destino, ins.argumentos));
+                }
+            }
+        }
+        return c;
+    }
+
+    /** Quantas vezes cada temporário é usado como argumento. */
+    public int[] usos() {
+        int[] usos = new int[temporarios];
+        for (BlocoIR b : blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                for (ValorIR v : ins.argumentos) {
+                    if (v.ehTemporario()) usos[v.temporario]++;
+                }
+            }
+        }
+        return usos;
+    }
+
+    /** Texto legível do procedimento (usado em --debug e nas mensagens do verificador). */
+    public String imprimir() {
+        StringBuilder sb = new StringBuilder();
+        if (ehTrecho()) {
+            sb.append("trecho");
+        } else {
+            sb.append("func ").append(nome).append('(');
+            for (int i = 0; i < parametros.length; i++) sb.append(i > 0 ? ", " : "").append(parametros[i]);
+            sb.append("): ").append(retorno);
+        }
+        sb.append('\n');
+        for (BlocoIR b : blocos) {
+            sb.append(b.rotulo()).append(':');
+            if (!b.predecessores.isEmpty()) {
+                sb.append("  ; pred");
+                for (BlocoIR p : b.predecessores) sb.append(' ').append(p.rotulo());
+            }
+            sb.append('\n');
+            for (InstrucaoIR ins : b.instrucoes) sb.append("    ").append(ins).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return ehTrecho() ? "trecho" : nome;
+    }
+}
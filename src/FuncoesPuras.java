@@ -0,0 +1,289 @@
+/*FuncoesPuras - Funções puras e avaliação de chamadas em tempo de compilação
+Uma função é pura se o resultado depende só dos argumentos e ela não tem outro efeito: não usa
+print nem input, não lê nem grava variáveis estáticas (globais ou locais usadas por funções
+internas) e só chama funções puras. A análise e as avaliações usam as cópias das funções
+(ProgramaIR.copias, inclusive as de outras unidades) e o GrafoChamadas; assim a compilação
+completa e a incremental chegam ao mesmo resultado.
+O passo:
+- troca cada chamada de função pura com argumentos constantes pelo resultado, calculado por um
+  interpretador do código intermediário (as contas são as da PropagacaoConstantes, iguais às do
+  código gerado). A avaliação desiste, e a chamada fica, se passar de ORCAMENTO instruções ou de
+  PROFUNDIDADE chamadas aninhadas, se uma divisão inteira falharia em execução ou se uma string
+  passar de LIMITE_TEXTO caracteres. Numa avaliação, o resultado de cada chamada (função e
+  argumentos) é guardado: fib(n - 1) + fib(n - 2) custa uma avaliação por argumento;
+- com a tabela ligada (macslang.memoizar=true), uma função pura que chama a si mesma e tem um
+  único parâmetro int ganha na entrada os resultados para 0 .. TAMANHO_TABELA-1 (ou até o
+  primeiro que não puder ser avaliado), escolhidos por uma busca binária de comparações; só os
+  demais argumentos executam o corpo.
+ */
+// FuncoesPuras.java
+import java.util.*;
+
+public final class FuncoesPuras implements PassoIR {
+    // Limites de uma avaliação (uma chamada do programa ou a tabela de uma função).
+    private static final int ORCAMENTO = 100_000;
+    private static final int PROFUNDIDADE = 200;
+    private static final int LIMITE_TEXTO = 1024;
+    private static final int TAMANHO_TABELA = 32;
+
+    private final boolean tabela;
+
+    public FuncoesPuras(boolean tabela) {
+        this.tabela = tabela;
+    }
+
+    @Override
+    public String nome() {
+        return "funções puras";
+    }
+
+    @Override
+    public boolean executar(ProgramaIR programa) {
+        GrafoChamadas grafo = new GrafoChamadas(programa);
+        Set<String> puras = puras(grafo);
+        boolean mudou = false;
+        for (FuncaoIR f : programa.funcoes) mudou |= avaliarChamadas(f, grafo, puras);
+        if (tabela) {
+            for (FuncaoIR f : programa.funcoes) mudou |= tabelar(f, grafo, puras);
+        }
+        return mudou;
+    }
+
+    /// Pureza
+
+    private static Set<String> puras(GrafoChamadas grafo) {
+        Set<String> puras = new HashSet<>(grafo.funcoes());
+        // Recursões começam como puras; cada volta tira as que dependem de uma que saiu.
+        boolean mudou = true;
+        while (mudou) {
+            mudou = puras.removeIf(nome -> !pura(grafo.funcao(nome), puras));
+        }
+        return puras;
+    }
+
+    private static boolean pura(FuncaoIR f, Set<String> puras) {
+        for (BlocoIR b : f.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                switch (ins.op) {
+                    case LEIA: case ESCREVA: case CARREGAR: case GUARDAR: case ENCERRAR:
+                        return false;
+                    case CHAMADA:
+                        if (!puras.contains(ins.simbolo)) return false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /// Avaliação
+
+    private static boolean avaliarChamadas(FuncaoIR f, GrafoChamadas grafo, Set<String> puras) {
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        for (BlocoIR b : f.blocos) {
+            b.instrucoes.removeIf(ins -> {
+                if (ins.op != InstrucaoIR.Op.CHAMADA) return false;
+                List<ValorIR> argumentos = new ArrayList<>(ins.argumentos.size());
+                for (ValorIR a : ins.argumentos) {
+                    // Argumento que é o resultado de uma chamada já avaliada (g(f(3))).
+                    if (a.ehTemporario()) a = trocas.get(a.temporario);
+                    if (a == null) return false;
+                    argumentos.add(a);
+                }
+                ValorIR r = new Avaliacao(grafo, puras).chamar(ins.simbolo, argumentos);
+                if (r == null) return false;
+                trocas.put(ins.destino.temporario, r);
+                return true;
+            });
+        }
+        f.substituir(trocas);
+        return !trocas.isEmpty();
+    }
+
+    // Interpretador das cópias das funções puras, com orçamento de instruções.
+    private static final class Avaliacao {
+        final GrafoChamadas grafo;
+        final Set<String> puras;
+        // Resultados já calculados, por função e argumentos.
+        final Map<String, Map<List<ValorIR>, ValorIR>> resultados = new HashMap<>();
+        int passos = 0;
+        int profundidade = 0;
+
+        Avaliacao(GrafoChamadas grafo, Set<String> puras) {
+            this.grafo = grafo;
+            this.puras = puras;
+        }
+
+        // Resultado da chamada, ou null se não foi possível calculá-lo.
+        ValorIR chamar(String nome, List<ValorIR> argumentos) {
+            Map<List<ValorIR>, ValorIR> anteriores = resultados.computeIfAbsent(nome, k -> new HashMap<>());
+            ValorIR r = anteriores.get(argumentos);
+            if (r != null) return r;
+            if (!puras.contains(nome) || profundidade == PROFUNDIDADE) return null;
+            FuncaoIR f = grafo.funcao(nome);
+            if (!argumentosValidos(f, argumentos)) return null;
+            profundidade++;
+            r = executar(f, argumentos);
+            profundidade--;
+            if (r != null) anteriores.put(argumentos, r);
+            return r;
+        }
+
+        // Um argumento para cada parâmetro, do tipo dele (os int já chegam convertidos para float).
+        private static boolean argumentosValidos(FuncaoIR f, List<ValorIR> argumentos) {
+            if (argumentos.size() != f.parametros.length) return false;
+            for (int i = 0; i < argumentos.size(); i++) {
+                if (argumentos.get(i).tipo != f.parametros[i]) return false;
+            }
+            return true;
+        }
+
+        private ValorIR executar(FuncaoIR f, List<ValorIR> argumentos) {
+            ValorIR[] valores = new ValorIR[f.quantidadeTemporarios()];
+            BlocoIR b = f.entrada();
+            // Aresta pela qual b foi alcançado: índice em b.predecessores.
+            int aresta = -1;
+            while (true) {
+                // Os PHIs leem todos os valores de antes do bloco.
+                int phis = b.quantidadePhis();
+                ValorIR[] recebidos = new ValorIR[phis];
+                for (int i = 0; i < phis; i++) recebidos[i] = valor(valores, b.instrucoes.get(i).argumento(aresta));
+                for (int i = 0; i < phis; i++) valores[b.instrucoes.get(i).destino.temporario] = recebidos[i];
+                BlocoIR proximo = null;
+                int alvo = 0;
+                for (int i = phis; i < b.instrucoes.size() && proximo == null; i++) {
+                    if (++passos > ORCAMENTO) return null;
+                    InstrucaoIR ins = b.instrucoes.get(i);
+                    switch (ins.op) {
+                        case PARAMETRO:
+                            valores[ins.destino.temporario] = argumentos.get(ins.indice);
+                            break;
+                        case SALTO:
+                            proximo = ins.alvos[0];
+                            break;
+                        case DESVIO:
+                            alvo = valor(valores, ins.argumento(0)).inteiro != 0 ? 0 : 1;
+                            proximo = ins.alvos[alvo];
+                            break;
+                        case RETORNO:
+                            return valor(valores, ins.argumento(0));
+                        case CHAMADA: {
+                            ValorIR r = chamar(ins.simbolo, valores(valores, ins));
+                            if (r == null) return null;
+                            valores[ins.destino.temporario] = r;
+                            break;
+                        }
+                        default: {
+                            // Também desiste de LEIA, ESCREVA e dos acessos a estáticas.
+                            ValorIR r = ins.destino != null ? PropagacaoConstantes.dobrar(ins, valores(valores, ins)) : null;
+                            if (r == null || r.tipo == Tipo.STRING && r.texto.length() > LIMITE_TEXTO) return null;
+                            valores[ins.destino.temporario] = r;
+                            break;
+                        }
+                    }
+                }
+                if (proximo == null) return null;
+                aresta = indiceAresta(b, proximo, b.terminador().alvos, alvo);
+                b = proximo;
+            }
+        }
+
+        private static ValorIR valor(ValorIR[] valores, ValorIR v) {
+            return v.ehTemporario() ? valores[v.temporario] : v;
+        }
+
+        private static List<ValorIR> valores(ValorIR[] valores, InstrucaoIR ins) {
+            List<ValorIR> lista = new ArrayList<>(ins.argumentos.size());
+            for (ValorIR v : ins.argumentos) lista.add(valor(valores, v));
+            return lista;
+        }
+
+        // Posição, em destino.predecessores, da aresta alvos[j] de origem (uma aresta repetida
+        // aparece uma vez por ocorrência, na ordem dos alvos).
+        private static int indiceAresta(BlocoIR origem, BlocoIR destino, BlocoIR[] alvos, int j) {
+            int ocorrencia = 0;
+            for (int m = 0; m < j; m++) {
+                if (alvos[m] == destino) ocorrencia++;
+            }
+            for (int k = 0; k < destino.predecessores.size(); k++) {
+                if (destino.predecessores.get(k) == origem && ocorrencia-- == 0) return k;
+            }
+            return -1;
+        }
+    }
+
+    /// Tabela de resultados
+
+    private static boolean tabelar(FuncaoIR f, GrafoChamadas grafo, Set<String> puras) {
+        if (f.ehTrecho() || !puras.contains(f.nome) || f.parametros.length != 1
+                || f.parametros[0] != Tipo.INT || !chamaASi(f)) {
+            return false;
+        }
+        BlocoIR antiga = f.entrada();
+        InstrucaoIR parametro = null;
+        for (InstrucaoIR ins : antiga.instrucoes) {
+            if (ins.op == InstrucaoIR.Op.PARAMETRO) parametro = ins;
+        }
+        if (parametro == null) return false;
+        Avaliacao avaliacao = new Avaliacao(grafo, puras);
+        List<ValorIR> resultados = new ArrayList<>();
+        while (resultados.size() < TAMANHO_TABELA) {
+            ValorIR r = avaliacao.chamar(f.nome, List.of(ValorIR.constante(resultados.size(), Tipo.INT)));
+            if (r == null) break;
+            resultados.add(r);
+        }
+        if (resultados.size() < 2) return false;
+
+        // entrada: n >= 0? -> limite: n < tamanho? -> busca; senão, o corpo (entrada antiga).
+        antiga.instrucoes.remove(parametro);
+        List<BlocoIR> novos = new ArrayList<>();
+        BlocoIR entrada = f.novoBloco();
+        BlocoIR limite = f.novoBloco();
+        novos.add(entrada);
+        novos.add(limite);
+        entrada.instrucoes.add(parametro);
+        ValorIR n = parametro.destino;
+        BlocoIR busca = busca(f, n, resultados, 0, resultados.size(), novos);
+        desviar(f, entrada, AnalisadorLexico.TokenType.GREATEREQUAL, n, 0, limite, antiga);
+        desviar(f, limite, AnalisadorLexico.TokenType.LESSTHAN, n, resultados.size(), busca, antiga);
+        f.blocos.addAll(0, novos);
+        f.renumerar();
+        return true;
+    }
+
+    private static boolean chamaASi(FuncaoIR f) {
+        for (BlocoIR b : f.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.op == InstrucaoIR.Op.CHAMADA && ins.simbolo.equals(f.nome)) return true;
+            }
+        }
+        return false;
+    }
+
+    // Bloco que retorna resultados[n] para inicio <= n < fim; os blocos criados vão para novos.
+    private static BlocoIR busca(FuncaoIR f, ValorIR n, List<ValorIR> resultados, int inicio, int fim, List<BlocoIR> novos) {
+        BlocoIR b = f.novoBloco();
+        novos.add(b);
+        if (fim - inicio == 1) {
+            b.instrucoes.add(InstrucaoIR.de(InstrucaoIR.Op.RETORNO, null, resultados.get(inicio)));
+            return b;
+        }
+        int meio = (inicio + fim) >>> 1;
+        BlocoIR menores = busca(f, n, resultados, inicio, meio, novos);
+        BlocoIR maiores = busca(f, n, resultados, meio, fim, novos);
+        desviar(f, b, AnalisadorLexico.TokenType.LESSTHAN, n, meio, menores, maiores);
+        return b;
+    }
+
+    // Termina b com "n <operador> k ? verdadeiro : falso".
+    private static void desviar(FuncaoIR f, BlocoIR b, AnalisadorLexico.TokenType operador, ValorIR n, int k,
+                                BlocoIR verdadeiro, BlocoIR falso) {
+        ValorIR condicao = f.novoTemporario(Tipo.BOOL);
+        b.instrucoes.add(InstrucaoIR.comparacao(operador, condicao, n, ValorIR.constante(k, Tipo.INT)));
+        b.instrucoes.add(InstrucaoIR.desvio(condicao, verdadeiro, falso));
+        verdadeiro.predecessores.add(b);
+        falso.predecessores.add(b);
+    }
+}
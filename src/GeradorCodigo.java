@@ -1,104 +1,1112 @@
-import java.util.Map;
+/*GeradorCodigo - Geração de código x86 (NASM, 32 bits, cdecl) a partir do código intermediário
+A AST é traduzida pelo ConstrutorIR para o código intermediário em SSA (ProgramaIR), que passa
+pelos passos do GerenciadorPassos; cada procedimento do código intermediário vira então um
+fragmento de assembly independente:
+- cada função (também as declaradas dentro de blocos) vira f_<nome>;
+- cada trecho de comandos globais entre funções vira um procedimento m_<k>, e main chama os
+  trechos na ordem do programa.
+Os fragmentos são os mesmos do CompiladorIncremental (uma função de nível superior ou um trecho),
+que guarda o código de cada unidade e monta o programa com Montagem, como emitir() faz.
+Dentro de um fragmento, rótulos de salto são locais (.L<n>) e os dados (.data) são numerados a
+partir de 0; a Montagem soma o número de dados dos fragmentos anteriores (d_<n>). Assim o
+código de um fragmento não depende de onde ele aparece.
+
+Armazenamento:
+- variáveis estáticas (ver ConstrutorIR) em .bss: v_<nome> (nível 0) ou v_<nome>_<nível>, e
+  f_<função>.<nome>_<nível> para as locais usadas por uma função interna;
+- parâmetros em [ebp + 8 + 4i]; os demais valores são temporários do código intermediário, que
+  viram registradores virtuais (o AlocadorRegistradores os troca por registradores físicos).
+Tipos: int, bool (0/1) e char em 4 bytes; float em precisão simples, com SSE (o retorno de uma
+função float vai em eax, com os bits do valor); string é um ponteiro para texto terminado em 0.
+
+Saída da forma SSA: os argumentos de cada PHI viram cópias no fim do predecessor (ou num bloco
+de cópias no fim do procedimento, se o predecessor tem dois sucessores), feitas como cópias
+paralelas. Antes disso, um PHI e seus argumentos que nunca estão vivos ao mesmo tempo passam a
+usar o mesmo registrador virtual, e a cópia desaparece.
+Uma comparação usada só pelo desvio seguinte vira cmp + jcc; os blocos são emitidos na ordem
+do código intermediário e o salto para o bloco seguinte é omitido. Comparações de float seguem o
+IEEE 754: com um NaN (ucomiss desordenado, PF = 1) só != é verdadeira. < e <= trocam os operandos
+e usam ja/jae, que já são falsas com NaN; == e != também testam a paridade (sete e setnp,
+setne ou setp; ou um jp antes do je/jne, para o alvo que vale quando a comparação é desordenada).
+Depois da alocação de registradores, o código de cada procedimento (com prólogo e epílogo) passa
+pela OtimizacaoJanela.
+print monta uma única chamada a printf com o formato da concatenação; concatenações fora do
+print usam snprintf + malloc; input usa scanf.
+O conteúdo de .data e .bss é coletado enquanto .text é escrito e emitido no fim.
+ */
+// GeradorCodigo.java
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 public class GeradorCodigo {
-    // Tabelas de símbolos construídas na análise semântica.
-    private Map<String, String> varTable;    // Mapeia nome da variável para seu tipo (ex.: "a" -> "int")
-    private Map<String, String> funcTable;   // Mapeia nome da função para seu tipo de retorno (ex.: "fatorial" -> "int")
+    private static final Operando EAX = Operando.registrador(Registrador.EAX);
+    private static final Operando EDX = Operando.registrador(Registrador.EDX);
+    private static final Operando EBP = Operando.registrador(Registrador.EBP);
+    private static final Operando ESP = Operando.registrador(Registrador.ESP);
+    private static final Operando AL = Operando.registrador(Registrador.AL);
+    private static final Operando AH = Operando.registrador(Registrador.AH);
+    private static final Operando XMM7 = Operando.registrador(Registrador.XMM7);
+    // Tamanho do buffer alocado para input() de uma string.
+    private static final int TAMANHO_LEITURA = 256;
+
+    private final ConstrutorIR construtor;
+    private final GerenciadorPassos passos = GerenciadorPassos.padrao();
+    private final OtimizacaoJanela janela = OtimizacaoJanela.padrao();
+    private final Function<String, FuncaoIR> funcoesExternas;
+    // Último código intermediário gerado.
+    private ProgramaIR programa;
 
-    // Se for necessário usar o código-fonte original para alguma informação ou para referências,
-    // você poderá recebê-lo também.
-    private String codigoFonte;
+    /** Código de um procedimento: instruções já alocadas, dados e variáveis estáticas que ele declara. */
+    public static final class Fragmento {
+        // Rótulo da função; null para um trecho de comandos globais (o nome m_<k> vem da posição).
+        public final String nome;
+        public final List<Instrucao> codigo;
+        // Definições de .data, na ordem dos ids usados pelos operandos (ex.: "db \"x\", 0").
+        public final List<String> dados;
+        // Rótulos de .bss (resd 1 cada).
+        public final List<String> estaticas;
+
+        Fragmento(String nome, List<Instrucao> codigo, List<String> dados, List<String> estaticas) {
+            this.nome = nome;
+            this.codigo = codigo;
+            this.dados = dados;
+            this.estaticas = estaticas;
+        }
+    }
+
+    public GeradorCodigo(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes) {
+        this(arvore, simbolos, funcoes, null);
+    }
 
     /**
-     * Construtor para o gerador de código.
-     * varTable Tabela de variáveis gerada durante a análise semântica.
-     * funcTable Tabela de funções gerada durante a análise semântica.
-     * codigoFonte O código fonte original (opcional para futuras referências).
+     * assinaturasExternas dá os tipos dos parâmetros de uma função (pelo símbolo) que não foi
+     * declarada nesta árvore; necessário quando a árvore é só uma unidade do programa.
      */
-    public GeradorCodigo(Map<String, String> varTable, Map<String, String> funcTable, String codigoFonte) {
-        this.varTable = varTable;
-        this.funcTable = funcTable;
-        this.codigoFonte = codigoFonte;
+    public GeradorCodigo(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                         IntFunction<Tipo[]> assinaturasExternas) {
+        this(arvore, simbolos, funcoes, assinaturasExternas, null);
     }
 
-    /** Gera o código assembly NASM para a arquitetura x86.
-     * A geração é dividida em seções: header, data, bss e text.
+    /**
+     * funcoesExternas dá, pelo rótulo, as funções de outras unidades (as cópias de
+     * copiasFuncoes() das unidades anteriores), que os passos podem expandir nas chamadas ou
+     * avaliar na compilação (ver ProgramaIR.copias).
      */
+    public GeradorCodigo(ArvoreSintatica arvore, TabelaSimbolos simbolos, TabelaSimbolos funcoes,
+                         IntFunction<Tipo[]> assinaturasExternas, Function<String, FuncaoIR> funcoesExternas) {
+        this.construtor = new ConstrutorIR(arvore, simbolos, funcoes, assinaturasExternas);
+        this.funcoesExternas = funcoesExternas;
+    }
+
+    /** Gera o código assembly NASM do programa inteiro. */
     public String gerarCodigo() {
         StringBuilder asm = new StringBuilder();
-        asm.append(gerarHeader());
-        asm.append(gerarDataSection());
-        asm.append(gerarBssSection());
-        asm.append(gerarTextSection());
+        try (EmissorAssembly emissor = EmissorAssembly.para(asm)) {
+            emitir(emissor);
+        }
         return asm.toString();
     }
 
-    // Gera a seção de cabeçalho com definições globais e declarações externas.
-    private String gerarHeader() {
-        StringBuilder header = new StringBuilder();
-        header.append("global main\n");
-        header.append("extern printf, scanf\n\n");
-        return header.toString();
-    }
-
-    // Gera a seção .data com constantes e mensagens (aqui, você pode adequar as mensagens conforme
-    // funções de entrada/saída definidas na linguagem).
-    private String gerarDataSection() {
-        StringBuilder data = new StringBuilder();
-        data.append("section .data\n");
-        // Exemplos de constantes – você pode ajustar estes textos conforme sua necessidade.
-        data.append("msg_input db \"Digite um valor: \", 0\n");
-        data.append("fmt_int db \"%d\", 0\n");
-        data.append("msg_result db \"Resultado: %d\", 10, 0\n\n");
-        return data.toString();
-    }
-
-    // Gera a seção .bss para alocar espaço para as variáveis declaradas.
-    private String gerarBssSection() {
-        StringBuilder bss = new StringBuilder();
-        bss.append("section .bss\n");
-        // Para cada variável declarada, reserva espaço
-        for (Map.Entry<String, String> entry : varTable.entrySet()) {
-            String varName = entry.getKey();
-            // Se desejar, você pode ajustar o tamanho conforme o tipo armazenado.
-            bss.append(varName).append(" resd 1\n");
-        }
-        bss.append("\n");
-        return bss.toString();
-    }
-
-    // Gera a seção .text com a definição da função main e os stubs para funções definidas.
-    // Essa função deve ser expandida para percorrer a AST e gerar código de cada comando,
-    // mas este esqueleto integra as partes fundamentais: início do main e geração de stubs
-    private String gerarTextSection() {
-        StringBuilder text = new StringBuilder();
-        text.append("section .text\n");
-        text.append("main:\n");
-        text.append("    ; Prologo\n");
-        text.append("    push ebp\n");
-        text.append("    mov ebp, esp\n\n");
-
-        // Integração do código gerado a partir dos comandos da linguagem
-        // traduzir as declarações, atribuições, estruturas de controle, etc
-        // Nesse teste, inserimos um comentário genérico
-        text.append("    ; ... Código gerado a partir da análise de MACSLang ...\n\n");
-
-        // Epilogo do main:
-        text.append("    mov eax, 0\n");
-        text.append("    mov esp, ebp\n");
-        text.append("    pop ebp\n");
-        text.append("    ret\n\n");
-
-        // Gera stubs para cada função declarada.
-        for (Map.Entry<String, String> entry : funcTable.entrySet()) {
-            String funcName = entry.getKey();
-            text.append(funcName).append(":\n");
-            text.append("    ; Stub da funcao ").append(funcName).append("\n");
-            // O stub deve ser substituído pela implementação gerada a partir da AST dessa função.
-            text.append("    mov eax, 0\n");
-            text.append("    ret\n\n");
-        }
-
-        return text.toString();
-    }
-}
\ No newline at end of file
+    /** Escreve o assembly no emissor, um fragmento de cada vez. */
+    public void emitir(EmissorAssembly emissor) {
+        emitir(intermediario(), emissor);
+    }
+
+    /** Escreve no emissor o assembly do código intermediário ir (resultado de intermediario()), sem repetir os passos. */
+    public void emitir(ProgramaIR ir, EmissorAssembly emissor) {
+        Montagem montagem = new Montagem(emissor);
+        for (FuncaoIR f : ir.funcoes) montagem.adicionar(new Procedimento(f).gerar());
+        montagem.concluir();
+    }
+
+    /** Fragmentos da árvore, na ordem do programa (ver Montagem). */
+    public List<Fragmento> fragmentos() {
+        List<Fragmento> lista = new ArrayList<>();
+        for (FuncaoIR f : intermediario().funcoes) lista.add(new Procedimento(f).gerar());
+        return lista;
+    }
+
+    /** Código intermediário da árvore, depois dos passos de otimização. */
+    public ProgramaIR intermediario() {
+        programa = construtor.construir();
+        programa.externas = funcoesExternas;
+        passos.executar(programa);
+        return programa;
+    }
+
+    /** Cópias das funções do último código intermediário, pelo rótulo (ver ProgramaIR.copias). */
+    public Map<String, FuncaoIR> copiasFuncoes() {
+        return programa.copias();
+    }
+
+    /** Funções de funcoesExternas consultadas no último código intermediário (null: não havia). */
+    public Map<String, FuncaoIR> funcoesExternasConsultadas() {
+        return programa.consultadas;
+    }
+
+    /** Tipos dos parâmetros da função (símbolo da tabela de funções). */
+    public Tipo[] assinatura(int funcao) {
+        return construtor.assinatura(funcao);
+    }
+
+    /** Passos aplicados por intermediario(), com as execuções e as mudanças de cada um até agora. */
+    public GerenciadorPassos passos() {
+        return passos;
+    }
+
+    /** Otimização de janela aplicada ao código dos procedimentos, com as reescritas feitas até agora. */
+    public OtimizacaoJanela otimizacaoJanela() {
+        return janela;
+    }
+
+    /** Assinaturas de funções de fora da árvore consultadas na geração (símbolo -> parâmetros). */
+    public Map<Integer, Tipo[]> assinaturasExternasUsadas() {
+        return construtor.assinaturasExternasUsadas();
+    }
+
+    /**
+     * Os fragmentos sem as funções que nenhum trecho chama, direta ou indiretamente (o que o
+     * passo RemocaoSemUso faz no código intermediário do programa inteiro), na mesma ordem.
+     */
+    public static List<Fragmento> alcancaveis(List<Fragmento> fragmentos) {
+        Map<String, Fragmento> porNome = new HashMap<>();
+        Set<Fragmento> usados = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Fragmento> pendentes = new ArrayDeque<>();
+        for (Fragmento f : fragmentos) {
+            if (f.nome == null) {
+                usados.add(f);
+                pendentes.add(f);
+            } else {
+                porNome.put(f.nome, f);
+            }
+        }
+        while (!pendentes.isEmpty()) {
+            for (Instrucao ins : pendentes.poll().codigo) {
+                if (ins.op != Instrucao.Op.CALL || ins.destino.simbolo == null) continue;
+                Fragmento chamado = porNome.get(ins.destino.simbolo);
+                if (chamado != null && usados.add(chamado)) pendentes.add(chamado);
+            }
+        }
+        List<Fragmento> lista = new ArrayList<>();
+        for (Fragmento f : fragmentos) {
+            if (usados.contains(f)) lista.add(f);
+        }
+        return lista;
+    }
+
+    /**
+     * Escreve o programa a partir dos fragmentos: cabeçalho e .text (cada fragmento assim que é
+     * adicionado), depois main, .data e .bss em concluir().
+     */
+    public static final class Montagem {
+        private final EmissorAssembly emissor;
+        private final List<String> dados = new ArrayList<>();
+        private final Set<String> estaticas = new LinkedHashSet<>();
+        private int trechos = 0;
+
+        public Montagem(EmissorAssembly emissor) {
+            this.emissor = emissor;
+            emissor.linha("global main");
+            emissor.linha("extern printf, scanf, malloc, snprintf, strcmp, exit").linhaEmBranco();
+            emissor.secao("text");
+        }
+
+        public void adicionar(Fragmento fragmento) {
+            emissor.rotulo(fragmento.nome != null ? fragmento.nome : "m_" + trechos++);
+            emitirInstrucoes(fragmento.codigo, dados.size());
+            emissor.linhaEmBranco();
+            dados.addAll(fragmento.dados);
+            estaticas.addAll(fragmento.estaticas);
+        }
+
+        public void concluir() {
+            // main alinha a pilha em 16 bytes (exigência do printf em alguns sistemas) e chama os trechos.
+            List<Instrucao> main = new ArrayList<>();
+            main.add(Instrucao.de(Instrucao.Op.PUSH, EBP));
+            main.add(Instrucao.de(Instrucao.Op.MOV, EBP, ESP));
+            main.add(Instrucao.de(Instrucao.Op.AND, ESP, Operando.imediato(-16)));
+            for (int k = 0; k < trechos; k++) {
+                main.add(Instrucao.de(Instrucao.Op.CALL, Operando.endereco("m_" + k)));
+            }
+            main.add(Instrucao.de(Instrucao.Op.MOV, EAX, Operando.imediato(0)));
+            main.add(Instrucao.de(Instrucao.Op.MOV, ESP, EBP));
+            main.add(Instrucao.de(Instrucao.Op.POP, EBP));
+            main.add(Instrucao.de(Instrucao.Op.RET));
+            emissor.rotulo("main");
+            emitirInstrucoes(main, 0);
+            emissor.linhaEmBranco();
+
+            emissor.secao("data");
+            for (int i = 0; i < dados.size(); i++) {
+                emissor.acrescentar(Operando.rotuloDado(i)).acrescentar(" ").acrescentar(dados.get(i)).fimDeLinha();
+            }
+            emissor.linhaEmBranco();
+            emissor.secao("bss");
+            for (String estatica : estaticas) emissor.acrescentar(estatica).acrescentar(" resd 1").fimDeLinha();
+        }
+
+        private void emitirInstrucoes(List<Instrucao> codigo, int baseDados) {
+            for (Instrucao ins : codigo) {
+                if (ins.op == Instrucao.Op.ROTULO) emissor.rotulo(ins.destino.texto(baseDados));
+                else emissor.instrucao(ins.texto(baseDados));
+            }
+        }
+    }
+
+
+    // Geração de um procedimento do código intermediário (função ou trecho de comandos globais).
+    private final class Procedimento {
+        private final FuncaoIR ir;
+        private final List<Instrucao> codigo = new ArrayList<>();
+        private int virtuais;
+        private int rotulos = 0;
+        private final int rotuloRetorno;
+        private final Map<String, Integer> indiceDados = new HashMap<>();
+        private final List<String> dados = new ArrayList<>();
+        private int quadro = 0;
+        // Posição na pilha em que input() grava antes de o valor ir para o temporário.
+        private Operando leitura;
+        private final int[] usos;
+        // Registrador virtual de cada temporário (o mesmo para os PHIs juntados com seus argumentos).
+        private final int[] representante;
+        // Parâmetro usado direto de [ebp + 8 + 4i]: posição; -1 para os demais temporários.
+        private final int[] parametro;
+        // Arestas cujas cópias de PHIs ficam num bloco próprio, emitido no fim.
+        private final List<Aresta> arestas = new ArrayList<>();
+
+        Procedimento(FuncaoIR ir) {
+            this.ir = ir;
+            int temporarios = ir.quantidadeTemporarios();
+            virtuais = temporarios;
+            rotuloRetorno = novoRotulo();
+            // Rótulos 1 .. n: blocos.
+            rotulos += ir.blocos.size();
+            usos = ir.usos();
+            representante = new int[temporarios];
+            parametro = new int[temporarios];
+            for (int t = 0; t < temporarios; t++) representante[t] = t;
+            Arrays.fill(parametro, -1);
+        }
+
+        Fragmento gerar() {
+            escolherParametros();
+            juntarPhis();
+            for (int i = 0; i < ir.blocos.size(); i++) {
+                bloco(ir.blocos.get(i), i + 1 < ir.blocos.size() ? ir.blocos.get(i + 1) : null);
+            }
+            for (Aresta a : arestas) {
+                codigo.add(Instrucao.rotulo(a.rotulo));
+                copiarEmParalelo(copias(a.origem, a.destino, a.ocorrencia));
+                codigo.add(Instrucao.salto(rotulo(a.destino)));
+            }
+            codigo.add(Instrucao.rotulo(rotuloRetorno));
+            removerRotulosSemUso();
+            return concluir();
+        }
+
+        private Fragmento concluir() {
+            AlocadorRegistradores.Resultado alocado = AlocadorRegistradores.alocar(codigo, virtuais, quadro);
+            // Na entrada esp = 12 (mod 16); depois de push ebp, sub e os push dos preservados, a pilha
+            // deve ficar alinhada em 16 para as chamadas (que empilham argumentos com o ajuste certo).
+            int salvos = 4 * alocado.preservados.size();
+            int tamanho = alocado.quadro;
+            while ((tamanho + salvos) % 16 != 8) tamanho += 4;
+            List<Instrucao> corpo = alocado.codigo;
+            List<Instrucao> completo = new ArrayList<>(corpo.size() + 8 + 2 * alocado.preservados.size());
+            completo.add(Instrucao.de(Instrucao.Op.PUSH, EBP));
+            completo.add(Instrucao.de(Instrucao.Op.MOV, EBP, ESP));
+            if (tamanho > 0) completo.add(Instrucao.de(Instrucao.Op.SUB, ESP, Operando.imediato(tamanho)));
+            for (Registrador r : alocado.preservados) completo.add(Instrucao.de(Instrucao.Op.PUSH, Operando.registrador(r)));
+            completo.addAll(corpo);
+            for (int i = alocado.preservados.size() - 1; i >= 0; i--) {
+                completo.add(Instrucao.de(Instrucao.Op.POP, Operando.registrador(alocado.preservados.get(i))));
+            }
+            completo.add(Instrucao.de(Instrucao.Op.MOV, ESP, EBP));
+            completo.add(Instrucao.de(Instrucao.Op.POP, EBP));
+            completo.add(Instrucao.de(Instrucao.Op.RET));
+            janela.otimizar(completo);
+            return new Fragmento(ir.nome, completo, dados, new ArrayList<>(ir.estaticas));
+        }
+
+        /// Preparação
+
+        // Um parâmetro fica na pilha, sem registrador, se é usado uma vez só ou se o procedimento
+        // faz chamadas (que alterariam o registrador, obrigando a copiá-lo para outra posição da pilha).
+        private void escolherParametros() {
+            boolean chama = false;
+            for (BlocoIR b : ir.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) chama |= chamaFuncao(ins);
+            }
+            for (BlocoIR b : ir.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op == InstrucaoIR.Op.PARAMETRO && (chama || usos[ins.destino.temporario] <= 1)) {
+                        parametro[ins.destino.temporario] = ins.indice;
+                    }
+                }
+            }
+        }
+
+        private boolean chamaFuncao(InstrucaoIR ins) {
+            switch (ins.op) {
+                case CHAMADA: case CONCATENACAO: case ESCREVA: case LEIA: case ENCERRAR:
+                    return true;
+                case COMPARACAO:
+                    return ins.argumento(0).tipo == Tipo.STRING;
+                default:
+                    return false;
+            }
+        }
+
+        // Junta cada PHI com os argumentos que não interferem com ele (nenhum dos dois está vivo onde
+        // o outro é definido), de modo que a cópia no fim do predecessor some. Os grupos são mantidos
+        // com união-busca em representante.
+        private void juntarPhis() {
+            boolean temPhi = false;
+            for (BlocoIR b : ir.blocos) temPhi |= b.quantidadePhis() > 0;
+            if (!temPhi) return;
+            Vivacidade vivos = new Vivacidade();
+            Map<Integer, List<Integer>> membros = new HashMap<>();
+            for (BlocoIR b : ir.blocos) {
+                for (int i = 0; i < b.quantidadePhis(); i++) {
+                    InstrucaoIR phi = b.instrucoes.get(i);
+                    for (ValorIR a : phi.argumentos) {
+                        if (!a.ehTemporario() || parametro[a.temporario] >= 0) continue;
+                        int x = grupo(phi.destino.temporario), y = grupo(a.temporario);
+                        if (x == y) continue;
+                        List<Integer> mx = membros.computeIfAbsent(x, k -> new ArrayList<>(List.of(k)));
+                        List<Integer> my = membros.computeIfAbsent(y, k -> new ArrayList<>(List.of(k)));
+                        if (interferem(mx, my, vivos)) continue;
+                        representante[y] = x;
+                        mx.addAll(my);
+                        membros.remove(y);
+                    }
+                }
+            }
+        }
+
+        private int grupo(int t) {
+            while (representante[t] != t) {
+                representante[t] = representante[representante[t]];
+                t = representante[t];
+            }
+            return t;
+        }
+
+        private boolean interferem(List<Integer> a, List<Integer> b, Vivacidade vivos) {
+            for (int x : a) {
+                for (int y : b) {
+                    if (vivos.vivoNaDefinicao(x, y) || vivos.vivoNaDefinicao(y, x)) return true;
+                }
+            }
+            return false;
+        }
+
+        // Vivacidade dos temporários por bloco. O argumento de um PHI está vivo no fim do
+        // predecessor correspondente (onde a cópia é feita), não na entrada do bloco do PHI.
+        private final class Vivacidade {
+            private final BitSet[] entrada, saida;
+            private final BlocoIR[] blocoDefinicao;
+            // Posição da definição no bloco; -1 para PHIs (todos definidos juntos, no início).
+            private final int[] posicao;
+
+            Vivacidade() {
+                int n = ir.blocos.size(), temporarios = ir.quantidadeTemporarios();
+                entrada = new BitSet[n];
+                saida = new BitSet[n];
+                blocoDefinicao = new BlocoIR[temporarios];
+                posicao = new int[temporarios];
+                BitSet[] usa = new BitSet[n], define = new BitSet[n];
+                for (BlocoIR b : ir.blocos) {
+                    int k = b.numero;
+                    entrada[k] = new BitSet();
+                    saida[k] = new BitSet();
+                    usa[k] = new BitSet();
+                    define[k] = new BitSet();
+                    for (int i = 0; i < b.instrucoes.size(); i++) {
+                        InstrucaoIR ins = b.instrucoes.get(i);
+                        if (ins.op != InstrucaoIR.Op.PHI) {
+                            for (ValorIR v : ins.argumentos) {
+                                if (v.ehTemporario() && !define[k].get(v.temporario)) usa[k].set(v.temporario);
+                            }
+                        }
+                        if (ins.destino != null) {
+                            define[k].set(ins.destino.temporario);
+                            blocoDefinicao[ins.destino.temporario] = b;
+                            posicao[ins.destino.temporario] = ins.op == InstrucaoIR.Op.PHI ? -1 : i;
+                        }
+                    }
+                }
+                boolean mudou = true;
+                BitSet novo = new BitSet();
+                while (mudou) {
+                    mudou = false;
+                    for (int k = n - 1; k >= 0; k--) {
+                        BlocoIR b = ir.blocos.get(k);
+                        List<BlocoIR> sucessores = b.sucessores();
+                        for (int j = 0; j < sucessores.size(); j++) {
+                            BlocoIR s = sucessores.get(j);
+                            saida[k].or(entrada[s.numero]);
+                            int aresta = indiceAresta(b, s, ocorrencia(sucessores, j));
+                            for (int i = 0; i < s.quantidadePhis(); i++) {
+                                ValorIR v = s.instrucoes.get(i).argumento(aresta);
+                                if (v.ehTemporario()) saida[k].set(v.temporario);
+                            }
+                        }
+                        novo.clear();
+                        novo.or(saida[k]);
+                        novo.andNot(define[k]);
+                        novo.or(usa[k]);
+                        if (!novo.equals(entrada[k])) {
+                            entrada[k].clear();
+                            entrada[k].or(novo);
+                            mudou = true;
+                        }
+                    }
+                }
+            }
+
+            // Se a está vivo logo depois da definição de b.
+            boolean vivoNaDefinicao(int a, int b) {
+                BlocoIR bloco = blocoDefinicao[b];
+                if (bloco == null || blocoDefinicao[a] == null) return false;
+                int depois = posicao[b] < 0 ? bloco.quantidadePhis() - 1 : posicao[b];
+                boolean definidoAntes = blocoDefinicao[a] == bloco && posicao[a] <= depois;
+                if (!definidoAntes && !entrada[bloco.numero].get(a)) return false;
+                if (saida[bloco.numero].get(a)) return true;
+                for (int i = Math.max(depois + 1, bloco.quantidadePhis()); i < bloco.instrucoes.size(); i++) {
+                    for (ValorIR v : bloco.instrucoes.get(i).argumentos) {
+                        if (v.temporario == a) return true;
+                    }
+                }
+                return false;
+            }
+        }
+
+        // Quantas vezes o j-ésimo alvo já apareceu antes na lista (desvio com os dois alvos iguais).
+        private int ocorrencia(List<BlocoIR> alvos, int j) {
+            int n = 0;
+            for (int i = 0; i < j; i++) {
+                if (alvos.get(i) == alvos.get(j)) n++;
+            }
+            return n;
+        }
+
+        // Índice, em destino.predecessores (e nos argumentos dos PHIs), da aresta origem -> destino.
+        private int indiceAresta(BlocoIR origem, BlocoIR destino, int ocorrencia) {
+            for (int i = 0; i < destino.predecessores.size(); i++) {
+                if (destino.predecessores.get(i) == origem && ocorrencia-- == 0) return i;
+            }
+            throw new IllegalStateException("Aresta " + origem + " -> " + destino + " inexistente em " + ir);
+        }
+
+        /// Blocos
+
+        private void bloco(BlocoIR b, BlocoIR proximo) {
+            if (b.numero > 0) codigo.add(Instrucao.rotulo(rotulo(b)));
+            List<InstrucaoIR> instrucoes = b.instrucoes;
+            for (int i = 0; i < instrucoes.size(); i++) {
+                InstrucaoIR ins = instrucoes.get(i);
+                // Comparação usada só pelo desvio seguinte: gerada junto com ele.
+                if (ins.op == InstrucaoIR.Op.COMPARACAO && i + 1 < instrucoes.size() && usos[ins.destino.temporario] == 1
+                        && instrucoes.get(i + 1).op == InstrucaoIR.Op.DESVIO && instrucoes.get(i + 1).argumento(0).equals(ins.destino)) {
+                    desviar(b, instrucoes.get(i + 1), ins, proximo);
+                    return;
+                }
+                instrucao(b, ins, proximo);
+            }
+        }
+
+        private void instrucao(BlocoIR b, InstrucaoIR ins, BlocoIR proximo) {
+            switch (ins.op) {
+                case PARAMETRO:
+                    if (parametro[ins.destino.temporario] < 0) mover(destino(ins), posicaoParametro(ins.indice));
+                    break;
+                case COPIA:
+                    mover(destino(ins), operando(ins.argumento(0)));
+                    break;
+                case SOMA: case SUBTRACAO: case MULTIPLICACAO: case DIVISAO: case RESTO:
+                    aritmetica(ins);
+                    break;
+                case NEGACAO:
+                    negar(ins);
+                    break;
+                case CONVERSAO: {
+                    Operando a = operando(ins.argumento(0));
+                    if (a.tipo == Operando.Tipo.IMEDIATO) mover(destino(ins), constanteReal(a.valor));
+                    else emitir(Instrucao.Op.CVTSI2SS, destino(ins), a);
+                    break;
+                }
+                case COMPARACAO: {
+                    Instrucao.Condicao condicao = comparar(ins);
+                    codigo.add(Instrucao.definirSe(condicao));
+                    if (testaParidade(ins, condicao)) {
+                        // == exige ordenada (sete e setnp); != aceita desordenada (setne ou setp).
+                        boolean igual = condicao == Instrucao.Condicao.E;
+                        codigo.add(Instrucao.definirSe(igual ? Instrucao.Condicao.NP : Instrucao.Condicao.P,
+                                Registrador.AH));
+                        emitir(igual ? Instrucao.Op.AND : Instrucao.Op.OR, AL, AH);
+                    }
+                    emitir(Instrucao.Op.MOVZX, destino(ins), AL);
+                    break;
+                }
+                case CONCATENACAO:
+                    concatenar(ins);
+                    break;
+                case CHAMADA:
+                    chamar(ins);
+                    break;
+                case CARREGAR:
+                    mover(destino(ins), Operando.estatica(ins.simbolo));
+                    break;
+                case GUARDAR:
+                    guardar(Operando.estatica(ins.simbolo), ins.argumento(0));
+                    break;
+                case LEIA:
+                    ler(ins);
+                    break;
+                case ESCREVA:
+                    escrever(ins);
+                    break;
+                case PHI:
+                    // As cópias ficam no fim dos predecessores.
+                    break;
+                case SALTO:
+                    saltar(b, ins.alvos[0], 0, proximo);
+                    break;
+                case DESVIO:
+                    desviar(b, ins, null, proximo);
+                    break;
+                case RETORNO:
+                    if (!ins.argumentos.isEmpty()) {
+                        ValorIR v = ins.argumento(0);
+                        if (v.ehConstante() && v.tipo == Tipo.FLOAT) emitir(Instrucao.Op.MOV, EAX, bitsReal(v));
+                        else emitir(v.tipo == Tipo.FLOAT ? Instrucao.Op.MOVD : Instrucao.Op.MOV, EAX, operando(v));
+                    }
+                    // No último bloco (sem cópias de arestas depois), o epílogo vem em seguida.
+                    if (proximo != null || !arestas.isEmpty()) codigo.add(Instrucao.salto(rotuloRetorno));
+                    break;
+                default:
+                    // ENCERRAR: 'return' fora de função; o valor é o código de saída.
+                    chamarC("exit", new Operando[]{operando(ins.argumento(0))}, new boolean[1]);
+                    break;
+            }
+        }
+
+        // Salto para o bloco (ocorrencia-ésima aresta b -> alvo), com as cópias dos PHIs do alvo.
+        private void saltar(BlocoIR b, BlocoIR alvo, int ocorrencia, BlocoIR proximo) {
+            copiarEmParalelo(copias(b, alvo, ocorrencia));
+            if (alvo != proximo) codigo.add(Instrucao.salto(rotulo(alvo)));
+        }
+
+        // Desvio condicional; comparacao é a COMPARACAO que produz a condição, se gerada junto.
+        private void desviar(BlocoIR b, InstrucaoIR desvio, InstrucaoIR comparacao, BlocoIR proximo) {
+            BlocoIR verdadeiro = desvio.alvos[0], falso = desvio.alvos[1];
+            int ocorrenciaFalso = verdadeiro == falso ? 1 : 0;
+            ValorIR c = desvio.argumento(0);
+            if (c.ehConstante()) {
+                if (c.inteiro != 0) saltar(b, verdadeiro, 0, proximo);
+                else saltar(b, falso, ocorrenciaFalso, proximo);
+                return;
+            }
+            Instrucao.Condicao condicao;
+            if (comparacao != null) {
+                condicao = comparar(comparacao);
+            } else {
+                Operando v = operando(c);
+                emitir(Instrucao.Op.CMP, v, Operando.imediato(0));
+                condicao = Instrucao.Condicao.NE;
+            }
+            int rotuloVerdadeiro = alvoAresta(b, verdadeiro, 0), rotuloFalso = alvoAresta(b, falso, ocorrenciaFalso);
+            if (comparacao != null && testaParidade(comparacao, condicao)) {
+                // Desordenada: == é falsa e != é verdadeira; depois do jp, je/jne são exatos.
+                boolean igual = condicao == Instrucao.Condicao.E;
+                codigo.add(Instrucao.salto(Instrucao.Condicao.P, igual ? rotuloFalso : rotuloVerdadeiro));
+            }
+            if (falso == proximo && rotuloFalso == rotulo(falso)) {
+                codigo.add(Instrucao.salto(condicao, rotuloVerdadeiro));
+            } else if (verdadeiro == proximo && rotuloVerdadeiro == rotulo(verdadeiro)) {
+                codigo.add(Instrucao.salto(condicao.inversa(), rotuloFalso));
+            } else {
+                codigo.add(Instrucao.salto(condicao, rotuloVerdadeiro));
+                codigo.add(Instrucao.salto(rotuloFalso));
+            }
+        }
+
+        // Rótulo para onde a aresta salta: o próprio bloco, ou um bloco com as cópias dos PHIs
+        // (emitido no fim), já que elas não podem ficar antes do desvio.
+        private int alvoAresta(BlocoIR origem, BlocoIR destino, int ocorrencia) {
+            if (copias(origem, destino, ocorrencia).isEmpty()) return rotulo(destino);
+            Aresta a = new Aresta(origem, destino, ocorrencia, novoRotulo());
+            arestas.add(a);
+            return a.rotulo;
+        }
+
+        // Cópias (destino, origem) dos PHIs de destino para a aresta; sem as que já são o mesmo operando.
+        private List<Operando[]> copias(BlocoIR origem, BlocoIR destino, int ocorrencia) {
+            int phis = destino.quantidadePhis();
+            if (phis == 0) return Collections.emptyList();
+            int k = indiceAresta(origem, destino, ocorrencia);
+            List<Operando[]> copias = new ArrayList<>(phis);
+            for (int i = 0; i < phis; i++) {
+                InstrucaoIR phi = destino.instrucoes.get(i);
+                if (usos[phi.destino.temporario] == 0) continue;
+                Operando d = destino(phi), o = operando(phi.argumento(k));
+                if (!d.equals(o)) copias.add(new Operando[]{d, o});
+            }
+            return copias;
+        }
+
+        // Cópias paralelas: cada destino recebe o valor que a origem tinha antes de todas elas.
+        // Uma cópia é feita quando nenhuma outra ainda lê o seu destino; num ciclo, o valor de um
+        // destino é salvo num virtual novo antes.
+        private void copiarEmParalelo(List<Operando[]> copias) {
+            List<Operando[]> pendentes = new ArrayList<>(copias);
+            while (!pendentes.isEmpty()) {
+                boolean copiou = false;
+                for (Iterator<Operando[]> it = pendentes.iterator(); it.hasNext(); ) {
+                    Operando[] c = it.next();
+                    boolean lido = false;
+                    for (Operando[] outra : pendentes) lido |= outra != c && outra[1].equals(c[0]);
+                    if (!lido) {
+                        mover(c[0], c[1]);
+                        it.remove();
+                        copiou = true;
+                    }
+                }
+                if (!copiou) {
+                    Operando destino = pendentes.get(0)[0];
+                    Operando salvo = Operando.virtual(virtuais++, destino.classe);
+                    mover(salvo, destino);
+                    for (Operando[] c : pendentes) {
+                        if (c[1].equals(destino)) c[1] = salvo;
+                    }
+                }
+            }
+        }
+
+        // Retira os rótulos que nenhum salto usa, para o alocador ver blocos maiores.
+        private void removerRotulosSemUso() {
+            Set<Integer> usados = new HashSet<>();
+            for (Instrucao ins : codigo) {
+                if (ins.op == Instrucao.Op.JMP || ins.op == Instrucao.Op.JCC) usados.add(ins.destino.valor);
+            }
+            codigo.removeIf(ins -> ins.op == Instrucao.Op.ROTULO && !usados.contains(ins.destino.valor));
+        }
+
+        /// Instruções
+
+        private void aritmetica(InstrucaoIR ins) {
+            boolean real = ins.destino.tipo == Tipo.FLOAT;
+            Operando d = destino(ins), a = operando(ins.argumento(0)), b = operando(ins.argumento(1));
+            Instrucao.Op op;
+            switch (ins.op) {
+                case SOMA: op = real ? Instrucao.Op.ADDSS : Instrucao.Op.ADD; break;
+                case SUBTRACAO: op = real ? Instrucao.Op.SUBSS : Instrucao.Op.SUB; break;
+                case MULTIPLICACAO: op = real ? Instrucao.Op.MULSS : Instrucao.Op.IMUL; break;
+                case DIVISAO:
+                    if (real) {
+                        op = Instrucao.Op.DIVSS;
+                        break;
+                    }
+                    dividir(d, a, b, EAX);
+                    return;
+                default:
+                    if (real) restoReal(d, a, b);
+                    else dividir(d, a, b, EDX);
+                    return;
+            }
+            if (d.equals(b) && !d.equals(a)) {
+                if (ins.op == InstrucaoIR.Op.SOMA || ins.op == InstrucaoIR.Op.MULTIPLICACAO) {
+                    emitir(op, d, a);
+                    return;
+                }
+                // d = a - d: calculado num virtual novo.
+                Operando t = novo(d.classe);
+                mover(t, a);
+                emitir(op, t, b);
+                mover(d, t);
+                return;
+            }
+            mover(d, a);
+            emitir(op, d, b);
+        }
+
+        // idiv: dividendo em edx:eax; quociente em eax e resto em edx.
+        private void dividir(Operando d, Operando a, Operando b, Operando resultado) {
+            if (b.tipo == Operando.Tipo.IMEDIATO) b = copia(b, Operando.Classe.INTEIRO);
+            emitir(Instrucao.Op.MOV, EAX, a);
+            codigo.add(Instrucao.de(Instrucao.Op.CDQ));
+            emitir(Instrucao.Op.IDIV, b);
+            emitir(Instrucao.Op.MOV, d, resultado);
+        }
+
+        // a % b = a - trunc(a / b) * b
+        private void restoReal(Operando d, Operando a, Operando b) {
+            Operando t = copia(a, Operando.Classe.REAL), q = copia(a, Operando.Classe.REAL);
+            emitir(Instrucao.Op.DIVSS, q, b);
+            emitir(Instrucao.Op.CVTTSS2SI, EAX, q);
+            emitir(Instrucao.Op.CVTSI2SS, q, EAX);
+            emitir(Instrucao.Op.MULSS, q, b);
+            emitir(Instrucao.Op.SUBSS, t, q);
+            mover(d, t);
+        }
+
+        private void negar(InstrucaoIR ins) {
+            Operando d = destino(ins);
+            mover(d, operando(ins.argumento(0)));
+            if (ins.destino.tipo == Tipo.FLOAT) {
+                // Inverte o bit de sinal.
+                emitir(Instrucao.Op.MOVD, EAX, d);
+                emitir(Instrucao.Op.XOR, EAX, Operando.imediato(Integer.MIN_VALUE));
+                emitir(Instrucao.Op.MOVD, d, EAX);
+            } else {
+                emitir(Instrucao.Op.NEG, d);
+            }
+        }
+
+        // Compara os argumentos da COMPARACAO e retorna a condição verdadeira quando a relação vale
+        // (para == e != entre floats, também é preciso olhar a paridade: ver testaParidade).
+        private Instrucao.Condicao comparar(InstrucaoIR ins) {
+            Tipo tipo = ins.argumento(0).tipo;
+            Operando a = operando(ins.argumento(0)), b = operando(ins.argumento(1));
+            Instrucao.Condicao condicao = condicao(ins.comparacao, tipo == Tipo.FLOAT);
+            if (tipo == Tipo.FLOAT) {
+                if (condicao == Instrucao.Condicao.B || condicao == Instrucao.Condicao.BE) {
+                    // jb/jbe seriam verdadeiros com NaN (CF = 1); a > b e a >= b não são.
+                    emitir(Instrucao.Op.UCOMISS, b, a);
+                    return condicao.trocada();
+                }
+                emitir(Instrucao.Op.UCOMISS, a, b);
+                return condicao;
+            }
+            if (tipo == Tipo.STRING) {
+                chamarC("strcmp", new Operando[]{a, b}, new boolean[2]);
+                emitir(Instrucao.Op.CMP, EAX, Operando.imediato(0));
+                return condicao;
+            }
+            if (!podeSerDestino(a)) {
+                if (podeSerDestino(b)) {
+                    Operando troca = a;
+                    a = b;
+                    b = troca;
+                    condicao = condicao.trocada();
+                } else {
+                    a = copia(a, Operando.Classe.INTEIRO);
+                }
+            }
+            emitir(Instrucao.Op.CMP, a, b);
+            return condicao;
+        }
+
+        // == ou != entre floats: o resultado de je/jne (sete/setne) depende também de PF.
+        private boolean testaParidade(InstrucaoIR comparacao, Instrucao.Condicao condicao) {
+            return comparacao.argumento(0).tipo == Tipo.FLOAT
+                    && (condicao == Instrucao.Condicao.E || condicao == Instrucao.Condicao.NE);
+        }
+
+        private Instrucao.Condicao condicao(AnalisadorLexico.TokenType op, boolean semSinal) {
+            switch (op) {
+                case EQUAL: return Instrucao.Condicao.E;
+                case NOTEQUAL: return Instrucao.Condicao.NE;
+                case LESSTHAN: return semSinal ? Instrucao.Condicao.B : Instrucao.Condicao.L;
+                case LESSEQUAL: return semSinal ? Instrucao.Condicao.BE : Instrucao.Condicao.LE;
+                case GREATERTHAN: return semSinal ? Instrucao.Condicao.A : Instrucao.Condicao.G;
+                default: return semSinal ? Instrucao.Condicao.AE : Instrucao.Condicao.GE;
+            }
+        }
+
+        // Grava o valor na posição de memória (variável estática ou posição da pilha).
+        private void guardar(Operando memoria, ValorIR v) {
+            if (v.ehConstante() && v.tipo == Tipo.FLOAT) {
+                // Os bits do float como imediato, sem passar por xmm.
+                emitir(Instrucao.Op.MOV, memoria, bitsReal(v));
+            } else {
+                emitir(v.tipo == Tipo.FLOAT ? Instrucao.Op.MOVSS : Instrucao.Op.MOV, memoria, operando(v));
+            }
+        }
+
+        private void ler(InstrucaoIR ins) {
+            Tipo tipo = ins.destino.tipo;
+            Operando d = destino(ins);
+            if (tipo == Tipo.STRING) {
+                chamarC("malloc", new Operando[]{Operando.imediato(TAMANHO_LEITURA)}, new boolean[1]);
+                emitir(Instrucao.Op.MOV, d, EAX);
+                chamarC("scanf", new Operando[]{Operando.enderecoDado(texto("%" + (TAMANHO_LEITURA - 1) + "s")), d},
+                        new boolean[2]);
+                return;
+            }
+            // scanf grava na pilha; se a leitura falhar, fica o valor anterior (char: 0, pois %c
+            // grava só um byte).
+            if (leitura == null) {
+                quadro += 4;
+                leitura = Operando.memoria(Registrador.EBP, -quadro);
+            }
+            if (ins.argumentos.isEmpty()) emitir(Instrucao.Op.MOV, leitura, Operando.imediato(0));
+            else guardar(leitura, ins.argumento(0));
+            String formato = tipo == Tipo.FLOAT ? "%f" : tipo == Tipo.CHAR ? " %c" : "%d";
+            Operando endereco = novo(Operando.Classe.INTEIRO);
+            emitir(Instrucao.Op.LEA, endereco, leitura.comTamanho(0));
+            chamarC("scanf", new Operando[]{Operando.enderecoDado(texto(formato)), endereco}, new boolean[2]);
+            mover(d, leitura);
+        }
+
+        // print: uma chamada a printf com o formato montado a partir das partes.
+        private void escrever(InstrucaoIR ins) {
+            List<Operando> argumentos = new ArrayList<>();
+            List<Boolean> reais = new ArrayList<>();
+            String formato = formatar(ins.argumentos, argumentos, reais) + "\n";
+            argumentos.add(0, Operando.enderecoDado(texto(formato)));
+            reais.add(0, false);
+            chamarC("printf", argumentos.toArray(new Operando[0]), paraVetor(reais));
+        }
+
+        private void chamar(InstrucaoIR ins) {
+            int n = ins.argumentos.size();
+            Operando[] argumentos = new Operando[n];
+            boolean[] reais = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                ValorIR v = ins.argumento(i);
+                // Um float constante vai para a pilha com os bits como imediato.
+                boolean constante = v.ehConstante() && v.tipo == Tipo.FLOAT;
+                argumentos[i] = constante ? bitsReal(v) : operando(v);
+                reais[i] = v.tipo == Tipo.FLOAT && !constante;
+            }
+            int bytes = 4 * n;
+            int ajuste = alinhar(bytes);
+            if (ajuste > 0) emitir(Instrucao.Op.SUB, ESP, Operando.imediato(ajuste));
+            for (int k = n - 1; k >= 0; k--) {
+                Operando v = argumentos[k];
+                if (reais[k] && !v.ehMemoria()) {
+                    emitir(Instrucao.Op.SUB, ESP, Operando.imediato(4));
+                    emitir(Instrucao.Op.MOVSS, Operando.memoria(Registrador.ESP, 0), v);
+                } else {
+                    emitir(Instrucao.Op.PUSH, v);
+                }
+            }
+            emitir(Instrucao.Op.CALL, Operando.endereco(ins.simbolo));
+            if (bytes + ajuste > 0) emitir(Instrucao.Op.ADD, ESP, Operando.imediato(bytes + ajuste));
+            if (usos[ins.destino.temporario] > 0) {
+                emitir(ins.destino.tipo == Tipo.FLOAT ? Instrucao.Op.MOVD : Instrucao.Op.MOV, destino(ins), EAX);
+            }
+        }
+
+        // Concatenação fora do print: snprintf(NULL, 0, ...) mede, malloc reserva e snprintf escreve.
+        private void concatenar(InstrucaoIR ins) {
+            List<Operando> argumentos = new ArrayList<>();
+            List<Boolean> reais = new ArrayList<>();
+            Operando formato = Operando.enderecoDado(texto(formatar(ins.argumentos, argumentos, reais)));
+            argumentos.add(0, formato);
+            reais.add(0, false);
+            argumentos.add(0, Operando.imediato(0));
+            reais.add(0, false);
+            argumentos.add(0, Operando.imediato(0));
+            reais.add(0, false);
+            Operando[] vetor = argumentos.toArray(new Operando[0]);
+            boolean[] tipos = paraVetor(reais);
+            chamarC("snprintf", vetor, tipos);
+            Operando tamanho = novo(Operando.Classe.INTEIRO);
+            emitir(Instrucao.Op.MOV, tamanho, EAX);
+            emitir(Instrucao.Op.ADD, tamanho, Operando.imediato(1));
+            chamarC("malloc", new Operando[]{tamanho}, new boolean[1]);
+            // O destino pode dividir o virtual com uma das partes, que ainda vai ser lida.
+            Operando buffer = novo(Operando.Classe.INTEIRO);
+            emitir(Instrucao.Op.MOV, buffer, EAX);
+            vetor[0] = buffer;
+            vetor[1] = tamanho;
+            chamarC("snprintf", vetor, tipos);
+            mover(destino(ins), buffer);
+        }
+
+        // Formato printf das partes de uma concatenação (strings constantes entram direto no
+        // formato); os valores das demais partes vão para argumentos (floats como double).
+        private String formatar(List<ValorIR> partes, List<Operando> argumentos, List<Boolean> reais) {
+            StringBuilder formato = new StringBuilder();
+            for (ValorIR parte : partes) {
+                if (parte.ehConstante() && parte.tipo == Tipo.STRING) {
+                    formato.append(parte.texto.replace("%", "%%"));
+                    continue;
+                }
+                Operando v = operando(parte);
+                switch (parte.tipo) {
+                    case FLOAT: formato.append("%f"); break;
+                    case CHAR: formato.append("%c"); break;
+                    case BOOL: formato.append("%s"); v = textoLogico(v); break;
+                    case STRING: formato.append("%s"); break;
+                    default: formato.append("%d"); break;
+                }
+                argumentos.add(v);
+                reais.add(parte.tipo == Tipo.FLOAT);
+            }
+            return formato.toString();
+        }
+
+        // Endereço de "true" ou "false" conforme o valor lógico.
+        private Operando textoLogico(Operando v) {
+            Operando verdadeiro = Operando.enderecoDado(texto("true"));
+            Operando falso = Operando.enderecoDado(texto("false"));
+            if (v.tipo == Operando.Tipo.IMEDIATO) return v.valor != 0 ? verdadeiro : falso;
+            Operando t = novo(Operando.Classe.INTEIRO);
+            int rotulo = novoRotulo();
+            emitir(Instrucao.Op.MOV, t, falso);
+            emitir(Instrucao.Op.CMP, v, Operando.imediato(0));
+            codigo.add(Instrucao.salto(Instrucao.Condicao.E, rotulo));
+            emitir(Instrucao.Op.MOV, t, verdadeiro);
+            codigo.add(Instrucao.rotulo(rotulo));
+            return t;
+        }
+
+        // Chamada a uma função da biblioteca C; argumentos com duplo[i] são floats passados como double.
+        private void chamarC(String nome, Operando[] argumentos, boolean[] duplo) {
+            int bytes = 0;
+            for (boolean d : duplo) bytes += d ? 8 : 4;
+            int ajuste = alinhar(bytes);
+            if (ajuste > 0) emitir(Instrucao.Op.SUB, ESP, Operando.imediato(ajuste));
+            for (int k = argumentos.length - 1; k >= 0; k--) {
+                if (duplo[k]) {
+                    emitir(Instrucao.Op.SUB, ESP, Operando.imediato(8));
+                    emitir(Instrucao.Op.CVTSS2SD, XMM7, argumentos[k]);
+                    emitir(Instrucao.Op.MOVSD, Operando.memoria(Registrador.ESP, 0, 8), XMM7);
+                } else {
+                    emitir(Instrucao.Op.PUSH, argumentos[k]);
+                }
+            }
+            emitir(Instrucao.Op.CALL, Operando.endereco(nome));
+            emitir(Instrucao.Op.ADD, ESP, Operando.imediato(bytes + ajuste));
+        }
+
+        // Bytes a reservar antes dos argumentos para a pilha ficar alinhada em 16 na chamada.
+        private int alinhar(int bytes) {
+            return (16 - bytes % 16) % 16;
+        }
+
+        /// Auxiliares
+
+        // Operando de um valor: virtual do temporário, parâmetro na pilha, imediato (int, bool,
+        // char), float em .data ou endereço de uma string em .data.
+        private Operando operando(ValorIR v) {
+            if (v.ehTemporario()) {
+                int t = v.temporario;
+                if (parametro[t] >= 0) return posicaoParametro(parametro[t]);
+                return Operando.virtual(grupo(t), v.tipo == Tipo.FLOAT ? Operando.Classe.REAL : Operando.Classe.INTEIRO);
+            }
+            switch (v.tipo) {
+                case FLOAT: return constanteReal(v.real);
+                case STRING: return Operando.enderecoDado(texto(v.texto));
+                default: return Operando.imediato(v.inteiro);
+            }
+        }
+
+        private Operando destino(InstrucaoIR ins) {
+            return operando(ins.destino);
+        }
+
+        private Operando posicaoParametro(int i) {
+            return Operando.memoria(Registrador.EBP, 8 + 4 * i);
+        }
+
+        // Float em .data; valores que o NASM não lê em decimal (expoente, infinito, NaN) vão pelos bits.
+        private Operando constanteReal(float valor) {
+            String decimal = Float.toString(valor);
+            boolean simples = Float.isFinite(valor) && decimal.indexOf('E') < 0;
+            return Operando.memoriaDado(dado(simples ? "dd " + decimal
+                    : String.format("dd 0x%08x", Float.floatToRawIntBits(valor))));
+        }
+
+        // Bits de uma constante float, como imediato.
+        private Operando bitsReal(ValorIR v) {
+            return Operando.imediato(Float.floatToRawIntBits(v.real));
+        }
+
+        // Operandos que podem ser o primeiro de cmp (não imediatos).
+        private boolean podeSerDestino(Operando v) {
+            return v.tipo != Operando.Tipo.IMEDIATO && v.tipo != Operando.Tipo.ENDERECO;
+        }
+
+        private void mover(Operando destino, Operando origem) {
+            if (destino.equals(origem)) return;
+            emitir(destino.classe == Operando.Classe.REAL ? Instrucao.Op.MOVSS : Instrucao.Op.MOV, destino, origem);
+        }
+
+        private Operando copia(Operando v, Operando.Classe classe) {
+            Operando t = novo(classe);
+            mover(t, v);
+            return t;
+        }
+
+        private Operando novo(Operando.Classe classe) {
+            return Operando.virtual(virtuais++, classe);
+        }
+
+        private int rotulo(BlocoIR b) {
+            return 1 + b.numero;
+        }
+
+        private int novoRotulo() {
+            return rotulos++;
+        }
+
+        private void emitir(Instrucao.Op op, Operando destino) {
+            codigo.add(Instrucao.de(op, destino));
+        }
+
+        private void emitir(Instrucao.Op op, Operando destino, Operando origem) {
+            codigo.add(Instrucao.de(op, destino, origem));
+        }
+
+        // Id do dado com essa definição (reaproveitado se já existir no fragmento).
+        private int dado(String definicao) {
+            Integer id = indiceDados.get(definicao);
+            if (id == null) {
+                id = dados.size();
+                dados.add(definicao);
+                indiceDados.put(definicao, id);
+            }
+            return id;
+        }
+
+        // String terminada em 0, em UTF-8; bytes fora do ASCII imprimível vão como números.
+        private int texto(String conteudo) {
+            StringBuilder sb = new StringBuilder("db ");
+            boolean aberta = false;
+            for (byte b : conteudo.getBytes(StandardCharsets.UTF_8)) {
+                int c = b & 0xFF;
+                if (c >= 0x20 && c < 0x7F && c != '"') {
+                    if (!aberta) {
+                        sb.append('"');
+                        aberta = true;
+                    }
+                    sb.append((char) c);
+                } else {
+                    if (aberta) {
+                        sb.append("\", ");
+                        aberta = false;
+                    }
+                    sb.append(c).append(", ");
+                }
+            }
+            if (aberta) sb.append("\", ");
+            return dado(sb.append('0').toString());
+        }
+    }
+
+    // Aresta de um desvio para um bloco com PHIs: as cópias ficam num bloco próprio (rótulo).
+    private static final class Aresta {
+        final BlocoIR origem, destino;
+        final int ocorrencia, rotulo;
+
+        Aresta(BlocoIR origem, BlocoIR destino, int ocorrencia, int rotulo) {
+            this.origem = origem;
+            this.destino = destino;
+            this.ocorrencia = ocorrencia;
+            this.rotulo = rotulo;
+        }
+    }
+
+    private static boolean[] paraVetor(List<Boolean> valores) {
+        boolean[] vetor = new boolean[valores.size()];
+        for (int i = 0; i < vetor.length; i++) vetor[i] = valores.get(i);
+        return vetor;
+    }
+}
@@ -0,0 +1,80 @@
+/*GerenciadorPassos - Sequência de passos aplicada ao código intermediário
+Executa os passos na ordem em que foram adicionados. Com a verificação ligada (propriedade
+macslang.verificarIR=true, ou o construtor), o VerificadorIR roda antes do primeiro passo e
+depois de cada um, e um erro aponta o passo que deixou o código inválido. A tabela de resultados
+das funções puras recursivas (ver FuncoesPuras) é ligada com macslang.memoizar=true.
+Também conta, por passo, quantas vezes ele rodou e quantas vezes mudou o código.
+ */
+// GerenciadorPassos.java
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class GerenciadorPassos {
+    private final List<PassoIR> passos = new ArrayList<>();
+    private final List<int[]> estatisticas = new ArrayList<>();
+    private final boolean verificar;
+
+    public GerenciadorPassos(boolean verificar) {
+        this.verificar = verificar;
+    }
+
+    /** Sequência usada pelo compilador. */
+    public static GerenciadorPassos padrao() {
+        return new GerenciadorPassos(Boolean.getBoolean("macslang.verificarIR"))
+                .adicionar(new PropagacaoConstantes())
+                .adicionar(new SimplificacaoFluxo())
+                .adicionar(new RecursaoCauda())
+                .adicionar(new OtimizacaoLacos())
+                .adicionar(new PropagacaoConstantes())
+                // Antes da expansão, que trocaria as chamadas puras com argumentos constantes pelo corpo
+                // (ex.: uma recursão em cauda já virada laço); depois dela, para as que ficaram constantes.
+                .adicionar(new FuncoesPuras(false))
+                .adicionar(new ExpansaoEmLinha())
+                .adicionar(new FuncoesPuras(Boolean.getBoolean("macslang.memoizar")))
+                .adicionar(new PropagacaoConstantes())
+                .adicionar(new SimplificacaoFluxo())
+                .adicionar(new RemocaoSemUso());
+    }
+
+    public GerenciadorPassos adicionar(PassoIR passo) {
+        passos.add(passo);
+        estatisticas.add(new int[2]);
+        return this;
+    }
+
+    public List<PassoIR> passos() {
+        return Collections.unmodifiableList(passos);
+    }
+
+    /** Aplica os passos ao programa; retorna se algum deles mudou o código. */
+    public boolean executar(ProgramaIR programa) {
+        if (verificar) VerificadorIR.verificar(programa);
+        boolean mudou = false;
+        for (int i = 0; i < passos.size(); i++) {
+            PassoIR passo = passos.get(i);
+            boolean mudouPasso = passo.executar(programa);
+            estatisticas.get(i)[0]++;
+            if (mudouPasso) estatisticas.get(i)[1]++;
+            mudou |= mudouPasso;
+            if (verificar) {
+                try {
+                    VerificadorIR.verificar(programa);
+                } catch (IllegalStateException e) {
+                    throw new IllegalStateException("Depois do passo '" + passo.nome() + "': " + e.getMessage(), e);
+                }
+            }
+        }
+        return mudou;
+    }
+
+    /** Texto com, para cada passo, quantas vezes rodou e quantas mudou o código. */
+    public String resumo() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < passos.size(); i++) {
+            int[] e = estatisticas.get(i);
+            sb.append(String.format("  %-30s %6d execuções %6d com mudanças%n", passos.get(i).nome(), e[0], e[1]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,130 @@
+/*GrafoChamadas - Grafo de chamadas entre as funções do código intermediário
+Os vértices são as cópias das funções do programa (ProgramaIR.copias) e as funções que elas e os
+trechos chamam, direta ou indiretamente, inclusive as de outras unidades (ProgramaIR.funcao); uma
+chamada para uma função sem cópia conhecida fica só como aresta. As componentes fortemente
+conexas (algoritmo de Tarjan, sem recursão) dizem quais funções são recursivas, direta ou
+indiretamente, e dão uma ordem em que cada função vem depois das que ela chama (fora as da sua
+própria componente).
+ */
+// GrafoChamadas.java
+import java.util.*;
+
+public final class GrafoChamadas {
+    private final Map<String, FuncaoIR> funcoes = new LinkedHashMap<>();
+    // Funções chamadas por cada uma, sem repetição, na ordem em que aparecem.
+    private final Map<String, List<String>> chamadas = new HashMap<>();
+    private final Set<String> recursivas = new HashSet<>();
+    private final List<String> ordem = new ArrayList<>();
+
+    public GrafoChamadas(ProgramaIR programa) {
+        Set<String> vistas = new HashSet<>();
+        Deque<String> pendentes = new ArrayDeque<>(programa.copias().keySet());
+        // Os trechos não têm cópia, mas as funções que eles chamam entram no grafo.
+        for (FuncaoIR f : programa.funcoes) {
+            if (!f.ehTrecho()) continue;
+            for (BlocoIR b : f.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op == InstrucaoIR.Op.CHAMADA) pendentes.add(ins.simbolo);
+                }
+            }
+        }
+        while (!pendentes.isEmpty()) {
+            String nome = pendentes.poll();
+            if (!vistas.add(nome)) continue;
+            FuncaoIR f = programa.funcao(nome);
+            if (f == null) continue;
+            funcoes.put(nome, f);
+            List<String> lista = new ArrayList<>();
+            for (BlocoIR b : f.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op != InstrucaoIR.Op.CHAMADA || lista.contains(ins.simbolo)) continue;
+                    lista.add(ins.simbolo);
+                    pendentes.add(ins.simbolo);
+                }
+            }
+            chamadas.put(nome, lista);
+        }
+        componentes();
+    }
+
+    /** Cópia da função com o rótulo; null se ela não está no grafo. */
+    public FuncaoIR funcao(String nome) {
+        return funcoes.get(nome);
+    }
+
+    /** Rótulos das funções do grafo. */
+    public Set<String> funcoes() {
+        return Collections.unmodifiableSet(funcoes.keySet());
+    }
+
+    /** Funções que a função chama (inclusive as que não estão no grafo). */
+    public List<String> chamadas(String nome) {
+        return chamadas.getOrDefault(nome, Collections.emptyList());
+    }
+
+    /** Se a função chama a si mesma, direta ou indiretamente. */
+    public boolean recursiva(String nome) {
+        return recursivas.contains(nome);
+    }
+
+    /** Funções do grafo, cada uma depois das que ela chama (exceto numa recursão). */
+    public List<String> ordem() {
+        return Collections.unmodifiableList(ordem);
+    }
+
+    private void componentes() {
+        Map<String, Integer> indice = new HashMap<>();
+        Map<String, Integer> menor = new HashMap<>();
+        Deque<String> pilha = new ArrayDeque<>();
+        Set<String> naPilha = new HashSet<>();
+        for (String raiz : funcoes.keySet()) {
+            if (indice.containsKey(raiz)) continue;
+            // Busca em profundidade sem recursão: pilha de (função, próxima chamada).
+            Deque<String> caminho = new ArrayDeque<>();
+            Deque<Integer> proxima = new ArrayDeque<>();
+            caminho.push(raiz);
+            proxima.push(0);
+            indice.put(raiz, indice.size());
+            menor.put(raiz, indice.get(raiz));
+            pilha.push(raiz);
+            naPilha.add(raiz);
+            while (!caminho.isEmpty()) {
+                String v = caminho.peek();
+                int i = proxima.pop();
+                List<String> sucessores = chamadas(v);
+                if (i < sucessores.size()) {
+                    proxima.push(i + 1);
+                    String w = sucessores.get(i);
+                    if (!funcoes.containsKey(w)) continue;
+                    if (!indice.containsKey(w)) {
+                        indice.put(w, indice.size());
+                        menor.put(w, indice.get(w));
+                        pilha.push(w);
+                        naPilha.add(w);
+                        caminho.push(w);
+                        proxima.push(0);
+                    } else if (naPilha.contains(w)) {
+                        menor.put(v, Math.min(menor.get(v), indice.get(w)));
+                    }
+                    continue;
+                }
+                caminho.pop();
+                if (!caminho.isEmpty()) {
+                    String pai = caminho.peek();
+                    menor.put(pai, Math.min(menor.get(pai), menor.get(v)));
+                }
+                if (!menor.get(v).equals(indice.get(v))) continue;
+                // v é a raiz de uma componente: as funções acima dele na pilha.
+                List<String> componente = new ArrayList<>();
+                String w;
+                do {
+                    w = pilha.pop();
+                    naPilha.remove(w);
+                    componente.add(w);
+                } while (!w.equals(v));
+                ordem.addAll(componente);
+                if (componente.size() > 1 || chamadas(v).contains(v)) recursivas.addAll(componente);
+            }
+        }
+    }
+}
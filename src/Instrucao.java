@@ -0,0 +1,186 @@
+/*Instrucao - Uma instrução x86 (sintaxe NASM) do código gerado
+O GeradorCodigo produz listas de instruções com registradores virtuais; o AlocadorRegistradores
+troca os virtuais por registradores físicos ou posições na pilha e corrige as combinações de
+operandos que o x86 não aceita. Só então as instruções viram texto (texto()).
+Cada operação sabe quais operandos lê e escreve e quais registradores físicos altera sem que
+apareçam como operando (ex.: call altera eax, ecx, edx e os xmm; cdq altera edx).
+Rótulos locais são instruções ROTULO, cujo operando é o número do rótulo.
+ */
+// Instrucao.java
+import java.util.EnumSet;
+import java.util.Set;
+
+public final class Instrucao {
+    // Uso de um operando pela operação.
+    static final int NENHUM = 0, LE = 1, ESCREVE = 2, LE_ESCREVE = LE | ESCREVE;
+
+    public enum Op {
+        MOV("mov", ESCREVE, LE), MOVZX("movzx", ESCREVE, LE), LEA("lea", ESCREVE, NENHUM),
+        ADD("add", LE_ESCREVE, LE), SUB("sub", LE_ESCREVE, LE), IMUL("imul", LE_ESCREVE, LE),
+        AND("and", LE_ESCREVE, LE), OR("or", LE_ESCREVE, LE), XOR("xor", LE_ESCREVE, LE), NEG("neg", LE_ESCREVE, NENHUM),
+        CMP("cmp", LE, LE), TEST("test", LE, LE), CDQ("cdq", NENHUM, NENHUM), IDIV("idiv", LE, NENHUM),
+        PUSH("push", LE, NENHUM), POP("pop", ESCREVE, NENHUM),
+        CALL("call", NENHUM, NENHUM), RET("ret", NENHUM, NENHUM),
+        JMP("jmp", NENHUM, NENHUM), JCC("j", NENHUM, NENHUM), SETCC("set", ESCREVE, NENHUM),
+        MOVSS("movss", ESCREVE, LE), MOVSD("movsd", ESCREVE, LE), MOVD("movd", ESCREVE, LE),
+        ADDSS("addss", LE_ESCREVE, LE), SUBSS("subss", LE_ESCREVE, LE),
+        MULSS("mulss", LE_ESCREVE, LE), DIVSS("divss", LE_ESCREVE, LE), UCOMISS("ucomiss", LE, LE),
+        CVTSI2SS("cvtsi2ss", ESCREVE, LE), CVTSS2SD("cvtss2sd", ESCREVE, LE),
+        CVTTSS2SI("cvttss2si", ESCREVE, LE),
+        ROTULO("", NENHUM, NENHUM);
+
+        public final String nome;
+        final int destino, origem;
+
+        Op(String nome, int destino, int origem) {
+            this.nome = nome;
+            this.destino = destino;
+            this.origem = origem;
+        }
+    }
+
+    /** Condições de jcc/setcc; as sem sinal (A, AE) são as usadas após ucomiss, e P (paridade) indica
+     *  que um dos operandos do ucomiss era NaN. */
+    public enum Condicao {
+        E("e"), NE("ne"), L("l"), LE("le"), G("g"), GE("ge"), A("a"), AE("ae"), B("b"), BE("be"),
+        P("p"), NP("np");
+
+        public final String sufixo;
+
+        Condicao(String sufixo) {
+            this.sufixo = sufixo;
+        }
+
+        /** Condição oposta (verdadeira exatamente quando esta é falsa). */
+        public Condicao inversa() {
+            switch (this) {
+                case E: return NE;
+                case NE: return E;
+                case L: return GE;
+                case LE: return G;
+                case G: return LE;
+                case GE: return L;
+                case A: return BE;
+                case AE: return B;
+                case B: return AE;
+                case BE: return A;
+                case P: return NP;
+                default: return P;
+            }
+        }
+
+        /** A mesma comparação com os operandos trocados (a < b  <=>  b > a). */
+        public Condicao trocada() {
+            switch (this) {
+                case L: return G;
+                case LE: return GE;
+                case G: return L;
+                case GE: return LE;
+                case A: return B;
+                case AE: return BE;
+                case B: return A;
+                case BE: return AE;
+                default: return this;
+            }
+        }
+    }
+
+    private static final Set<Registrador> ALTERADOS_CHAMADA = EnumSet.of(Registrador.EAX, Registrador.ECX,
+            Registrador.EDX, Registrador.XMM0, Registrador.XMM1, Registrador.XMM2, Registrador.XMM3,
+            Registrador.XMM4, Registrador.XMM5, Registrador.XMM6, Registrador.XMM7);
+    private static final Set<Registrador> ALTERADOS_DIVISAO = EnumSet.of(Registrador.EAX, Registrador.EDX);
+    private static final Set<Registrador> NENHUM_ALTERADO = EnumSet.noneOf(Registrador.class);
+
+    public final Op op;
+    public final Operando destino;
+    public final Operando origem;
+    // Só para JCC e SETCC.
+    public final Condicao condicao;
+
+    private Instrucao(Op op, Operando destino, Operando origem, Condicao condicao) {
+        this.op = op;
+        this.destino = destino;
+        this.origem = origem;
+        this.condicao = condicao;
+    }
+
+    public static Instrucao de(Op op) {
+        return new Instrucao(op, null, null, null);
+    }
+
+    public static Instrucao de(Op op, Operando destino) {
+        return new Instrucao(op, destino, null, null);
+    }
+
+    public static Instrucao de(Op op, Operando destino, Operando origem) {
+        return new Instrucao(op, destino, origem, null);
+    }
+
+    public static Instrucao salto(Condicao condicao, int rotulo) {
+        return new Instrucao(Op.JCC, Operando.rotulo(rotulo), null, condicao);
+    }
+
+    public static Instrucao salto(int rotulo) {
+        return new Instrucao(Op.JMP, Operando.rotulo(rotulo), null, null);
+    }
+
+    /** setcc al */
+    public static Instrucao definirSe(Condicao condicao) {
+        return definirSe(condicao, Registrador.AL);
+    }
+
+    /** setcc al ou setcc ah */
+    public static Instrucao definirSe(Condicao condicao, Registrador registrador) {
+        return new Instrucao(Op.SETCC, Operando.registrador(registrador), null, condicao);
+    }
+
+    public static Instrucao rotulo(int numero) {
+        return new Instrucao(Op.ROTULO, Operando.rotulo(numero), null, null);
+    }
+
+    /** A mesma operação com outros operandos. */
+    public Instrucao com(Operando novoDestino, Operando novaOrigem) {
+        return new Instrucao(op, novoDestino, novaOrigem, condicao);
+    }
+
+    /** Indica se a instrução lê o operando de destino (0) ou de origem (1). */
+    public boolean le(int operando) {
+        return ((operando == 0 ? op.destino : op.origem) & LE) != 0;
+    }
+
+    /** Indica se a instrução escreve no operando de destino (0) ou de origem (1). */
+    public boolean escreve(int operando) {
+        return ((operando == 0 ? op.destino : op.origem) & ESCREVE) != 0;
+    }
+
+    /** Registradores físicos alterados sem aparecerem como operando. */
+    public Set<Registrador> alterados() {
+        switch (op) {
+            case CALL: return ALTERADOS_CHAMADA;
+            case CDQ: case IDIV: return ALTERADOS_DIVISAO;
+            default: return NENHUM_ALTERADO;
+        }
+    }
+
+    /** Termina o bloco básico: depois dela, a execução não segue necessariamente para a próxima. */
+    public boolean encerraBloco() {
+        return op == Op.JMP || op == Op.JCC || op == Op.RET;
+    }
+
+    /** Texto NASM da instrução; baseDados é o número do primeiro dado do fragmento (ver Operando.texto). */
+    public String texto(int baseDados) {
+        if (op == Op.ROTULO) return destino.texto(baseDados) + ":";
+        StringBuilder sb = new StringBuilder(32).append(op.nome);
+        if (condicao != null) sb.append(condicao.sufixo);
+        if (destino != null) {
+            sb.append(' ').append(destino.texto(baseDados));
+            if (origem != null) sb.append(", ").append(origem.texto(baseDados));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return texto(0);
+    }
+}
@@ -0,0 +1,135 @@
+/*InstrucaoIR - Instrução do código intermediário (três endereços, SSA)
+Cada instrução define no máximo um temporário (destino) a partir dos argumentos:
+- PARAMETRO: o i-ésimo parâmetro da função (indice).
+- COPIA, NEGACAO, CONVERSAO (int -> float): um argumento.
+- SOMA, SUBTRACAO, MULTIPLICACAO, DIVISAO, RESTO: dois argumentos do tipo do destino (int ou float).
+- COMPARACAO: dois argumentos do mesmo tipo; operador em comparacao; destino bool.
+- CONCATENACAO: as partes, de qualquer tipo; destino string. ESCREVA: as partes de um print.
+- CHAMADA: argumentos já convertidos para os tipos dos parâmetros; função em funcao/simbolo.
+- CARREGAR / GUARDAR: lê / grava a variável estática (.bss) simbolo.
+- LEIA: lê um valor do tipo do destino; o argumento opcional é o valor anterior da variável,
+  que ela mantém se a leitura falhar.
+- PHI: um argumento por predecessor do bloco, na ordem de BlocoIR.predecessores.
+- Terminadores (última instrução de cada bloco): SALTO (alvos[0]), DESVIO (argumento bool;
+  alvos[0] se verdadeiro, alvos[1] se falso), RETORNO (valor opcional) e ENCERRAR (return fora
+  de função: encerra o programa com o argumento como código de saída).
+Os argumentos e os alvos podem ser trocados pelos passos de otimização.
+ */
+// InstrucaoIR.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class InstrucaoIR {
+    public enum Op {
+        PARAMETRO("param"), COPIA("copia"),
+        SOMA("soma"), SUBTRACAO("sub"), MULTIPLICACAO("mul"), DIVISAO("div"), RESTO("resto"),
+        NEGACAO("neg"), CONVERSAO("conv"), COMPARACAO("cmp"), CONCATENACAO("concat"),
+        CHAMADA("chamada"), CARREGAR("carregar"), GUARDAR("guardar"), LEIA("leia"), ESCREVA("escreva"),
+        PHI("phi"), SALTO("salto"), DESVIO("desvio"), RETORNO("retorno"), ENCERRAR("encerrar");
+
+        public final String nome;
+
+        Op(String nome) {
+            this.nome = nome;
+        }
+
+        /** Encerra o bloco básico. */
+        public boolean terminador() {
+            return this == SALTO || this == DESVIO || this == RETORNO || this == ENCERRAR;
+        }
+
+        /** Tem efeito além do valor produzido (não pode ser removida só porque o valor não é usado). */
+        public boolean temEfeito() {
+            return this == CHAMADA || this == GUARDAR || this == LEIA || this == ESCREVA || terminador();
+        }
+    }
+
+    public final Op op;
+    // Temporário definido; null se a instrução não produz valor.
+    public final ValorIR destino;
+    public final List<ValorIR> argumentos;
+    // COMPARACAO: operador relacional.
+    public AnalisadorLexico.TokenType comparacao;
+    // CARREGAR/GUARDAR: rótulo da variável estática; CHAMADA: rótulo da função.
+    public String simbolo;
+    // CHAMADA: símbolo da função (tabela de funções).
+    public int funcao = -1;
+    // PARAMETRO: posição do parâmetro.
+    public int indice = -1;
+    // SALTO: 1 alvo; DESVIO: 2.
+    public final BlocoIR[] alvos;
+
+    private InstrucaoIR(Op op, ValorIR destino, List<ValorIR> argumentos, BlocoIR[] alvos) {
+        this.op = op;
+        this.destino = destino;
+        this.argumentos = argumentos;
+        this.alvos = alvos;
+    }
+
+    public static InstrucaoIR de(Op op, ValorIR destino, ValorIR... argumentos) {
+        return new InstrucaoIR(op, destino, new ArrayList<>(Arrays.asList(argumentos)), null);
+    }
+
+    public static InstrucaoIR de(Op op, ValorIR destino, List<ValorIR> argumentos) {
+        return new InstrucaoIR(op, destino, new ArrayList<>(argumentos), null);
+    }
+
+    public static InstrucaoIR comparacao(AnalisadorLexico.TokenType operador, ValorIR destino, ValorIR a, ValorIR b) {
+        InstrucaoIR i = de(Op.COMPARACAO, destino, a, b);
+        i.comparacao = operador;
+        return i;
+    }
+
+    public static InstrucaoIR salto(BlocoIR alvo) {
+        return new InstrucaoIR(Op.SALTO, null, new ArrayList<>(), new BlocoIR[]{alvo});
+    }
+
+    public static InstrucaoIR desvio(ValorIR condicao, BlocoIR verdadeiro, BlocoIR falso) {
+        List<ValorIR> argumentos = new ArrayList<>();
+        argumentos.add(condicao);
+        return new InstrucaoIR(Op.DESVIO, null, argumentos, new BlocoIR[]{verdadeiro, falso});
+    }
+
+    /** Cópia de uma instrução que não é SALTO nem DESVIO, com outro destino e outros argumentos. */
+    public InstrucaoIR copia(ValorIR novoDestino, List<ValorIR> novosArgumentos) {
+        InstrucaoIR c = de(op, novoDestino, novosArgumentos);
+        c.comparacao = comparacao;
+        c.simbolo = simbolo;
+        c.funcao = funcao;
+        c.indice = indice;
+        return c;
+    }
+
+    public ValorIR argumento(int i) {
+        return argumentos.get(i);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (destino != null) sb.append(destino).append(": ").append(destino.tipo).append(" = ");
+        sb.append(op.nome);
+        if (comparacao != null) sb.append(' ').append(simboloComparacao(comparacao));
+        if (simbolo != null) sb.append(' ').append(simbolo);
+        if (indice >= 0) sb.append(' ').append(indice);
+        for (int i = 0; i < argumentos.size(); i++) sb.append(i == 0 ? " " : ", ").append(argumentos.get(i));
+        if (alvos != null) {
+            for (int i = 0; i < alvos.length; i++) {
+                sb.append(i == 0 && argumentos.isEmpty() ? " " : ", ").append(alvos[i].rotulo());
+            }
+        }
+        return sb.toString();
+    }
+
+    static String simboloComparacao(AnalisadorLexico.TokenType operador) {
+        switch (operador) {
+            case EQUAL: return "==";
+            case NOTEQUAL: return "!=";
+            case LESSTHAN: return "<";
+            case LESSEQUAL: return "<=";
+            case GREATERTHAN: return ">";
+            default: return ">=";
+        }
+    }
+}
@@ -5,19 +5,37 @@ Júlia Suriani de O. Silva - 12319522
 Mariana Teixeira Gonçalves - 123115663
 Mateus Mendes Mattos - 123117292
  */
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.PrintStream;
+import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
+        // "--servidor" mantém o compilador residente (ver ServidorCompilador).
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            System.exit(ServidorCompilador.executar(args));
+        }
+        // Opções do modo interativo (ver Verbosidade); "--profile" exibe o perfil das fases no fim.
+        PerfilCompilacao perfil = null;
+        Verbosidade verbosidade = Verbosidade.NORMAL;
+        boolean despejarTokens = false, despejarArvore = false;
+        for (String arg : args) {
+            Verbosidade v = Verbosidade.daOpcao(arg);
+            if (v != null) verbosidade = v;
+            else if (arg.equals("--profile")) perfil = new PerfilCompilacao();
+            else if (arg.equals("--dump-tokens")) despejarTokens = true;
+            else if (arg.equals("--dump-ast")) despejarArvore = true;
+            // Com outros argumentos, compila os arquivos indicados sem o menu interativo.
+            else System.exit(CompiladorLote.executar(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
         String codigo = null;
+        Path arquivo = null;
 
         // Exibe o menu para o usuário escolher a fonte do código.
         System.out.println("Selecione a opção desejada para inserir o código:");
@@ -81,7 +99,8 @@ public class Main {
             System.out.print("Digite o caminho do arquivo: ");
             String caminho = scanner.nextLine();
             try {
-                codigo = Files.readString(Paths.get(caminho));
+                arquivo = Paths.get(caminho);
+                codigo = Files.readString(arquivo);
             } catch (IOException e) {
                 System.err.println("Erro ao ler o arquivo: " + e.getMessage());
                 return;
@@ -91,63 +110,151 @@ public class Main {
             return;
         }
 
+        // Os resultados vão para uma saída com buffer, descarregada só no fim (ou quando encher).
+        SaidaContada bytes = new SaidaContada(new FileOutputStream(FileDescriptor.out));
+        PrintStream out = new PrintStream(new BufferedOutputStream(bytes, 1 << 16), false);
+        boolean normal = verbosidade.peloMenos(Verbosidade.NORMAL);
+        boolean depuracao = verbosidade.peloMenos(Verbosidade.DEPURACAO);
+
         // Exibe o código-fonte que será analisado.
-        System.out.println("\nCódigo a ser compilado:");
-        System.out.println(codigo);
+        if (depuracao) {
+            out.println("\nCódigo a ser compilado:");
+            out.println(codigo);
+        }
+
+        // Os erros de todas as fases vão para o mesmo coletor; o texto só é montado no fim.
+        // O limite pode ser alterado com -Dmacslang.maxErros=N.
+        Compilador compilador = new Compilador(
+                Integer.getInteger("macslang.maxErros", Diagnostics.MAXIMO_PADRAO), perfil);
+        // Só a análise; o assembly é escrito direto na saída na fase 3.
+        Compilador.Resultado resultado = compilador.analisar(codigo);
+        Diagnostics diagnosticos = resultado.diagnosticos;
+
+        // A exibição dos resultados entra no perfil como a fase de saída.
+        PerfilCompilacao.Medicao saida = PerfilCompilacao.iniciar(perfil, PerfilCompilacao.Etapa.SAIDA);
 
         // FASE 1 – Análise Léxica:
-        List<AnalisadorLexico.Token> tokens = AnalisadorLexico.analisar(codigo);
-        System.out.println("\n📌 Tokens gerados:");
-        for (AnalisadorLexico.Token token : tokens) {
-            System.out.println(token);
+        // A lista completa de tokens só é exibida em --debug; --dump-tokens a grava em binário.
+        BufferTokens tokens = resultado.tokens;
+        if (depuracao) {
+            out.println("\n📌 Tokens gerados:");
+            for (int i = 0; i < tokens.tamanho(); i++) out.println(tokens.token(i));
+        } else if (normal) {
+            out.println("\n📌 " + tokens.tamanho() + " tokens gerados.");
+        }
+        ArvoreSintatica arvore = resultado.sintatico.getArvore();
+        if (depuracao) {
+            out.println("\n🌳 Árvore sintática:");
+            out.print(arvore.imprimir(resultado.sintatico.getSimbolos(), resultado.sintatico.getFuncoes()));
+        }
+        Path base = arquivo != null ? arquivo : Paths.get("programa" + CompiladorLote.EXTENSAO);
+        try {
+            if (despejarTokens) {
+                Path destino = CompiladorLote.arquivoComExtensao(base, DespejoBinario.EXTENSAO_TOKENS);
+                DespejoBinario.gravarTokens(tokens, destino);
+                if (normal) out.println("Tokens gravados em " + destino + " (veja com java VisualizadorDespejo).");
+            }
+            if (despejarArvore) {
+                Path destino = CompiladorLote.arquivoComExtensao(base, DespejoBinario.EXTENSAO_ARVORE);
+                DespejoBinario.gravarArvore(arvore, resultado.sintatico.getSimbolos(),
+                        resultado.sintatico.getFuncoes(), destino);
+                if (normal) out.println("AST gravada em " + destino + " (veja com java VisualizadorDespejo).");
+            }
+        } catch (IOException e) {
+            out.flush();
+            System.err.println("Erro ao gravar o despejo: " + e.getMessage());
         }
 
         // FASE 2 – Análise Sintática/Semântica:
-        // Redireciona o System.err para capturar os erros durante o processo.
-        ByteArrayOutputStream bufErr = new ByteArrayOutputStream();
-        PrintStream oldErr = System.err;
-        System.setErr(new PrintStream(bufErr));
-
-        AnalisadorSintatico sintatico = new AnalisadorSintatico(tokens);
-        sintatico.analisarPrograma();
-
-        System.err.flush();
-        System.setErr(oldErr);
-        String erros = bufErr.toString().trim();
-
-        // Verifica e classifica os erros encontrados.
-        boolean sintaticoEncontrado = erros.contains("Erro sintático encontrado");
-        boolean semanticoEncontrado = erros.contains("Erro semântico encontrado");
-
-        System.out.println();
-        if (erros.isEmpty()) {
-            System.out.println("✅ Nenhum erro sintático e/ou semântico foi encontrado.");
-        } else if (sintaticoEncontrado && semanticoEncontrado) {
-            System.out.println("Foram encontrados erros sintáticos e semânticos:");
-            System.out.println(erros);
-        } else if (sintaticoEncontrado) {
-            System.out.println("Foram encontrados os erros sintáticos a seguir:");
-            System.out.println(erros);
-        } else if (semanticoEncontrado) {
-            System.out.println("Foram encontrados os erros semânticos a seguir:");
-            System.out.println(erros);
+        // Classifica os erros encontrados pela contagem de cada fase.
+        if (!diagnosticos.temErros()) {
+            if (normal) out.println("\n✅ Nenhum erro sintático e/ou semântico foi encontrado.");
+        } else {
+            if (normal) out.println("\n" + cabecalhoErros(diagnosticos));
+            out.println(diagnosticos.renderizar());
         }
 
         // FASE 3 – Geração de Código:
-        if (erros.isEmpty()) {
-            System.out.println("\n✅ Compilação bem-sucedida! Gerando código para máquina...");
-
-            // Obtém as tabelas de símbolos a partir do AnalisadorSintatico.
-            Map<String, String> varTable = sintatico.getSymbolTable();
-            Map<String, String> funcTable = sintatico.getFunctionTable();
-
-            // Cria e invoca o gerador de código para gerar o assembly.
-            GeradorCodigo gerador = new GeradorCodigo(varTable, funcTable, codigo);
-            String assembly = gerador.gerarCodigo();
-            System.out.println("\nCódigo Assembly Gerado:\n");
-            System.out.println(assembly);
+        // O assembly não é montado em memória: o gerador escreve direto na saída (fase de geração no perfil).
+        // Em --debug, o código intermediário exibido é o mesmo que vira assembly (os passos rodam uma vez).
+        GeradorCodigo gerador = null;
+        if (resultado.sucesso()) {
+            if (normal) {
+                out.println("\n✅ Compilação bem-sucedida! Gerando código para máquina...");
+            }
+            gerador = compilador.gerador(resultado);
+            ProgramaIR ir = null;
+            if (depuracao) {
+                out.println("\n🧩 Código intermediário (SSA):");
+                ir = compilador.intermediario(gerador);
+                out.print(ir.imprimir());
+                if (!ir.expansoes.isEmpty()) {
+                    out.println("\n📥 Expansão em linha:");
+                    for (String linha : ir.expansoes) out.println("  " + linha);
+                }
+            }
+            if (normal) {
+                out.println("\nCódigo Assembly Gerado:\n");
+            }
+            saida.encerrar(bytes.escritos);
+            Writer escritor = new OutputStreamWriter(out);
+            try (EmissorAssembly emissor = EmissorAssembly.para(escritor)) {
+                compilador.gerar(gerador, ir, emissor);
+            }
+            out.println();
+            if (depuracao) {
+                out.println("\n🔧 Passos do código intermediário:");
+                out.print(gerador.passos().resumo());
+                out.println("\n🔍 Otimização de janela (reescritas por padrão):");
+                out.print(gerador.otimizacaoJanela().resumo());
+            }
         } else {
-            System.out.println("\n❌ Não foi possível gerar código para máquina devido a erros na análise.");
+            if (normal) out.println("\n❌ Não foi possível gerar código para máquina devido a erros na análise.");
+            saida.encerrar(bytes.escritos);
+        }
+        out.flush();
+
+        if (perfil != null) {
+            perfil.contar(PerfilCompilacao.Contador.BYTES, bytes.escritos);
+            System.out.println();
+            perfil.exibir(System.out);
+            if (gerador != null && !depuracao) {
+                // Em --debug os passos já foram exibidos com o código.
+                System.out.println("Passos do código intermediário:");
+                System.out.print(gerador.passos().resumo());
+            }
+        }
+    }
+
+    // Conta os bytes escritos na saída padrão (para o perfil).
+    private static final class SaidaContada extends FilterOutputStream {
+        long escritos;
+
+        SaidaContada(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            escritos++;
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) throws IOException {
+            out.write(b, inicio, tamanho);
+            escritos += tamanho;
+        }
+    }
+
+    // Ex.: "Foram encontrados os erros sintáticos a seguir:" ou "Foram encontrados erros sintáticos e semânticos:".
+    private static String cabecalhoErros(Diagnostics diagnosticos) {
+        List<String> fases = new ArrayList<>();
+        for (Diagnostics.Fase fase : Diagnostics.Fase.values()) {
+            if (diagnosticos.erros(fase) > 0) fases.add(fase.plural);
         }
+        if (fases.size() == 1) return "Foram encontrados os erros " + fases.get(0) + " a seguir:";
+        String ultima = fases.remove(fases.size() - 1);
+        return "Foram encontrados erros " + String.join(", ", fases) + " e " + ultima + ":";
     }
-}
\ No newline at end of file
+}
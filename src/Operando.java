@@ -0,0 +1,168 @@
+/*Operando - Operando de uma instrução x86 gerada
+Os operandos não são texto: o alocador de registradores precisa saber quais são registradores
+virtuais (temporários de expressões, ainda sem registrador físico) e quais são posições de
+memória. O texto só é montado na emissão (ver Instrucao.texto).
+Tipos:
+- REGISTRADOR: registrador físico (Registrador).
+- VIRTUAL: temporário numerado, da classe INTEIRO (registradores de uso geral) ou REAL (xmm).
+- IMEDIATO: constante inteira.
+- MEMORIA: dword/qword em [base + deslocamento] ou [rótulo]; o rótulo pode ser de uma variável
+  estática (.bss) ou de um dado do fragmento (.data).
+- ENDERECO: endereço de um rótulo como imediato (string literal, variável estática, função).
+- ROTULO: rótulo local do procedimento (.L<n>), alvo de saltos.
+ */
+// Operando.java
+import java.util.Objects;
+
+public final class Operando {
+    public enum Tipo { REGISTRADOR, VIRTUAL, IMEDIATO, MEMORIA, ENDERECO, ROTULO }
+
+    /** Classe de um registrador virtual. */
+    public enum Classe { INTEIRO, REAL }
+
+    public final Tipo tipo;
+    public final Registrador registrador;
+    // VIRTUAL: número do temporário; IMEDIATO: valor; MEMORIA: deslocamento; ROTULO: número; dado: id.
+    public final int valor;
+    public final Classe classe;
+    // MEMORIA/ENDERECO: rótulo global (variável estática, função ou função externa); null se não houver.
+    public final String simbolo;
+    // MEMORIA/ENDERECO: id do dado do fragmento (-1 se não for um dado).
+    public final int dado;
+    // MEMORIA: tamanho em bytes (4 ou 8; 0 = sem tamanho, como em lea).
+    public final int tamanho;
+
+    private Operando(Tipo tipo, Registrador registrador, int valor, Classe classe, String simbolo, int dado, int tamanho) {
+        this.tipo = tipo;
+        this.registrador = registrador;
+        this.valor = valor;
+        this.classe = classe;
+        this.simbolo = simbolo;
+        this.dado = dado;
+        this.tamanho = tamanho;
+    }
+
+    private static final Operando[] REGISTRADORES = new Operando[Registrador.values().length];
+
+    static {
+        for (Registrador r : Registrador.values()) {
+            REGISTRADORES[r.ordinal()] = new Operando(Tipo.REGISTRADOR, r, 0, r.classe, null, -1, 0);
+        }
+    }
+
+    public static Operando registrador(Registrador r) {
+        return REGISTRADORES[r.ordinal()];
+    }
+
+    public static Operando virtual(int numero, Classe classe) {
+        return new Operando(Tipo.VIRTUAL, null, numero, classe, null, -1, 0);
+    }
+
+    public static Operando imediato(int valor) {
+        return new Operando(Tipo.IMEDIATO, null, valor, Classe.INTEIRO, null, -1, 0);
+    }
+
+    /** dword [base + deslocamento] */
+    public static Operando memoria(Registrador base, int deslocamento) {
+        return new Operando(Tipo.MEMORIA, base, deslocamento, null, null, -1, 4);
+    }
+
+    public static Operando memoria(Registrador base, int deslocamento, int tamanho) {
+        return new Operando(Tipo.MEMORIA, base, deslocamento, null, null, -1, tamanho);
+    }
+
+    /** dword [simbolo] (variável estática). */
+    public static Operando estatica(String simbolo) {
+        return new Operando(Tipo.MEMORIA, null, 0, null, simbolo, -1, 4);
+    }
+
+    /** dword [dado] (constante do fragmento, ex.: um float). */
+    public static Operando memoriaDado(int dado) {
+        return new Operando(Tipo.MEMORIA, null, 0, null, null, dado, 4);
+    }
+
+    /** Endereço de um símbolo global como imediato. */
+    public static Operando endereco(String simbolo) {
+        return new Operando(Tipo.ENDERECO, null, 0, Classe.INTEIRO, simbolo, -1, 0);
+    }
+
+    /** Endereço de um dado do fragmento (ex.: uma string literal) como imediato. */
+    public static Operando enderecoDado(int dado) {
+        return new Operando(Tipo.ENDERECO, null, 0, Classe.INTEIRO, null, dado, 0);
+    }
+
+    public static Operando rotulo(int numero) {
+        return new Operando(Tipo.ROTULO, null, numero, null, null, -1, 0);
+    }
+
+    /** A mesma posição de memória com outro tamanho (ex.: sem tamanho, para lea). */
+    public Operando comTamanho(int novo) {
+        return new Operando(tipo, registrador, valor, classe, simbolo, dado, novo);
+    }
+
+    public boolean ehMemoria() {
+        return tipo == Tipo.MEMORIA;
+    }
+
+    public boolean ehVirtual() {
+        return tipo == Tipo.VIRTUAL;
+    }
+
+    public boolean ehRegistrador() {
+        return tipo == Tipo.REGISTRADOR;
+    }
+
+    /** Registrador xmm (físico ou virtual da classe REAL). */
+    public boolean ehReal() {
+        return (tipo == Tipo.REGISTRADOR || tipo == Tipo.VIRTUAL) && classe == Classe.REAL;
+    }
+
+    /** Texto do operando; baseDados é o número do primeiro dado do fragmento no programa. */
+    public String texto(int baseDados) {
+        switch (tipo) {
+            case REGISTRADOR: return registrador.nome;
+            case VIRTUAL: return (classe == Classe.REAL ? "%f" : "%t") + valor;
+            case IMEDIATO: return Integer.toString(valor);
+            case ENDERECO: return simbolo != null ? simbolo : rotuloDado(baseDados + dado);
+            case ROTULO: return ".L" + valor;
+            default: break;
+        }
+        StringBuilder sb = new StringBuilder(24);
+        if (tamanho == 4) sb.append("dword ");
+        else if (tamanho == 8) sb.append("qword ");
+        sb.append('[');
+        if (simbolo != null) {
+            sb.append(simbolo);
+        } else if (dado >= 0) {
+            sb.append(rotuloDado(baseDados + dado));
+        } else {
+            sb.append(registrador.nome);
+            if (valor > 0) sb.append(" + ").append(valor);
+            else if (valor < 0) sb.append(" - ").append(-valor);
+        }
+        return sb.append(']').toString();
+    }
+
+    /** Rótulo do n-ésimo dado do programa na seção .data. */
+    public static String rotuloDado(int n) {
+        return "d_" + n;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Operando)) return false;
+        Operando x = (Operando) o;
+        return tipo == x.tipo && registrador == x.registrador && valor == x.valor && classe == x.classe
+                && Objects.equals(simbolo, x.simbolo) && dado == x.dado && tamanho == x.tamanho;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tipo, registrador, valor, classe, simbolo, dado, tamanho);
+    }
+
+    @Override
+    public String toString() {
+        return texto(0);
+    }
+}
@@ -0,0 +1,203 @@
+/*OtimizacaoJanela - Otimização de janela (peephole) sobre as instruções x86 já alocadas
+Percorre a lista de instruções de um procedimento (depois do AlocadorRegistradores, só com
+registradores físicos, e antes de virar texto) olhando até `janela` instruções de cada vez, e
+reescreve os padrões:
+- push x ... pop y: as duas somem (x = y) ou o pop vira mov y, x;
+- mov r, r (e movss): some;
+- mov [m], v ... mov d, [m]: a leitura vira mov d, v (ou some, se d = v), sem ler a memória;
+  entre movss e mov (um xmm e um registrador de uso geral), vira movd d, v;
+- jmp/jcc para um rótulo que vem logo em seguida: some.
+Entre as duas instruções de um padrão só podem estar instruções com operandos explícitos que não
+alterem o que ele usa (nada de rótulos, saltos, chamadas, push/pop ou instruções que alteram
+registradores implícitos); a janela 2 só junta instruções vizinhas. As passadas se repetem
+enquanto houver reescritas, e cada reescrita é contada no seu padrão.
+ */
+// OtimizacaoJanela.java
+import java.util.*;
+
+public final class OtimizacaoJanela {
+    public enum Padrao {
+        PUSH_POP("push/pop redundante"),
+        MOV_MESMO_REGISTRADOR("mov para o mesmo registrador"),
+        LEITURA_APOS_ESCRITA("leitura logo após escrita na memória"),
+        SALTO_PROXIMO("salto para o rótulo seguinte");
+
+        public final String descricao;
+
+        Padrao(String descricao) {
+            this.descricao = descricao;
+        }
+    }
+
+    /** Tamanho da janela usado pelo compilador (propriedade macslang.janela; menos de 2 desliga). */
+    public static final int JANELA_PADRAO = 3;
+
+    private final int janela;
+    private final int[] reescritas = new int[Padrao.values().length];
+
+    public OtimizacaoJanela(int janela) {
+        this.janela = janela;
+    }
+
+    public static OtimizacaoJanela padrao() {
+        return new OtimizacaoJanela(Integer.getInteger("macslang.janela", JANELA_PADRAO));
+    }
+
+    /** Reescreve o código no lugar. */
+    public void otimizar(List<Instrucao> codigo) {
+        if (janela < 2) return;
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (int i = 0; i < codigo.size(); i++) {
+                if (codigo.get(i) != null) mudou |= reescrever(codigo, i);
+            }
+            codigo.removeIf(Objects::isNull);
+        }
+    }
+
+    /** Quantas reescritas do padrão foram feitas até agora. */
+    public int reescritas(Padrao padrao) {
+        return reescritas[padrao.ordinal()];
+    }
+
+    /** Texto com, para cada padrão, quantas reescritas foram feitas. */
+    public String resumo() {
+        StringBuilder sb = new StringBuilder();
+        for (Padrao p : Padrao.values()) {
+            sb.append(String.format("  %-40s %6d%n", p.descricao, reescritas[p.ordinal()]));
+        }
+        return sb.toString();
+    }
+
+    // Tenta os padrões que começam em codigo[i]; as instruções retiradas viram null.
+    private boolean reescrever(List<Instrucao> codigo, int i) {
+        Instrucao ins = codigo.get(i);
+        switch (ins.op) {
+            case MOV: case MOVSS:
+                if (ins.destino.ehRegistrador() && ins.destino.equals(ins.origem)) {
+                    codigo.set(i, null);
+                    return contar(Padrao.MOV_MESMO_REGISTRADOR);
+                }
+                return ins.destino.ehMemoria() && encaminharEscrita(codigo, i);
+            case PUSH:
+                return juntarPushPop(codigo, i);
+            case JMP: case JCC:
+                for (int j = i + 1; j < codigo.size(); j++) {
+                    Instrucao seguinte = codigo.get(j);
+                    if (seguinte == null) continue;
+                    if (seguinte.op != Instrucao.Op.ROTULO) return false;
+                    if (seguinte.destino.valor == ins.destino.valor) {
+                        codigo.set(i, null);
+                        return contar(Padrao.SALTO_PROXIMO);
+                    }
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    // mov [m], v ... mov d, [m]  =>  mov [m], v ... mov d, v
+    private boolean encaminharEscrita(List<Instrucao> codigo, int i) {
+        Instrucao escrita = codigo.get(i);
+        Operando m = escrita.destino, v = escrita.origem;
+        if (m.registrador == Registrador.ESP) return false;
+        int vistas = 1;
+        for (int j = i + 1; j < codigo.size() && vistas < janela; j++) {
+            Instrucao ins = codigo.get(j);
+            if (ins == null) continue;
+            vistas++;
+            if ((ins.op == Instrucao.Op.MOV || ins.op == Instrucao.Op.MOVSS) && m.equals(ins.origem)) {
+                Operando d = ins.destino;
+                if (ins.op == escrita.op) {
+                    codigo.set(j, d.equals(v) ? null : ins.com(d, v));
+                } else if (d.ehRegistrador() && v.ehRegistrador()) {
+                    // Os mesmos 32 bits entre um xmm e um registrador de uso geral.
+                    codigo.set(j, Instrucao.de(Instrucao.Op.MOVD, d, v));
+                } else {
+                    return false;
+                }
+                return contar(Padrao.LEITURA_APOS_ESCRITA);
+            }
+            if (!explicita(ins) || escreveMemoria(ins) || escreve(ins, v)
+                    || (m.registrador != null && escreve(ins, Operando.registrador(m.registrador)))) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // push x ... pop y  =>  (nada) se x = y, ou mov y, x no lugar do pop
+    private boolean juntarPushPop(List<Instrucao> codigo, int i) {
+        Operando x = codigo.get(i).destino;
+        if (usaPilha(x)) return false;
+        int vistas = 1;
+        for (int j = i + 1; j < codigo.size() && vistas < janela; j++) {
+            Instrucao ins = codigo.get(j);
+            if (ins == null) continue;
+            vistas++;
+            if (ins.op == Instrucao.Op.POP) {
+                Operando y = ins.destino;
+                if (x.equals(y)) {
+                    codigo.set(i, null);
+                    codigo.set(j, null);
+                } else if (usaPilha(y) || (x.ehMemoria() && y.ehMemoria()) || y.ehReal()) {
+                    return false;
+                } else {
+                    codigo.set(i, null);
+                    codigo.set(j, Instrucao.de(Instrucao.Op.MOV, y, x));
+                }
+                return contar(Padrao.PUSH_POP);
+            }
+            if (!explicita(ins) || usaPilha(ins.destino) || usaPilha(ins.origem) || escreve(ins, x)
+                    || (x.ehMemoria() && escreveMemoria(ins))
+                    || (x.registrador != null && escreve(ins, Operando.registrador(x.registrador)))) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean contar(Padrao padrao) {
+        reescritas[padrao.ordinal()]++;
+        return true;
+    }
+
+    // Instrução que só lê e escreve os operandos que aparecem nela.
+    private static boolean explicita(Instrucao ins) {
+        switch (ins.op) {
+            case MOV: case MOVZX: case LEA: case ADD: case SUB: case IMUL: case AND: case OR: case XOR: case NEG:
+            case CMP: case TEST: case MOVSS: case MOVSD: case MOVD: case ADDSS: case SUBSS: case MULSS:
+            case DIVSS: case UCOMISS: case CVTSI2SS: case CVTSS2SD: case CVTTSS2SI:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean escreveMemoria(Instrucao ins) {
+        return (ins.destino != null && ins.destino.ehMemoria() && ins.escreve(0))
+                || (ins.origem != null && ins.origem.ehMemoria() && ins.escreve(1));
+    }
+
+    // Se a instrução escreve no registrador do operando (al e ah são partes de eax).
+    private static boolean escreve(Instrucao ins, Operando o) {
+        if (o == null || !o.ehRegistrador()) return false;
+        return (ins.escreve(0) && mesmoRegistrador(ins.destino, o.registrador))
+                || (ins.escreve(1) && mesmoRegistrador(ins.origem, o.registrador));
+    }
+
+    private static boolean mesmoRegistrador(Operando o, Registrador r) {
+        return o != null && o.ehRegistrador() && completo(o.registrador) == completo(r);
+    }
+
+    private static Registrador completo(Registrador r) {
+        return r == Registrador.AL || r == Registrador.AH ? Registrador.EAX : r;
+    }
+
+    // Operando que depende de esp (que push e pop alteram).
+    private static boolean usaPilha(Operando o) {
+        return o != null && o.registrador == Registrador.ESP;
+    }
+}
@@ -0,0 +1,372 @@
+/*OtimizacaoLacos - Otimização de laços do código intermediário
+Os laços são os laços naturais do grafo de fluxo: uma aresta de volta b -> h (h domina b) e os
+blocos que chegam em b sem passar por h; laços com o mesmo cabeçalho são um só. Cada laço é
+tratado dos mais internos para os mais externos:
+- desenrolamento: um laço de um só bloco de corpo (o formato de for/while do ConstrutorIR:
+  cabeçalho com o teste e corpo que volta para ele) cujo teste dá um número pequeno de voltas
+  conhecido em compilação vira as cópias do teste e do corpo em sequência, sem desvios;
+- pré-cabeçalho: um bloco antes do cabeçalho, por onde o laço é sempre alcançado (criado se o
+  único predecessor de fora não terminar com um salto para o cabeçalho);
+- movimentação de código invariante: instruções sem efeito cujos argumentos não mudam dentro do
+  laço vão para o pré-cabeçalho. Um CARREGAR também, se o laço não grava a estática nem chama
+  funções; divisões inteiras que podem falhar e concatenações (que alocam memória) ficam;
+- redução de força: para uma variável de indução básica (PHI do cabeçalho que a volta soma com
+  um passo invariante), cada multiplicação i * k com k invariante vira uma nova variável de
+  indução, iniciada com init * k e somada de passo * k a cada volta. Em int a conta é exata
+  mesmo com estouro (aritmética módulo 2^32).
+As constantes que sobram (init * k, passo * k, cópias desenroladas) ficam para a propagação de
+constantes, que roda de novo depois deste passo.
+ */
+// OtimizacaoLacos.java
+import java.util.*;
+
+public final class OtimizacaoLacos implements PassoIR.PorFuncao {
+    // Desenrolamento: no máximo tantas voltas e tantas instruções copiadas.
+    private static final int MAXIMO_VOLTAS = 8;
+    private static final int MAXIMO_INSTRUCOES = 64;
+
+    @Override
+    public String nome() {
+        return "otimização de laços";
+    }
+
+    // Laço natural: cabeçalho, blocos (inclui o cabeçalho) e origens das arestas de volta.
+    private static final class Laco {
+        final BlocoIR cabecalho;
+        final Set<BlocoIR> blocos = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<BlocoIR> voltas = new ArrayList<>();
+
+        Laco(BlocoIR cabecalho) {
+            this.cabecalho = cabecalho;
+            blocos.add(cabecalho);
+        }
+    }
+
+    @Override
+    public boolean executar(FuncaoIR f) {
+        boolean mudou = false;
+        Set<BlocoIR> tratados = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (true) {
+            Laco laco = null;
+            for (Laco l : lacos(f)) {
+                if (!tratados.contains(l.cabecalho)) {
+                    laco = l;
+                    break;
+                }
+            }
+            if (laco == null) return mudou;
+            tratados.add(laco.cabecalho);
+            if (desenrolar(f, laco)) {
+                mudou = true;
+                continue;
+            }
+            int blocos = f.blocos.size();
+            BlocoIR pre = preCabecalho(f, laco);
+            if (pre == null) continue;
+            mudou |= f.blocos.size() != blocos;
+            mudou |= moverInvariantes(f, laco, pre);
+            mudou |= reduzirForca(f, laco, pre);
+        }
+    }
+
+    // Laços naturais, dos menores (mais internos) para os maiores.
+    private static List<Laco> lacos(FuncaoIR f) {
+        BlocoIR[] idom = f.dominadores();
+        Map<BlocoIR, Laco> porCabecalho = new LinkedHashMap<>();
+        for (BlocoIR b : f.blocos) {
+            if (idom[b.numero] == null) continue;
+            for (BlocoIR h : b.sucessores()) {
+                if (!FuncaoIR.domina(h, b, idom)) continue;
+                Laco laco = porCabecalho.computeIfAbsent(h, Laco::new);
+                if (laco.voltas.contains(b)) continue;
+                laco.voltas.add(b);
+                Deque<BlocoIR> pendentes = new ArrayDeque<>();
+                if (laco.blocos.add(b)) pendentes.add(b);
+                while (!pendentes.isEmpty()) {
+                    for (BlocoIR p : pendentes.poll().predecessores) {
+                        if (idom[p.numero] != null && laco.blocos.add(p)) pendentes.add(p);
+                    }
+                }
+            }
+        }
+        List<Laco> lista = new ArrayList<>(porCabecalho.values());
+        lista.sort(Comparator.comparingInt(l -> l.blocos.size()));
+        return lista;
+    }
+
+    // Índices, em cabecalho.predecessores, das arestas que vêm de fora do laço.
+    private static List<Integer> entradas(Laco laco) {
+        List<Integer> lista = new ArrayList<>();
+        List<BlocoIR> predecessores = laco.cabecalho.predecessores;
+        for (int k = 0; k < predecessores.size(); k++) {
+            if (!laco.blocos.contains(predecessores.get(k))) lista.add(k);
+        }
+        return lista;
+    }
+
+    // O bloco de fora que só salta para o cabeçalho; criado (antes do primeiro bloco do laço) se
+    // o predecessor de fora também tem outro sucessor. null se o laço tem mais de uma entrada.
+    private static BlocoIR preCabecalho(FuncaoIR f, Laco laco) {
+        List<Integer> entradas = entradas(laco);
+        if (entradas.size() != 1) return null;
+        BlocoIR h = laco.cabecalho;
+        int k = entradas.get(0);
+        BlocoIR origem = h.predecessores.get(k);
+        if (origem.terminador().op == InstrucaoIR.Op.SALTO) return origem;
+        BlocoIR pre = f.novoBloco();
+        pre.instrucoes.add(InstrucaoIR.salto(h));
+        pre.predecessores.add(origem);
+        BlocoIR[] alvos = origem.terminador().alvos;
+        for (int j = 0; j < alvos.length; j++) {
+            if (alvos[j] == h) alvos[j] = pre;
+        }
+        h.predecessores.set(k, pre);
+        int primeiro = f.blocos.size();
+        for (BlocoIR b : laco.blocos) primeiro = Math.min(primeiro, b.numero);
+        f.blocos.add(primeiro, pre);
+        f.renumerar();
+        return pre;
+    }
+
+    /// Desenrolamento
+
+    private static boolean desenrolar(FuncaoIR f, Laco laco) {
+        BlocoIR h = laco.cabecalho;
+        if (laco.blocos.size() != 2 || laco.voltas.size() != 1 || h.predecessores.size() != 2) return false;
+        BlocoIR corpo = laco.voltas.get(0);
+        InstrucaoIR teste = h.terminador();
+        if (corpo == h || teste.op != InstrucaoIR.Op.DESVIO || corpo.terminador().op != InstrucaoIR.Op.SALTO) return false;
+        int continua = teste.alvos[0] == corpo ? 0 : 1;
+        BlocoIR saida = teste.alvos[1 - continua];
+        if (saida == corpo || corpo.predecessores.size() != 1) return false;
+        int entrada = h.predecessores.get(0) == corpo ? 1 : 0;
+        BlocoIR pre = h.predecessores.get(entrada);
+        if (pre.terminador().op != InstrucaoIR.Op.SALTO) return false;
+
+        int phis = h.quantidadePhis();
+        List<InstrucaoIR> testes = h.instrucoes.subList(phis, h.instrucoes.size() - 1);
+        List<InstrucaoIR> instrucoesCorpo = corpo.instrucoes.subList(0, corpo.instrucoes.size() - 1);
+        int voltas = contarVoltas(h, phis, entrada, testes, instrucoesCorpo, teste, continua);
+        if (voltas < 0 || (voltas + 1) * testes.size() + voltas * instrucoesCorpo.size() > MAXIMO_INSTRUCOES) return false;
+
+        // As cópias ficam no lugar do salto do pré-cabeçalho para o cabeçalho.
+        Map<Integer, ValorIR> valores = new HashMap<>();
+        for (int i = 0; i < phis; i++) {
+            InstrucaoIR phi = h.instrucoes.get(i);
+            valores.put(phi.destino.temporario, phi.argumento(entrada));
+        }
+        List<InstrucaoIR> codigo = pre.instrucoes;
+        codigo.remove(codigo.size() - 1);
+        for (int v = 0; ; v++) {
+            copiar(f, testes, valores, codigo);
+            if (v == voltas) break;
+            copiar(f, instrucoesCorpo, valores, codigo);
+            List<ValorIR> proximos = new ArrayList<>(phis);
+            for (int i = 0; i < phis; i++) proximos.add(valor(h.instrucoes.get(i).argumento(1 - entrada), valores));
+            for (int i = 0; i < phis; i++) valores.put(h.instrucoes.get(i).destino.temporario, proximos.get(i));
+        }
+        codigo.add(InstrucaoIR.salto(saida));
+        Collections.replaceAll(saida.predecessores, h, pre);
+        f.blocos.remove(h);
+        f.blocos.remove(corpo);
+        f.renumerar();
+        f.substituir(valores);
+        return true;
+    }
+
+    // Número de voltas do laço, simulado com as constantes conhecidas; -1 se o teste não der
+    // constante em alguma volta ou passar do máximo.
+    private static int contarVoltas(BlocoIR h, int phis, int entrada, List<InstrucaoIR> testes,
+                                    List<InstrucaoIR> corpo, InstrucaoIR teste, int continua) {
+        Map<Integer, ValorIR> constantes = new HashMap<>();
+        for (int i = 0; i < phis; i++) {
+            InstrucaoIR phi = h.instrucoes.get(i);
+            ValorIR v = phi.argumento(entrada);
+            if (v.ehConstante()) constantes.put(phi.destino.temporario, v);
+        }
+        for (int v = 0; v <= MAXIMO_VOLTAS; v++) {
+            simular(testes, constantes);
+            ValorIR condicao = valor(teste.argumento(0), constantes);
+            if (!condicao.ehConstante()) return -1;
+            if ((condicao.inteiro != 0 ? 0 : 1) != continua) return v;
+            simular(corpo, constantes);
+            List<ValorIR> proximos = new ArrayList<>(phis);
+            for (int i = 0; i < phis; i++) proximos.add(valor(h.instrucoes.get(i).argumento(1 - entrada), constantes));
+            for (int i = 0; i < phis; i++) {
+                ValorIR p = proximos.get(i);
+                int t = h.instrucoes.get(i).destino.temporario;
+                if (p.ehConstante()) constantes.put(t, p);
+                else constantes.remove(t);
+            }
+        }
+        return -1;
+    }
+
+    private static void simular(List<InstrucaoIR> instrucoes, Map<Integer, ValorIR> constantes) {
+        for (InstrucaoIR ins : instrucoes) {
+            if (ins.destino == null) continue;
+            List<ValorIR> argumentos = new ArrayList<>(ins.argumentos.size());
+            boolean conhecidos = true;
+            for (ValorIR a : ins.argumentos) {
+                ValorIR v = valor(a, constantes);
+                conhecidos &= v.ehConstante();
+                argumentos.add(v);
+            }
+            ValorIR c = conhecidos ? PropagacaoConstantes.dobrar(ins, argumentos) : null;
+            if (c != null) constantes.put(ins.destino.temporario, c);
+            else constantes.remove(ins.destino.temporario);
+        }
+    }
+
+    // Copia as instruções para codigo, com destinos novos e os argumentos trocados por valores.
+    private static void copiar(FuncaoIR f, List<InstrucaoIR> instrucoes, Map<Integer, ValorIR> valores, List<InstrucaoIR> codigo) {
+        for (InstrucaoIR ins : instrucoes) {
+            List<ValorIR> argumentos = new ArrayList<>(ins.argumentos.size());
+            for (ValorIR a : ins.argumentos) argumentos.add(valor(a, valores));
+            ValorIR destino = ins.destino != null ? f.novoTemporario(ins.destino.tipo) : null;
+            codigo.add(ins.copia(destino, argumentos));
+            if (destino != null) valores.put(ins.destino.temporario, destino);
+        }
+    }
+
+    private static ValorIR valor(ValorIR v, Map<Integer, ValorIR> valores) {
+        if (v.ehConstante()) return v;
+        ValorIR novo = valores.get(v.temporario);
+        return novo != null ? novo : v;
+    }
+
+    /// Código invariante
+
+    private static boolean moverInvariantes(FuncaoIR f, Laco laco, BlocoIR pre) {
+        Map<Integer, BlocoIR> blocoDefinicao = new HashMap<>();
+        boolean chama = false;
+        Set<String> gravadas = new HashSet<>();
+        for (BlocoIR b : laco.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.destino != null) blocoDefinicao.put(ins.destino.temporario, b);
+                if (ins.op == InstrucaoIR.Op.CHAMADA) chama = true;
+                if (ins.op == InstrucaoIR.Op.GUARDAR) gravadas.add(ins.simbolo);
+            }
+        }
+        List<BlocoIR> ordem = new ArrayList<>();
+        for (BlocoIR b : f.ordemReversa()) {
+            if (laco.blocos.contains(b)) ordem.add(b);
+        }
+        boolean moveu = false;
+        boolean mudouVolta = true;
+        while (mudouVolta) {
+            mudouVolta = false;
+            for (BlocoIR b : ordem) {
+                for (Iterator<InstrucaoIR> it = b.instrucoes.iterator(); it.hasNext(); ) {
+                    InstrucaoIR ins = it.next();
+                    if (!movivel(ins, chama, gravadas)) continue;
+                    boolean invariante = true;
+                    for (ValorIR v : ins.argumentos) invariante &= v.ehConstante() || !blocoDefinicao.containsKey(v.temporario);
+                    if (!invariante) continue;
+                    it.remove();
+                    pre.instrucoes.add(pre.instrucoes.size() - 1, ins);
+                    blocoDefinicao.remove(ins.destino.temporario);
+                    moveu = mudouVolta = true;
+                }
+            }
+        }
+        return moveu;
+    }
+
+    // Instrução que pode ser executada antes do laço (mesmo que o laço não dê nenhuma volta).
+    private static boolean movivel(InstrucaoIR ins, boolean chama, Set<String> gravadas) {
+        switch (ins.op) {
+            case COPIA: case SOMA: case SUBTRACAO: case MULTIPLICACAO: case NEGACAO: case CONVERSAO: case COMPARACAO:
+                return true;
+            case DIVISAO: case RESTO: {
+                if (ins.destino.tipo == Tipo.FLOAT) return true;
+                ValorIR divisor = ins.argumento(1);
+                return divisor.ehConstante() && divisor.inteiro != 0 && divisor.inteiro != -1;
+            }
+            case CARREGAR:
+                return !chama && !gravadas.contains(ins.simbolo);
+            default:
+                return false;
+        }
+    }
+
+    /// Redução de força
+
+    private static boolean reduzirForca(FuncaoIR f, Laco laco, BlocoIR pre) {
+        BlocoIR h = laco.cabecalho;
+        if (h.predecessores.size() != 2 || laco.voltas.size() != 1) return false;
+        int entrada = h.predecessores.get(0) == pre ? 0 : 1;
+        Map<Integer, InstrucaoIR> definicao = new HashMap<>();
+        Map<InstrucaoIR, BlocoIR> blocoDe = new IdentityHashMap<>();
+        for (BlocoIR b : laco.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.destino != null) definicao.put(ins.destino.temporario, ins);
+                blocoDe.put(ins, b);
+            }
+        }
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        List<InstrucaoIR> basicas = new ArrayList<>(h.instrucoes.subList(0, h.quantidadePhis()));
+        for (InstrucaoIR phi : basicas) {
+            if (phi.destino.tipo != Tipo.INT) continue;
+            // Variável de indução básica: i' = i + passo (ou i - passo), passo invariante.
+            ValorIR proximo = phi.argumento(1 - entrada);
+            InstrucaoIR incremento = proximo.ehTemporario() ? definicao.get(proximo.temporario) : null;
+            if (incremento == null) continue;
+            ValorIR passo = passo(incremento, phi.destino, definicao);
+            if (passo == null) continue;
+            // Multiplicações i * k (k invariante) no laço, agrupadas por k.
+            Map<ValorIR, List<InstrucaoIR>> porFator = new LinkedHashMap<>();
+            for (BlocoIR b : laco.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    ValorIR k = fator(ins, phi.destino, definicao);
+                    if (k != null) porFator.computeIfAbsent(k, x -> new ArrayList<>()).add(ins);
+                }
+            }
+            for (Map.Entry<ValorIR, List<InstrucaoIR>> e : porFator.entrySet()) {
+                ValorIR k = e.getKey();
+                ValorIR inicio = f.novoTemporario(Tipo.INT), soma = f.novoTemporario(Tipo.INT);
+                int fim = pre.instrucoes.size() - 1;
+                pre.instrucoes.add(fim, InstrucaoIR.de(InstrucaoIR.Op.MULTIPLICACAO, inicio, phi.argumento(entrada), k));
+                pre.instrucoes.add(fim + 1, InstrucaoIR.de(InstrucaoIR.Op.MULTIPLICACAO, soma, passo, k));
+                ValorIR novo = f.novoTemporario(Tipo.INT), novoProximo = f.novoTemporario(Tipo.INT);
+                InstrucaoIR novoPhi = InstrucaoIR.de(InstrucaoIR.Op.PHI, novo, inicio, inicio);
+                novoPhi.argumentos.set(1 - entrada, novoProximo);
+                h.instrucoes.add(0, novoPhi);
+                List<InstrucaoIR> bloco = blocoDe.get(incremento).instrucoes;
+                bloco.add(bloco.indexOf(incremento) + 1, InstrucaoIR.de(InstrucaoIR.Op.SOMA, novoProximo, novo, soma));
+                for (InstrucaoIR m : e.getValue()) {
+                    trocas.put(m.destino.temporario, novo);
+                    blocoDe.get(m).instrucoes.remove(m);
+                }
+            }
+        }
+        f.substituir(trocas);
+        return !trocas.isEmpty();
+    }
+
+    // Passo da variável de indução i, se incremento for i + passo, passo + i ou i - passo com o
+    // passo invariante (constante ou definido fora do laço); senão null.
+    private static ValorIR passo(InstrucaoIR incremento, ValorIR i, Map<Integer, InstrucaoIR> noLaco) {
+        List<ValorIR> a = incremento.argumentos;
+        if (incremento.op == InstrucaoIR.Op.SOMA) {
+            if (a.get(0).equals(i) && invariante(a.get(1), noLaco)) return a.get(1);
+            if (a.get(1).equals(i) && invariante(a.get(0), noLaco)) return a.get(0);
+        } else if (incremento.op == InstrucaoIR.Op.SUBTRACAO && a.get(0).equals(i) && a.get(1).ehConstante()) {
+            return ValorIR.constante(-a.get(1).inteiro, Tipo.INT);
+        }
+        return null;
+    }
+
+    // k, se ins for i * k ou k * i com k invariante; senão null.
+    private static ValorIR fator(InstrucaoIR ins, ValorIR i, Map<Integer, InstrucaoIR> noLaco) {
+        if (ins.op != InstrucaoIR.Op.MULTIPLICACAO || ins.destino.tipo != Tipo.INT) return null;
+        ValorIR a = ins.argumento(0), b = ins.argumento(1);
+        if (a.equals(i) && !b.equals(i) && invariante(b, noLaco)) return b;
+        if (b.equals(i) && !a.equals(i) && invariante(a, noLaco)) return a;
+        return null;
+    }
+
+    private static boolean invariante(ValorIR v, Map<Integer, InstrucaoIR> noLaco) {
+        return v.ehConstante() || !noLaco.containsKey(v.temporario);
+    }
+}
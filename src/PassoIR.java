@@ -0,0 +1,26 @@
+/*PassoIR - Passo de transformação (otimização) do código intermediário
+Os passos são executados em sequência pelo GerenciadorPassos sobre o programa inteiro; um passo
+que só olha uma função de cada vez implementa PorFuncao. Cada passo deve deixar o código válido
+(ver VerificadorIR) e informar se mudou alguma coisa.
+ */
+// PassoIR.java
+
+public interface PassoIR {
+    /** Nome curto, usado em mensagens e estatísticas. */
+    String nome();
+
+    /** Transforma o programa; retorna se alguma instrução ou bloco mudou. */
+    boolean executar(ProgramaIR programa);
+
+    /** Passo aplicado a cada procedimento independentemente. */
+    interface PorFuncao extends PassoIR {
+        boolean executar(FuncaoIR funcao);
+
+        @Override
+        default boolean executar(ProgramaIR programa) {
+            boolean mudou = false;
+            for (FuncaoIR f : programa.funcoes) mudou |= executar(f);
+            return mudou;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*PerfilCompilacao - Medição do tempo e da memória gastos em cada fase
+Acumula, por fase (análise léxica, sintática/semântica, geração de código e saída), o tempo de
+parede, o tempo de CPU e os bytes alocados pela thread que executou a fase, além de contagens
+(tokens, nós da AST, símbolos, instruções e bytes escritos). Pode ser compartilhado por várias
+threads (compilação em lote); os valores são somados.
+Independentemente do perfil estar ligado, cada fase gera um evento JFR (macslang.Fase) e cada
+função analisada gera outro (macslang.Funcao), visíveis numa gravação do Java Flight Recorder
+(ex.: java -XX:StartFlightRecording=filename=build.jfr Main ...).
+ */
+// PerfilCompilacao.java
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import jdk.jfr.*;
+
+public final class PerfilCompilacao {
+    public enum Etapa {
+        LEXICA("análise léxica"),
+        SINTATICA("análise sintática/semântica"),
+        GERACAO("geração de código"),
+        SAIDA("saída");
+
+        public final String descricao;
+
+        Etapa(String descricao) {
+            this.descricao = descricao;
+        }
+    }
+
+    public enum Contador {
+        TOKENS("tokens"),
+        NOS("nós da AST"),
+        SIMBOLOS("símbolos"),
+        INSTRUCOES("instruções"),
+        BYTES("bytes escritos");
+
+        public final String descricao;
+
+        Contador(String descricao) {
+            this.descricao = descricao;
+        }
+    }
+
+    private static final Etapa[] ETAPAS = Etapa.values();
+    private static final Contador[] CONTADORES = Contador.values();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // Extensão da HotSpot com o contador de bytes alocados por thread; null se indisponível.
+    private static final com.sun.management.ThreadMXBean ALOCACAO =
+            THREADS instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported() ? t : null;
+
+    private final long[] parede = new long[ETAPAS.length];
+    private final long[] cpu = new long[ETAPAS.length];
+    private final long[] alocado = new long[ETAPAS.length];
+    private final int[] execucoes = new int[ETAPAS.length];
+    private final long[] contadores = new long[CONTADORES.length];
+
+    /** Começa a medir a fase na thread atual. */
+    public Medicao iniciar(Etapa etapa) {
+        return new Medicao(this, etapa);
+    }
+
+    /** Como iniciar(etapa), mas com perfil null só registra o evento JFR da fase. */
+    public static Medicao iniciar(PerfilCompilacao perfil, Etapa etapa) {
+        return new Medicao(perfil, etapa);
+    }
+
+    public synchronized void contar(Contador contador, long quantidade) {
+        contadores[contador.ordinal()] += quantidade;
+    }
+
+    private synchronized void acumular(Etapa etapa, long nanosParede, long nanosCpu, long bytes) {
+        int e = etapa.ordinal();
+        parede[e] += nanosParede;
+        cpu[e] += nanosCpu;
+        alocado[e] += bytes;
+        execucoes[e]++;
+    }
+
+    /** Exibe a tabela com os totais de cada fase e as contagens. */
+    public synchronized void exibir(PrintStream saida) {
+        saida.println("Perfil da compilação:");
+        saida.printf("  %-30s %6s %12s %12s %14s%n", "fase", "vezes", "parede (ms)", "CPU (ms)", "alocado (KB)");
+        long totalParede = 0, totalCpu = 0, totalAlocado = 0;
+        for (Etapa etapa : ETAPAS) {
+            int e = etapa.ordinal();
+            if (execucoes[e] == 0) continue;
+            saida.printf("  %-30s %6d %12.3f %12.3f %14s%n", etapa.descricao, execucoes[e], parede[e] / 1e6,
+                    cpu[e] / 1e6, ALOCACAO == null ? "n/d" : String.valueOf(alocado[e] / 1024));
+            totalParede += parede[e];
+            totalCpu += cpu[e];
+            totalAlocado += alocado[e];
+        }
+        saida.printf("  %-30s %6s %12.3f %12.3f %14s%n", "total", "", totalParede / 1e6, totalCpu / 1e6,
+                ALOCACAO == null ? "n/d" : String.valueOf(totalAlocado / 1024));
+        StringBuilder contagens = new StringBuilder("  ");
+        for (Contador c : CONTADORES) {
+            if (contagens.length() > 2) contagens.append(", ");
+            contagens.append(c.descricao).append(": ").append(contadores[c.ordinal()]);
+        }
+        saida.println(contagens);
+    }
+
+    private static long cpuAtual() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long alocadoAtual() {
+        return ALOCACAO == null ? 0 : ALOCACAO.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Medição em andamento de uma fase, feita na thread que a iniciou. */
+    public static final class Medicao {
+        private final PerfilCompilacao perfil;
+        private final Etapa etapa;
+        private final EventoFase evento = new EventoFase();
+        private final long inicioParede, inicioCpu, inicioAlocado;
+
+        private Medicao(PerfilCompilacao perfil, Etapa etapa) {
+            this.perfil = perfil;
+            this.etapa = etapa;
+            evento.begin();
+            if (perfil != null) {
+                inicioAlocado = alocadoAtual();
+                inicioCpu = cpuAtual();
+                inicioParede = System.nanoTime();
+            } else {
+                inicioAlocado = inicioCpu = inicioParede = 0;
+            }
+        }
+
+        /** Encerra a fase; quantidade vai para o evento JFR (tokens, nós da AST, caracteres gerados ou bytes escritos). */
+        public void encerrar(long quantidade) {
+            if (perfil != null) {
+                long parede = System.nanoTime() - inicioParede;
+                long cpu = cpuAtual() - inicioCpu;
+                perfil.acumular(etapa, parede, cpu, alocadoAtual() - inicioAlocado);
+            }
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.fase = etapa.descricao;
+                evento.quantidade = quantidade;
+                evento.commit();
+            }
+        }
+    }
+
+    @Name("macslang.Fase")
+    @Label("Fase do compilador")
+    @Category("MACSLang")
+    @StackTrace(false)
+    static final class EventoFase extends Event {
+        @Label("Fase")
+        String fase;
+        @Label("Quantidade produzida")
+        long quantidade;
+    }
+
+    @Name("macslang.Funcao")
+    @Label("Análise de função")
+    @Category("MACSLang")
+    @StackTrace(false)
+    static final class EventoFuncao extends Event {
+        @Label("Função")
+        String funcao;
+        @Label("Tokens")
+        int tokens;
+        @Label("Nós da AST")
+        int nos;
+    }
+
+    @Name("macslang.Arquivo")
+    @Label("Compilação de arquivo")
+    @Category("MACSLang")
+    @StackTrace(false)
+    static final class EventoArquivo extends Event {
+        @Label("Arquivo")
+        String arquivo;
+        @Label("Tokens")
+        int tokens;
+        @Label("Sucesso")
+        boolean sucesso;
+    }
+}
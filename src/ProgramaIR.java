@@ -0,0 +1,70 @@
+/*ProgramaIR - Código intermediário de um programa (ou de uma unidade da compilação incremental)
+Os procedimentos estão na ordem dos fragmentos do GeradorCodigo: cada função de nível superior
+ou trecho de comandos globais, seguido das funções declaradas dentro dele.
+Um programa incompleto (uma unidade da compilação incremental) pode ter funções de nível superior
+chamadas de outras unidades e variáveis globais lidas por elas.
+Os passos que usam o corpo de outras funções (ExpansaoEmLinha, FuncoesPuras) leem as cópias de
+copias(), feitas uma vez, antes da primeira mudança entre eles; numa unidade, as funções das
+unidades anteriores vêm das cópias feitas no mesmo ponto da compilação delas (externas). Assim as
+duas formas de compilação geram o mesmo código. As consultas a externas ficam registradas, para
+que o CompiladorIncremental saiba quando o código da unidade precisa ser refeito.
+ */
+// ProgramaIR.java
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public final class ProgramaIR {
+    public final List<FuncaoIR> funcoes = new ArrayList<>();
+    // Se é o programa inteiro (e não uma unidade da compilação incremental).
+    public boolean completo = true;
+    // Funções de outras unidades, pelo rótulo (as cópias de copias() da unidade que as declara);
+    // null se não houver.
+    public Function<String, FuncaoIR> externas;
+    // Funções de externas consultadas, pelo rótulo (null se não havia uma com o rótulo).
+    public final Map<String, FuncaoIR> consultadas = new HashMap<>();
+    // Decisões da ExpansaoEmLinha, uma por linha (exibidas em --debug).
+    public final List<String> expansoes = new ArrayList<>();
+    private Map<String, FuncaoIR> copias;
+
+    /** Cópias das funções (sem os trechos), pelo rótulo, como estavam na primeira chamada. */
+    public Map<String, FuncaoIR> copias() {
+        if (copias == null) {
+            copias = new LinkedHashMap<>();
+            for (FuncaoIR f : funcoes) {
+                if (!f.ehTrecho()) copias.put(f.nome, f.copiar());
+            }
+        }
+        return copias;
+    }
+
+    /**
+     * Cópia da função com o rótulo: deste programa ou, se não houver, de externas (a consulta
+     * fica registrada); null se não houver nenhuma.
+     */
+    public FuncaoIR funcao(String nome) {
+        FuncaoIR f = copias().get(nome);
+        if (f != null || externas == null) return f;
+        f = externas.apply(nome);
+        consultadas.put(nome, f);
+        return f;
+    }
+
+    /** Quantidade de instruções de todos os procedimentos. */
+    public int tamanho() {
+        int n = 0;
+        for (FuncaoIR f : funcoes) {
+            for (BlocoIR b : f.blocos) n += b.instrucoes.size();
+        }
+        return n;
+    }
+
+    public String imprimir() {
+        StringBuilder sb = new StringBuilder();
+        for (FuncaoIR f : funcoes) sb.append(f.imprimir()).append('\n');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,489 @@
+/*PropagacaoConstantes - Dobramento e propagação de constantes no código intermediário
+Passo aplicado a cada procedimento, em três etapas:
+- cargas de variáveis estáticas: um CARREGAR cujo valor já é conhecido naquele ponto (gravado ou
+  lido antes em todos os caminhos, sem uma chamada de função no meio, que pode alterar qualquer
+  estática) é trocado por esse valor; assim uma variável global constante também é propagada;
+- propagação condicional esparsa de constantes (Wegman e Zadeck): cada temporário começa
+  indefinido e desce para constante ou variável; só blocos e arestas alcançáveis contam, e um
+  desvio com condição constante só torna alcançável um dos lados, de modo que um PHI cujos
+  argumentos alcançáveis são a mesma constante também é constante. As instruções com resultado
+  constante são removidas e os usos recebem a constante;
+- simplificações locais: identidades algébricas (x + 0, x * 1, ...), cópias, e as partes
+  constantes vizinhas de uma concatenação ou de um print juntadas num único texto.
+O dobramento segue o que o código gerado faria em execução: int com 32 bits e estouro circular;
+float em precisão simples, com NaN comparado pelo IEEE 754 (só != vale, como no código gerado) e o
+resto real com o truncamento de cvttss2si; divisão ou resto inteiro por zero (e MIN / -1) não
+são dobrados, para a falha continuar em execução. Um valor só vira texto se o resultado for o
+mesmo do printf (floats como "%f", arredondado ao par; não para NaN, infinito ou o char 0).
+Os desvios com condição constante continuam no código (o gerador os emite como salto); a remoção
+dos blocos que deixam de ser alcançáveis fica para outro passo.
+ */
+// PropagacaoConstantes.java
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public final class PropagacaoConstantes implements PassoIR.PorFuncao {
+    // Estados de um temporário na propagação (reticulado indefinido > constante > variável).
+    private static final int INDEFINIDO = 0, CONSTANTE = 1, VARIAVEL = 2;
+
+    @Override
+    public String nome() {
+        return "propagação de constantes";
+    }
+
+    @Override
+    public boolean executar(FuncaoIR funcao) {
+        boolean mudou = encaminharCargas(funcao);
+        mudou |= new Propagacao(funcao).executar();
+        mudou |= simplificar(funcao);
+        return mudou;
+    }
+
+    /// Cargas de estáticas
+
+    // Troca cada CARREGAR de valor conhecido pelo valor. O conhecido na entrada de um bloco é o
+    // que todos os predecessores alcançáveis têm igual na saída (calculado até estabilizar).
+    private static boolean encaminharCargas(FuncaoIR f) {
+        List<BlocoIR> ordem = f.ordemReversa();
+        List<Map<String, ValorIR>> saidas = new ArrayList<>(Collections.nCopies(f.blocos.size(), null));
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (BlocoIR b : ordem) {
+                Map<String, ValorIR> conhecidos = entrada(b, saidas);
+                for (InstrucaoIR ins : b.instrucoes) transferir(ins, conhecidos, null);
+                if (!conhecidos.equals(saidas.get(b.numero))) {
+                    saidas.set(b.numero, conhecidos);
+                    mudou = true;
+                }
+            }
+        }
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        for (BlocoIR b : ordem) {
+            Map<String, ValorIR> conhecidos = entrada(b, saidas);
+            for (InstrucaoIR ins : b.instrucoes) transferir(ins, conhecidos, trocas);
+            b.instrucoes.removeIf(ins -> ins.op == InstrucaoIR.Op.CARREGAR && trocas.containsKey(ins.destino.temporario));
+        }
+        f.substituir(trocas);
+        return !trocas.isEmpty();
+    }
+
+    private static Map<String, ValorIR> entrada(BlocoIR b, List<Map<String, ValorIR>> saidas) {
+        Map<String, ValorIR> conhecidos = null;
+        for (BlocoIR p : b.predecessores) {
+            Map<String, ValorIR> saida = saidas.get(p.numero);
+            // Predecessor ainda não visitado (ou inalcançável): não restringe.
+            if (saida == null) continue;
+            if (conhecidos == null) conhecidos = new HashMap<>(saida);
+            else conhecidos.entrySet().removeIf(e -> !e.getValue().equals(saida.get(e.getKey())));
+        }
+        return conhecidos != null ? conhecidos : new HashMap<>();
+    }
+
+    // Efeito da instrução sobre os valores conhecidos; com trocas, registra as cargas conhecidas.
+    private static void transferir(InstrucaoIR ins, Map<String, ValorIR> conhecidos, Map<Integer, ValorIR> trocas) {
+        switch (ins.op) {
+            case GUARDAR:
+                conhecidos.put(ins.simbolo, ins.argumento(0));
+                break;
+            case CARREGAR: {
+                ValorIR v = conhecidos.get(ins.simbolo);
+                if (v == null) conhecidos.put(ins.simbolo, ins.destino);
+                else if (trocas != null) trocas.put(ins.destino.temporario, v);
+                break;
+            }
+            case CHAMADA:
+                conhecidos.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /// Propagação condicional esparsa
+
+    private static final class Propagacao {
+        private final FuncaoIR f;
+        private final int[] estado;
+        private final ValorIR[] constante;
+        // Instruções que usam cada temporário, e o bloco de cada instrução.
+        private final List<List<InstrucaoIR>> usuarios;
+        private final Map<InstrucaoIR, BlocoIR> blocoDe = new IdentityHashMap<>();
+        private final boolean[] alcancavel;
+        // arestaAlcancavel[b][k]: a aresta do k-ésimo predecessor de b.
+        private final boolean[][] arestaAlcancavel;
+        private final Deque<BlocoIR> blocosPendentes = new ArrayDeque<>();
+        private final Deque<Integer> temporariosPendentes = new ArrayDeque<>();
+
+        Propagacao(FuncaoIR f) {
+            this.f = f;
+            int n = f.quantidadeTemporarios();
+            estado = new int[n];
+            constante = new ValorIR[n];
+            usuarios = new ArrayList<>(n);
+            for (int t = 0; t < n; t++) usuarios.add(new ArrayList<>());
+            alcancavel = new boolean[f.blocos.size()];
+            arestaAlcancavel = new boolean[f.blocos.size()][];
+            for (BlocoIR b : f.blocos) {
+                arestaAlcancavel[b.numero] = new boolean[b.predecessores.size()];
+                for (InstrucaoIR ins : b.instrucoes) {
+                    blocoDe.put(ins, b);
+                    for (ValorIR v : ins.argumentos) {
+                        if (v.ehTemporario()) usuarios.get(v.temporario).add(ins);
+                    }
+                }
+            }
+        }
+
+        boolean executar() {
+            alcancavel[0] = true;
+            blocosPendentes.add(f.entrada());
+            while (!blocosPendentes.isEmpty() || !temporariosPendentes.isEmpty()) {
+                if (!blocosPendentes.isEmpty()) {
+                    BlocoIR b = blocosPendentes.poll();
+                    for (InstrucaoIR ins : b.instrucoes) avaliar(b, ins);
+                } else {
+                    for (InstrucaoIR ins : usuarios.get(temporariosPendentes.poll())) {
+                        BlocoIR b = blocoDe.get(ins);
+                        if (alcancavel[b.numero]) avaliar(b, ins);
+                    }
+                }
+            }
+            return aplicar();
+        }
+
+        private void avaliar(BlocoIR b, InstrucaoIR ins) {
+            switch (ins.op) {
+                case PHI: {
+                    int novo = INDEFINIDO;
+                    ValorIR c = null;
+                    for (int k = 0; k < ins.argumentos.size() && novo != VARIAVEL; k++) {
+                        if (!arestaAlcancavel[b.numero][k]) continue;
+                        ValorIR v = ins.argumento(k);
+                        int e = estadoDe(v);
+                        if (e == VARIAVEL || e == CONSTANTE && c != null && !c.equals(valorDe(v))) {
+                            novo = VARIAVEL;
+                        } else if (e == CONSTANTE) {
+                            novo = CONSTANTE;
+                            c = valorDe(v);
+                        }
+                    }
+                    definir(ins.destino.temporario, novo, c);
+                    break;
+                }
+                case SALTO:
+                    marcarAresta(b, 0);
+                    break;
+                case DESVIO: {
+                    ValorIR condicao = ins.argumento(0);
+                    int e = estadoDe(condicao);
+                    if (e == CONSTANTE) {
+                        marcarAresta(b, valorDe(condicao).inteiro != 0 ? 0 : 1);
+                    } else if (e == VARIAVEL) {
+                        marcarAresta(b, 0);
+                        marcarAresta(b, 1);
+                    }
+                    break;
+                }
+                default: {
+                    if (ins.destino == null) break;
+                    List<ValorIR> argumentos = new ArrayList<>(ins.argumentos.size());
+                    int pior = CONSTANTE;
+                    for (ValorIR v : ins.argumentos) {
+                        int e = estadoDe(v);
+                        if (e == VARIAVEL) pior = VARIAVEL;
+                        else if (e == INDEFINIDO && pior != VARIAVEL) pior = INDEFINIDO;
+                        argumentos.add(valorDe(v));
+                    }
+                    if (pior == CONSTANTE) {
+                        ValorIR c = dobrar(ins, argumentos);
+                        definir(ins.destino.temporario, c != null ? CONSTANTE : VARIAVEL, c);
+                    } else if (pior == VARIAVEL || !dobravel(ins.op)) {
+                        definir(ins.destino.temporario, VARIAVEL, null);
+                    }
+                    break;
+                }
+            }
+        }
+
+        // Torna alcançável a aresta para o j-ésimo alvo do terminador de b.
+        private void marcarAresta(BlocoIR b, int j) {
+            BlocoIR[] alvos = b.terminador().alvos;
+            BlocoIR s = alvos[j];
+            int ocorrencia = 0;
+            for (int i = 0; i < j; i++) {
+                if (alvos[i] == s) ocorrencia++;
+            }
+            int k = -1;
+            for (int i = 0; i < s.predecessores.size() && k < 0; i++) {
+                if (s.predecessores.get(i) == b && ocorrencia-- == 0) k = i;
+            }
+            if (arestaAlcancavel[s.numero][k]) return;
+            arestaAlcancavel[s.numero][k] = true;
+            if (!alcancavel[s.numero]) {
+                alcancavel[s.numero] = true;
+                blocosPendentes.add(s);
+            } else {
+                for (int i = 0; i < s.quantidadePhis(); i++) avaliar(s, s.instrucoes.get(i));
+            }
+        }
+
+        private void definir(int t, int novo, ValorIR c) {
+            if (estado[t] == VARIAVEL || novo == INDEFINIDO) return;
+            if (estado[t] == CONSTANTE) {
+                if (novo == CONSTANTE && constante[t].equals(c)) return;
+                novo = VARIAVEL;
+            }
+            estado[t] = novo;
+            constante[t] = novo == CONSTANTE ? c : null;
+            temporariosPendentes.add(t);
+        }
+
+        private int estadoDe(ValorIR v) {
+            return v.ehConstante() ? CONSTANTE : estado[v.temporario];
+        }
+
+        private ValorIR valorDe(ValorIR v) {
+            return v.ehConstante() ? v : constante[v.temporario];
+        }
+
+        // Remove as instruções de resultado constante e troca os usos pela constante.
+        private boolean aplicar() {
+            Map<Integer, ValorIR> trocas = new HashMap<>();
+            for (int t = 0; t < estado.length; t++) {
+                if (estado[t] == CONSTANTE) trocas.put(t, constante[t]);
+            }
+            if (trocas.isEmpty()) return false;
+            for (BlocoIR b : f.blocos) {
+                b.instrucoes.removeIf(ins -> ins.destino != null && !ins.op.temEfeito()
+                        && trocas.containsKey(ins.destino.temporario));
+            }
+            f.substituir(trocas);
+            return true;
+        }
+    }
+
+    /// Dobramento
+
+    // Operações cujo resultado depende só dos argumentos.
+    private static boolean dobravel(InstrucaoIR.Op op) {
+        switch (op) {
+            case COPIA: case SOMA: case SUBTRACAO: case MULTIPLICACAO: case DIVISAO: case RESTO:
+            case NEGACAO: case CONVERSAO: case COMPARACAO: case CONCATENACAO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Resultado da instrução com os argumentos constantes dados (na ordem da instrução), ou null
+     * se a operação não é dobrável ou o resultado só existe em execução (divisão inteira por
+     * zero, parte que não vira texto).
+     */
+    static ValorIR dobrar(InstrucaoIR ins, List<ValorIR> a) {
+        switch (ins.op) {
+            case COPIA:
+                return a.get(0);
+            case SOMA: case SUBTRACAO: case MULTIPLICACAO: case DIVISAO: case RESTO:
+                if (ins.destino.tipo == Tipo.FLOAT) return ValorIR.real(aritmeticaReal(ins.op, a.get(0).real, a.get(1).real));
+                return aritmeticaInteira(ins.op, a.get(0).inteiro, a.get(1).inteiro);
+            case NEGACAO:
+                if (ins.destino.tipo == Tipo.FLOAT) {
+                    return ValorIR.real(Float.intBitsToFloat(Float.floatToRawIntBits(a.get(0).real) ^ Integer.MIN_VALUE));
+                }
+                return ValorIR.constante(-a.get(0).inteiro, Tipo.INT);
+            case CONVERSAO:
+                return ValorIR.real((float) a.get(0).inteiro);
+            case COMPARACAO: {
+                Integer c = comparar(a.get(0), a.get(1), ins.comparacao);
+                return c != null ? ValorIR.constante(c, Tipo.BOOL) : null;
+            }
+            case CONCATENACAO: {
+                StringBuilder sb = new StringBuilder();
+                for (ValorIR v : a) {
+                    String parte = texto(v);
+                    if (parte == null) return null;
+                    sb.append(parte);
+                }
+                return ValorIR.texto(sb.toString());
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static ValorIR aritmeticaInteira(InstrucaoIR.Op op, int x, int y) {
+        switch (op) {
+            case SOMA: return ValorIR.constante(x + y, Tipo.INT);
+            case SUBTRACAO: return ValorIR.constante(x - y, Tipo.INT);
+            case MULTIPLICACAO: return ValorIR.constante(x * y, Tipo.INT);
+            default:
+                // idiv falha com divisor 0 e com MIN / -1.
+                if (y == 0 || x == Integer.MIN_VALUE && y == -1) return null;
+                return ValorIR.constante(op == InstrucaoIR.Op.DIVISAO ? x / y : x % y, Tipo.INT);
+        }
+    }
+
+    private static float aritmeticaReal(InstrucaoIR.Op op, float x, float y) {
+        switch (op) {
+            case SOMA: return x + y;
+            case SUBTRACAO: return x - y;
+            case MULTIPLICACAO: return x * y;
+            case DIVISAO: return x / y;
+            default: {
+                // Como o código gerado: x - (float) cvttss2si(x / y) * y; fora do intervalo de
+                // int (ou NaN), cvttss2si dá 0x80000000.
+                float q = x / y;
+                int truncado = Float.isNaN(q) || q >= 0x1p31f || q < -0x1p31f ? Integer.MIN_VALUE : (int) q;
+                return x - (float) truncado * y;
+            }
+        }
+    }
+
+    // 1 ou 0 conforme a relação vale entre os dois valores; null se não dá para saber.
+    private static Integer comparar(ValorIR a, ValorIR b, AnalisadorLexico.TokenType operador) {
+        int c;
+        switch (a.tipo) {
+            case FLOAT:
+                if (Float.isNaN(a.real) || Float.isNaN(b.real)) {
+                    // Desordenados: nenhuma relação de ordem nem a igualdade vale.
+                    return operador == AnalisadorLexico.TokenType.NOTEQUAL ? 1 : 0;
+                }
+                c = a.real < b.real ? -1 : a.real > b.real ? 1 : 0;
+                break;
+            case STRING: {
+                if (a.texto.indexOf('\0') >= 0 || b.texto.indexOf('\0') >= 0) return null;
+                // strcmp compara os bytes sem sinal.
+                c = Arrays.compareUnsigned(a.texto.getBytes(StandardCharsets.UTF_8), b.texto.getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            default:
+                c = Integer.compare(a.inteiro, b.inteiro);
+                break;
+        }
+        boolean vale;
+        switch (operador) {
+            case EQUAL: vale = c == 0; break;
+            case NOTEQUAL: vale = c != 0; break;
+            case LESSTHAN: vale = c < 0; break;
+            case LESSEQUAL: vale = c <= 0; break;
+            case GREATERTHAN: vale = c > 0; break;
+            default: vale = c >= 0; break;
+        }
+        return vale ? 1 : 0;
+    }
+
+    /**
+     * Texto que o printf escreveria para a constante numa concatenação, ou null se não for
+     * possível representá-lo numa string constante (ou se depender da biblioteca C).
+     */
+    static String texto(ValorIR v) {
+        switch (v.tipo) {
+            case STRING:
+                return v.texto.indexOf('\0') < 0 ? v.texto : null;
+            case BOOL:
+                return v.inteiro != 0 ? "true" : "false";
+            case CHAR: {
+                // %c escreve o byte menos significativo; só ASCII sem o 0 vira texto igual.
+                int c = v.inteiro & 0xFF;
+                return c != 0 && c < 0x80 ? String.valueOf((char) c) : null;
+            }
+            case FLOAT:
+                return Float.isFinite(v.real) ? formatarReal(v.real) : null;
+            default:
+                return Integer.toString(v.inteiro);
+        }
+    }
+
+    // "%f" da glibc: valor exato com 6 casas, empate arredondado ao par; o sinal fica mesmo
+    // quando o resultado é zero (-0.0, -0.0000001).
+    private static String formatarReal(float x) {
+        String s = new BigDecimal(x).setScale(6, RoundingMode.HALF_EVEN).toPlainString();
+        return Float.floatToRawIntBits(x) < 0 && s.charAt(0) != '-' ? "-" + s : s;
+    }
+
+    /// Simplificações locais
+
+    private static boolean simplificar(FuncaoIR f) {
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        boolean mudou = false;
+        for (BlocoIR b : f.blocos) {
+            for (Iterator<InstrucaoIR> it = b.instrucoes.iterator(); it.hasNext(); ) {
+                InstrucaoIR ins = it.next();
+                if (ins.op == InstrucaoIR.Op.CONCATENACAO || ins.op == InstrucaoIR.Op.ESCREVA) {
+                    mudou |= juntarPartes(ins.argumentos);
+                }
+                ValorIR igual = identidade(ins);
+                if (igual != null) {
+                    trocas.put(ins.destino.temporario, igual);
+                    it.remove();
+                }
+            }
+        }
+        f.substituir(trocas);
+        return mudou || !trocas.isEmpty();
+    }
+
+    // Argumento ao qual o resultado é sempre igual (x + 0, x * 1, cópia, ...), ou null.
+    private static ValorIR identidade(InstrucaoIR ins) {
+        List<ValorIR> a = ins.argumentos;
+        switch (ins.op) {
+            case COPIA:
+                return a.get(0);
+            case CONCATENACAO:
+                // Strings são imutáveis: a concatenação de uma só string é ela mesma.
+                return a.size() == 1 && a.get(0).tipo == Tipo.STRING ? a.get(0) : null;
+            case SOMA:
+                if (ehZeroNeutro(a.get(1), true)) return a.get(0);
+                return ehZeroNeutro(a.get(0), true) ? a.get(1) : null;
+            case SUBTRACAO:
+                return ehZeroNeutro(a.get(1), false) ? a.get(0) : null;
+            case MULTIPLICACAO:
+                if (ehNumero(a.get(1), 1)) return a.get(0);
+                return ehNumero(a.get(0), 1) ? a.get(1) : null;
+            case DIVISAO:
+                return ehNumero(a.get(1), 1) ? a.get(0) : null;
+            default:
+                return null;
+        }
+    }
+
+    // Se v é a constante numérica n (int ou float).
+    private static boolean ehNumero(ValorIR v, int n) {
+        if (!v.ehConstante()) return false;
+        if (v.tipo == Tipo.FLOAT) return v.real == n;
+        return v.tipo == Tipo.INT && v.inteiro == n;
+    }
+
+    // Se somar (ou subtrair) v não muda nenhum valor: 0 em int; em float, -0.0 na soma e +0.0 na
+    // subtração (x + 0.0 e x - (-0.0) dão +0.0 para x = -0.0).
+    private static boolean ehZeroNeutro(ValorIR v, boolean soma) {
+        if (!ehNumero(v, 0)) return false;
+        return v.tipo != Tipo.FLOAT || Float.floatToRawIntBits(v.real) < 0 == soma;
+    }
+
+    // Junta as partes constantes vizinhas que têm texto num único texto constante.
+    private static boolean juntarPartes(List<ValorIR> partes) {
+        List<ValorIR> novas = new ArrayList<>(partes.size());
+        StringBuilder pendente = null;
+        for (ValorIR v : partes) {
+            String t = v.ehConstante() ? texto(v) : null;
+            if (t != null) {
+                if (pendente == null) pendente = new StringBuilder();
+                pendente.append(t);
+                continue;
+            }
+            if (pendente != null && pendente.length() > 0) novas.add(ValorIR.texto(pendente.toString()));
+            pendente = null;
+            novas.add(v);
+        }
+        if (pendente != null && (pendente.length() > 0 || novas.isEmpty())) novas.add(ValorIR.texto(pendente.toString()));
+        if (novas.equals(partes)) return false;
+        partes.clear();
+        partes.addAll(novas);
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+/*RecursaoCauda - Chamadas recursivas de cauda viram laços
+Uma função que termina com "return f(...)" chamando a si mesma (no código intermediário: a
+CHAMADA da própria função seguida, no mesmo bloco, do RETORNO do resultado) não precisa de um
+quadro de pilha novo: os argumentos passam a ser os parâmetros e a execução volta ao começo.
+Os parâmetros vão para uma nova entrada, e a entrada antiga vira o cabeçalho do laço, com um PHI
+por parâmetro (o valor recebido, vindo da nova entrada, ou os argumentos de cada chamada de
+cauda); a OtimizacaoLacos trata esse laço como os demais. Chamadas cujo resultado ainda é usado
+(fatorial(n - 1) * n) continuam sendo chamadas.
+ */
+// RecursaoCauda.java
+import java.util.*;
+
+public final class RecursaoCauda implements PassoIR.PorFuncao {
+    @Override
+    public String nome() {
+        return "recursão de cauda";
+    }
+
+    @Override
+    public boolean executar(FuncaoIR f) {
+        if (f.ehTrecho()) return false;
+        List<BlocoIR> caudas = new ArrayList<>();
+        for (BlocoIR b : f.blocos) {
+            if (chamadaDeCauda(f, b)) caudas.add(b);
+        }
+        if (caudas.isEmpty()) return false;
+
+        BlocoIR cabecalho = f.entrada();
+        BlocoIR entrada = f.novoBloco();
+        List<InstrucaoIR> phis = new ArrayList<>();
+        // Posição do parâmetro de cada PHI.
+        List<Integer> posicoes = new ArrayList<>();
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        for (Iterator<InstrucaoIR> it = cabecalho.instrucoes.iterator(); it.hasNext(); ) {
+            InstrucaoIR ins = it.next();
+            if (ins.op != InstrucaoIR.Op.PARAMETRO) continue;
+            it.remove();
+            entrada.instrucoes.add(ins);
+            InstrucaoIR phi = InstrucaoIR.de(InstrucaoIR.Op.PHI, f.novoTemporario(ins.destino.tipo), ins.destino);
+            phis.add(phi);
+            posicoes.add(ins.indice);
+            trocas.put(ins.destino.temporario, phi.destino);
+        }
+        // Os PHIs ainda estão fora dos blocos: o valor recebido continua no primeiro argumento.
+        f.substituir(trocas);
+        entrada.instrucoes.add(InstrucaoIR.salto(cabecalho));
+        cabecalho.predecessores.add(entrada);
+        for (BlocoIR b : caudas) {
+            List<InstrucaoIR> instrucoes = b.instrucoes;
+            InstrucaoIR chamada = instrucoes.get(instrucoes.size() - 2);
+            instrucoes.subList(instrucoes.size() - 2, instrucoes.size()).clear();
+            instrucoes.add(InstrucaoIR.salto(cabecalho));
+            cabecalho.predecessores.add(b);
+            for (int i = 0; i < phis.size(); i++) phis.get(i).argumentos.add(chamada.argumento(posicoes.get(i)));
+        }
+        cabecalho.instrucoes.addAll(0, phis);
+        f.blocos.add(0, entrada);
+        f.renumerar();
+        return true;
+    }
+
+    private static boolean chamadaDeCauda(FuncaoIR f, BlocoIR b) {
+        int n = b.instrucoes.size();
+        if (n < 2) return false;
+        InstrucaoIR retorno = b.instrucoes.get(n - 1), chamada = b.instrucoes.get(n - 2);
+        return retorno.op == InstrucaoIR.Op.RETORNO && chamada.op == InstrucaoIR.Op.CHAMADA
+                && chamada.funcao == f.simbolo && f.nome.equals(chamada.simbolo)
+                && retorno.argumento(0).equals(chamada.destino);
+    }
+}
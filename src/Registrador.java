@@ -0,0 +1,34 @@
+/*Registrador - Registradores físicos x86 (32 bits) usados pelo gerador de código
+Convenção (cdecl):
+- eax é reservado: valor de retorno, dividendo de idiv, resultado de setcc (al e ah) e registrador
+  auxiliar do alocador; nunca guarda um temporário.
+- ecx e edx podem ser alterados por qualquer chamada; ebx, esi e edi são preservados pela função
+  chamada (por isso são salvos no prólogo de quem os usa).
+- xmm0 a xmm6 guardam temporários float; xmm7 é o auxiliar do alocador. Todos podem ser
+  alterados por chamadas.
+ */
+// Registrador.java
+
+public enum Registrador {
+    EAX("eax", false), EBX("ebx", true), ECX("ecx", false), EDX("edx", false),
+    ESI("esi", true), EDI("edi", true), EBP("ebp", true), ESP("esp", true), AL("al", false), AH("ah", false),
+    XMM0("xmm0"), XMM1("xmm1"), XMM2("xmm2"), XMM3("xmm3"),
+    XMM4("xmm4"), XMM5("xmm5"), XMM6("xmm6"), XMM7("xmm7");
+
+    public final String nome;
+    public final Operando.Classe classe;
+    // Preservado pela função chamada (cdecl).
+    public final boolean preservado;
+
+    Registrador(String nome, boolean preservado) {
+        this.nome = nome;
+        this.classe = Operando.Classe.INTEIRO;
+        this.preservado = preservado;
+    }
+
+    Registrador(String nome) {
+        this.nome = nome;
+        this.classe = Operando.Classe.REAL;
+        this.preservado = false;
+    }
+}
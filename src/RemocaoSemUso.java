@@ -0,0 +1,73 @@
+/*RemocaoSemUso - Remoção das funções e variáveis estáticas sem uso no programa
+Passo sobre o programa inteiro:
+- funções que nenhum trecho de comandos globais chama, direta ou indiretamente, são removidas
+  (com as estáticas que elas declaram). Numa unidade da compilação incremental, as funções de
+  nível superior podem ser chamadas de outras unidades e também contam como ponto de partida; o
+  CompiladorIncremental remove as que sobrarem sem uso depois de juntar as unidades (ver
+  GeradorCodigo.alcancaveis), com o mesmo resultado da compilação completa;
+- uma variável local de função guardada em .bss (usada por uma função interna) que nenhuma
+  instrução lê deixa de existir: as gravações são removidas, e o código que só calculava os
+  valores gravados também. As globais não entram aqui, já que outra unidade pode lê-las.
+ */
+// RemocaoSemUso.java
+import java.util.*;
+
+public final class RemocaoSemUso implements PassoIR {
+    @Override
+    public String nome() {
+        return "remoção do que não é usado";
+    }
+
+    @Override
+    public boolean executar(ProgramaIR programa) {
+        return removerFuncoes(programa) | removerEstaticas(programa);
+    }
+
+    private static boolean removerFuncoes(ProgramaIR programa) {
+        Map<String, FuncaoIR> porNome = new HashMap<>();
+        Set<FuncaoIR> usadas = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<FuncaoIR> pendentes = new ArrayDeque<>();
+        for (FuncaoIR f : programa.funcoes) {
+            if (f.ehTrecho() || f.nivelSuperior && !programa.completo) {
+                usadas.add(f);
+                pendentes.add(f);
+            } else {
+                porNome.put(f.nome, f);
+            }
+        }
+        while (!pendentes.isEmpty()) {
+            for (BlocoIR b : pendentes.poll().blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op != InstrucaoIR.Op.CHAMADA) continue;
+                    FuncaoIR chamada = porNome.get(ins.simbolo);
+                    if (chamada != null && usadas.add(chamada)) pendentes.add(chamada);
+                }
+            }
+        }
+        return programa.funcoes.removeIf(f -> !usadas.contains(f));
+    }
+
+    private static boolean removerEstaticas(ProgramaIR programa) {
+        Set<String> locais = new HashSet<>();
+        for (FuncaoIR f : programa.funcoes) {
+            if (!f.ehTrecho()) locais.addAll(f.estaticas);
+        }
+        for (FuncaoIR f : programa.funcoes) {
+            for (BlocoIR b : f.blocos) {
+                for (InstrucaoIR ins : b.instrucoes) {
+                    if (ins.op == InstrucaoIR.Op.CARREGAR) locais.remove(ins.simbolo);
+                }
+            }
+        }
+        if (locais.isEmpty()) return false;
+        for (FuncaoIR f : programa.funcoes) {
+            boolean removeu = false;
+            for (BlocoIR b : f.blocos) {
+                removeu |= b.instrucoes.removeIf(ins -> ins.op == InstrucaoIR.Op.GUARDAR && locais.contains(ins.simbolo));
+            }
+            f.estaticas.removeAll(locais);
+            if (removeu) SimplificacaoFluxo.removerInstrucoesMortas(f);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,252 @@
+/*ServidorCompilador - Compilador residente (daemon)
+Mantém a JVM aberta entre compilações: o JIT já aquecido, o autômato do léxico e as tabelas de
+tipos ficam carregados, e cada thread reaproveita os buffers usados para ler o código-fonte.
+Cada arquivo recompilado usa um CompiladorIncremental próprio, de modo que só as funções
+alteradas desde o último pedido são analisadas de novo.
+Atende por um socket Unix local (vários clientes ao mesmo tempo) ou pela entrada/saída padrão.
+
+Protocolo (texto UTF-8, um pedido por linha):
+  COMPILAR <caminho>   compila o arquivo (de preferência com caminho absoluto)
+  PING                 verifica se o servidor está ativo
+  ENCERRAR             encerra o servidor
+Cada resposta é uma linha "<STATUS> <n>" seguida de exatamente n bytes de conteúdo:
+  OK     conteúdo = código assembly
+  ERRO   conteúdo = diagnósticos da análise
+  FALHA  conteúdo = descrição do problema (arquivo ilegível, pedido inválido...)
+  PONG / FIM   sem conteúdo (n = 0)
+
+Uso: java Main --servidor [--socket caminho | --stdio] [--max-erros N]
+ */
+// ServidorCompilador.java
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.*;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class ServidorCompilador {
+    /** Socket usado quando nenhum é informado. */
+    static Path socketPadrao() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "macslang.sock");
+    }
+
+    // Programa compilado repetidamente na inicialização, para o JIT otimizar o caminho quente.
+    private static final String PROGRAMA_AQUECIMENTO = """
+            func fatorial(n: int): int {
+                var resultado: int = 1;
+                for (var i: int = 1; i <= n; i = i + 1) {
+                    resultado = resultado * i;
+                }
+                return resultado;
+            }
+            /* comentário */
+            var numero: int;
+            input(numero);
+            var x: float = 3.14 * 2;
+            if (x != 1.0) { x = x / 2; } else { x = x + 1; }
+            while (numero > 0) { numero = numero - 1; }
+            var fat: int = fatorial(numero);
+            print("O fatorial de " + numero + " é " + fat);
+            """;
+    private static final int REPETICOES_AQUECIMENTO = 2000;
+    // Quantidade de arquivos cujo estado incremental é mantido (os menos usados são descartados).
+    private static final int ARQUIVOS_EM_CACHE = 64;
+
+    private final int maximoErros;
+    private volatile boolean encerrado = false;
+    private ServerSocketChannel servidor;
+
+    // Buffers de leitura de cada thread de atendimento.
+    private final ThreadLocal<Sessao> sessoes = ThreadLocal.withInitial(Sessao::new);
+
+    // Compilador incremental de cada arquivo, em ordem de acesso.
+    private final Map<Path, CompiladorIncremental> incrementais = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, CompiladorIncremental> maisAntigo) {
+                    return size() > ARQUIVOS_EM_CACHE;
+                }
+            });
+
+    public ServidorCompilador(int maximoErros) {
+        this.maximoErros = maximoErros;
+    }
+
+    /** Interpreta os argumentos de "--servidor" e atende até receber ENCERRAR; retorna o código de saída. */
+    public static int executar(String[] args) {
+        Path socket = socketPadrao();
+        boolean stdio = false;
+        int maximoErros = Diagnostics.MAXIMO_PADRAO;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--servidor")) continue;
+            if (args[i].equals("--stdio")) {
+                stdio = true;
+            } else if (args[i].equals("--socket") && i + 1 < args.length) {
+                socket = Paths.get(args[++i]);
+            } else if (args[i].equals("--max-erros") && i + 1 < args.length) {
+                maximoErros = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Uso: java Main --servidor [--socket caminho | --stdio] [--max-erros N]");
+                return 2;
+            }
+        }
+        ServidorCompilador servidor = new ServidorCompilador(maximoErros);
+        servidor.aquecer();
+        try {
+            if (stdio) {
+                servidor.atender(new BufferedInputStream(System.in), new BufferedOutputStream(System.out));
+            } else {
+                servidor.escutar(socket);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erro no servidor: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /** Compila um programa de exemplo várias vezes para que as fases já estejam compiladas pelo JIT. */
+    public void aquecer() {
+        char[] fonte = PROGRAMA_AQUECIMENTO.toCharArray();
+        Compilador compilador = new Compilador(maximoErros);
+        for (int i = 0; i < REPETICOES_AQUECIMENTO; i++) {
+            compilador.compilar(fonte, fonte.length);
+        }
+    }
+
+    /** Escuta no socket Unix indicado, atendendo cada conexão numa thread do pool. */
+    public void escutar(Path socket) throws IOException {
+        Files.deleteIfExists(socket);
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (ServerSocketChannel canal = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            canal.bind(UnixDomainSocketAddress.of(socket));
+            servidor = canal;
+            System.err.println("Servidor MACSLang escutando em " + socket);
+            while (!encerrado) {
+                SocketChannel conexao;
+                try {
+                    conexao = canal.accept();
+                } catch (ClosedChannelException e) {
+                    break; // ENCERRAR fechou o canal
+                }
+                pool.execute(() -> {
+                    try (SocketChannel c = conexao) {
+                        atender(new BufferedInputStream(Channels.newInputStream(c)),
+                                new BufferedOutputStream(Channels.newOutputStream(c)));
+                    } catch (IOException e) {
+                        // Cliente desconectou no meio do pedido; nada a responder.
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /** Atende pedidos de uma conexão (ou da entrada padrão) até o fim da entrada ou ENCERRAR. */
+    public void atender(InputStream entrada, OutputStream saida) throws IOException {
+        Sessao sessao = sessoes.get();
+        String pedido;
+        while ((pedido = lerLinha(entrada)) != null) {
+            if (pedido.isEmpty()) continue;
+            if (pedido.equals("PING")) {
+                responder(saida, "PONG", null);
+            } else if (pedido.equals("ENCERRAR")) {
+                responder(saida, "FIM", null);
+                encerrar();
+                return;
+            } else if (pedido.startsWith("COMPILAR ")) {
+                compilarArquivo(Paths.get(pedido.substring("COMPILAR ".length())), sessao, saida);
+            } else {
+                responder(saida, "FALHA", "Pedido desconhecido: " + pedido);
+            }
+        }
+    }
+
+    private void compilarArquivo(Path arquivo, Sessao sessao, OutputStream saida) throws IOException {
+        int tamanho;
+        try {
+            tamanho = sessao.ler(arquivo);
+        } catch (IOException e) {
+            responder(saida, "FALHA", "Erro ao ler o arquivo " + arquivo + ": " + e);
+            return;
+        }
+        CompiladorIncremental compilador = incrementais.computeIfAbsent(arquivo.toAbsolutePath().normalize(),
+                a -> new CompiladorIncremental(maximoErros));
+        Compilador.Resultado resultado = compilador.compilar(sessao.fonte, tamanho);
+        if (resultado.sucesso()) {
+            responder(saida, "OK", resultado.assembly);
+        } else {
+            responder(saida, "ERRO", resultado.diagnosticos.renderizar());
+        }
+    }
+
+    private void encerrar() {
+        encerrado = true;
+        ServerSocketChannel canal = servidor;
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Já fechado.
+            }
+        }
+    }
+
+    // Escreve "<STATUS> <n>\n" seguido dos n bytes do conteúdo.
+    static void responder(OutputStream saida, String status, String conteudo) throws IOException {
+        byte[] bytes = conteudo == null ? new byte[0] : conteudo.getBytes(StandardCharsets.UTF_8);
+        saida.write((status + " " + bytes.length + "\n").getBytes(StandardCharsets.UTF_8));
+        saida.write(bytes);
+        saida.flush();
+    }
+
+    /** Lê uma linha terminada em '\n' (sem o terminador), ou null no fim da entrada. */
+    static String lerLinha(InputStream entrada) throws IOException {
+        ByteArrayOutputStream linha = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = entrada.read()) != '\n') {
+            if (b < 0) return linha.size() == 0 ? null : linha.toString(StandardCharsets.UTF_8);
+            if (b != '\r') linha.write(b);
+        }
+        return linha.toString(StandardCharsets.UTF_8);
+    }
+
+    // Buffers de uma thread de atendimento, reaproveitados (e só aumentados) a cada pedido.
+    private static final class Sessao {
+        private ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+        char[] fonte = new char[64 * 1024];
+        private final CharsetDecoder decodificador = StandardCharsets.UTF_8.newDecoder();
+
+        // Lê o arquivo para fonte e retorna a quantidade de caracteres.
+        int ler(Path arquivo) throws IOException {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                long tamanho = canal.size();
+                if (tamanho > Integer.MAX_VALUE - 8) throw new IOException("arquivo grande demais");
+                if (bytes.capacity() < tamanho) bytes = ByteBuffer.allocate((int) tamanho);
+                bytes.clear().limit((int) tamanho);
+                while (bytes.hasRemaining() && canal.read(bytes) >= 0) {
+                    // lê até completar o arquivo
+                }
+                bytes.flip();
+            }
+            // Em UTF-8 cada byte gera no máximo um char.
+            if (fonte.length < bytes.remaining()) fonte = new char[bytes.remaining()];
+            CharBuffer destino = CharBuffer.wrap(fonte);
+            decodificador.reset();
+            CoderResult r = decodificador.decode(bytes, destino, true);
+            if (r.isError()) r.throwException();
+            decodificador.flush(destino);
+            return destino.position();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*SimplificacaoFluxo - Simplificação do grafo de fluxo de controle e remoção de código morto
+Passo aplicado a cada procedimento, repetido até nada mudar:
+- desvio com condição constante (ou com os dois lados iguais) vira salto, e a aresta que sobra
+  sai dos predecessores (e dos PHIs) do outro lado;
+- blocos inalcançáveis (código depois de um return, if (false), while (false), ...) são removidos;
+- um bloco que só salta para outro sem PHIs é pulado pelos predecessores, e um bloco com um
+  único predecessor que salta para ele é juntado a esse predecessor;
+- PHIs que ficam triviais (um só valor) são trocados pelo valor;
+- instruções sem efeito cujo resultado não é usado são removidas (marcação a partir das que têm
+  efeito; a divisão inteira que pode falhar conta como efeito);
+- GUARDAR numa estática que é sobrescrita antes de qualquer leitura em todos os caminhos (uma
+  chamada de função ou o retorno contam como leitura; encerrar o programa, não) é removido.
+ */
+// SimplificacaoFluxo.java
+import java.util.*;
+
+public final class SimplificacaoFluxo implements PassoIR.PorFuncao {
+    @Override
+    public String nome() {
+        return "simplificação do fluxo";
+    }
+
+    @Override
+    public boolean executar(FuncaoIR f) {
+        boolean mudou = false;
+        boolean mudouVolta = true;
+        while (mudouVolta) {
+            mudouVolta = simplificarDesvios(f);
+            mudouVolta |= removerInalcancaveis(f);
+            mudouVolta |= pularBlocosVazios(f);
+            mudouVolta |= juntarBlocos(f);
+            mudouVolta |= removerPhisTriviais(f);
+            mudouVolta |= removerInstrucoesMortas(f);
+            mudouVolta |= removerGravacoesMortas(f);
+            mudou |= mudouVolta;
+        }
+        return mudou;
+    }
+
+    /// Fluxo de controle
+
+    private static boolean simplificarDesvios(FuncaoIR f) {
+        boolean mudou = false;
+        for (BlocoIR b : f.blocos) {
+            InstrucaoIR t = b.terminador();
+            if (t.op != InstrucaoIR.Op.DESVIO) continue;
+            BlocoIR verdadeiro = t.alvos[0], falso = t.alvos[1];
+            int ocorrenciaFalso = verdadeiro == falso ? 1 : 0;
+            ValorIR c = t.argumento(0);
+            int mantida;
+            if (c.ehConstante()) {
+                mantida = c.inteiro != 0 ? 0 : 1;
+            } else if (verdadeiro == falso && argumentosIguais(b, verdadeiro)) {
+                mantida = 0;
+            } else {
+                continue;
+            }
+            if (mantida == 0) removerAresta(b, falso, ocorrenciaFalso);
+            else removerAresta(b, verdadeiro, 0);
+            b.instrucoes.set(b.instrucoes.size() - 1, InstrucaoIR.salto(t.alvos[mantida]));
+            mudou = true;
+        }
+        return mudou;
+    }
+
+    // Se os PHIs de destino recebem o mesmo valor pelas duas arestas que vêm de origem.
+    private static boolean argumentosIguais(BlocoIR origem, BlocoIR destino) {
+        int primeira = destino.predecessores.indexOf(origem);
+        int segunda = destino.predecessores.subList(primeira + 1, destino.predecessores.size()).indexOf(origem) + primeira + 1;
+        for (int i = 0; i < destino.quantidadePhis(); i++) {
+            InstrucaoIR phi = destino.instrucoes.get(i);
+            if (!phi.argumento(primeira).equals(phi.argumento(segunda))) return false;
+        }
+        return true;
+    }
+
+    // Tira a ocorrencia-ésima aresta origem -> destino dos predecessores e dos PHIs de destino.
+    private static void removerAresta(BlocoIR origem, BlocoIR destino, int ocorrencia) {
+        for (int k = 0; k < destino.predecessores.size(); k++) {
+            if (destino.predecessores.get(k) == origem && ocorrencia-- == 0) {
+                destino.predecessores.remove(k);
+                for (int i = 0; i < destino.quantidadePhis(); i++) destino.instrucoes.get(i).argumentos.remove(k);
+                return;
+            }
+        }
+    }
+
+    private static boolean removerInalcancaveis(FuncaoIR f) {
+        List<BlocoIR> alcancaveis = f.ordemReversa();
+        if (alcancaveis.size() == f.blocos.size()) return false;
+        boolean[] vivo = new boolean[f.blocos.size()];
+        for (BlocoIR b : alcancaveis) vivo[b.numero] = true;
+        for (BlocoIR b : f.blocos) {
+            if (vivo[b.numero]) continue;
+            List<BlocoIR> sucessores = b.sucessores();
+            for (BlocoIR s : sucessores) {
+                if (vivo[s.numero]) removerAresta(b, s, 0);
+            }
+        }
+        f.blocos.removeIf(b -> !vivo[b.numero]);
+        f.renumerar();
+        return true;
+    }
+
+    // Um bloco só com um salto para um bloco sem PHIs: os predecessores saltam direto para lá.
+    private static boolean pularBlocosVazios(FuncaoIR f) {
+        boolean mudou = false;
+        for (int i = 1; i < f.blocos.size(); i++) {
+            BlocoIR b = f.blocos.get(i);
+            if (b.instrucoes.size() != 1 || b.terminador().op != InstrucaoIR.Op.SALTO) continue;
+            BlocoIR alvo = b.terminador().alvos[0];
+            if (alvo == b || alvo.quantidadePhis() > 0) continue;
+            for (BlocoIR p : b.predecessores) {
+                BlocoIR[] alvos = p.terminador().alvos;
+                for (int j = 0; j < alvos.length; j++) {
+                    if (alvos[j] == b) alvos[j] = alvo;
+                }
+            }
+            int k = alvo.predecessores.indexOf(b);
+            alvo.predecessores.remove(k);
+            alvo.predecessores.addAll(k, b.predecessores);
+            f.blocos.remove(i--);
+            mudou = true;
+        }
+        if (mudou) f.renumerar();
+        return mudou;
+    }
+
+    // Junta ao predecessor o bloco cujo único predecessor termina com um salto para ele.
+    private static boolean juntarBlocos(FuncaoIR f) {
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        boolean mudou = false;
+        for (int i = 1; i < f.blocos.size(); i++) {
+            BlocoIR b = f.blocos.get(i);
+            if (b.predecessores.size() != 1) continue;
+            BlocoIR p = b.predecessores.get(0);
+            if (p == b || p.terminador().op != InstrucaoIR.Op.SALTO) continue;
+            int phis = b.quantidadePhis();
+            for (int k = 0; k < phis; k++) {
+                InstrucaoIR phi = b.instrucoes.get(k);
+                trocas.put(phi.destino.temporario, phi.argumento(0));
+            }
+            p.instrucoes.remove(p.instrucoes.size() - 1);
+            p.instrucoes.addAll(b.instrucoes.subList(phis, b.instrucoes.size()));
+            for (BlocoIR s : b.sucessores()) Collections.replaceAll(s.predecessores, b, p);
+            f.blocos.remove(i--);
+            mudou = true;
+        }
+        if (mudou) {
+            f.renumerar();
+            f.substituir(trocas);
+        }
+        return mudou;
+    }
+
+    // PHI cujos argumentos são todos o mesmo valor (ou o próprio PHI).
+    private static boolean removerPhisTriviais(FuncaoIR f) {
+        Map<Integer, ValorIR> trocas = new HashMap<>();
+        for (BlocoIR b : f.blocos) {
+            for (Iterator<InstrucaoIR> it = b.instrucoes.iterator(); it.hasNext(); ) {
+                InstrucaoIR phi = it.next();
+                if (phi.op != InstrucaoIR.Op.PHI) break;
+                ValorIR unico = null;
+                boolean trivial = true;
+                for (ValorIR v : phi.argumentos) {
+                    if (v.equals(phi.destino) || v.equals(unico)) continue;
+                    if (unico != null) trivial = false;
+                    unico = v;
+                }
+                if (!trivial) continue;
+                trocas.put(phi.destino.temporario, unico != null ? unico : ValorIR.zero(phi.destino.tipo));
+                it.remove();
+            }
+        }
+        f.substituir(trocas);
+        return !trocas.isEmpty();
+    }
+
+    /// Código morto
+
+    /** Remove as instruções sem efeito cujo resultado não é usado por nenhuma instrução útil. */
+    static boolean removerInstrucoesMortas(FuncaoIR f) {
+        InstrucaoIR[] definicao = new InstrucaoIR[f.quantidadeTemporarios()];
+        Set<InstrucaoIR> uteis = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<InstrucaoIR> pendentes = new ArrayDeque<>();
+        for (BlocoIR b : f.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.destino != null) definicao[ins.destino.temporario] = ins;
+                if ((ins.op.temEfeito() || podeFalhar(ins)) && uteis.add(ins)) pendentes.add(ins);
+            }
+        }
+        while (!pendentes.isEmpty()) {
+            for (ValorIR v : pendentes.poll().argumentos) {
+                if (!v.ehTemporario()) continue;
+                InstrucaoIR d = definicao[v.temporario];
+                if (d != null && uteis.add(d)) pendentes.add(d);
+            }
+        }
+        boolean mudou = false;
+        for (BlocoIR b : f.blocos) mudou |= b.instrucoes.removeIf(ins -> !uteis.contains(ins));
+        return mudou;
+    }
+
+    // Divisão ou resto inteiro que pode falhar em execução (divisor 0, ou -1 com o dividendo MIN).
+    private static boolean podeFalhar(InstrucaoIR ins) {
+        if (ins.op != InstrucaoIR.Op.DIVISAO && ins.op != InstrucaoIR.Op.RESTO) return false;
+        if (ins.destino.tipo != Tipo.INT) return false;
+        ValorIR divisor = ins.argumento(1);
+        return !divisor.ehConstante() || divisor.inteiro == 0 || divisor.inteiro == -1;
+    }
+
+    // Estáticas sobrescritas antes de serem lidas: análise para trás do conjunto de estáticas
+    // "mortas" (gravadas de novo antes de qualquer leitura) no início de cada bloco.
+    private static boolean removerGravacoesMortas(FuncaoIR f) {
+        Set<String> todas = new HashSet<>();
+        for (BlocoIR b : f.blocos) {
+            for (InstrucaoIR ins : b.instrucoes) {
+                if (ins.op == InstrucaoIR.Op.GUARDAR) todas.add(ins.simbolo);
+            }
+        }
+        if (todas.isEmpty()) return false;
+        List<BlocoIR> ordem = f.ordemReversa();
+        List<Set<String>> entradas = new ArrayList<>(Collections.nCopies(f.blocos.size(), null));
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (int i = ordem.size() - 1; i >= 0; i--) {
+                BlocoIR b = ordem.get(i);
+                Set<String> mortas = saida(b, entradas, todas);
+                for (int k = b.instrucoes.size() - 1; k >= 0; k--) transferir(b.instrucoes.get(k), mortas);
+                if (!mortas.equals(entradas.get(b.numero))) {
+                    entradas.set(b.numero, mortas);
+                    mudou = true;
+                }
+            }
+        }
+        boolean removeu = false;
+        for (BlocoIR b : ordem) {
+            Set<String> mortas = saida(b, entradas, todas);
+            for (int k = b.instrucoes.size() - 1; k >= 0; k--) {
+                InstrucaoIR ins = b.instrucoes.get(k);
+                if (ins.op == InstrucaoIR.Op.GUARDAR && mortas.contains(ins.simbolo)) {
+                    b.instrucoes.remove(k);
+                    removeu = true;
+                } else {
+                    transferir(ins, mortas);
+                }
+            }
+        }
+        return removeu;
+    }
+
+    // Estáticas mortas no fim do bloco: as que estão mortas na entrada de todos os sucessores.
+    private static Set<String> saida(BlocoIR b, List<Set<String>> entradas, Set<String> todas) {
+        InstrucaoIR t = b.terminador();
+        // Depois do retorno, outro procedimento pode ler qualquer uma; depois de encerrar, nenhum.
+        if (t.op == InstrucaoIR.Op.RETORNO) return new HashSet<>();
+        if (t.op == InstrucaoIR.Op.ENCERRAR) return new HashSet<>(todas);
+        Set<String> mortas = null;
+        for (BlocoIR s : b.sucessores()) {
+            Set<String> entrada = entradas.get(s.numero);
+            // Sucessor ainda não calculado: não restringe.
+            if (entrada == null) continue;
+            if (mortas == null) mortas = new HashSet<>(entrada);
+            else mortas.retainAll(entrada);
+        }
+        return mortas != null ? mortas : new HashSet<>(todas);
+    }
+
+    private static void transferir(InstrucaoIR ins, Set<String> mortas) {
+        switch (ins.op) {
+            case GUARDAR:
+                mortas.add(ins.simbolo);
+                break;
+            case CARREGAR:
+                mortas.remove(ins.simbolo);
+                break;
+            case CHAMADA:
+                mortas.clear();
+                break;
+            default:
+                break;
+        }
+    }
+}
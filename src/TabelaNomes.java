@@ -0,0 +1,93 @@
+/*TabelaNomes - Internação de identificadores
+Cada identificador distinto recebe um número inteiro denso (0, 1, 2, ...) no momento em que
+o analisador léxico o reconhece. As fases seguintes comparam e indexam esses números em vez de
+recalcular o hash das Strings. O texto de cada nome é criado uma única vez.
+ */
+// TabelaNomes.java
+import java.util.Arrays;
+
+public final class TabelaNomes {
+    // Endereçamento aberto: cada posição guarda id + 1 (0 = vazia).
+    private int[] tabela = new int[256];
+    private int[] hashes = new int[128];
+    private String[] nomes = new String[128];
+    private int quantidade = 0;
+
+    /** Retorna o id do identificador fonte[inicio .. inicio + tamanho), criando-o se for novo. */
+    public int intern(char[] fonte, int inicio, int tamanho) {
+        int h = 0;
+        for (int i = 0; i < tamanho; i++) h = 31 * h + fonte[inicio + i];
+        int mascara = tabela.length - 1;
+        int pos = espalhar(h) & mascara;
+        while (true) {
+            int entrada = tabela[pos];
+            if (entrada == 0) break;
+            int id = entrada - 1;
+            if (hashes[id] == h && mesmoTexto(nomes[id], fonte, inicio, tamanho)) return id;
+            pos = (pos + 1) & mascara;
+        }
+        return adicionar(new String(fonte, inicio, tamanho), h, pos);
+    }
+
+    /** Versão para quem já tem o nome como String. */
+    public int intern(String nome) {
+        int h = nome.hashCode();
+        int mascara = tabela.length - 1;
+        int pos = espalhar(h) & mascara;
+        while (true) {
+            int entrada = tabela[pos];
+            if (entrada == 0) break;
+            int id = entrada - 1;
+            if (hashes[id] == h && nomes[id].equals(nome)) return id;
+            pos = (pos + 1) & mascara;
+        }
+        return adicionar(nome, h, pos);
+    }
+
+    /** Texto do identificador com o id informado. */
+    public String nome(int id) {
+        return nomes[id];
+    }
+
+    /** Quantidade de identificadores distintos (os ids vão de 0 a tamanho() - 1). */
+    public int tamanho() {
+        return quantidade;
+    }
+
+    private int adicionar(String nome, int h, int pos) {
+        if (quantidade == nomes.length) {
+            nomes = Arrays.copyOf(nomes, quantidade * 2);
+            hashes = Arrays.copyOf(hashes, quantidade * 2);
+        }
+        int id = quantidade++;
+        nomes[id] = nome;
+        hashes[id] = h;
+        tabela[pos] = id + 1;
+        // Mantém a ocupação abaixo de 50%.
+        if (quantidade * 2 > tabela.length) redimensionar();
+        return id;
+    }
+
+    private void redimensionar() {
+        int[] nova = new int[tabela.length * 2];
+        int mascara = nova.length - 1;
+        for (int id = 0; id < quantidade; id++) {
+            int pos = espalhar(hashes[id]) & mascara;
+            while (nova[pos] != 0) pos = (pos + 1) & mascara;
+            nova[pos] = id + 1;
+        }
+        tabela = nova;
+    }
+
+    private static int espalhar(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean mesmoTexto(String nome, char[] fonte, int inicio, int tamanho) {
+        if (nome.length() != tamanho) return false;
+        for (int i = 0; i < tamanho; i++) {
+            if (nome.charAt(i) != fonte[inicio + i]) return false;
+        }
+        return true;
+    }
+}
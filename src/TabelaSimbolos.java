@@ -0,0 +1,201 @@
+/*TabelaSimbolos - Tabela de símbolos com escopos aninhados
+Os símbolos declarados ficam em vetores (arena) que só crescem; cada declaração recebe um
+número próprio, que identifica a variável mesmo quando outro escopo usa o mesmo nome.
+A busca é indexada pelo id do nome (TabelaNomes): visivel[id] aponta para a declaração
+mais interna ainda ativa, e cada declaração lembra a que ela escondeu.
+Abrir e fechar um escopo custa O(1) por símbolo declarado nele.
+Para a compilação incremental, a tabela pode registrar as dependências de uma unidade: os nomes
+que ela resolveu (ou não encontrou) entre os símbolos declarados antes do início da unidade.
+ */
+// TabelaSimbolos.java
+import java.util.*;
+
+public final class TabelaSimbolos {
+    private static final Tipo[] TIPOS = Tipo.values();
+    private final TabelaNomes nomes;
+
+    // Arena de símbolos (indexada pelo número do símbolo).
+    private int[] nomeSimbolo = new int[64];
+    private byte[] tipoSimbolo = new byte[64];
+    private int[] nivelSimbolo = new int[64];
+    private int[] anteriorSimbolo = new int[64];
+    // Nó da AST que declara o símbolo (-1 se ainda não definido).
+    private int[] declaracaoSimbolo = new int[64];
+    private int quantidade = 0;
+
+    // Declaração visível para cada id de nome (-1 = nenhuma).
+    private int[] visivel = new int[64];
+
+    // Pilha de símbolos ativos e a marca de início de cada escopo aberto.
+    private int[] ativos = new int[64];
+    private int quantidadeAtivos = 0;
+    private int[] marcas = new int[16];
+    private int nivel = 0;
+
+    // Registro de dependências: símbolos abaixo de inicioUnidade pertencem a unidades anteriores.
+    // -1 = registro desligado.
+    private int inicioUnidade = -1;
+    private int[] nomesDependencia = new int[16];
+    // Tipo (ordinal) que o nome tinha quando foi consultado; -1 se não estava declarado.
+    private byte[] tiposDependencia = new byte[16];
+    private int quantidadeDependencias = 0;
+    // Evita registrar o mesmo nome duas vezes: geracaoDependencia[nome] == geracao.
+    private int[] geracaoDependencia = new int[64];
+    private int geracao = 0;
+
+    public TabelaSimbolos(TabelaNomes nomes) {
+        this.nomes = nomes;
+        Arrays.fill(visivel, -1);
+    }
+
+    /** Abre um novo escopo (bloco, função ou laço). */
+    public void abrirEscopo() {
+        if (nivel == marcas.length) marcas = Arrays.copyOf(marcas, nivel * 2);
+        marcas[nivel++] = quantidadeAtivos;
+    }
+
+    /** Fecha o escopo atual, tornando visíveis novamente os nomes que ele escondia. */
+    public void fecharEscopo() {
+        int marca = marcas[--nivel];
+        while (quantidadeAtivos > marca) {
+            int s = ativos[--quantidadeAtivos];
+            visivel[nomeSimbolo[s]] = anteriorSimbolo[s];
+        }
+    }
+
+    /** Nível do escopo atual (0 = global). */
+    public int nivel() {
+        return nivel;
+    }
+
+    /**
+     * Declara o nome no escopo atual e retorna o número do símbolo,
+     * ou -1 se o nome já estiver declarado neste mesmo escopo.
+     */
+    public int declarar(int nome, Tipo tipo) {
+        garantirNome(nome);
+        int anterior = visivel[nome];
+        // No nível global, o resultado depende de o nome já existir numa unidade anterior.
+        if (nivel == 0 && anterior < inicioUnidade) registrarDependencia(nome, anterior);
+        if (anterior >= 0 && nivelSimbolo[anterior] == nivel) return -1;
+        if (quantidade == nomeSimbolo.length) {
+            int nova = quantidade * 2;
+            nomeSimbolo = Arrays.copyOf(nomeSimbolo, nova);
+            tipoSimbolo = Arrays.copyOf(tipoSimbolo, nova);
+            nivelSimbolo = Arrays.copyOf(nivelSimbolo, nova);
+            anteriorSimbolo = Arrays.copyOf(anteriorSimbolo, nova);
+            declaracaoSimbolo = Arrays.copyOf(declaracaoSimbolo, nova);
+        }
+        int s = quantidade++;
+        nomeSimbolo[s] = nome;
+        tipoSimbolo[s] = (byte) tipo.ordinal();
+        nivelSimbolo[s] = nivel;
+        anteriorSimbolo[s] = anterior;
+        declaracaoSimbolo[s] = -1;
+        visivel[nome] = s;
+        if (quantidadeAtivos == ativos.length) ativos = Arrays.copyOf(ativos, quantidadeAtivos * 2);
+        ativos[quantidadeAtivos++] = s;
+        return s;
+    }
+
+    /** Retorna o símbolo visível com esse nome, ou -1 se não houver. */
+    public int buscar(int nome) {
+        int s = nome < visivel.length ? visivel[nome] : -1;
+        if (s < inicioUnidade) registrarDependencia(nome, s);
+        return s;
+    }
+
+    /** Passa a registrar as dependências dos símbolos declarados a partir de agora (uma unidade). */
+    public void iniciarUnidade() {
+        inicioUnidade = quantidade;
+        quantidadeDependencias = 0;
+        geracao++;
+    }
+
+    /** Encerra o registro de dependências. */
+    public void encerrarUnidade() {
+        inicioUnidade = -1;
+    }
+
+    /** Primeiro símbolo declarado pela unidade atual (ou pela última encerrada). */
+    public int inicioUnidade() {
+        return inicioUnidade;
+    }
+
+    public int quantidadeDependencias() {
+        return quantidadeDependencias;
+    }
+
+    /** Id do nome da i-ésima dependência. */
+    public int nomeDependencia(int i) {
+        return nomesDependencia[i];
+    }
+
+    /** Tipo que a i-ésima dependência tinha ao ser consultada, ou null se o nome não estava declarado. */
+    public Tipo tipoDependencia(int i) {
+        return tiposDependencia[i] < 0 ? null : TIPOS[tiposDependencia[i]];
+    }
+
+    private void registrarDependencia(int nome, int simbolo) {
+        if (nome >= geracaoDependencia.length) {
+            geracaoDependencia = Arrays.copyOf(geracaoDependencia, Math.max(nome + 1, geracaoDependencia.length * 2));
+        }
+        if (geracaoDependencia[nome] == geracao) return;
+        geracaoDependencia[nome] = geracao;
+        if (quantidadeDependencias == nomesDependencia.length) {
+            nomesDependencia = Arrays.copyOf(nomesDependencia, quantidadeDependencias * 2);
+            tiposDependencia = Arrays.copyOf(tiposDependencia, quantidadeDependencias * 2);
+        }
+        nomesDependencia[quantidadeDependencias] = nome;
+        tiposDependencia[quantidadeDependencias] = simbolo < 0 ? -1 : tipoSimbolo[simbolo];
+        quantidadeDependencias++;
+    }
+
+    public Tipo tipo(int simbolo) {
+        return TIPOS[tipoSimbolo[simbolo]];
+    }
+
+    public int nome(int simbolo) {
+        return nomeSimbolo[simbolo];
+    }
+
+    public String nomeTexto(int simbolo) {
+        return nomes.nome(nomeSimbolo[simbolo]);
+    }
+
+    /** Nó da AST que declara o símbolo (-1 se desconhecido). */
+    public int declaracao(int simbolo) {
+        return declaracaoSimbolo[simbolo];
+    }
+
+    public void definirDeclaracao(int simbolo, int no) {
+        declaracaoSimbolo[simbolo] = no;
+    }
+
+    /** Nível do escopo em que o símbolo foi declarado (0 = global). */
+    public int nivel(int simbolo) {
+        return nivelSimbolo[simbolo];
+    }
+
+    /** Quantidade total de símbolos já declarados (inclusive de escopos fechados). */
+    public int quantidade() {
+        return quantidade;
+    }
+
+    /** Todas as declarações, por nome (a primeira declaração de cada nome prevalece). */
+    public Map<String, String> comoMapa() {
+        Map<String, String> mapa = new LinkedHashMap<>();
+        for (int s = 0; s < quantidade; s++) {
+            mapa.putIfAbsent(nomes.nome(nomeSimbolo[s]), TIPOS[tipoSimbolo[s]].nome);
+        }
+        return mapa;
+    }
+
+    private void garantirNome(int nome) {
+        if (nome >= visivel.length) {
+            int antigo = visivel.length;
+            visivel = Arrays.copyOf(visivel, Math.max(nome + 1, antigo * 2));
+            Arrays.fill(visivel, antigo, visivel.length, -1);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*Tipo - Tipos primitivos da MACSLang e regras dos operadores
+As regras de tipos ficam em tabelas pré-calculadas, indexadas pelo operador (ordinal do
+TokenType) e pelos tipos dos operandos. A análise semântica e o gerador de código consultam
+as mesmas tabelas, que são a única definição das regras:
+- RESULTADO[op][esq][dir]: tipo do resultado (ou null se a operação é inválida);
+- OPERANDOS[op][esq][dir]: tipo para o qual os operandos são convertidos antes da operação;
+- COMPATIVEL[esperado][obtido]: se um valor pode ser atribuído/retornado (int -> float é permitido).
+UNKNOWN é o tipo de expressões com erro já reportado; ele é aceito em qualquer posição para
+não gerar erros em cascata.
+ */
+// Tipo.java
+
+public enum Tipo {
+    INT("int"), FLOAT("float"), CHAR("char"), BOOL("bool"), STRING("string"), UNKNOWN("unknown");
+
+    public final String nome;
+
+    Tipo(String nome) {
+        this.nome = nome;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+
+    private static final Tipo[] TIPOS = values();
+    private static final int N = TIPOS.length;
+    private static final int NUM_OPERADORES = AnalisadorLexico.TokenType.values().length;
+
+    private static final Tipo[][][] RESULTADO = new Tipo[NUM_OPERADORES][N][N];
+    private static final Tipo[][][] OPERANDOS = new Tipo[NUM_OPERADORES][N][N];
+    private static final Tipo[][] RESULTADO_UNARIO = new Tipo[NUM_OPERADORES][N];
+    private static final boolean[][] COMPATIVEL = new boolean[N][N];
+
+    static {
+        AnalisadorLexico.TokenType[] aritmeticos = {
+                AnalisadorLexico.TokenType.PLUS, AnalisadorLexico.TokenType.MINUS,
+                AnalisadorLexico.TokenType.MULTIPLY, AnalisadorLexico.TokenType.DIVIDE,
+                AnalisadorLexico.TokenType.MODULO
+        };
+        AnalisadorLexico.TokenType[] relacionais = {
+                AnalisadorLexico.TokenType.EQUAL, AnalisadorLexico.TokenType.NOTEQUAL,
+                AnalisadorLexico.TokenType.LESSTHAN, AnalisadorLexico.TokenType.GREATERTHAN,
+                AnalisadorLexico.TokenType.LESSEQUAL, AnalisadorLexico.TokenType.GREATEREQUAL
+        };
+        for (AnalisadorLexico.TokenType op : aritmeticos) {
+            // Numéricos: int op int -> int; com float, o int é promovido a float.
+            binario(op, INT, INT, INT, INT);
+            binario(op, INT, FLOAT, FLOAT, FLOAT);
+            binario(op, FLOAT, INT, FLOAT, FLOAT);
+            binario(op, FLOAT, FLOAT, FLOAT, FLOAT);
+        }
+        // '+' com uma string em qualquer lado é concatenação.
+        for (Tipo t : TIPOS) {
+            if (t == UNKNOWN) continue;
+            binario(AnalisadorLexico.TokenType.PLUS, STRING, t, STRING, STRING);
+            binario(AnalisadorLexico.TokenType.PLUS, t, STRING, STRING, STRING);
+        }
+        for (AnalisadorLexico.TokenType op : relacionais) {
+            // Relacionais comparam valores do mesmo tipo, ou números com promoção a float.
+            for (Tipo t : TIPOS) {
+                if (t != UNKNOWN) binario(op, t, t, BOOL, t);
+            }
+            binario(op, INT, FLOAT, BOOL, FLOAT);
+            binario(op, FLOAT, INT, BOOL, FLOAT);
+        }
+        // Um operando de tipo desconhecido (erro já reportado) contamina o resultado sem novo erro.
+        for (int op = 0; op < NUM_OPERADORES; op++) {
+            for (Tipo t : TIPOS) {
+                RESULTADO[op][UNKNOWN.ordinal()][t.ordinal()] = UNKNOWN;
+                RESULTADO[op][t.ordinal()][UNKNOWN.ordinal()] = UNKNOWN;
+            }
+        }
+        // Operadores unários '+' e '-'.
+        for (AnalisadorLexico.TokenType op : new AnalisadorLexico.TokenType[]{
+                AnalisadorLexico.TokenType.PLUS, AnalisadorLexico.TokenType.MINUS}) {
+            RESULTADO_UNARIO[op.ordinal()][INT.ordinal()] = INT;
+            RESULTADO_UNARIO[op.ordinal()][FLOAT.ordinal()] = FLOAT;
+            RESULTADO_UNARIO[op.ordinal()][UNKNOWN.ordinal()] = UNKNOWN;
+        }
+
+        for (Tipo t : TIPOS) {
+            COMPATIVEL[t.ordinal()][t.ordinal()] = true;
+            COMPATIVEL[t.ordinal()][UNKNOWN.ordinal()] = true;
+            COMPATIVEL[UNKNOWN.ordinal()][t.ordinal()] = true;
+        }
+        COMPATIVEL[FLOAT.ordinal()][INT.ordinal()] = true;
+    }
+
+    private static void binario(AnalisadorLexico.TokenType op, Tipo esq, Tipo dir, Tipo resultado, Tipo operandos) {
+        RESULTADO[op.ordinal()][esq.ordinal()][dir.ordinal()] = resultado;
+        OPERANDOS[op.ordinal()][esq.ordinal()][dir.ordinal()] = operandos;
+    }
+
+    /** Tipo de "esq op dir", ou null se o operador não se aplica a esses tipos. */
+    public static Tipo resultado(AnalisadorLexico.TokenType op, Tipo esq, Tipo dir) {
+        return RESULTADO[op.ordinal()][esq.ordinal()][dir.ordinal()];
+    }
+
+    /** Tipo comum para o qual os operandos de "esq op dir" são convertidos. */
+    public static Tipo operandos(AnalisadorLexico.TokenType op, Tipo esq, Tipo dir) {
+        return OPERANDOS[op.ordinal()][esq.ordinal()][dir.ordinal()];
+    }
+
+    /** Tipo de "op operando" para operadores unários, ou null se inválido. */
+    public static Tipo resultadoUnario(AnalisadorLexico.TokenType op, Tipo operando) {
+        return RESULTADO_UNARIO[op.ordinal()][operando.ordinal()];
+    }
+
+    /** Indica se um valor do tipo obtido pode ser usado onde se espera o tipo esperado. */
+    public static boolean compativel(Tipo esperado, Tipo obtido) {
+        return COMPATIVEL[esperado.ordinal()][obtido.ordinal()];
+    }
+
+    /** Converte o nome usado no código-fonte (token TYPE) para o enum. */
+    public static Tipo deNome(String nome) {
+        switch (nome) {
+            case "int": return INT;
+            case "float": return FLOAT;
+            case "char": return CHAR;
+            case "bool": return BOOL;
+            case "string": return STRING;
+            default: return UNKNOWN;
+        }
+    }
+}
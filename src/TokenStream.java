@@ -0,0 +1,79 @@
+/*TokenStream - Fonte de tokens consumida pelo analisador sintático
+O analisador sintático só olha alguns tokens à frente e não depende de como eles estão guardados:
+a fonte usada pelo compilador é o cursor do BufferTokens, e deLista adapta uma lista de Token.
+ */
+// TokenStream.java
+import java.util.List;
+
+public interface TokenStream {
+    /** Retorna o token k posições à frente (0 = atual) sem consumi-lo, ou null após o fim. */
+    AnalisadorLexico.Token peek(int k);
+
+    /** Consome e retorna o token atual, ou null após o fim. */
+    AnalisadorLexico.Token next();
+
+    /** Quantidade de tokens já consumidos (índice do token atual). */
+    int posicao();
+
+    /** Tabela com os identificadores internados pelo analisador léxico. */
+    TabelaNomes nomes();
+
+    /** Id (em nomes()) do identificador k posições à frente, ou -1 se não for identificador. */
+    default int idNome(int k) {
+        if (tipo(k) != AnalisadorLexico.TokenType.IDENTIFIER) return -1;
+        return nomes().intern(lexema(k));
+    }
+
+    /** Consome o token atual sem precisar materializá-lo. */
+    default void avancar() {
+        next();
+    }
+
+    /** Tipo do token k posições à frente, ou null após o fim. */
+    default AnalisadorLexico.TokenType tipo(int k) {
+        AnalisadorLexico.Token t = peek(k);
+        return t != null ? t.type : null;
+    }
+
+    /** Lexema do token k posições à frente, ou null após o fim. */
+    default String lexema(int k) {
+        AnalisadorLexico.Token t = peek(k);
+        return t != null ? t.value : null;
+    }
+
+    /** Linha do token atual no código-fonte (1-based), ou -1 se desconhecida. */
+    default int linha() {
+        AnalisadorLexico.Token t = peek(0);
+        return t != null ? t.linha : -1;
+    }
+
+    /** Coluna do token atual no código-fonte (1-based), ou -1 se desconhecida. */
+    default int coluna() {
+        AnalisadorLexico.Token t = peek(0);
+        return t != null ? t.coluna : -1;
+    }
+
+    /** Adapta uma lista já materializada de tokens. */
+    static TokenStream deLista(List<AnalisadorLexico.Token> tokens) {
+        return new TokenStream() {
+            private final TabelaNomes nomes = new TabelaNomes();
+            private int indice = 0;
+
+            public TabelaNomes nomes() {
+                return nomes;
+            }
+
+            public AnalisadorLexico.Token peek(int k) {
+                return indice + k < tokens.size() ? tokens.get(indice + k) : null;
+            }
+
+            public AnalisadorLexico.Token next() {
+                return indice < tokens.size() ? tokens.get(indice++) : null;
+            }
+
+            public int posicao() {
+                return indice;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+/*ValorIR - Operando de uma instrução do código intermediário
+É um temporário (o resultado de uma instrução; em SSA cada temporário é definido uma única vez)
+ou uma constante: int, bool (0/1) e char guardam o valor em inteiro; float em real; string em
+texto. Todo valor tem um Tipo da linguagem.
+Valores são imutáveis; dois temporários com o mesmo número são o mesmo valor.
+ */
+// ValorIR.java
+import java.util.Objects;
+
+public final class ValorIR {
+    public final Tipo tipo;
+    // Número do temporário na função, ou -1 para uma constante.
+    public final int temporario;
+    public final int inteiro;
+    public final float real;
+    public final String texto;
+
+    private ValorIR(Tipo tipo, int temporario, int inteiro, float real, String texto) {
+        this.tipo = tipo;
+        this.temporario = temporario;
+        this.inteiro = inteiro;
+        this.real = real;
+        this.texto = texto;
+    }
+
+    public static ValorIR temporario(int numero, Tipo tipo) {
+        return new ValorIR(tipo, numero, 0, 0, null);
+    }
+
+    /** Constante int, bool ou char. */
+    public static ValorIR constante(int valor, Tipo tipo) {
+        return new ValorIR(tipo, -1, valor, 0, null);
+    }
+
+    public static ValorIR real(float valor) {
+        return new ValorIR(Tipo.FLOAT, -1, 0, valor, null);
+    }
+
+    public static ValorIR texto(String valor) {
+        return new ValorIR(Tipo.STRING, -1, 0, 0, valor);
+    }
+
+    /** Valor inicial de uma variável do tipo (0, 0.0, false ou a string vazia). */
+    public static ValorIR zero(Tipo tipo) {
+        switch (tipo) {
+            case FLOAT: return real(0);
+            case STRING: return texto("");
+            default: return constante(0, tipo);
+        }
+    }
+
+    public boolean ehTemporario() {
+        return temporario >= 0;
+    }
+
+    public boolean ehConstante() {
+        return temporario < 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ValorIR)) return false;
+        ValorIR v = (ValorIR) o;
+        if (temporario >= 0 || v.temporario >= 0) return temporario == v.temporario;
+        return tipo == v.tipo && inteiro == v.inteiro
+                && Float.floatToRawIntBits(real) == Float.floatToRawIntBits(v.real) && Objects.equals(texto, v.texto);
+    }
+
+    @Override
+    public int hashCode() {
+        if (temporario >= 0) return temporario;
+        return Objects.hash(tipo, inteiro, Float.floatToRawIntBits(real), texto);
+    }
+
+    @Override
+    public String toString() {
+        if (temporario >= 0) return "%" + temporario;
+        switch (tipo) {
+            case FLOAT: return Float.toString(real) + "f";
+            case STRING: return '"' + texto.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+            case BOOL: return inteiro != 0 ? "true" : "false";
+            default: return Integer.toString(inteiro);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*Verbosidade - Quanto o compilador exibe além do resultado
+- SILENCIOSO (-q, --quiet): apenas os erros e, no menu interativo, o assembly gerado.
+- NORMAL: também os cabeçalhos de cada fase e os resumos (padrão).
+- DEPURACAO (--debug): também o código-fonte, a lista de tokens e a AST em texto, úteis só
+  para programas pequenos; para programas grandes prefira --dump-tokens/--dump-ast.
+ */
+// Verbosidade.java
+
+public enum Verbosidade {
+    SILENCIOSO, NORMAL, DEPURACAO;
+
+    /** Verbosidade correspondente à opção da linha de comando, ou null se não for uma delas. */
+    public static Verbosidade daOpcao(String opcao) {
+        switch (opcao) {
+            case "-q": case "--quiet": return SILENCIOSO;
+            case "--debug": return DEPURACAO;
+            default: return null;
+        }
+    }
+
+    public boolean peloMenos(Verbosidade outra) {
+        return compareTo(outra) >= 0;
+    }
+}
@@ -0,0 +1,166 @@
+/*VerificadorIR - Verificação das invariantes do código intermediário
+Executado depois da construção e (opcionalmente) depois de cada passo de otimização, para que um
+passo com erro seja apontado onde errou, e não na execução do programa gerado. Verifica:
+- estrutura dos blocos: o primeiro não tem predecessores; cada bloco termina com exatamente um
+  terminador, os PHIs vêm antes das demais instruções e têm um argumento por predecessor;
+- os predecessores de cada bloco são exatamente as arestas que chegam nele;
+- SSA: cada temporário é definido uma vez, e a definição domina todos os usos (o uso por um PHI
+  conta no fim do predecessor correspondente). Blocos inalcançáveis não são verificados quanto a
+  dominância;
+- tipos dos argumentos de cada operação.
+Um erro lança IllegalStateException com a função, o bloco e a instrução.
+ */
+// VerificadorIR.java
+import java.util.*;
+
+public final class VerificadorIR {
+    private VerificadorIR() {
+    }
+
+    public static void verificar(ProgramaIR programa) {
+        for (FuncaoIR f : programa.funcoes) verificar(f);
+    }
+
+    public static void verificar(FuncaoIR f) {
+        if (f.blocos.isEmpty()) throw erro(f, null, null, "função sem blocos");
+        for (int i = 0; i < f.blocos.size(); i++) {
+            if (f.blocos.get(i).numero != i) throw erro(f, f.blocos.get(i), null, "número do bloco fora de ordem");
+        }
+        if (!f.entrada().predecessores.isEmpty()) throw erro(f, f.entrada(), null, "a entrada tem predecessores");
+
+        // Arestas que chegam em cada bloco, a partir dos terminadores.
+        Map<BlocoIR, List<BlocoIR>> chegadas = new HashMap<>();
+        BlocoIR[] blocoDefinicao = new BlocoIR[f.quantidadeTemporarios()];
+        int[] posicaoDefinicao = new int[f.quantidadeTemporarios()];
+        for (BlocoIR b : f.blocos) {
+            if (b.terminador() == null) throw erro(f, b, null, "bloco sem terminador");
+            int phis = b.quantidadePhis();
+            for (int i = 0; i < b.instrucoes.size(); i++) {
+                InstrucaoIR ins = b.instrucoes.get(i);
+                if (ins.op.terminador() && i != b.instrucoes.size() - 1) throw erro(f, b, ins, "terminador no meio do bloco");
+                if (ins.op == InstrucaoIR.Op.PHI && i >= phis) throw erro(f, b, ins, "PHI depois de outras instruções");
+                if (ins.destino != null) {
+                    int t = ins.destino.temporario;
+                    if (t < 0 || t >= blocoDefinicao.length) throw erro(f, b, ins, "temporário fora da função");
+                    if (blocoDefinicao[t] != null) throw erro(f, b, ins, "temporário definido mais de uma vez");
+                    blocoDefinicao[t] = b;
+                    posicaoDefinicao[t] = i;
+                }
+                if (ins.alvos != null) {
+                    for (BlocoIR alvo : ins.alvos) {
+                        if (alvo.numero < 0 || alvo.numero >= f.blocos.size() || f.blocos.get(alvo.numero) != alvo) {
+                            throw erro(f, b, ins, "salto para bloco fora da função");
+                        }
+                        chegadas.computeIfAbsent(alvo, x -> new ArrayList<>()).add(b);
+                    }
+                }
+                verificarTipos(f, b, ins);
+            }
+        }
+        Comparator<BlocoIR> porNumero = Comparator.comparingInt(x -> x.numero);
+        for (BlocoIR b : f.blocos) {
+            List<BlocoIR> esperados = new ArrayList<>(chegadas.getOrDefault(b, Collections.emptyList()));
+            List<BlocoIR> registrados = new ArrayList<>(b.predecessores);
+            esperados.sort(porNumero);
+            registrados.sort(porNumero);
+            if (!esperados.equals(registrados)) throw erro(f, b, null, "predecessores " + registrados + " mas arestas de " + esperados);
+            for (int i = 0; i < b.quantidadePhis(); i++) {
+                InstrucaoIR phi = b.instrucoes.get(i);
+                if (phi.argumentos.size() != b.predecessores.size()) throw erro(f, b, phi, "PHI com argumentos diferentes dos predecessores");
+            }
+        }
+
+        BlocoIR[] idom = f.dominadores();
+        for (BlocoIR b : f.blocos) {
+            if (idom[b.numero] == null) continue;
+            for (int i = 0; i < b.instrucoes.size(); i++) {
+                InstrucaoIR ins = b.instrucoes.get(i);
+                for (int k = 0; k < ins.argumentos.size(); k++) {
+                    ValorIR v = ins.argumentos.get(k);
+                    if (!v.ehTemporario()) continue;
+                    if (v.temporario >= blocoDefinicao.length || blocoDefinicao[v.temporario] == null) {
+                        throw erro(f, b, ins, "uso de " + v + ", que não é definido");
+                    }
+                    BlocoIR definicao = blocoDefinicao[v.temporario];
+                    if (ins.op == InstrucaoIR.Op.PHI) {
+                        BlocoIR p = b.predecessores.get(k);
+                        if (idom[p.numero] != null && !FuncaoIR.domina(definicao, p, idom)) {
+                            throw erro(f, b, ins, v + " não domina o fim de " + p.rotulo());
+                        }
+                    } else if (definicao == b ? posicaoDefinicao[v.temporario] >= i : !FuncaoIR.domina(definicao, b, idom)) {
+                        throw erro(f, b, ins, "a definição de " + v + " não domina o uso");
+                    }
+                }
+            }
+        }
+    }
+
+    private static void verificarTipos(FuncaoIR f, BlocoIR b, InstrucaoIR ins) {
+        List<ValorIR> a = ins.argumentos;
+        Tipo d = ins.destino != null ? ins.destino.tipo : null;
+        boolean ok;
+        switch (ins.op) {
+            case PARAMETRO:
+                ok = d != null && ins.indice >= 0 && ins.indice < f.parametros.length && f.parametros[ins.indice] == d;
+                break;
+            case COPIA:
+                ok = d != null && a.size() == 1 && a.get(0).tipo == d;
+                break;
+            case SOMA: case SUBTRACAO: case MULTIPLICACAO: case DIVISAO: case RESTO:
+                ok = (d == Tipo.INT || d == Tipo.FLOAT) && a.size() == 2 && a.get(0).tipo == d && a.get(1).tipo == d;
+                break;
+            case NEGACAO:
+                ok = (d == Tipo.INT || d == Tipo.FLOAT) && a.size() == 1 && a.get(0).tipo == d;
+                break;
+            case CONVERSAO:
+                ok = d == Tipo.FLOAT && a.size() == 1 && a.get(0).tipo == Tipo.INT;
+                break;
+            case COMPARACAO:
+                ok = d == Tipo.BOOL && ins.comparacao != null && a.size() == 2 && a.get(0).tipo == a.get(1).tipo;
+                break;
+            case CONCATENACAO:
+                ok = d == Tipo.STRING;
+                break;
+            case CHAMADA:
+                ok = d != null && ins.funcao >= 0 && ins.simbolo != null;
+                break;
+            case CARREGAR:
+                ok = d != null && ins.simbolo != null && a.isEmpty();
+                break;
+            case GUARDAR:
+                ok = d == null && ins.simbolo != null && a.size() == 1;
+                break;
+            case LEIA:
+                ok = d != null && (a.isEmpty() || a.size() == 1 && a.get(0).tipo == d);
+                break;
+            case ESCREVA:
+                ok = d == null;
+                break;
+            case PHI:
+                ok = d != null;
+                for (ValorIR v : a) ok &= v.tipo == d;
+                break;
+            case SALTO:
+                ok = a.isEmpty() && ins.alvos.length == 1;
+                break;
+            case DESVIO:
+                ok = a.size() == 1 && a.get(0).tipo == Tipo.BOOL && ins.alvos.length == 2;
+                break;
+            case RETORNO:
+                ok = f.ehTrecho() ? a.isEmpty() : a.size() == 1 && a.get(0).tipo == f.retorno;
+                break;
+            default:
+                // ENCERRAR
+                ok = a.size() == 1 && (a.get(0).tipo == Tipo.INT || a.get(0).tipo == Tipo.BOOL || a.get(0).tipo == Tipo.CHAR);
+                break;
+        }
+        if (!ok) throw erro(f, b, ins, "tipos ou argumentos inválidos");
+    }
+
+    private static IllegalStateException erro(FuncaoIR f, BlocoIR b, InstrucaoIR ins, String mensagem) {
+        StringBuilder sb = new StringBuilder("Código intermediário inválido em ").append(f);
+        if (b != null) sb.append(", ").append(b.rotulo());
+        if (ins != null) sb.append(", '").append(ins).append('\'');
+        return new IllegalStateException(sb.append(": ").append(mensagem).toString());
+    }
+}
@@ -0,0 +1,95 @@
+/*VisualizadorDespejo - Exibição dos arquivos gravados com --dump-tokens e --dump-ast
+Lê um ou mais arquivos do DespejoBinario e imprime o conteúdo como texto: um token por linha
+(linha:coluna e o token no formato de AnalisadorLexico.Token) ou a AST indentada, como em
+ArvoreSintatica.imprimir. O tipo do arquivo é identificado pelo cabeçalho.
+
+Uso: java VisualizadorDespejo <arquivo>...
+ */
+// VisualizadorDespejo.java
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+public final class VisualizadorDespejo {
+    private static final AnalisadorLexico.TokenType[] TIPOS_TOKEN = AnalisadorLexico.TokenType.values();
+    private static final ArvoreSintatica.TipoNo[] TIPOS_NO = ArvoreSintatica.TipoNo.values();
+    private static final Tipo[] TIPOS = Tipo.values();
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Uso: java VisualizadorDespejo <arquivo>...");
+            System.exit(2);
+        }
+        PrintStream saida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        int codigo = 0;
+        for (String a : args) {
+            try {
+                DespejoBinario.Leitor leitor = new DespejoBinario.Leitor(Paths.get(a));
+                if (args.length > 1) saida.println("== " + a);
+                if (leitor.conteudo == DespejoBinario.TOKENS) exibirTokens(leitor, saida);
+                else if (leitor.conteudo == DespejoBinario.ARVORE) saida.print(reconstruirArvore(leitor));
+                else throw new IOException(a + ": conteúdo desconhecido.");
+            } catch (IOException | RuntimeException e) {
+                saida.flush();
+                System.err.println("Erro ao ler " + a + ": " + e.getMessage());
+                codigo = 1;
+            }
+        }
+        saida.flush();
+        System.exit(codigo);
+    }
+
+    private static void exibirTokens(DespejoBinario.Leitor leitor, PrintStream saida) {
+        String[] nomes = leitor.textos();
+        int n = leitor.varint();
+        int linha = 1, coluna = 1;
+        StringBuilder sb = new StringBuilder(128);
+        for (int i = 0; i < n; i++) {
+            AnalisadorLexico.TokenType tipo = TIPOS_TOKEN[leitor.byteSemSinal()];
+            int avanco = leitor.varint();
+            linha += avanco;
+            coluna = avanco == 0 ? coluna + leitor.varint() : leitor.varint();
+            String lexema;
+            if (tipo == AnalisadorLexico.TokenType.IDENTIFIER) lexema = nomes[leitor.varint()];
+            else if ((lexema = AnalisadorLexicoDFA.lexemaFixo(tipo)) == null) lexema = leitor.texto();
+            sb.setLength(0);
+            sb.append(linha).append(':').append(coluna).append('\t')
+                    .append("Token(").append(tipo).append(", \"").append(lexema).append("\")");
+            saida.println(sb);
+        }
+    }
+
+    // Refaz a AST a partir da pré-ordem e a imprime com os nomes gravados no despejo.
+    private static String reconstruirArvore(DespejoBinario.Leitor leitor) {
+        ArvoreSintatica arvore = new ArvoreSintatica();
+        for (String literal : leitor.textos()) arvore.adicionarLiteral(literal);
+        String[] variaveis = leitor.textos();
+        String[] funcoes = leitor.textos();
+        int n = leitor.varint();
+        // Pilha de nós abertos e de quantos filhos ainda faltam ler para cada um.
+        int[] pais = new int[64], faltam = new int[64];
+        int topo = 0;
+        for (int i = 0; i < n; i++) {
+            ArvoreSintatica.TipoNo tipoNo = TIPOS_NO[leitor.byteSemSinal()];
+            Tipo tipo = TIPOS[leitor.byteSemSinal()];
+            int valor = leitor.zigzag();
+            int no = arvore.novoNo(tipoNo, leitor.varint(), valor);
+            arvore.definirTipo(no, tipo);
+            int filhos = leitor.varint();
+            while (topo > 0 && faltam[topo - 1] == 0) topo--;
+            if (topo > 0) {
+                arvore.adicionarFilho(pais[topo - 1], no);
+                faltam[topo - 1]--;
+            }
+            if (filhos > 0) {
+                if (topo == pais.length) {
+                    pais = Arrays.copyOf(pais, topo * 2);
+                    faltam = Arrays.copyOf(faltam, topo * 2);
+                }
+                pais[topo] = no;
+                faltam[topo++] = filhos;
+            }
+        }
+        return arvore.imprimir(s -> variaveis[s], f -> funcoes[f]);
+    }
+}